@@ -0,0 +1,39 @@
+package model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the adjacency queries of the board
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        board = new Board();
+    }
+
+    @Benchmark
+    public void getAdjacents(Blackhole blackhole) {
+        for (int i = 0; i < Board.SIZE; i++) {
+            blackhole.consume(board.getAdjacents(board.getCell(i)));
+        }
+    }
+
+    @Benchmark
+    public void getAdjacentMask(Blackhole blackhole) {
+        for (int i = 0; i < Board.SIZE; i++) {
+            blackhole.consume(board.getAdjacentMask(board.getCell(i)));
+        }
+    }
+}
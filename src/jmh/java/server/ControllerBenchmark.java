@@ -0,0 +1,60 @@
+package server;
+
+import model.Card;
+import model.Game;
+import model.Player;
+import org.openjdk.jmh.annotations.*;
+import server.engine.Perft;
+import server.engine.Position;
+import util.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the calculation of the possible actions of the Controller with the Athena enemy rules active, both the
+ * generation and the reuse of the cached actions of an unchanged position
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark {
+
+    private Controller controller;
+    private Player player;
+
+    @Setup
+    public void setUp() {
+        List<Card> cards = Configurator.getAllCards();
+        Card athena = null;
+        Card enemy = null;
+        for (Card card : cards) {
+            if (card.getName().equals("Athena"))
+                athena = card;
+            else if (enemy == null)
+                enemy = card;
+        }
+        Position position = Perft.createSeedPosition(enemy, athena);
+        Game game = position.getGame();
+        player = position.getCurrentPlayer();
+        // Athena has moved up during her last round
+        Player athenaPlayer = game.getNextPlayer(player);
+        athenaPlayer.getRoundActions().add(new Action(ActionType.MOVE, Genre.MALE, Direction.N, 1));
+        controller = new Controller(game);
+    }
+
+    @Benchmark
+    public RoundActions calculatePossibleActions() {
+        // Every invocation generates the actions, like after a move
+        controller.invalidatePossibleActions();
+        return controller.calculatePossibleActions(player);
+    }
+
+    @Benchmark
+    public RoundActions calculatePossibleActionsCached() {
+        return controller.calculatePossibleActions(player);
+    }
+}
@@ -0,0 +1,60 @@
+package server.rules;
+
+import model.Card;
+import model.Game;
+import model.Player;
+import org.openjdk.jmh.annotations.*;
+import server.engine.Perft;
+import server.engine.Position;
+import util.Configurator;
+import util.IntActionBuffer;
+import util.RoundActions;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the generation of the possible actions of each card from the perft seed position
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+
+    @Param({"Apollo", "Artemis", "Athena", "Atlas", "Demeter", "Hephaestus", "Minotaur", "Pan", "Prometheus"})
+    public String cardName;
+
+    private Rules rules;
+    private Player player;
+    private Game game;
+    private IntActionBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        List<Card> cards = Configurator.getAllCards();
+        for (int i = 0; i < cards.size(); i++) {
+            if (cards.get(i).getName().equals(cardName)) {
+                Position position = Perft.createSeedPosition(cards.get(i), cards.get((i + 1) % cards.size()));
+                game = position.getGame();
+                player = position.getCurrentPlayer();
+                rules = player.getCard().getRules();
+            }
+        }
+        buffer = new IntActionBuffer();
+    }
+
+    @Benchmark
+    public RoundActions nextPossibleActions() {
+        return rules.nextPossibleActions(player, game);
+    }
+
+    @Benchmark
+    public int generate() {
+        buffer.clear();
+        rules.generate(player, game, buffer);
+        return buffer.size();
+    }
+}
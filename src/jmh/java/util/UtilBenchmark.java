@@ -0,0 +1,49 @@
+package util;
+
+import model.Game;
+import org.openjdk.jmh.annotations.*;
+import server.engine.Perft;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the construction of the map synthesis and the lookups in the round actions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    private Game game;
+    private RoundActions roundActions;
+
+    @Setup
+    public void setUp() {
+        game = Perft.createSeedPosition(Configurator.getAllCards().get(0), Configurator.getAllCards().get(1)).getGame();
+        roundActions = new RoundActions();
+        for (Genre genre : Genre.values()) {
+            for (Direction direction : Direction.values()) {
+                roundActions.add(new Action(ActionType.MOVE, genre, direction, 0));
+                roundActions.add(new Action(ActionType.FLOOR, genre, direction, 0));
+            }
+        }
+    }
+
+    @Benchmark
+    public MapInfo mapInfo() {
+        return new MapInfo(game);
+    }
+
+    @Benchmark
+    public Action findByStrings() {
+        return roundActions.find("FLOOR", "F", "SE");
+    }
+
+    @Benchmark
+    public Action findByEnums() {
+        return roundActions.find(ActionType.FLOOR, Genre.FEMALE, Direction.SE);
+    }
+}
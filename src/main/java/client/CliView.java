@@ -495,9 +495,13 @@ public class CliView implements View {
             }
             showPossibleActions(roundActions);
 
-            System.out.print("\n\n\t\t" + Frmt.style('b', "Insert your action type [MOVE/FLOOR/DOME/END]:") + " ");
+            System.out.print("\n\n\t\t" + Frmt.style('b', "Insert your action type [MOVE/FLOOR/DOME/END] or HINT:") + " ");
             action = scanner.next();
-            if (!action.equalsIgnoreCase("end")) {
+            if (action.equalsIgnoreCase("hint")) {
+                serverHandler.requestHint();
+                System.out.println("\t\t  > Looking for a good action...");
+                theAction = null;
+            } else if (!action.equalsIgnoreCase("end")) {
                 System.out.print("\t\t" + Frmt.style('b', "Insert the genre of the worker [M/F]:") + " ");
                 genre = scanner.next();
                 System.out.print("\t\t" + Frmt.style('b', "Insert the direction [N/NE/E/SE/S/SW/W/NW]:") + " ");
@@ -507,10 +511,12 @@ public class CliView implements View {
             } else {
                 theAction = roundActions.findEnd();
             }
-            if (theAction == null) {
+            if (theAction == null && !action.equalsIgnoreCase("hint")) {
                 Frmt.clearScreen();
                 System.out.println(Frmt.color('r', "\t\t  > Invalid action. Try again.\n"));
                 incorrect = true;
+            } else if (theAction == null) {
+                incorrect = true;
             }
         } while (incorrect);
         serverHandler.sendAction(theAction);
@@ -588,6 +594,22 @@ public class CliView implements View {
         showMessage("\n\n\t\t" + Frmt.style('b', Frmt.color('r', loserNickname.toUpperCase() + " has lost " + Frmt.DEATH)), false);
     }
 
+    /**
+     * Shows the action suggested by the server
+     *
+     * @param action The suggested action or null value if no hint is available
+     */
+    public void showHint(Action action) {
+        if (action == null) {
+            System.out.println(Frmt.color('y', "\n\t\t  > No hint is available now."));
+        } else if (action.getActionType() == ActionType.END) {
+            System.out.println(Frmt.color('g', "\n\t\t  > Hint: END"));
+        } else {
+            System.out.println(Frmt.color('g', "\n\t\t  > Hint: " + action.getActionType().name() + " " +
+                    action.getGenre().name().charAt(0) + " " + action.getDirection().name()));
+        }
+    }
+
     /**
      * Shows the user who is taking his turn
      *
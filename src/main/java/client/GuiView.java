@@ -8,6 +8,8 @@ import client.gui.elements.*;
 import model.Card;
 import model.Cell;
 import model.Player;
+import util.Action;
+import util.ActionType;
 import util.Configurator;
 import util.Genre;
 import util.MapInfo;
@@ -539,6 +541,10 @@ public class GuiView implements View {
      * @param newScreen    True if it's necessary to clean the interface
      */
     public void showErrorMessage(String errorMessage, boolean newScreen) {
+        if (!newScreen && mapElement != null) {
+            showMessage(errorMessage, false);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             clear(bodyContainer);
 
@@ -560,6 +566,22 @@ public class GuiView implements View {
         showMessage(loserNickname.toUpperCase() + " has lost ", false);
     }
 
+    /**
+     * Shows the action suggested by the server
+     *
+     * @param action The suggested action or null value if no hint is available
+     */
+    public void showHint(Action action) {
+        if (action == null) {
+            showMessage("No hint is available now", false);
+        } else if (action.getActionType() == ActionType.END) {
+            showMessage("Hint: END", false);
+        } else {
+            showMessage("Hint: " + action.getActionType().name() + " " + action.getGenre().name() + " " +
+                    action.getDirection().name(), false);
+        }
+    }
+
     /**
      * Shows the user who is taking his turn
      *
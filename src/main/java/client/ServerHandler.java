@@ -4,18 +4,21 @@ import model.Card;
 import model.Cell;
 import network.CVMessage;
 import network.MVMessage;
+import network.FrameCodec;
 import network.Message;
 import network.messages.*;
+import network.ping.Heartbeat;
 import network.ping.NetworkHandler;
-import network.ping.PingSender;
 import util.Action;
 import util.Configurator;
 import util.Genre;
 import util.MessageType;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.util.Date;
 import java.util.List;
@@ -25,8 +28,8 @@ import java.util.List;
  */
 public class ServerHandler implements NetworkHandler {
     private final Object lock = new Object();
-    private ObjectInputStream input;
-    private ObjectOutputStream output;
+    private DataInputStream input;
+    private OutputStream output;
     private Socket socket;
     private View view;
     private String nickname;
@@ -38,7 +41,7 @@ public class ServerHandler implements NetworkHandler {
     public void startListening() {
         while (isConnected) {
             try {
-                Message serverMessage = (Message) input.readObject();
+                Message serverMessage = FrameCodec.read(input);
                 if (serverMessage.getType() == MessageType.MV) {
                     if (serverMessage instanceof ShowDisconnection && isConnected) {
                         // Under control disconnection
@@ -104,13 +107,13 @@ public class ServerHandler implements NetworkHandler {
     public void setConnection(String serverIP) {
         try {
             socket = new Socket(serverIP, Configurator.getDefaultPort());
-            output = new ObjectOutputStream(socket.getOutputStream());
-            input = new ObjectInputStream(socket.getInputStream());
+            output = new BufferedOutputStream(socket.getOutputStream());
+            input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
             isConnected = true;
 
             // Sets the connection timeout to 20 seconds and start sending pings to the server every 5 seconds
-            socket.setSoTimeout(20000);
-            (new PingSender(this, false)).start();
+            socket.setSoTimeout((int) Heartbeat.TIMEOUT_MILLIS);
+            new Heartbeat(this, false, Heartbeat.getBlockingSender(), null).start();
         } catch (IOException e) {
             String errorMessage = "Server unreachable" + (Configurator.getErrorDetailsFlag() ? " during connection setup" : "");
             view.showErrorMessage(errorMessage, true);
@@ -151,9 +154,7 @@ public class ServerHandler implements NetworkHandler {
         if (isConnected) {
             try {
                 synchronized (lock) {
-                    output.writeUnshared(message);
-                    output.flush();
-                    output.reset();
+                    FrameCodec.write(output, message);
                 }
             } catch (IOException e) {
                 isConnected = false;
@@ -240,6 +241,13 @@ public class ServerHandler implements NetworkHandler {
         send(new Turn(theAction, nickname));
     }
 
+    /**
+     * Asks the server a suggested action
+     */
+    public void requestHint() {
+        send(new Hint(nickname));
+    }
+
     /**
      * Prepare a new game or terminate the program
      *
@@ -3,6 +3,7 @@ package client;
 import model.Card;
 import model.Cell;
 import model.Player;
+import util.Action;
 import util.Genre;
 import util.MapInfo;
 import util.RoundActions;
@@ -122,6 +123,13 @@ public interface View {
      */
     void askAction(RoundActions roundActions, MapInfo mapInfo, String loserNickname);
 
+    /**
+     * Shows the action suggested by the server
+     *
+     * @param action The suggested action or null value if no hint is available
+     */
+    void showHint(Action action);
+
     /**
      * Notify the players that the game has ended and notify the winner
      *
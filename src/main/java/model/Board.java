@@ -2,34 +2,219 @@ package model;
 
 import util.Direction;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import static util.Direction.*;
 
 /**
- * Stores information about the game board
+ * Stores information about the game board.
+ * Besides the matrix of cells, the board keeps a bitboard representation of its buildings: every cell is mapped
+ * to the bit (row * 5 + column) of an int mask, and the masks are kept in sync by the cells themselves.
+ * The geometry of the board never changes, so neighbours and directions are looked up in precomputed tables
  */
 public class Board implements Serializable {
 
     private static final int ROWS = 5;
     private static final int COLUMNS = 5;
+    public static final int SIZE = ROWS * COLUMNS;
+    private static final int MAX_FLOOR = 3;
+    private static final int[][] NEXT_INDEXES = calculateNextIndexes();
+    private static final int[][] ADJACENT_INDEXES = calculateAdjacentIndexes();
+    private static final int[] ADJACENT_MASKS = calculateAdjacentMasks();
+    private static final Direction[][] DIRECTIONS = calculateDirections();
     private final Cell[][] board;
+    private final int[] floorMasks;
+    private int domeMask;
+    private long hash;
+    private transient List<List<Cell>> adjacentCells;
 
     /**
      * Constructor: build the Board
      */
     public Board() {
         this.board = new Cell[ROWS][COLUMNS];
+        this.floorMasks = new int[MAX_FLOOR + 1];
+        this.domeMask = 0;
+        this.hash = 0;
 
         for (int i = 0; i < ROWS; i++) {
             for (int j = 0; j < COLUMNS; j++) {
-                board[i][j] = new Cell(i, j);
+                board[i][j] = new Cell(i, j, this);
+                floorMasks[0] |= maskOf(i, j);
+            }
+        }
+        this.adjacentCells = calculateAdjacentCells();
+    }
+
+    /**
+     * Gets the bit index of a specified position of the board
+     *
+     * @param row    The row number
+     * @param column The column number
+     * @return The bit index of the position
+     */
+    public static int indexOf(int row, int column) {
+        return row * COLUMNS + column;
+    }
+
+    /**
+     * Gets the bit index of a specified cell
+     *
+     * @param cell The cell
+     * @return The bit index of the cell
+     */
+    public static int indexOf(Cell cell) {
+        return indexOf(cell.getRow(), cell.getColumn());
+    }
+
+    /**
+     * Gets the single-bit mask of a specified position of the board
+     *
+     * @param row    The row number
+     * @param column The column number
+     * @return The mask that contains only the specified position
+     */
+    public static int maskOf(int row, int column) {
+        return 1 << indexOf(row, column);
+    }
+
+    /**
+     * Gets the single-bit mask of a specified cell
+     *
+     * @param cell The cell
+     * @return The mask that contains only the specified cell or 0 if the cell is null
+     */
+    public static int maskOf(Cell cell) {
+        return cell == null ? 0 : maskOf(cell.getRow(), cell.getColumn());
+    }
+
+    /**
+     * Calculates the index of the next position of every position of the board in every direction
+     *
+     * @return The next indexes (or -1 outside the board) indexed by bit index and direction ordinal
+     */
+    private static int[][] calculateNextIndexes() {
+        Direction[] directions = Direction.values();
+        int[][] nextIndexes = new int[SIZE][directions.length];
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLUMNS; j++) {
+                for (Direction direction : directions) {
+                    int row = i + direction.getRowDifference();
+                    int column = j + direction.getColumnDifference();
+                    boolean isInside = row >= 0 && row < ROWS && column >= 0 && column < COLUMNS;
+                    nextIndexes[indexOf(i, j)][direction.ordinal()] = isInside ? indexOf(row, column) : -1;
+                }
+            }
+        }
+        return nextIndexes;
+    }
+
+    /**
+     * Calculates the indexes of the adjacent positions of every position of the board, sorted by direction
+     *
+     * @return The adjacent indexes indexed by bit index
+     */
+    private static int[][] calculateAdjacentIndexes() {
+        int[][] adjacentIndexes = new int[SIZE][];
+        for (int index = 0; index < SIZE; index++) {
+            int[] nextIndexes = NEXT_INDEXES[index];
+            int count = 0;
+            for (int nextIndex : nextIndexes) {
+                if (nextIndex >= 0) count++;
+            }
+            adjacentIndexes[index] = new int[count];
+            count = 0;
+            for (int nextIndex : nextIndexes) {
+                if (nextIndex >= 0) adjacentIndexes[index][count++] = nextIndex;
+            }
+        }
+        return adjacentIndexes;
+    }
+
+    /**
+     * Calculates the masks of the adjacent cells of every position of the board
+     *
+     * @return The adjacent masks indexed by bit index
+     */
+    private static int[] calculateAdjacentMasks() {
+        int[] masks = new int[SIZE];
+        for (int index = 0; index < SIZE; index++) {
+            for (int adjacentIndex : ADJACENT_INDEXES[index]) {
+                masks[index] |= 1 << adjacentIndex;
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Calculates the direction that leads from every position of the board to each of its adjacent positions
+     *
+     * @return The directions (or null for non-adjacent positions) indexed by starting and arrival bit index
+     */
+    private static Direction[][] calculateDirections() {
+        Direction[][] directions = new Direction[SIZE][SIZE];
+        for (int index = 0; index < SIZE; index++) {
+            for (Direction direction : Direction.values()) {
+                int nextIndex = NEXT_INDEXES[index][direction.ordinal()];
+                if (nextIndex >= 0) {
+                    directions[index][nextIndex] = direction;
+                }
+            }
+        }
+        return directions;
+    }
+
+    /**
+     * Gets the index of the position obtained by moving from one position in one direction
+     *
+     * @param index     The bit index of the starting position
+     * @param direction The direction of the movement
+     * @return The bit index of the next position or -1 if it is outside the board
+     */
+    public static int getNextIndex(int index, Direction direction) {
+        return NEXT_INDEXES[index][direction.ordinal()];
+    }
+
+    /**
+     * Gets the direction in which you need to move to reach an adjacent cell
+     *
+     * @param cell         The starting cell
+     * @param adjacentCell The cell to be reached
+     * @return The direction in which you need to move or null value if the cells are not adjacent
+     */
+    public static Direction getDirection(Cell cell, Cell adjacentCell) {
+        return getDirection(indexOf(cell.getRow(), cell.getColumn()), indexOf(adjacentCell.getRow(), adjacentCell.getColumn()));
+    }
+
+    /**
+     * Gets the direction in which you need to move to reach an adjacent position
+     *
+     * @param index         The bit index of the starting position
+     * @param adjacentIndex The bit index of the position to be reached
+     * @return The direction in which you need to move or null value if the positions are not adjacent
+     */
+    public static Direction getDirection(int index, int adjacentIndex) {
+        return DIRECTIONS[index][adjacentIndex];
+    }
+
+    /**
+     * Builds the immutable lists of the adjacent cells of every cell of the board
+     *
+     * @return The lists of adjacent cells indexed by bit index
+     */
+    private List<List<Cell>> calculateAdjacentCells() {
+        List<List<Cell>> lists = new ArrayList<>(SIZE);
+        for (int index = 0; index < SIZE; index++) {
+            List<Cell> cells = new ArrayList<>(ADJACENT_INDEXES[index].length);
+            for (int adjacentIndex : ADJACENT_INDEXES[index]) {
+                cells.add(getCell(adjacentIndex));
             }
+            lists.add(Collections.unmodifiableList(cells));
         }
+        return lists;
     }
 
     /**
@@ -59,14 +244,110 @@ public class Board implements Serializable {
             return null;
     }
 
+    /**
+     * Gets the cell placed in a specified bit index
+     *
+     * @param index The bit index of the cell
+     * @return The cell placed in the specified bit index
+     */
+    public Cell getCell(int index) {
+        return board[index / COLUMNS][index % COLUMNS];
+    }
+
+    /**
+     * Gets all the cells contained in a mask
+     *
+     * @param mask The mask of the cells
+     * @return A list of the cells contained in the mask
+     */
+    public List<Cell> getCells(int mask) {
+        List<Cell> cells = new ArrayList<>(Integer.bitCount(mask));
+        while (mask != 0) {
+            cells.add(getCell(Integer.numberOfTrailingZeros(mask)));
+            mask &= mask - 1;
+        }
+        return cells;
+    }
+
+    /**
+     * Gets the mask of the cells that are adjacent to a specified cell
+     *
+     * @param cell A cell of the board
+     * @return The mask of the adjacent cells
+     */
+    public int getAdjacentMask(Cell cell) {
+        return ADJACENT_MASKS[indexOf(cell.getRow(), cell.getColumn())];
+    }
+
+    /**
+     * Gets the mask of the cells that have a dome
+     *
+     * @return The mask of the cells that have a dome
+     */
+    public int getDomeMask() {
+        return domeMask;
+    }
+
+    /**
+     * Gets the mask of the cells that have exactly a specified number of floors
+     *
+     * @param floor The number of floors
+     * @return The mask of the cells with the specified number of floors
+     */
+    public int getFloorMask(int floor) {
+        return floorMasks[floor];
+    }
+
+    /**
+     * Gets the mask of the cells that have at most a specified number of floors
+     *
+     * @param maxFloor The maximum number of floors (negative values produce an empty mask)
+     * @return The mask of the cells with at most the specified number of floors
+     */
+    public int getFloorMaskUpTo(int maxFloor) {
+        int mask = 0;
+        for (int floor = 0; floor <= Math.min(maxFloor, MAX_FLOOR); floor++) {
+            mask |= floorMasks[floor];
+        }
+        return mask;
+    }
+
+    /**
+     * Updates the masks after a change of the buildings of a cell
+     *
+     * @param cell     The modified cell
+     * @param oldFloor The number of floors before the change
+     * @param oldDome  The dome attribute before the change
+     */
+    void updateCell(Cell cell, int oldFloor, boolean oldDome) {
+        int index = indexOf(cell);
+        int mask = 1 << index;
+        floorMasks[oldFloor] &= ~mask;
+        floorMasks[cell.getFloor()] |= mask;
+        hash ^= Zobrist.floor(index, oldFloor) ^ Zobrist.floor(index, cell.getFloor());
+        if (oldDome != cell.getDome()) {
+            domeMask ^= mask;
+            hash ^= Zobrist.dome(index);
+        }
+    }
+
+    /**
+     * Gets the Zobrist hash of the floors and the domes of the board
+     *
+     * @return The hash of the board
+     */
+    public long getHash() {
+        return hash;
+    }
+
     /**
      * Gets all the cells that are adjacent to a specified cell
      *
      * @param cell A cell of the board
-     * @return A list of the adjacent cells
+     * @return An unmodifiable list of the adjacent cells
      */
     public List<Cell> getAdjacents(Cell cell) {
-        return Stream.of(Direction.values()).map(direction -> getNextCell(cell, direction)).filter(Objects::nonNull).collect(Collectors.toList());
+        return adjacentCells.get(indexOf(cell.getRow(), cell.getColumn()));
     }
 
     /**
@@ -74,19 +355,13 @@ public class Board implements Serializable {
      *
      * @param cell      The starting cell
      * @param direction The direction of the movement
-     * @return The next cell
+     * @return The next cell or null value if it is outside the board
      */
     public Cell getNextCell(Cell cell, Direction direction) {
-        Direction[][] possibleDirections = {{NW, N, NE}, {W, null, E}, {SW, S, SE}};
-
-        for (int rowInc = 0; rowInc < 3; rowInc++) {
-            for (int columnInc = 0; columnInc < 3; columnInc++) {
-                if (possibleDirections[rowInc][columnInc] == direction) {
-                    return getCell(cell.getRow() + (rowInc - 1), cell.getColumn() + (columnInc - 1));
-                }
-            }
-        }
-        return null;
+        if (direction == null)
+            return null;
+        int nextIndex = getNextIndex(indexOf(cell.getRow(), cell.getColumn()), direction);
+        return nextIndex < 0 ? null : getCell(nextIndex);
     }
 
     /**
@@ -97,13 +372,25 @@ public class Board implements Serializable {
      * @return The cell from which you moved or null value
      */
     public Cell getPrevCell(Cell currentCell, Direction previouslyDirection) {
-        List<Cell> cells = getAdjacents(currentCell).
-                stream().
-                filter(cell -> currentCell.equals(getNextCell(cell, previouslyDirection))).
-                collect(Collectors.toList());
-        if (cells.size() > 0)
-            return cells.get(0);
-        else
+        if (previouslyDirection == null)
             return null;
+        return getNextCell(currentCell, previouslyDirection.opposite());
+    }
+
+    /**
+     * Restores the link between the board and its cells after deserialization
+     *
+     * @param in The input stream
+     * @throws IOException            When the stream can't be read
+     * @throws ClassNotFoundException When a serialized class can't be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (Cell[] row : board) {
+            for (Cell cell : row) {
+                cell.setBoard(this);
+            }
+        }
+        adjacentCells = calculateAdjacentCells();
     }
 }
@@ -13,6 +13,7 @@ public class Cell implements Serializable {
     private final int column;
     private boolean dome;
     private int floor;
+    private transient Board board;
 
     /**
      * Constructor: build a cell
@@ -27,6 +28,27 @@ public class Cell implements Serializable {
         this.floor = 0;
     }
 
+    /**
+     * Constructor: build a cell that keeps the masks of its board updated
+     *
+     * @param row    The row number of the cell
+     * @param column The the column number of the cell
+     * @param board  The board that contains the cell
+     */
+    Cell(int row, int column, Board board) {
+        this(row, column);
+        this.board = board;
+    }
+
+    /**
+     * Sets the board that contains the cell
+     *
+     * @param board The board that contains the cell
+     */
+    void setBoard(Board board) {
+        this.board = board;
+    }
+
     /**
      * Gets the column number of the cell
      *
@@ -83,7 +105,11 @@ public class Cell implements Serializable {
      * @param set True to add the dome, false to remove the dome
      */
     public void setDome(boolean set) {
+        boolean oldDome = dome;
         dome = set;
+        if (board != null) {
+            board.updateCell(this, floor, oldDome);
+        }
     }
 
     /**
@@ -99,11 +125,29 @@ public class Cell implements Serializable {
      * Build a floor or if the are three floors build the dome
      */
     public void addFloor() {
+        int oldFloor = floor;
+        boolean oldDome = dome;
         if (this.floor < 3) {
             floor++;
         } else {
             dome = true;
         }
+        if (board != null) {
+            board.updateCell(this, oldFloor, oldDome);
+        }
+    }
+
+    /**
+     * Remove the highest floor
+     */
+    public void removeFloor() {
+        int oldFloor = floor;
+        if (floor > 0) {
+            floor--;
+            if (board != null) {
+                board.updateCell(this, oldFloor, dome);
+            }
+        }
     }
 
     /**
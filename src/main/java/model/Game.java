@@ -3,6 +3,8 @@ package model;
 import util.Genre;
 import util.PlayerColor;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,7 +19,11 @@ public class Game implements Serializable {
     private final List<Card> usedCards;
     private int numPlayers;
     private List<Player> players;
-    private boolean isActive;
+    private volatile boolean isActive;
+    private transient Worker[] occupants;
+    private transient int occupiedMask;
+    private transient int activeOccupiedMask;
+    private transient long workersHash;
 
     /**
      * Build the Game
@@ -28,6 +34,7 @@ public class Game implements Serializable {
         this.usedCards = new ArrayList<>();
         this.board = new Board();
         this.isActive = true;
+        this.occupants = new Worker[Board.SIZE];
     }
 
     /**
@@ -48,6 +55,8 @@ public class Game implements Serializable {
         if (players.size() < numPlayers) {
             players.add(player);
             players = players.stream().sorted((o1, o2) -> o2.getDateOfBirth().compareTo(o1.getDateOfBirth())).collect(Collectors.toList());
+            player.setGame(this);
+            rebuildOccupancy();
         }
     }
 
@@ -220,4 +229,137 @@ public class Game implements Serializable {
     public void setInactive() {
         isActive = false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the mask of the cells occupied by the workers of the connected and non-loser players
+     *
+     * @return The mask of the occupied cells
+     */
+    public int getOccupiedMask() {
+        return activeOccupiedMask;
+    }
+
+    /**
+     * Gets the worker of a connected and non-loser player that occupies a specified cell
+     *
+     * @param cell The cell
+     * @return The worker that occupies the cell or null value
+     */
+    public Worker getOccupant(Cell cell) {
+        if (cell == null)
+            return null;
+        int index = Board.indexOf(cell.getRow(), cell.getColumn());
+        return (activeOccupiedMask & (1 << index)) != 0 ? occupants[index] : null;
+    }
+
+    /**
+     * Checks if a specified cell is occupied by a worker of a connected and non-loser player
+     *
+     * @param cell The cell
+     * @return True if the cell is occupied, otherwise false
+     */
+    public boolean isOccupied(Cell cell) {
+        return (activeOccupiedMask & Board.maskOf(cell)) != 0;
+    }
+
+    /**
+     * Gets the Zobrist hash of the position: floors, domes, workers, the player that has to move, the actions he has
+     * already performed during his round and the other players that have moved up during their last round
+     *
+     * @param toMove The player that has to move
+     * @return The hash of the position
+     */
+    public long positionHash(Player toMove) {
+        long hash = board.getHash() ^ workersHash ^ Zobrist.side(toMove.getColor()) ^ toMove.getRoundActions().getHash();
+        for (Player player : players) {
+            if (player != toMove && player.getRoundActions().hasMovedUp())
+                hash ^= Zobrist.movedUp(player.getColor());
+        }
+        return hash;
+    }
+
+    /**
+     * Updates the occupancy index after a worker has changed its position
+     *
+     * @param worker      The worker that has moved
+     * @param oldPosition The previous position of the worker or null value
+     * @param newPosition The new position of the worker or null value
+     */
+    void updateOccupancy(Worker worker, Cell oldPosition, Cell newPosition) {
+        if (oldPosition != null) {
+            int oldIndex = Board.indexOf(oldPosition.getRow(), oldPosition.getColumn());
+            workersHash ^= Zobrist.worker(worker.getPlayerColor(), worker.getGenre(), oldIndex);
+            // During a swap the other worker may have already taken the old position
+            if (occupants[oldIndex] == worker) {
+                occupants[oldIndex] = null;
+                occupiedMask &= ~(1 << oldIndex);
+                activeOccupiedMask &= ~(1 << oldIndex);
+            }
+        }
+        if (newPosition != null) {
+            int newIndex = Board.indexOf(newPosition.getRow(), newPosition.getColumn());
+            workersHash ^= Zobrist.worker(worker.getPlayerColor(), worker.getGenre(), newIndex);
+            occupants[newIndex] = worker;
+            occupiedMask |= 1 << newIndex;
+            Player player = worker.getPlayer();
+            if (player.isConnected() && !player.isLoser())
+                activeOccupiedMask |= 1 << newIndex;
+            else
+                activeOccupiedMask &= ~(1 << newIndex);
+        }
+    }
+
+    /**
+     * Rebuilds the mask of the cells occupied by the connected and non-loser players. A move updates only the bits of
+     * its worker, so the whole mask is rebuilt only when a player is disconnected or loses
+     */
+    void updateActiveOccupancy() {
+        int mask = occupiedMask;
+        int remaining = occupiedMask;
+        while (remaining != 0) {
+            int index = Integer.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            Player player = occupants[index].getPlayer();
+            if (!player.isConnected() || player.isLoser())
+                mask &= ~(1 << index);
+        }
+        activeOccupiedMask = mask;
+    }
+
+    /**
+     * Rebuilds the occupancy index from the positions of the workers of all the players
+     */
+    void rebuildOccupancy() {
+        occupants = new Worker[Board.SIZE];
+        occupiedMask = 0;
+        workersHash = 0;
+        for (Player player : players) {
+            for (Genre genre : Genre.values()) {
+                Worker worker = player.getWorker(genre);
+                Cell position = worker.getPosition();
+                if (position != null) {
+                    int index = Board.indexOf(position.getRow(), position.getColumn());
+                    occupants[index] = worker;
+                    occupiedMask |= 1 << index;
+                    workersHash ^= Zobrist.worker(worker.getPlayerColor(), genre, index);
+                }
+            }
+        }
+        updateActiveOccupancy();
+    }
+
+    /**
+     * Restores the links between the players and the game and the occupancy index after the deserialization
+     *
+     * @param in The input stream
+     * @throws IOException            When the stream can't be read
+     * @throws ClassNotFoundException When a serialized class can't be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (Player player : players) {
+            player.setGame(this);
+        }
+        rebuildOccupancy();
+    }
+}
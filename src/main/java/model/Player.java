@@ -25,6 +25,7 @@ public class Player implements Serializable {
     private boolean isWinner;
     private boolean isLoser;
     private boolean hasTemporaryUsername;
+    private transient Game game;
 
     /**
      * Constructor: build a player
@@ -69,6 +70,8 @@ public class Player implements Serializable {
     public void chooseColor(PlayerColor playerColor) {
         this.maleWorker.setPlayerColor(playerColor);
         this.femaleWorker.setPlayerColor(playerColor);
+        if (game != null)
+            game.rebuildOccupancy();
     }
 
     /**
@@ -146,6 +149,15 @@ public class Player implements Serializable {
         return occupiedCells;
     }
 
+    /**
+     * Gets the mask of the cells occupied by the workers of the player
+     *
+     * @return The mask of the occupied cells
+     */
+    public int getOccupiedMask() {
+        return Board.maskOf(femaleWorker.getPosition()) | Board.maskOf(maleWorker.getPosition());
+    }
+
     /**
      * Compares the nicknames of two players
      *
@@ -183,6 +195,15 @@ public class Player implements Serializable {
         roundActions.add(action);
     }
 
+    /**
+     * Adds a new encoded action of the player for the current round
+     *
+     * @param code The new encoded action of the player during the current round
+     */
+    public void registerAction(int code) {
+        roundActions.add(code);
+    }
+
     /**
      * Gets the connection status of the user
      *
@@ -199,6 +220,8 @@ public class Player implements Serializable {
      */
     public void setConnected(boolean connected) {
         this.isConnected = connected;
+        if (game != null)
+            game.updateActiveOccupancy();
     }
 
     /**
@@ -235,6 +258,8 @@ public class Player implements Serializable {
      */
     public void setLoser(boolean isLoser) {
         this.isLoser = isLoser;
+        if (game != null)
+            game.updateActiveOccupancy();
     }
 
     /**
@@ -255,4 +280,22 @@ public class Player implements Serializable {
         this.nickname = finalNickname;
         this.hasTemporaryUsername = false;
     }
+
+    /**
+     * Gets the game to which the player has been added
+     *
+     * @return The game of the player or null value
+     */
+    Game getGame() {
+        return game;
+    }
+
+    /**
+     * Sets the game to which the player has been added
+     *
+     * @param game The game of the player
+     */
+    void setGame(Game game) {
+        this.game = game;
+    }
 }
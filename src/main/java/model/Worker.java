@@ -43,7 +43,10 @@ public class Worker implements Serializable {
      * @param position The new position
      */
     public void setPosition(Cell position) {
+        Cell oldPosition = this.position;
         this.position = position;
+        if (player != null && player.getGame() != null)
+            player.getGame().updateOccupancy(this, oldPosition, position);
     }
 
     /**
@@ -0,0 +1,149 @@
+package model;
+
+import util.Genre;
+import util.PlayerColor;
+
+/**
+ * Random keys used to compute the Zobrist hash of a position.
+ * The keys are generated from a fixed seed, so the same position has the same hash in every execution
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5A4E0B1F7C3D2E91L;
+    private static final int MAX_FLOOR = 3;
+    private static final long[][] FLOORS = new long[Board.SIZE][MAX_FLOOR + 1];
+    private static final long[] DOMES = new long[Board.SIZE];
+    private static final long[][][] WORKERS = new long[PlayerColor.values().length + 1][Genre.values().length][Board.SIZE];
+    private static final long[] SIDES = new long[PlayerColor.values().length + 1];
+    private static final long[] MOVED_UP = new long[PlayerColor.values().length + 1];
+
+    static {
+        long state = SEED;
+        for (int index = 0; index < Board.SIZE; index++) {
+            // An empty cell doesn't change the hash
+            for (int floor = 1; floor <= MAX_FLOOR; floor++) {
+                state += 0x9E3779B97F4A7C15L;
+                FLOORS[index][floor] = mix(state);
+            }
+            state += 0x9E3779B97F4A7C15L;
+            DOMES[index] = mix(state);
+        }
+        for (long[][] colorKeys : WORKERS) {
+            for (long[] genreKeys : colorKeys) {
+                for (int index = 0; index < Board.SIZE; index++) {
+                    state += 0x9E3779B97F4A7C15L;
+                    genreKeys[index] = mix(state);
+                }
+            }
+        }
+        for (int color = 0; color < SIDES.length; color++) {
+            state += 0x9E3779B97F4A7C15L;
+            SIDES[color] = mix(state);
+            state += 0x9E3779B97F4A7C15L;
+            MOVED_UP[color] = mix(state);
+        }
+    }
+
+    /**
+     * Constructor: Zobrist only contains static methods
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Mixes the bits of a value (SplitMix64 finalizer)
+     *
+     * @param value The value to be mixed
+     * @return The mixed value
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Gets the slot of a color in the tables (the last one is used for workers without a color)
+     *
+     * @param playerColor The color or null value
+     * @return The slot of the color
+     */
+    private static int slotOf(PlayerColor playerColor) {
+        return playerColor == null ? SIDES.length - 1 : playerColor.ordinal();
+    }
+
+    /**
+     * Gets the key of a cell with a specified number of floors
+     *
+     * @param index The bit index of the cell
+     * @param floor The number of floors
+     * @return The key
+     */
+    public static long floor(int index, int floor) {
+        return FLOORS[index][floor];
+    }
+
+    /**
+     * Gets the key of a cell with a dome
+     *
+     * @param index The bit index of the cell
+     * @return The key
+     */
+    public static long dome(int index) {
+        return DOMES[index];
+    }
+
+    /**
+     * Gets the key of a worker in a specified cell
+     *
+     * @param playerColor The color of the worker
+     * @param genre       The genre of the worker
+     * @param index       The bit index of the cell
+     * @return The key
+     */
+    public static long worker(PlayerColor playerColor, Genre genre, int index) {
+        return WORKERS[slotOf(playerColor)][genre.ordinal()][index];
+    }
+
+    /**
+     * Gets the key of the player that has to move
+     *
+     * @param playerColor The color of the player
+     * @return The key
+     */
+    public static long side(PlayerColor playerColor) {
+        return SIDES[slotOf(playerColor)];
+    }
+
+    /**
+     * Gets the key of a player that has moved up during his last round
+     *
+     * @param playerColor The color of the player
+     * @return The key
+     */
+    public static long movedUp(PlayerColor playerColor) {
+        return MOVED_UP[slotOf(playerColor)];
+    }
+
+    /**
+     * Gets the key of an encoded action performed in a specified position of a round
+     *
+     * @param position The position of the action in the round
+     * @param code     The encoded action
+     * @return The key
+     */
+    public static long action(int position, int code) {
+        return mix(SEED ^ (((long) position << 32) | (code & 0xFFFFFFFFL)));
+    }
+
+    /**
+     * Gets the key of the card of a player, used to tell apart the same position played with different cards
+     *
+     * @param cardName    The name of the card
+     * @param playerColor The color of the player
+     * @return The key
+     */
+    public static long card(String cardName, PlayerColor playerColor) {
+        return mix(~SEED ^ (((long) cardName.hashCode() << 8) | slotOf(playerColor)));
+    }
+}
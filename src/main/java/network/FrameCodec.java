@@ -0,0 +1,109 @@
+package network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Framing of the messages between client and server: each message is serialized on its own and sent as a frame made
+ * of the length of the serialized message (4 bytes) followed by the serialized message. A frame can be recognised
+ * without deserializing it, so the server can read the messages with non-blocking channels
+ */
+public class FrameCodec {
+
+    /**
+     * The size of the length that precedes each message
+     */
+    public static final int HEADER_SIZE = 4;
+
+    /**
+     * The maximum size of a serialized message
+     */
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+
+    /**
+     * Checks if the length read from a frame header is acceptable
+     *
+     * @param length The length of the serialized message
+     * @return True if the length is valid, otherwise false
+     */
+    public static boolean isValidLength(int length) {
+        return length > 0 && length <= MAX_FRAME_SIZE;
+    }
+
+    /**
+     * Builds the frame of a message
+     *
+     * @param message The message
+     * @return The header and the serialized message
+     * @throws IOException When the message can't be serialized or it's too big
+     */
+    public static byte[] encode(Message message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        bytes.write(new byte[HEADER_SIZE]);
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeUnshared(message);
+        }
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - HEADER_SIZE;
+        if (!isValidLength(length))
+            throw new IOException("The message is too big: " + length + " bytes");
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    /**
+     * Deserializes the message of a frame
+     *
+     * @param bytes  The array that contains the serialized message
+     * @param offset The position of the serialized message, after the header
+     * @param length The length of the serialized message
+     * @return The message
+     * @throws IOException            When the message is corrupted
+     * @throws ClassNotFoundException When the class of the message is unknown
+     */
+    public static Message decode(byte[] bytes, int offset, int length) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            Object message = input.readObject();
+            if (!(message instanceof Message))
+                throw new IOException("Unexpected object: " + message);
+            return (Message) message;
+        }
+    }
+
+    /**
+     * Writes the frame of a message to a stream
+     *
+     * @param output  The stream
+     * @param message The message
+     * @throws IOException When the message can't be written
+     */
+    public static void write(OutputStream output, Message message) throws IOException {
+        output.write(encode(message));
+        output.flush();
+    }
+
+    /**
+     * Reads a frame from a stream, blocking until the whole frame has arrived
+     *
+     * @param input The stream
+     * @return The message
+     * @throws IOException            When the stream is closed or the frame is corrupted
+     * @throws ClassNotFoundException When the class of the message is unknown
+     */
+    public static Message read(DataInputStream input) throws IOException, ClassNotFoundException {
+        int length = input.readInt();
+        if (!isValidLength(length))
+            throw new IOException("Invalid frame length: " + length);
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return decode(bytes, 0, length);
+    }
+}
@@ -0,0 +1,66 @@
+package network.messages;
+
+import client.View;
+import network.CVMessage;
+import network.VCMessage;
+import server.VirtualView;
+import util.Action;
+import util.MessageType;
+
+import java.io.Serializable;
+
+/**
+ * Message to ask a suggested action during the turn
+ */
+public class Hint implements Serializable, CVMessage, VCMessage {
+    private final MessageType messageType;
+    private Action action;
+    private String nickname;
+
+    /**
+     * Server-side constructor: build a response message
+     *
+     * @param action The suggested action or null value if no hint is available
+     */
+    public Hint(Action action) {
+        messageType = MessageType.CV;
+        this.action = action;
+    }
+
+    /**
+     * Client-side constructor: build a request message
+     *
+     * @param nickname The nickname of the player
+     */
+    public Hint(String nickname) {
+        messageType = MessageType.VC;
+        this.nickname = nickname;
+    }
+
+    /**
+     * Execute the request client-side
+     *
+     * @param view The recipient component
+     */
+    public void execute(View view) {
+        view.showHint(action);
+    }
+
+    /**
+     * Execute the request server-side
+     *
+     * @param virtualView The recipient component
+     */
+    public void execute(VirtualView virtualView) {
+        virtualView.requestHint(nickname);
+    }
+
+    /**
+     * Gets the message type
+     *
+     * @return The message type
+     */
+    public MessageType getType() {
+        return messageType;
+    }
+}
@@ -64,6 +64,15 @@ public class SetUpGame implements Serializable, CVMessage, SYSMessage {
         return temporaryNickname;
     }
 
+    /**
+     * Gets the number of players chosen by the user
+     *
+     * @return The number of players
+     */
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
     /**
      * Execute the request client-side
      *
@@ -0,0 +1,43 @@
+package network.messages;
+
+import client.View;
+import network.CVMessage;
+import util.MessageType;
+
+import java.io.Serializable;
+
+/**
+ * Message to notify the player that his last request has been refused
+ */
+public class ShowErrorMessage implements Serializable, CVMessage {
+    private final MessageType messageType;
+    private final String errorMessage;
+
+    /**
+     * Server-side constructor: build the message
+     *
+     * @param errorMessage The message to be shown
+     */
+    public ShowErrorMessage(String errorMessage) {
+        messageType = MessageType.CV;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Execute the request client-side
+     *
+     * @param view The recipient component
+     */
+    public void execute(View view) {
+        view.showErrorMessage(errorMessage, false);
+    }
+
+    /**
+     * Gets the message type
+     *
+     * @return The message type
+     */
+    public MessageType getType() {
+        return messageType;
+    }
+}
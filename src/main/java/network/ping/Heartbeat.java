@@ -0,0 +1,177 @@
+package network.ping;
+
+import util.Configurator;
+import util.TimingWheel;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a connection alive: it sends a ping every 5 seconds and, if a reaction is given, it detects the connection that
+ * hasn't received anything for 20 seconds. The heartbeats of all the connections share a single timing wheel, so a
+ * connection holds no thread. The pings that may block are sent on a small shared pool, and a connection has at most
+ * one ping in progress
+ */
+public class Heartbeat {
+
+    public static final long PING_MILLIS = 5000;
+    public static final long TIMEOUT_MILLIS = 20000;
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 512;
+    private static final int SENDER_THREADS = 4;
+    private static TimingWheel sharedWheel;
+    private static Executor blockingSender;
+    private final NetworkHandler networkHandler;
+    private final boolean isServer;
+    private final Executor sender;
+    private final Runnable onTimeout;
+    private final TimingWheel wheel;
+    private final long pingMillis;
+    private final long timeoutMillis;
+    private final AtomicBoolean isSending;
+    private volatile long lastReceivedTime;
+    private volatile boolean isStopped;
+    private TimingWheel.Timeout pingTimeout;
+    private TimingWheel.Timeout deadline;
+
+    /**
+     * Constructor: build a Heartbeat on the shared timing wheel
+     *
+     * @param networkHandler The sender of the pings
+     * @param isServer       True if the sender is a server
+     * @param sender         The executor that sends the pings
+     * @param onTimeout      The reaction to a connection that stopped answering or null value to only send the pings
+     */
+    public Heartbeat(NetworkHandler networkHandler, boolean isServer, Executor sender, Runnable onTimeout) {
+        this(networkHandler, isServer, sender, onTimeout, getSharedWheel(), PING_MILLIS, TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructor: build a Heartbeat
+     *
+     * @param networkHandler The sender of the pings
+     * @param isServer       True if the sender is a server
+     * @param sender         The executor that sends the pings
+     * @param onTimeout      The reaction to a connection that stopped answering or null value to only send the pings
+     * @param wheel          The timing wheel
+     * @param pingMillis     The interval between the pings in milliseconds
+     * @param timeoutMillis  The time without any received message after which the connection is lost, in milliseconds
+     */
+    public Heartbeat(NetworkHandler networkHandler, boolean isServer, Executor sender, Runnable onTimeout,
+                     TimingWheel wheel, long pingMillis, long timeoutMillis) {
+        this.networkHandler = networkHandler;
+        this.isServer = isServer;
+        this.sender = sender;
+        this.onTimeout = onTimeout;
+        this.wheel = wheel;
+        this.pingMillis = pingMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.isSending = new AtomicBoolean(false);
+        this.isStopped = false;
+    }
+
+    /**
+     * Gets the timing wheel shared by the heartbeats of all the connections
+     *
+     * @return The shared timing wheel
+     */
+    public static synchronized TimingWheel getSharedWheel() {
+        if (sharedWheel == null)
+            sharedWheel = new TimingWheel("Heartbeat wheel", TICK_MILLIS, WHEEL_SIZE);
+        return sharedWheel;
+    }
+
+    /**
+     * Gets the shared pool for the pings of the connections whose writes block, like the one of the client, so a
+     * connection that doesn't read its messages can't delay the timing wheel
+     *
+     * @return The shared executor
+     */
+    public static synchronized Executor getBlockingSender() {
+        if (blockingSender == null) {
+            blockingSender = new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "Heartbeat sender");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return blockingSender;
+    }
+
+    /**
+     * Sends the first ping and starts the timers
+     */
+    public void start() {
+        lastReceivedTime = System.currentTimeMillis();
+        synchronized (this) {
+            if (onTimeout != null && !isStopped)
+                deadline = wheel.schedule(this::checkDeadline, timeoutMillis);
+        }
+        ping();
+    }
+
+    /**
+     * Records that a message has been received, the connection is alive
+     */
+    public void received() {
+        lastReceivedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Stops the timers of the connection
+     */
+    public void stop() {
+        synchronized (this) {
+            isStopped = true;
+            if (pingTimeout != null)
+                pingTimeout.cancel();
+            if (deadline != null)
+                deadline.cancel();
+        }
+    }
+
+    /**
+     * Sends a ping, unless the previous one is still being sent, and schedules the next one
+     */
+    private void ping() {
+        if (isStopped || !networkHandler.isConnected())
+            return;
+        if (isSending.compareAndSet(false, true)) {
+            sender.execute(() -> {
+                try {
+                    if (Configurator.getPingFlag()) {
+                        System.out.println("\n\t>Sending ping");
+                    }
+                    networkHandler.send(new PingMessage(isServer));
+                } finally {
+                    isSending.set(false);
+                }
+            });
+        }
+        synchronized (this) {
+            if (!isStopped)
+                pingTimeout = wheel.schedule(this::ping, pingMillis);
+        }
+    }
+
+    /**
+     * Reacts if nothing has been received for too long, otherwise waits for the new deadline. The deadline moves only
+     * when it expires, so receiving a message costs a single write
+     */
+    private void checkDeadline() {
+        long idleMillis = System.currentTimeMillis() - lastReceivedTime;
+        if (idleMillis >= timeoutMillis) {
+            if (!isStopped)
+                onTimeout.run();
+            return;
+        }
+        synchronized (this) {
+            if (!isStopped)
+                deadline = wheel.schedule(this::checkDeadline, timeoutMillis - idleMillis);
+        }
+    }
+}
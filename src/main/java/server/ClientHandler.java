@@ -5,51 +5,39 @@ import network.SYSMessage;
 import network.VCMessage;
 import network.messages.SetUpGame;
 import network.messages.ShowDisconnection;
+import network.ping.Heartbeat;
 import network.ping.NetworkHandler;
 import network.ping.PingMessage;
-import network.ping.PingSender;
 import util.Configurator;
 import util.Frmt;
 import util.MessageType;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
+import java.util.concurrent.Executor;
 
 /**
- * Manages communication from and to a client
+ * Manages communication from and to a client. The transport of the messages is left to the subclasses, which pass
+ * the received messages to receive and report the broken connections with connectionLost. The pings and the detection
+ * of the clients that stopped answering are driven by a heartbeat on the shared timing wheel
  */
-class ClientHandler extends Thread implements NetworkHandler {
-    private final VirtualView virtualView;
-    private final boolean isFirstPlayer;
-    private final Object lock = new Object();
-    private final ObjectOutputStream output;
-    private final ObjectInputStream input;
-    private final Socket socket;
-    private String nickname;
-    private boolean isConnected;
+abstract class ClientHandler implements NetworkHandler {
+    private final Lobby lobby;
+    private final Heartbeat heartbeat;
+    private volatile VirtualView virtualView;
+    private volatile String nickname;
+    private volatile boolean isConnected;
 
     /**
-     * Constructor: build a ClientHandler
+     * Constructor: build a ClientHandler with a temporary username
      *
-     * @param virtualView   The virtual view
-     * @param socket        The socket
-     * @param isFirstPlayer True if the player will be the first player, otherwise false
-     * @throws IOException When it's not possible to open input or output streams
+     * @param lobby      The lobby that assigns the client to a game
+     * @param pingSender The executor that sends the pings to the client
      */
-    public ClientHandler(VirtualView virtualView, Socket socket, boolean isFirstPlayer) throws IOException {
-        this.virtualView = virtualView;
-        this.isFirstPlayer = isFirstPlayer;
-        this.socket = socket;
-        this.output = new ObjectOutputStream(socket.getOutputStream());
-        this.input = new ObjectInputStream(socket.getInputStream());
+    protected ClientHandler(Lobby lobby, Executor pingSender) {
+        this.lobby = lobby;
+        this.heartbeat = new Heartbeat(this, true, pingSender, () -> connectionLost("receiving"));
+        this.virtualView = null;
         this.isConnected = true;
 
-        // Sets the connection timeout to 20 seconds and start sending pings to the client every 5 seconds
-        socket.setSoTimeout(20000);
-        (new PingSender(this, true)).start();
-
         // Temporary username
         StringBuilder builder = new StringBuilder();
         String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
@@ -79,85 +67,34 @@ class ClientHandler extends Thread implements NetworkHandler {
     }
 
     /**
-     * As long as the client is connected, waits for a message from the client and execute it
+     * Sets the virtual view of the game the client has joined
+     *
+     * @param virtualView The virtual view
      */
-    public void run() {
-        connectionSetUp();
-
-        while (isConnected) {
-            try {
-                Message clientMessage = (Message) input.readObject();
-                if (clientMessage.getType() == MessageType.VC) {
-                    if (clientMessage instanceof PingMessage && Configurator.getPingFlag()) {
-                        System.out.println("Received ping from " + nickname);
-                    }
-                    VCMessage vcMessage = (VCMessage) clientMessage;
-                    vcMessage.execute(virtualView);
-                }
-                if (clientMessage.getType() == MessageType.SYS) {
-                    manageSystemMessage(clientMessage);
-                }
-            } catch (IOException | ClassNotFoundException e) {
-                if (isConnected) {
-                    // This player has disconnected
-                    System.out.println(Frmt.color('r', "> Warning: " + nickname + " has disconnected during message receiving"));
-                    isConnected = false;
-                    virtualView.setDisconnected(nickname);
-                } else {
-                    // Another player has disconnected
-                    System.out.println(Frmt.color('r', "> Status: " + nickname + " was forced to stop during message receiving"));
-                }
-                close();
-            }
-        }
+    public void setVirtualView(VirtualView virtualView) {
+        this.virtualView = virtualView;
     }
 
     /**
-     * Sends a message
+     * Gets the virtual view of the game the client has joined
      *
-     * @param message The message to be sent
+     * @return The virtual view or null value if the client is still in the lobby
      */
-    public void send(Message message) {
-        if (isConnected) {
-            try {
-                synchronized (lock) {
-                    output.writeUnshared(message);
-                    output.flush();
-                    output.reset();
-                }
-            } catch (IOException e) {
-                if (isConnected) {
-                    // This player has disconnected
-                    System.out.println(Frmt.color('r', "> Warning: " + nickname + " has disconnected during message sending"));
-                    isConnected = false;
-                    virtualView.setDisconnected(nickname);
-                } else {
-                    // Another player has disconnected
-                    System.out.println(Frmt.color('r', "> Status: " + nickname + " was forced to stop during message sending"));
-                }
-                close();
-            }
-        }
+    protected VirtualView getVirtualView() {
+        return virtualView;
     }
 
     /**
-     * Sends the initial connectionSetUp message to the client
+     * Sends a message
+     *
+     * @param message The message to be sent
      */
-    private void connectionSetUp() {
-        send(new SetUpGame(isFirstPlayer, nickname));
-    }
+    public abstract void send(Message message);
 
     /**
-     * Manages system messages for game setup
+     * Closes the connection to the client
      */
-    private void manageSystemMessage(Message clientMessage) {
-        if (virtualView.checkGameStatus()) {
-            SYSMessage sysMessage = (SYSMessage) clientMessage;
-            sysMessage.execute(virtualView, nickname);
-        } else {
-            send(new ShowDisconnection("Another player"));
-        }
-    }
+    public abstract void close();
 
     /**
      * Checks the connection status
@@ -176,12 +113,96 @@ class ClientHandler extends Thread implements NetworkHandler {
     }
 
     /**
-     * Closes the connection to the client
+     * Sends the initial connectionSetUp message to the client, every user chooses the number of players of the game
+     * to join, and starts the heartbeat of the connection
+     */
+    protected void connectionSetUp() {
+        send(new SetUpGame(true, nickname));
+        heartbeat.start();
+    }
+
+    /**
+     * Executes a message received from the client. The first set up message moves the client from the lobby to a
+     * game, the other messages sent before joining a game are ignored
+     *
+     * @param clientMessage The received message
+     */
+    protected void receive(Message clientMessage) {
+        heartbeat.received();
+        if (clientMessage instanceof PingMessage && Configurator.getPingFlag()) {
+            System.out.println("Received ping from " + nickname);
+        }
+
+        VirtualView recipient = virtualView;
+        if (recipient == null) {
+            if (clientMessage.getType() != MessageType.SYS)
+                return;
+            if (!(clientMessage instanceof SetUpGame) || lobby.join(this, (SetUpGame) clientMessage) == null) {
+                send(new SetUpGame(true, nickname));
+                return;
+            }
+            recipient = virtualView;
+        }
+
+        VirtualView gameView = recipient;
+        dispatch(() -> execute(clientMessage, gameView));
+    }
+
+    /**
+     * Runs a task that involves the game of the client. The task runs on the calling thread, the subclasses that
+     * can't block their thread hand it to the executor of the game
+     *
+     * @param task The task
      */
-    public void close() {
-        try {
-            socket.close();
-        } catch (IOException ignored) {
+    protected void dispatch(Runnable task) {
+        task.run();
+    }
+
+    /**
+     * Manages a broken connection: if the client was connected its game is notified
+     *
+     * @param phase The phase of the communication that has failed ("receiving" or "sending")
+     */
+    protected void connectionLost(String phase) {
+        boolean wasConnected;
+        synchronized (this) {
+            wasConnected = isConnected;
+            isConnected = false;
+        }
+        if (wasConnected) {
+            // This player has disconnected
+            System.out.println(Frmt.color('r', "> Warning: " + nickname + " has disconnected during message " + phase));
+            VirtualView gameView = virtualView;
+            if (gameView != null) {
+                String disconnectedNickname = nickname;
+                dispatch(() -> gameView.setDisconnected(disconnectedNickname));
+            }
+        } else {
+            // Another player has disconnected
+            System.out.println(Frmt.color('r', "> Status: " + nickname + " was forced to stop during message " + phase));
+        }
+        heartbeat.stop();
+        close();
+    }
+
+    /**
+     * Executes a message on the virtual view of the game
+     *
+     * @param clientMessage The message
+     * @param gameView      The virtual view
+     */
+    private void execute(Message clientMessage, VirtualView gameView) {
+        if (clientMessage.getType() == MessageType.VC) {
+            VCMessage vcMessage = (VCMessage) clientMessage;
+            vcMessage.execute(gameView);
+        }
+        if (clientMessage.getType() == MessageType.SYS) {
+            if (gameView.checkGameStatus()) {
+                SYSMessage sysMessage = (SYSMessage) clientMessage;
+                sysMessage.execute(gameView, nickname);
+            } else {
+                send(new ShowDisconnection("Another player"));
+            }
         }
     }
 }
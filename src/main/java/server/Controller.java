@@ -4,29 +4,97 @@ import model.Card;
 import model.Cell;
 import model.Game;
 import model.Player;
+import network.Message;
 import network.messages.*;
+import server.bot.AlphaBetaStrategy;
+import server.bot.BotPlayer;
+import server.bot.BotStrategy;
+import server.bot.EndgameStrategy;
+import server.engine.Position;
+import server.rules.EnemyRules;
 import util.*;
 import util.exceptions.DisconnectionException;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 /**
- * Controller of the game: manages the game flow
+ * Controller of the game: manages the game flow. The controller is a state machine driven by the events of the
+ * players, which are queued in the mailbox of the game and processed one at a time, so a game that waits for its
+ * players holds no thread. The bots choose their actions on their own executor and send them back as events, so a
+ * long search doesn't hold the threads of the mailboxes
  */
 public class Controller {
     private final Game game;
+    private final Executor mailbox;
+    private final Executor botExecutor;
+    private final CountDownLatch ended;
     private VirtualView virtualView;
     private Player currentPlayer;
+    private RoundActions cachedPossibleActions;
+    private Player cachedPlayer;
+    private long cachedPositionHash;
+    private HintService hintService;
+    private Player turnPlayer;
+    private RoundActions turnActions;
+    private Turn turnMessage;
+    private final Map<String, HintRequest> pendingHints;
+    private Phase phase;
+    private Player challenger;
+    private List<Card> possibleChoices;
+    private ArrayList<String> availableColors;
+    private int remainingPlayers;
+    private int genreIndex;
+    private String loserNickname;
+    private int currentActionsNumber;
+    private boolean isAwaitingAction;
 
     /**
-     * Constructor: build a Controller
+     * The phases of the game flow
+     */
+    private enum Phase {
+        NEW, WAITING_PLAYERS, CHOOSING_GAME_CARDS, CHOOSING_CARD, CHOOSING_FIRST_PLAYER, CHOOSING_COLOR,
+        PLACING_WORKER, PLAYING, ENDED
+    }
+
+    /**
+     * Constructor: build a Controller whose events and bot actions are processed by the threads that send them
      *
      * @param game The game to be controlled
      */
     public Controller(Game game) {
+        this(game, new SerialExecutor(Runnable::run));
+    }
+
+    /**
+     * Constructor: build a Controller whose bots choose their actions on the thread of the mailbox
+     *
+     * @param game    The game to be controlled
+     * @param mailbox The executor that processes the events of the game one at a time and in order
+     */
+    public Controller(Game game, Executor mailbox) {
+        this(game, mailbox, Runnable::run);
+    }
+
+    /**
+     * Constructor: build a Controller
+     *
+     * @param game        The game to be controlled
+     * @param mailbox     The executor that processes the events of the game one at a time and in order
+     * @param botExecutor The executor that runs the choices of the actions of the bots
+     */
+    public Controller(Game game, Executor mailbox, Executor botExecutor) {
         this.game = game;
+        this.mailbox = mailbox;
+        this.botExecutor = botExecutor;
+        this.ended = new CountDownLatch(1);
+        this.pendingHints = new HashMap<>();
+        this.phase = Phase.NEW;
     }
 
     /**
@@ -39,192 +107,333 @@ public class Controller {
     }
 
     /**
-     * Manages the whole game cards setup process from their selection to their assignment
+     * Sets the service that analyses the hints
      *
-     * @throws InterruptedException   When the thread is interrupted
-     * @throws DisconnectionException When the a blocking disconnection event happens
+     * @param hintService The hint service
      */
-    public void gameStarter() throws InterruptedException, DisconnectionException {
-        synchronized (this) {
-            while (!gameCanStart() && isRunning()) {
-                this.wait();
-            }
-        }
-        System.out.println("> Status: Starting the game");
-
-        // Challenger chooses cards
-        List<Player> players = game.getPlayers();
-        int randomNumber = (int) (Math.random() * (players.size()));
-        Player challenger = players.get(randomNumber);
-        virtualView.getClientHandlerByNickname(challenger.getNickname()).send(new SetUpGameCards(players.size()));
-        System.out.println("> Status: Waiting for chosen cards");
-        synchronized (this) {
-            while (!(areCardsChosen()) && isRunning()) {
-                this.wait();
-            }
-        }
-        System.out.println("> Status: Cards has been chosen");
-
-        List<Card> possibleChoices = game.getUsedCards();
-        virtualView.sendToEveryone(new ShowGameCards(possibleChoices));
-
-        currentPlayer = game.getNextPlayer(challenger);
-        manageCardChoice(possibleChoices);
-        // Show cards to everyone
-        virtualView.sendToEveryone(new ShowCardAssignment(game.getPlayers()));
+    public void setHintService(HintService hintService) {
+        this.hintService = hintService;
+    }
 
-        manageFirstPlayerChoice(challenger);
-        firstTurn();
+    /**
+     * Starts the game flow: the game starts as soon as all the players have joined it. It doesn't block
+     */
+    public void start() {
+        post(() -> {
+            if (phase == Phase.NEW)
+                phase = Phase.WAITING_PLAYERS;
+        });
     }
 
     /**
-     * Manages the first turn: color setup and positioning of the workers
+     * Starts the game flow and waits until the game ends
      *
      * @throws InterruptedException   When the thread is interrupted
      * @throws DisconnectionException When the a blocking disconnection event happens
      */
-    private void firstTurn() throws InterruptedException, DisconnectionException {
-        String currentNickname;
-        ClientHandler currentClientHandler;
-        ArrayList<String> availableColors = PlayerColor.allColorsToString();
+    public void gameStarter() throws InterruptedException, DisconnectionException {
+        start();
+        ended.await();
+        isRunning();
+    }
 
-        for (int i = 0; i < game.getPlayers().size(); i++) {
-            currentNickname = currentPlayer.getNickname();
-            currentClientHandler = virtualView.getClientHandlerByNickname(currentNickname);
-            System.out.println("> Status: waiting for color choice of " + currentPlayer.getNickname());
+    /**
+     * Checks if the game flow has ended
+     *
+     * @return True if the game has ended or has been stopped by a disconnection, otherwise false
+     */
+    public boolean hasEnded() {
+        return ended.getCount() == 0;
+    }
 
-            virtualView.sendToEveryoneExcept(new ShowMap(new MapInfo(game), currentNickname, null), currentPlayer);
+    /**
+     * Queues an event in the mailbox of the game, the game flow proceeds after it
+     *
+     * @param event The event
+     */
+    private void post(Runnable event) {
+        mailbox.execute(() -> {
+            event.run();
+            advance();
+        });
+    }
 
-            // PlayerColor setup
-            currentClientHandler.send(new SetUpPlayerColor(availableColors));
-            synchronized (this) {
-                while (currentPlayer.getColor() == null && isRunning()) {
-                    this.wait();
-                }
-            }
-            availableColors.remove(currentPlayer.getColor().toString());
-            System.out.println("> Player info: " + currentNickname.toUpperCase() +
-                    "\n\tcolor: " + currentPlayer.getColor());
-
-            // Position setup
-            for (Genre genre : Genre.values()) {
-                // Calculate forbidden cells
-                List<Cell> forbiddenCells = new ArrayList<>();
-                for (Player player : game.getPlayers()) {
-                    forbiddenCells.addAll(player.getOccupiedCells());
-                }
+    /**
+     * Moves the game flow forward until it needs an event of a player. It runs on the mailbox
+     */
+    private void advance() {
+        if (phase == Phase.NEW || phase == Phase.ENDED)
+            return;
+        while (step()) {
+            // Each step either moves the flow forward or stops to wait for an event
+        }
+    }
 
-                currentClientHandler.send(new SetUpPlayerPosition(genre, forbiddenCells, new MapInfo(game)));
-                synchronized (this) {
-                    while (currentPlayer.getWorker(genre).getPosition() == null && isRunning()) {
-                        this.wait();
-                    }
+    /**
+     * Performs a step of the game flow. It runs on the mailbox
+     *
+     * @return True if the flow has moved forward, false if it waits for an event or it has ended
+     */
+    private boolean step() {
+        if (!game.isActive()) {
+            finish();
+            return false;
+        }
+        switch (phase) {
+            case WAITING_PLAYERS:
+                if (!gameCanStart())
+                    return false;
+                System.out.println("> Status: Starting the game");
+
+                // Challenger chooses cards
+                List<Player> players = game.getPlayers();
+                int randomNumber = (int) (Math.random() * (players.size()));
+                challenger = players.get(randomNumber);
+                phase = Phase.CHOOSING_GAME_CARDS;
+                if (challenger instanceof BotPlayer) {
+                    game.setUsedCards(((BotPlayer) challenger).chooseGameCards(players.size()));
+                } else {
+                    sendTo(challenger, new SetUpGameCards(players.size()));
                 }
+                System.out.println("> Status: Waiting for chosen cards");
+                return true;
+            case CHOOSING_GAME_CARDS:
+                if (!areCardsChosen())
+                    return false;
+                System.out.println("> Status: Cards has been chosen");
+
+                possibleChoices = game.getUsedCards();
+                virtualView.sendToEveryone(new ShowGameCards(possibleChoices));
+                currentPlayer = game.getNextPlayer(challenger);
+                remainingPlayers = game.getPlayers().size() - 1;
+                enterCardChoice();
+                return true;
+            case CHOOSING_CARD:
+                if (null == currentPlayer.getCard())
+                    return false;
+                System.out.println("> Status: " + currentPlayer.getNickname() + " has chosen " + currentPlayer.getCard().getName() + " card");
+                possibleChoices.remove(currentPlayer.getCard());
+                currentPlayer = game.getNextPlayer(currentPlayer);
+                remainingPlayers--;
+                enterCardChoice();
+                return true;
+            case CHOOSING_FIRST_PLAYER:
+                if (null == currentPlayer)
+                    return false;
+                System.out.println("> Status: The first player will be " + currentPlayer.getNickname());
+                availableColors = PlayerColor.allColorsToString();
+                remainingPlayers = game.getPlayers().size();
+                enterColorChoice();
+                return true;
+            case CHOOSING_COLOR:
+                if (currentPlayer.getColor() == null)
+                    return false;
+                availableColors.remove(currentPlayer.getColor().toString());
+                System.out.println("> Player info: " + currentPlayer.getNickname().toUpperCase() +
+                        "\n\tcolor: " + currentPlayer.getColor());
+                genreIndex = 0;
+                enterPlacement();
+                return true;
+            case PLACING_WORKER:
+                Genre genre = Genre.values()[genreIndex];
+                if (currentPlayer.getWorker(genre).getPosition() == null)
+                    return false;
                 System.out.println("\t" + genre.name().toLowerCase() + " position: " + currentPlayer.getWorker(genre).getPosition());
+                genreIndex++;
+                enterPlacement();
+                return true;
+            case PLAYING:
+                return play();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Asks the current player to choose a card, or assigns the last card when only one player is left
+     */
+    private void enterCardChoice() {
+        if (remainingPlayers > 0) {
+            phase = Phase.CHOOSING_CARD;
+            if (currentPlayer instanceof BotPlayer) {
+                currentPlayer.setCard(((BotPlayer) currentPlayer).chooseCard(possibleChoices));
+            } else {
+                sendTo(currentPlayer, new SetUpPlayerCard(possibleChoices));
             }
+            return;
+        }
+        currentPlayer.setCard(possibleChoices.get(0));
+        System.out.println("> Status: " + currentPlayer.getNickname() + " has " + currentPlayer.getCard().getName() + " card");
+        // Show cards to everyone
+        virtualView.sendToEveryone(new ShowCardAssignment(game.getPlayers()));
 
-            currentPlayer = game.getNextPlayer(currentPlayer);
+        // Manage the first player choice by the challenger
+        currentPlayer = null;
+        phase = Phase.CHOOSING_FIRST_PLAYER;
+        if (challenger instanceof BotPlayer) {
+            currentPlayer = game.getPlayerByNickname(((BotPlayer) challenger).chooseFirstPlayer(game.getPlayersNickname()));
+        } else {
+            sendTo(challenger, new SetUpFirstPlayer(game.getPlayersNickname()));
         }
-        game();
     }
 
     /**
-     * Manages the turns and calculate all the possible actions
-     *
-     * @throws InterruptedException   When the thread is interrupted
-     * @throws DisconnectionException When the a blocking disconnection event happens
+     * Asks the current player to choose a color, or starts the game when every player has placed the workers
      */
-    private void game() throws InterruptedException, DisconnectionException {
-        String loserNickname = null;
+    private void enterColorChoice() {
+        if (remainingPlayers == 0) {
+            loserNickname = null;
+            isAwaitingAction = false;
+            phase = Phase.PLAYING;
+            return;
+        }
+        phase = Phase.CHOOSING_COLOR;
+        System.out.println("> Status: waiting for color choice of " + currentPlayer.getNickname());
+        virtualView.sendToEveryoneExcept(new ShowMap(new MapInfo(game), currentPlayer.getNickname(), null), currentPlayer);
 
-        while (!game.hasWinner()) {
-            RoundActions possibleActions = calculatePossibleActions();
-            // Contains the lose action?
-            if (possibleActions.hasLost()) {
-                loserNickname = currentPlayer.getNickname();
-                System.out.println("> Status: " + loserNickname + " has lost");
-                manageLose();
-            } else {
-                // The player has ended his turn or can now only end his turn?
-                if (currentPlayer.getRoundActions().hasEnded() || possibleActions.mustEnd()) {
-                    currentPlayer = game.getNextPlayer(currentPlayer);
-                    // Flush the actions of the next player
-                    currentPlayer.setRoundActions(new RoundActions());
-                } else {
-                    // Update the map for everyone
-                    virtualView.sendToEveryoneExcept(new ShowMap(new MapInfo(game), currentPlayer.getNickname(), loserNickname), currentPlayer);
-
-                    int currentActionsNumber = currentPlayer.getRoundActions().getActionList().size();
-                    MapInfo mapInfo = new MapInfo(game, currentPlayer.getColor());
-                    virtualView.getClientHandlerByNickname(currentPlayer.getNickname()).send(new Turn(possibleActions, mapInfo, loserNickname));
-                    loserNickname = null;
-                    synchronized (this) {
-                        while (currentPlayer.getRoundActions().getActionList().size() <= currentActionsNumber && isRunning()) {
-                            this.wait();
-                        }
-                    }
-                }
-            }
+        if (currentPlayer instanceof BotPlayer) {
+            String color = ((BotPlayer) currentPlayer).chooseColor(availableColors);
+            currentPlayer.chooseColor(PlayerColor.getColorByName(color));
+        } else {
+            sendTo(currentPlayer, new SetUpPlayerColor(availableColors));
         }
-        manageWin();
     }
 
     /**
-     * Calculates all the possible actions of the current player
-     *
-     * @return The round actions of the current player
+     * Asks the current player to place the next worker, or moves to the next player when both are placed
      */
-    private RoundActions calculatePossibleActions() {
-        RoundActions roundActions = currentPlayer.getCard().getRules().nextPossibleActions(currentPlayer, game);
-        for (Player player : game.getPlayers()) {
-            if (!player.equals(currentPlayer))
-                roundActions = player.getCard().getEnemyRules().fixEnemyActions(roundActions, game, player);
+    private void enterPlacement() {
+        if (genreIndex == Genre.values().length) {
+            currentPlayer = game.getNextPlayer(currentPlayer);
+            remainingPlayers--;
+            enterColorChoice();
+            return;
+        }
+        phase = Phase.PLACING_WORKER;
+        Genre genre = Genre.values()[genreIndex];
+        if (currentPlayer instanceof BotPlayer) {
+            Cell position = game.getBoard().getCell(((BotPlayer) currentPlayer).choosePosition(game));
+            placeWorker(currentPlayer, genre, position);
+        } else {
+            // Calculate forbidden cells
+            List<Cell> forbiddenCells = game.getBoard().getCells(game.getOccupiedMask());
+            sendTo(currentPlayer, new SetUpPlayerPosition(genre, forbiddenCells, new MapInfo(game)));
         }
-        return roundActions;
     }
 
     /**
-     * Manages the choice of the card by each player
+     * Manages a step of the turns: calculates all the possible actions of the current player and asks him an action
      *
-     * @throws InterruptedException   When the thread is interrupted
-     * @throws DisconnectionException When the a blocking disconnection event happens
+     * @return True if the flow has moved forward, false if it waits for an action or the game has ended
      */
-    private void manageCardChoice(List<Card> possibleChoices) throws DisconnectionException, InterruptedException {
-        String currentNickname;
-        for (int i = 0; i < game.getPlayers().size() - 1; i++) {
-            currentNickname = currentPlayer.getNickname();
-            virtualView.getClientHandlerByNickname(currentNickname).send(new SetUpPlayerCard(possibleChoices));
-            synchronized (this) {
-                while (null == currentPlayer.getCard() && isRunning()) {
-                    this.wait();
-                }
-            }
+    private boolean play() {
+        if (isAwaitingAction) {
+            if (currentPlayer.getRoundActions().size() <= currentActionsNumber)
+                return false;
+            isAwaitingAction = false;
+        }
+        if (game.hasWinner()) {
+            manageWin();
+            finish();
+            return false;
+        }
 
-            System.out.println("> Status: " + currentNickname + " has chosen " + currentPlayer.getCard().getName() + " card");
-            possibleChoices.remove(currentPlayer.getCard());
+        // Can't do anything? The actions are generated only if the player can play
+        if (!currentPlayer.getCard().getRules().hasAnyLegalAction(currentPlayer, game,
+                EnemyRules.getRestrictionsOn(game, currentPlayer))) {
+            loserNickname = currentPlayer.getNickname();
+            System.out.println("> Status: " + loserNickname + " has lost");
+            manageLose();
+            return true;
+        }
+        RoundActions possibleActions = calculatePossibleActions(currentPlayer);
+        // The player has ended his turn or can now only end his turn?
+        if (currentPlayer.getRoundActions().hasEnded() || possibleActions.mustEnd()) {
             currentPlayer = game.getNextPlayer(currentPlayer);
+            // Flush the actions of the next player
+            currentPlayer.setRoundActions(new RoundActions());
+            return true;
         }
-        currentNickname = currentPlayer.getNickname();
-        currentPlayer.setCard(possibleChoices.get(0));
-        System.out.println("> Status: " + currentNickname + " has " + currentPlayer.getCard().getName() + " card");
+
+        // Update the map for everyone
+        virtualView.sendToEveryoneExcept(new ShowMap(new MapInfo(game), currentPlayer.getNickname(), loserNickname), currentPlayer);
+
+        currentActionsNumber = currentPlayer.getRoundActions().size();
+        isAwaitingAction = true;
+        Turn turn = currentPlayer instanceof BotPlayer ? null :
+                new Turn(possibleActions, new MapInfo(game, currentPlayer.getColor()), loserNickname);
+        expectAction(currentPlayer, possibleActions, turn);
+        if (currentPlayer instanceof BotPlayer) {
+            chooseBotAction((BotPlayer) currentPlayer, possibleActions);
+        } else {
+            sendTo(currentPlayer, turn);
+        }
+        loserNickname = null;
+        return true;
     }
 
     /**
-     * Manage the first player choice by the challenger
+     * Asks a bot its action on the bot executor: the chosen action comes back to the mailbox as an event, like the
+     * actions of the clients. A bot that fails plays its first possible action, so the game never waits for it forever
      *
-     * @param challenger The challenger
-     * @throws InterruptedException   When the thread is interrupted
-     * @throws DisconnectionException When the a blocking disconnection event happens
+     * @param bot             The bot that has to move
+     * @param possibleActions The possible actions of the bot
      */
-    private void manageFirstPlayerChoice(Player challenger) throws InterruptedException, DisconnectionException {
-        currentPlayer = null;
-        virtualView.getClientHandlerByNickname(challenger.getNickname()).send(new SetUpFirstPlayer(game.getPlayersNickname()));
-        synchronized (this) {
-            while (null == this.currentPlayer && isRunning()) {
-                this.wait();
+    private void chooseBotAction(BotPlayer bot, RoundActions possibleActions) {
+        // The copies are taken on the mailbox, the search never reads the game or the cached actions
+        Position position = Position.copyOf(game, bot);
+        RoundActions botActions = new RoundActions();
+        botActions.add(possibleActions);
+        String nickname = bot.getNickname();
+        botExecutor.execute(() -> {
+            Action action;
+            try {
+                action = bot.chooseAction(position, botActions);
+            } catch (RuntimeException e) {
+                System.out.println(Frmt.color('r', "> Error: " + nickname + " has failed to choose an action: " + e));
+                action = Action.decode(botActions.getCode(0));
             }
-        }
-        System.out.println("> Status: The first player will be " + currentPlayer.getNickname());
+            Action chosenAction = action;
+            post(() -> performAction(chosenAction, nickname));
+        });
+    }
+
+    /**
+     * Ends the game flow and releases the threads that wait for it
+     */
+    private void finish() {
+        phase = Phase.ENDED;
+        System.out.println(Frmt.color('r', "> Status: Controller has stopped."));
+        ended.countDown();
+    }
+
+    /**
+     * Calculates all the possible actions of a player. The result is reused until an action is performed or the
+     * position changes
+     *
+     * @param currentPlayer The player that has to move
+     * @return The round actions of the player
+     */
+    RoundActions calculatePossibleActions(Player currentPlayer) {
+        long positionHash = game.positionHash(currentPlayer);
+        if (cachedPossibleActions != null && cachedPlayer == currentPlayer && cachedPositionHash == positionHash)
+            return cachedPossibleActions;
+
+        RoundActions roundActions = EnemyRules.applyRestrictions(
+                currentPlayer.getCard().getRules().nextPossibleActions(currentPlayer, game),
+                EnemyRules.getRestrictionsOn(game, currentPlayer));
+
+        cachedPossibleActions = roundActions;
+        cachedPlayer = currentPlayer;
+        cachedPositionHash = positionHash;
+        return roundActions;
+    }
+
+    /**
+     * Discards the cached possible actions
+     */
+    void invalidatePossibleActions() {
+        cachedPossibleActions = null;
     }
 
     /**
@@ -234,7 +443,7 @@ public class Controller {
         virtualView.sendToEveryone(new ShowMap(new MapInfo(game), currentPlayer.getNickname(), null));
         System.out.println("> Game ended: " + currentPlayer.getNickname() + " has won");
         for (Player p : game.getAllPlayers()) {
-            virtualView.getClientHandlerByNickname(p.getNickname()).send(new ShowGameEndMessage(currentPlayer.getNickname(), currentPlayer.equals(p)));
+            sendTo(p, new ShowGameEndMessage(currentPlayer.getNickname(), currentPlayer.equals(p)));
         }
     }
 
@@ -256,6 +465,20 @@ public class Controller {
         }
     }
 
+    /**
+     * Sends a message to the client of a player. The bots don't have a client and are asked directly by the Controller
+     *
+     * @param player  The player
+     * @param message The message to be sent
+     */
+    private void sendTo(Player player, Message message) {
+        if (player instanceof BotPlayer)
+            return;
+        ClientHandler clientHandler = virtualView.getClientHandlerByNickname(player.getNickname());
+        if (clientHandler != null)
+            clientHandler.send(message);
+    }
+
     /**
      * Tests if the game is ready to start and if everyone has a final nickname
      *
@@ -295,8 +518,52 @@ public class Controller {
      * @param numPlayers The number of players of the game
      */
     public void setNumPlayers(int numPlayers) {
-        game.setNumPlayers(numPlayers);
-        wakeUpServerLauncher();
+        post(() -> game.setNumPlayers(numPlayers));
+    }
+
+    /**
+     * Adds a player to the game: the player joins with the requested nickname if it's unique, otherwise with the
+     * temporary nickname and he is asked a new one
+     *
+     * @param temporaryNickname The temporary nickname of the player
+     * @param nickname          The requested nickname
+     * @param birthDate         The birth date of the player
+     * @param numPlayers        The number of the players of the game (ignored if the player isn't the first one)
+     */
+    public void joinPlayer(String temporaryNickname, String nickname, Date birthDate, int numPlayers) {
+        post(() -> {
+            if (numPlayers == 2 || numPlayers == 3) {
+                game.setNumPlayers(numPlayers);
+            }
+            ClientHandler clientHandler = virtualView.getClientHandlerByNickname(temporaryNickname);
+            if (setPlayerInfo(nickname, birthDate)) {
+                if (clientHandler != null)
+                    clientHandler.setNickname(nickname);
+            } else {
+                setTemporaryPlayerInfo(temporaryNickname, birthDate);
+                if (clientHandler != null)
+                    clientHandler.send(new SetUpNewNickname(temporaryNickname));
+            }
+        });
+    }
+
+    /**
+     * Changes the temporary nickname of a player with the requested one if it's unique, otherwise he is asked a new
+     * one again
+     *
+     * @param temporaryNickname The temporary nickname of the player
+     * @param nickname          The requested nickname
+     */
+    public void changeNickname(String temporaryNickname, String nickname) {
+        post(() -> {
+            ClientHandler clientHandler = virtualView.getClientHandlerByNickname(temporaryNickname);
+            if (setNewNickname(temporaryNickname, nickname)) {
+                if (clientHandler != null)
+                    clientHandler.setNickname(nickname);
+            } else if (clientHandler != null) {
+                clientHandler.send(new SetUpNewNickname(temporaryNickname));
+            }
+        });
     }
 
     /**
@@ -306,29 +573,50 @@ public class Controller {
      * @param birthDate The birth date of the player
      * @return True if the player has been added, otherwise false
      */
-    public boolean setPlayerInfo(String nickname, Date birthDate) {
-        synchronized (this) {
-            if (checkNickname(nickname)) {
-                Player player = new Player(nickname, birthDate, false);
-                game.addPlayer(player);
-                return true;
-            }
+    private boolean setPlayerInfo(String nickname, Date birthDate) {
+        if (checkNickname(nickname)) {
+            Player player = new Player(nickname, birthDate, false);
+            game.addPlayer(player);
+            return true;
         }
         System.out.println(Frmt.color('y', "> Warning: someone is trying to connect with a nickname already in use"));
         return false;
     }
 
+    /**
+     * Adds a bot with a single-threaded search to the game with the first available nickname
+     *
+     * @param moveTime The time budget of each action of the bot in milliseconds
+     */
+    public void addBot(long moveTime) {
+        addBot(new EndgameStrategy(new AlphaBetaStrategy(moveTime, 1), moveTime));
+    }
+
+    /**
+     * Adds a bot with a certain strategy to the game with the first available nickname
+     *
+     * @param strategy The strategy that chooses the actions of the bot
+     */
+    public void addBot(BotStrategy strategy) {
+        post(() -> {
+            int botNumber = 1;
+            while (!checkNickname("Bot" + botNumber)) {
+                botNumber++;
+            }
+            game.addPlayer(new BotPlayer("Bot" + botNumber, strategy));
+            System.out.println("> Status: Bot" + botNumber + " has joined the game");
+        });
+    }
+
     /**
      * Sets temporary player info
      *
      * @param temporaryUsername The temporary nickname
      * @param birthDate         The birth date of the player
      */
-    public void setTemporaryPlayerInfo(String temporaryUsername, Date birthDate) {
-        synchronized (this) {
-            Player player = new Player(temporaryUsername, birthDate, true);
-            game.addPlayer(player);
-        }
+    private void setTemporaryPlayerInfo(String temporaryUsername, Date birthDate) {
+        Player player = new Player(temporaryUsername, birthDate, true);
+        game.addPlayer(player);
     }
 
     /**
@@ -338,12 +626,11 @@ public class Controller {
      * @param temporaryNickname The temporary nickname
      * @return True if the player info has been updated, otherwise false
      */
-    public boolean setNewNickname(String temporaryNickname, String nickname) {
-        synchronized (this) {
-            if (checkNickname(nickname)) {
-                game.getPlayerByNickname(temporaryNickname).setFinalNickname(nickname);
-                return true;
-            }
+    private boolean setNewNickname(String temporaryNickname, String nickname) {
+        Player player = game.getPlayerByNickname(temporaryNickname);
+        if (player != null && checkNickname(nickname)) {
+            player.setFinalNickname(nickname);
+            return true;
         }
         System.out.println(Frmt.color('y', "> Warning: someone is trying to connect with a nickname already in use"));
         return false;
@@ -355,8 +642,7 @@ public class Controller {
      * @param chosenCards The list of chosen cards
      */
     public void setCards(List<Card> chosenCards) {
-        game.setUsedCards(chosenCards);
-        wakeUpController();
+        post(() -> game.setUsedCards(chosenCards));
     }
 
     /**
@@ -366,8 +652,7 @@ public class Controller {
      * @param nickname   The player's nickname
      */
     public void setCard(Card chosenCard, String nickname) {
-        game.getPlayerByNickname(nickname).setCard(chosenCard);
-        wakeUpController();
+        post(() -> game.getPlayerByNickname(nickname).setCard(chosenCard));
     }
 
     /**
@@ -376,8 +661,10 @@ public class Controller {
      * @param fistPlayerNickname The nickname of the first player
      */
     public void setFirstPlayer(String fistPlayerNickname) {
-        currentPlayer = game.getPlayerByNickname(fistPlayerNickname);
-        wakeUpController();
+        post(() -> {
+            if (phase == Phase.CHOOSING_FIRST_PLAYER)
+                currentPlayer = game.getPlayerByNickname(fistPlayerNickname);
+        });
     }
 
     /**
@@ -387,9 +674,10 @@ public class Controller {
      * @param color    The chosen color
      */
     public void setColor(String nickname, String color) {
-        PlayerColor myPlayerColor = PlayerColor.getColorByName(color);
-        game.getPlayerByNickname(nickname).chooseColor(myPlayerColor);
-        wakeUpController();
+        post(() -> {
+            PlayerColor myPlayerColor = PlayerColor.getColorByName(color);
+            game.getPlayerByNickname(nickname).chooseColor(myPlayerColor);
+        });
     }
 
     /**
@@ -400,8 +688,19 @@ public class Controller {
      * @param position The chosen position
      */
     public void setFirstPosition(String nickname, Genre genre, Cell position) {
-        game.getPlayerByNickname(nickname).getWorker(genre).setPosition(position);
-        wakeUpController();
+        post(() -> placeWorker(game.getPlayerByNickname(nickname), genre, position));
+    }
+
+    /**
+     * Places a worker of a player on the board
+     *
+     * @param player   The player
+     * @param genre    The genre of the worker
+     * @param position The chosen position
+     */
+    private void placeWorker(Player player, Genre genre, Cell position) {
+        Cell boardCell = game.getBoard().getCell(position.getRow(), position.getColumn());
+        player.getWorker(genre).setPosition(boardCell);
     }
 
     /**
@@ -411,12 +710,131 @@ public class Controller {
      * @param nickname The player that performs the action
      */
     public void setAction(Action action, String nickname) {
+        post(() -> performAction(action, nickname));
+    }
+
+    /**
+     * Performs an action of a player if it is one of the legal actions sent to him, otherwise the player is asked
+     * another action
+     *
+     * @param action   The action to be performed
+     * @param nickname The player that performs the action
+     */
+    private void performAction(Action action, String nickname) {
         Player thePlayer = game.getPlayerByNickname(nickname);
-        boolean isWinner = thePlayer.getCard().getRules().doAction(action, thePlayer, game);
+        Action legalAction = acceptAction(thePlayer, action);
+        if (legalAction == null) {
+            System.out.println(Frmt.color('y', "> Warning: " + nickname + " has sent an action that isn't allowed"));
+            Turn turn = thePlayer == turnPlayer ? turnMessage : null;
+            if (thePlayer != null) {
+                sendTo(thePlayer, new ShowErrorMessage("The action isn't allowed, choose another one."));
+                if (turn != null)
+                    sendTo(thePlayer, turn);
+            }
+            return;
+        }
+        cancelHint(nickname);
+        invalidatePossibleActions();
+        boolean isWinner = thePlayer.getCard().getRules().doAction(legalAction, thePlayer, game);
         if (isWinner) {
             thePlayer.setWinner(true);
         }
-        wakeUpController();
+    }
+
+    /**
+     * Sets the legal actions of the player that has to move, the only ones accepted until one of them is performed
+     *
+     * @param player          The player that has to move
+     * @param possibleActions The possible actions of the player
+     * @param turn            The message with the possible actions sent to the player or null value for a bot
+     */
+    void expectAction(Player player, RoundActions possibleActions, Turn turn) {
+        turnPlayer = player;
+        turnActions = possibleActions;
+        turnMessage = turn;
+    }
+
+    /**
+     * Checks if an action submitted by a player is one of the legal actions sent to him and, if so, consumes the
+     * legal actions so that it can be performed only once. The action to be performed is rebuilt from the legal
+     * encoded action, so nothing else of the object sent by the client is used
+     *
+     * @param player The player that submitted the action
+     * @param action The submitted action
+     * @return The legal action to be performed or null value if the action isn't allowed
+     */
+    private Action acceptAction(Player player, Action action) {
+        if (player == null || player != turnPlayer || action == null || action.getActionType() == null)
+            return null;
+        int code = action.encode();
+        if (!turnActions.contains(code))
+            return null;
+        turnPlayer = null;
+        turnActions = null;
+        turnMessage = null;
+        return Action.decode(code);
+    }
+
+    /**
+     * Starts the analysis of a hint for a player, who receives the suggested action when it ends. The hint is refused
+     * if it isn't the turn of the player or if the hint service is overloaded
+     *
+     * @param nickname The nickname of the player
+     */
+    public void requestHint(String nickname) {
+        post(() -> startHint(nickname));
+    }
+
+    /**
+     * Submits the analysis of a hint for a player to the hint service
+     *
+     * @param nickname The nickname of the player
+     */
+    private void startHint(String nickname) {
+        Player thePlayer = game.getPlayerByNickname(nickname);
+        if (thePlayer == null)
+            return;
+        if (thePlayer != currentPlayer || game.hasWinner() || thePlayer.getRoundActions().hasEnded()) {
+            sendTo(thePlayer, new Hint((Action) null));
+            return;
+        }
+
+        long positionHash = game.positionHash(thePlayer);
+        Position position = Position.copyOf(game, thePlayer);
+        if (hintService == null)
+            hintService = HintService.getSharedService();
+        cancelHint(nickname);
+        HintRequest request = hintService.submit(position, Configurator.getHintMillis(),
+                code -> post(() -> deliverHint(nickname, positionHash, code)));
+        if (request != null)
+            pendingHints.put(nickname, request);
+        else
+            sendTo(thePlayer, new Hint((Action) null));
+    }
+
+    /**
+     * Sends the result of a hint analysis to the player, if the position hasn't changed in the meantime
+     *
+     * @param nickname     The nickname of the player
+     * @param positionHash The hash of the analysed position
+     * @param code         The suggested encoded action
+     */
+    private void deliverHint(String nickname, long positionHash, int code) {
+        pendingHints.remove(nickname);
+        Player thePlayer = game.getPlayerByNickname(nickname);
+        if (thePlayer != null && thePlayer == currentPlayer && game.positionHash(thePlayer) == positionHash)
+            sendTo(thePlayer, new Hint(Action.decode(code)));
+    }
+
+    /**
+     * Cancels the pending hint analysis of a player, if any
+     *
+     * @param nickname The nickname of the player
+     */
+    private void cancelHint(String nickname) {
+        HintRequest request = pendingHints.remove(nickname);
+        if (request != null)
+            request.cancel();
     }
 
     /**
@@ -425,6 +843,7 @@ public class Controller {
      * @param removedPlayer The player that has lost
      */
     private void removePlayer(Player removedPlayer) {
+        invalidatePossibleActions();
         removedPlayer.setLoser(true);
     }
 
@@ -434,17 +853,18 @@ public class Controller {
      * @param nickname The nickname of the disconnected user
      */
     public void setAsDisconnected(String nickname) {
-        Player disconnectedPlayer = game.getPlayerByNickname(nickname);
-        if (disconnectedPlayer != null && (disconnectedPlayer.isLoser() || game.hasWinner())) {
-            disconnectedPlayer.setConnected(false);
-            return;
-        }
+        post(() -> {
+            cancelHint(nickname);
+            Player disconnectedPlayer = game.getPlayerByNickname(nickname);
+            if (disconnectedPlayer != null && (disconnectedPlayer.isLoser() || game.hasWinner())) {
+                disconnectedPlayer.setConnected(false);
+                return;
+            }
 
-        virtualView.sendToEveryone(new ShowDisconnection(nickname));
-        virtualView.closeAll();
-        game.setInactive();
-        wakeUpController();
-        wakeUpServerLauncher();
+            virtualView.sendToEveryone(new ShowDisconnection(nickname));
+            virtualView.closeAll();
+            game.setInactive();
+        });
     }
 
     /**
@@ -459,22 +879,4 @@ public class Controller {
         }
         return true;
     }
-
-    /**
-     * Notifies the Controller that it can proceed with execution
-     */
-    public void wakeUpController() {
-        synchronized (this) {
-            this.notifyAll();
-        }
-    }
-
-    /**
-     * Notifies the ServerLauncher that it can proceed with execution
-     */
-    public void wakeUpServerLauncher() {
-        synchronized (game) {
-            game.notifyAll();
-        }
-    }
-}
\ No newline at end of file
+}
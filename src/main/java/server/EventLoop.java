@@ -0,0 +1,166 @@
+package server;
+
+import util.Frmt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread that serves many client channels with a selector: it reads and writes the frames when the channels are
+ * ready. The other threads interact with the selector only through the tasks of the event loop
+ */
+class EventLoop implements Runnable {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private final Selector selector;
+    private final Queue<Runnable> tasks;
+    private final Set<NioClientHandler> clientHandlers;
+    private final ByteBuffer readBuffer;
+    private final Thread thread;
+    private volatile int connections;
+    private volatile boolean isRunning;
+
+    /**
+     * Constructor: build an EventLoop
+     *
+     * @param name The name of the thread
+     * @throws IOException When the selector can't be opened
+     */
+    public EventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.clientHandlers = new HashSet<>();
+        this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.connections = 0;
+        this.isRunning = true;
+    }
+
+    /**
+     * Starts the thread of the event loop
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops the event loop and closes its channels
+     */
+    public void shutdown() {
+        isRunning = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Adds a client to the event loop
+     *
+     * @param clientHandler The client handler
+     */
+    public void register(NioClientHandler clientHandler) {
+        execute(() -> {
+            try {
+                clientHandlers.add(clientHandler);
+                connections = clientHandlers.size();
+                clientHandler.register(selector);
+            } catch (IOException e) {
+                clientHandler.close();
+            }
+        });
+    }
+
+    /**
+     * Removes a closed client from the event loop
+     *
+     * @param clientHandler The client handler
+     */
+    public void unregister(NioClientHandler clientHandler) {
+        execute(() -> {
+            clientHandlers.remove(clientHandler);
+            connections = clientHandlers.size();
+        });
+    }
+
+    /**
+     * Runs a task on the event loop
+     *
+     * @param task The task
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread)
+            selector.wakeup();
+    }
+
+    /**
+     * Gets the number of clients served by the event loop
+     *
+     * @return The number of open connections
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Selects the ready channels and serves them until the event loop is stopped
+     */
+    public void run() {
+        while (isRunning) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                System.out.println(Frmt.color('r', "> Error: " + thread.getName() + " can't select: " + e));
+                break;
+            }
+            runTasks();
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                NioClientHandler clientHandler = (NioClientHandler) key.attachment();
+                try {
+                    if (key.isValid() && key.isWritable())
+                        clientHandler.onWritable();
+                    if (key.isValid() && key.isReadable())
+                        clientHandler.onReadable(readBuffer);
+                } catch (RuntimeException e) {
+                    System.out.println(Frmt.color('r', "> Error: " + clientHandler.getNickname() + " has caused " + e));
+                    e.printStackTrace();
+                    // Like a broken connection, so the game of the client is notified
+                    clientHandler.connectionLost("receiving");
+                }
+            }
+        }
+
+        for (NioClientHandler clientHandler : new ArrayList<>(clientHandlers)) {
+            clientHandler.close();
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Runs the tasks submitted by the other threads
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.out.println(Frmt.color('r', "> Error: a task of " + thread.getName() + " has failed: " + e));
+                e.printStackTrace();
+            }
+        }
+    }
+}
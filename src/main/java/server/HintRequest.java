@@ -0,0 +1,80 @@
+package server;
+
+import server.engine.ParallelSearch;
+import server.engine.Position;
+
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * A pending hint analysis that can be cancelled while it's queued or running
+ */
+public class HintRequest {
+
+    private static final int TABLE_BITS = 16;
+    private final Position position;
+    private final long timeBudget;
+    private final IntConsumer onResult;
+    private final ParallelSearch search;
+    private volatile boolean isCancelled;
+    private Future<?> future;
+
+    /**
+     * Constructor: build a HintRequest
+     *
+     * @param position   A copy of the game seen from the player that asked the hint
+     * @param timeBudget The time budget of the analysis in milliseconds
+     * @param onResult   The consumer of the best encoded action
+     */
+    HintRequest(Position position, long timeBudget, IntConsumer onResult) {
+        this.position = position;
+        this.timeBudget = timeBudget;
+        this.onResult = onResult;
+        // The service already bounds the threads, so each analysis is sequential
+        this.search = new ParallelSearch(1, TABLE_BITS);
+        this.isCancelled = false;
+    }
+
+    /**
+     * Cancels the analysis: a queued analysis won't start and a running one stops without a result
+     */
+    public void cancel() {
+        isCancelled = true;
+        search.cancel();
+        synchronized (this) {
+            if (future != null)
+                future.cancel(false);
+        }
+    }
+
+    /**
+     * Checks if the analysis has been cancelled
+     *
+     * @return True if the analysis has been cancelled, otherwise false
+     */
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Sets the future of the analysis on the executor
+     *
+     * @param future The future of the analysis
+     */
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+        if (isCancelled)
+            future.cancel(false);
+    }
+
+    /**
+     * Searches the best action and passes it to the consumer, unless the analysis has been cancelled
+     */
+    void analyse() {
+        if (isCancelled)
+            return;
+        int code = search.search(position, timeBudget * 1_000_000L);
+        if (!isCancelled)
+            onResult.accept(code);
+    }
+}
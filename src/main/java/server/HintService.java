@@ -0,0 +1,74 @@
+package server;
+
+import server.engine.Position;
+import util.Configurator;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Analyses the hints requested by the players of all the games on a bounded pool of threads, separated from the
+ * threads of the Controllers. When all the threads are busy and the queue is full the requests are refused instead of
+ * piling up
+ */
+public class HintService {
+
+    private static final int QUEUE_CAPACITY_PER_THREAD = 4;
+    private static HintService sharedService;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructor: build a HintService
+     *
+     * @param threads The number of analysis threads
+     */
+    public HintService(int threads) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD), runnable -> {
+            Thread thread = new Thread(runnable, "hint-analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the service shared by all the games of the server
+     *
+     * @return The shared service
+     */
+    public static synchronized HintService getSharedService() {
+        if (sharedService == null)
+            sharedService = new HintService(Configurator.getHintThreads());
+        return sharedService;
+    }
+
+    /**
+     * Submits the analysis of a position
+     *
+     * @param position   A copy of the game seen from the player that asked the hint
+     * @param timeBudget The time budget of the analysis in milliseconds
+     * @param onResult   The consumer of the best encoded action, called by the analysis thread
+     * @return The pending analysis or null value if the service is overloaded
+     */
+    public HintRequest submit(Position position, long timeBudget, IntConsumer onResult) {
+        HintRequest request = new HintRequest(position, timeBudget, onResult);
+        try {
+            request.setFuture(executor.submit(request::analyse));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        return request;
+    }
+
+    /**
+     * Gets the number of analyses waiting for a thread
+     *
+     * @return The number of queued analyses
+     */
+    public int getQueuedRequests() {
+        return executor.getQueue().size();
+    }
+}
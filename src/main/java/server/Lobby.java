@@ -0,0 +1,229 @@
+package server;
+
+import model.Game;
+import network.messages.SetUpGame;
+import server.bot.AlphaBetaStrategy;
+import server.bot.BudgetedStrategy;
+import server.bot.EndgameStrategy;
+import util.Configurator;
+import util.Frmt;
+import util.SerialExecutor;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Matchmaking of the server: the accepted connections wait in the lobby until their users choose the number of
+ * players, then they join the room of a game of that size. Each size has its own queue with its own lock, so the
+ * rooms of different sizes are formed at the same time, and the connections and the rooms are set up on the threads
+ * of the lobby and of the clients, never on the accept thread
+ */
+public class Lobby {
+
+    private static final int[] ROOM_SIZES = {2, 3};
+    private final Map<Integer, RoomQueue> queues;
+    private final ExecutorService connectionExecutor;
+    private final ExecutorService gameExecutor;
+    private final ExecutorService botExecutor;
+    private final ScheduledExecutorService botScheduler;
+    private final AtomicInteger createdRooms;
+
+    /**
+     * Constructor: build an empty Lobby
+     */
+    public Lobby() {
+        this.queues = new TreeMap<>();
+        for (int size : ROOM_SIZES) {
+            queues.put(size, new RoomQueue(size));
+        }
+        this.connectionExecutor = Executors.newCachedThreadPool(ServerThreads.factory("Lobby connection"));
+        this.gameExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "Lobby game");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The searches of the bots are long, so they have their own threads and never delay the events of the games
+        this.botExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "Lobby bot decision");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.botScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Lobby bots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.createdRooms = new AtomicInteger();
+    }
+
+    /**
+     * Welcomes a connection accepted by a blocking socket: the streams are opened on a thread of the lobby, so a slow
+     * client can't delay the next connections
+     *
+     * @param socket The accepted socket
+     */
+    public void connect(Socket socket) {
+        connectionExecutor.execute(() -> {
+            try {
+                new SocketClientHandler(this, socket).start();
+            } catch (IOException e) {
+                System.out.println(Frmt.color('r', "> Connection Error: " + socket.getRemoteSocketAddress() + " can't be set up."));
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+    }
+
+    /**
+     * Moves a client to the room of a game with the number of players chosen by the user
+     *
+     * @param clientHandler The client handler
+     * @param setUpGame     The set up message of the user
+     * @return The virtual view of the room or null value if the number of players isn't valid
+     */
+    VirtualView join(ClientHandler clientHandler, SetUpGame setUpGame) {
+        RoomQueue queue = queues.get(setUpGame.getNumPlayers());
+        if (queue == null)
+            return null;
+        Room room = queue.takeSeat();
+        clientHandler.setVirtualView(room.virtualView);
+        room.virtualView.addClientHandler(clientHandler);
+        return room.virtualView;
+    }
+
+    /**
+     * Gets the number of rooms created since the start of the lobby
+     *
+     * @return The number of created rooms
+     */
+    public int getCreatedRooms() {
+        return createdRooms.get();
+    }
+
+    /**
+     * Gets the number of players waiting in the room of a certain size
+     *
+     * @param numPlayers The number of players of the games
+     * @return The number of taken seats of the room that is being filled
+     */
+    public int getWaitingPlayers(int numPlayers) {
+        RoomQueue queue = queues.get(numPlayers);
+        return queue == null ? 0 : queue.getWaitingPlayers();
+    }
+
+    /**
+     * A game with its controller and its virtual view. The events of the game are processed in order by its mailbox
+     * on the shared threads of the lobby, so a game that waits for its players holds no thread
+     */
+    private final class Room {
+        private final Game game;
+        private final Controller controller;
+        private final VirtualView virtualView;
+        private int takenSeats;
+
+        /**
+         * Constructor: build a Room and start its controller
+         *
+         * @param numPlayers The number of players of the game
+         */
+        private Room(int numPlayers) {
+            game = new Game();
+            game.setNumPlayers(numPlayers);
+            SerialExecutor mailbox = new SerialExecutor(gameExecutor);
+            controller = new Controller(game, mailbox, botExecutor);
+            virtualView = new VirtualView(controller, mailbox);
+            controller.setVirtualView(virtualView);
+            createdRooms.incrementAndGet();
+            System.out.println("> Status: New game of " + numPlayers + " players has been created.");
+
+            controller.start();
+        }
+    }
+
+    /**
+     * The queue of the users that want to play games of a certain size: it fills one room at a time
+     */
+    private final class RoomQueue {
+        private final int size;
+        private Room waitingRoom;
+
+        /**
+         * Constructor: build an empty RoomQueue
+         *
+         * @param size The number of players of the games
+         */
+        private RoomQueue(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Takes a seat in the room that is being filled, creating it if there isn't one
+         *
+         * @return The room of the seat
+         */
+        private synchronized Room takeSeat() {
+            if (waitingRoom == null || !waitingRoom.game.isActive())
+                waitingRoom = new Room(size);
+            Room room = waitingRoom;
+            room.takenSeats++;
+            if (room.takenSeats == size) {
+                System.out.println("> Status: Game room is full.");
+                waitingRoom = null;
+            } else if (room.takenSeats == 1) {
+                scheduleBots(room);
+            }
+            return room;
+        }
+
+        /**
+         * Gets the number of players in the room that is being filled
+         *
+         * @return The number of taken seats
+         */
+        private synchronized int getWaitingPlayers() {
+            return waitingRoom == null ? 0 : waitingRoom.takenSeats;
+        }
+
+        /**
+         * Fills the empty seats of a room with bots if it is still waiting for players after the configured time
+         *
+         * @param room The room
+         */
+        private void scheduleBots(Room room) {
+            int waitSeconds = Configurator.getBotWaitSeconds();
+            if (waitSeconds >= 0)
+                botScheduler.schedule(() -> fillWithBots(room), waitSeconds, TimeUnit.SECONDS);
+        }
+
+        /**
+         * Adds bots to a room until it is full
+         *
+         * @param room The room
+         */
+        private synchronized void fillWithBots(Room room) {
+            if (waitingRoom != room || !room.game.isActive())
+                return;
+
+            long moveTime = Configurator.getBotMoveMillis();
+            long cpuTimeBudget = Configurator.getBotCpuMillis();
+            long allocationBudget = Configurator.getBotAllocationMegabytes() * 1024L * 1024L;
+            while (room.takenSeats < size) {
+                // The search and the endgame solves run on the thread of the budget, so all their resources are measured
+                room.controller.addBot(new BudgetedStrategy(new EndgameStrategy(new AlphaBetaStrategy(moveTime, 1), moveTime),
+                        cpuTimeBudget, allocationBudget));
+                room.takenSeats++;
+            }
+            System.out.println("> Status: Game room is full.");
+            waitingRoom = null;
+        }
+    }
+}
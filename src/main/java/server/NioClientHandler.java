@@ -0,0 +1,234 @@
+package server;
+
+import network.FrameCodec;
+import network.Message;
+import util.Frmt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Manages communication from and to a client with a non-blocking channel served by an event loop. An idle client
+ * holds no thread and no buffer: the frames are read in the buffer of the event loop and only an incomplete frame is
+ * copied into a buffer of the client. The messages are executed on the executor of the game, and the messages to be
+ * sent are written directly when the channel can take them, otherwise they are queued until the event loop finds the
+ * channel writable. The pings never block, so they are sent by the timing wheel of the heartbeats
+ */
+class NioClientHandler extends ClientHandler {
+    private static final int MAX_QUEUED_BYTES = 4 * FrameCodec.MAX_FRAME_SIZE;
+    private final SocketChannel channel;
+    private final EventLoop eventLoop;
+    private final Queue<ByteBuffer> writeQueue;
+    private int queuedBytes;
+    private SelectionKey key;
+    private ByteBuffer partialFrame;
+
+    /**
+     * Constructor: build a NioClientHandler
+     *
+     * @param lobby     The lobby that assigns the client to a game
+     * @param channel   The non-blocking channel of the client
+     * @param eventLoop The event loop that serves the channel
+     */
+    public NioClientHandler(Lobby lobby, SocketChannel channel, EventLoop eventLoop) {
+        super(lobby, Runnable::run);
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.writeQueue = new ArrayDeque<>();
+        this.queuedBytes = 0;
+    }
+
+    /**
+     * Registers the channel to the selector of the event loop and sends the initial message. It runs on the event loop
+     *
+     * @param selector The selector of the event loop
+     * @throws IOException When the channel can't be registered
+     */
+    void register(Selector selector) throws IOException {
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+        connectionSetUp();
+    }
+
+    /**
+     * Reads the available bytes and executes the complete frames. It runs on the event loop
+     *
+     * @param sharedBuffer The read buffer of the event loop
+     */
+    void onReadable(ByteBuffer sharedBuffer) {
+        ByteBuffer buffer = partialFrame;
+        if (buffer == null) {
+            buffer = sharedBuffer;
+            buffer.clear();
+        }
+        int read;
+        try {
+            read = channel.read(buffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            partialFrame = null;
+            connectionLost("receiving");
+            return;
+        }
+
+        buffer.flip();
+        while (buffer.remaining() >= FrameCodec.HEADER_SIZE) {
+            int length = buffer.getInt(buffer.position());
+            if (!FrameCodec.isValidLength(length)) {
+                System.out.println(Frmt.color('r', "> Warning: " + getNickname() + " has sent an invalid frame"));
+                partialFrame = null;
+                connectionLost("receiving");
+                return;
+            }
+            if (buffer.remaining() < FrameCodec.HEADER_SIZE + length)
+                break;
+
+            Message message;
+            try {
+                message = FrameCodec.decode(buffer.array(), buffer.arrayOffset() + buffer.position() + FrameCodec.HEADER_SIZE, length);
+            } catch (IOException | ClassNotFoundException e) {
+                partialFrame = null;
+                connectionLost("receiving");
+                return;
+            }
+            buffer.position(buffer.position() + FrameCodec.HEADER_SIZE + length);
+            receive(message);
+        }
+        keepPartialFrame(buffer);
+    }
+
+    /**
+     * Writes the queued frames. It runs on the event loop
+     */
+    void onWritable() {
+        boolean isFailed = false;
+        synchronized (writeQueue) {
+            try {
+                flushQueue();
+                if (writeQueue.isEmpty() && key.isValid())
+                    key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                isFailed = true;
+            }
+        }
+        if (isFailed)
+            connectionLost("sending");
+    }
+
+    /**
+     * Asks the event loop to be notified when the channel is writable. It runs on the event loop
+     */
+    void enableWrite() {
+        if (key != null && key.isValid())
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Sends a message: the frame is written immediately if nothing is queued and the channel can take it, otherwise
+     * it is queued for the event loop
+     *
+     * @param message The message to be sent
+     */
+    public void send(Message message) {
+        if (!isConnected())
+            return;
+
+        ByteBuffer frame;
+        try {
+            frame = ByteBuffer.wrap(FrameCodec.encode(message));
+        } catch (IOException e) {
+            connectionLost("sending");
+            return;
+        }
+
+        boolean isFailed = false;
+        boolean needsWrite = false;
+        synchronized (writeQueue) {
+            try {
+                if (writeQueue.isEmpty())
+                    channel.write(frame);
+                if (frame.hasRemaining()) {
+                    if (queuedBytes + frame.remaining() > MAX_QUEUED_BYTES) {
+                        // The client doesn't read its messages
+                        isFailed = true;
+                    } else {
+                        needsWrite = writeQueue.isEmpty();
+                        writeQueue.add(frame);
+                        queuedBytes += frame.remaining();
+                    }
+                }
+            } catch (IOException e) {
+                isFailed = true;
+            }
+        }
+        if (isFailed)
+            connectionLost("sending");
+        else if (needsWrite)
+            eventLoop.execute(this::enableWrite);
+    }
+
+    /**
+     * Runs a task that involves the game of the client on the executor of the game, so the event loop never blocks
+     * and the messages of a game are executed in order
+     *
+     * @param task The task
+     */
+    protected void dispatch(Runnable task) {
+        getVirtualView().getExecutor().execute(task);
+    }
+
+    /**
+     * Closes the connection to the client and removes it from the event loop
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        eventLoop.unregister(this);
+    }
+
+    /**
+     * Writes the queued frames until the queue is empty or the channel is full
+     *
+     * @throws IOException When the channel is broken
+     */
+    private void flushQueue() throws IOException {
+        ByteBuffer frame;
+        while ((frame = writeQueue.peek()) != null) {
+            int remaining = frame.remaining();
+            channel.write(frame);
+            queuedBytes -= remaining - frame.remaining();
+            if (frame.hasRemaining())
+                return;
+            writeQueue.poll();
+        }
+    }
+
+    /**
+     * Keeps the bytes of an incomplete frame for the next read, in a buffer big enough for the whole frame
+     *
+     * @param buffer The read buffer, in read mode
+     */
+    private void keepPartialFrame(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            partialFrame = null;
+            return;
+        }
+        int required = buffer.remaining() < FrameCodec.HEADER_SIZE ? FrameCodec.HEADER_SIZE :
+                FrameCodec.HEADER_SIZE + buffer.getInt(buffer.position());
+        if (buffer == partialFrame && buffer.capacity() >= required) {
+            buffer.compact();
+        } else {
+            ByteBuffer frame = ByteBuffer.allocate(Math.max(required, buffer.remaining()));
+            frame.put(buffer);
+            partialFrame = frame;
+        }
+    }
+}
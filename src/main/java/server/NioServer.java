@@ -0,0 +1,97 @@
+package server;
+
+import util.Frmt;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Transport of the server based on non-blocking channels: the accepted clients are spread over a small fixed set of
+ * event loops, so the number of threads doesn't depend on the number of connections
+ */
+public class NioServer {
+    private final Lobby lobby;
+    private final EventLoop[] eventLoops;
+    private final ServerSocketChannel serverChannel;
+    private int nextEventLoop;
+
+    /**
+     * Constructor: build a NioServer and start its event loops
+     *
+     * @param lobby      The lobby that assigns the clients to the games
+     * @param port       The port of the server, 0 for any free port
+     * @param eventLoops The number of event loops
+     * @throws IOException When the server channel can't be opened
+     */
+    public NioServer(Lobby lobby, int port, int eventLoops) throws IOException {
+        this.lobby = lobby;
+        this.eventLoops = new EventLoop[Math.max(eventLoops, 1)];
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port), 1024);
+        this.nextEventLoop = 0;
+        for (int i = 0; i < this.eventLoops.length; i++) {
+            this.eventLoops[i] = new EventLoop("Event loop " + i);
+            this.eventLoops[i].start();
+        }
+    }
+
+    /**
+     * Accepts the clients until the server is closed and hands them to the event loops
+     */
+    public void acceptClients() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                EventLoop eventLoop = eventLoops[nextEventLoop];
+                nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+                eventLoop.register(new NioClientHandler(lobby, channel, eventLoop));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.out.println(Frmt.color('r', "> Connection Error: Could not accept the connection."));
+            }
+        }
+    }
+
+    /**
+     * Gets the port of the server
+     *
+     * @return The local port of the server channel
+     * @throws IOException When the server channel is closed
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Gets the number of clients served by the event loops
+     *
+     * @return The number of open connections
+     */
+    public int getConnections() {
+        int connections = 0;
+        for (EventLoop eventLoop : eventLoops) {
+            connections += eventLoop.getConnections();
+        }
+        return connections;
+    }
+
+    /**
+     * Stops accepting clients and closes all the connections
+     */
+    public void close() {
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+        }
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package server;
 
-import model.Game;
 import util.Configurator;
 import util.Frmt;
 
@@ -13,17 +12,13 @@ import java.net.Socket;
  */
 public class ServerLauncher {
     private static ServerSocket serverSocket;
-    private Game currentGame;
-    private VirtualView currentVirtualView;
-    private int addedPlayers;
+    private final Lobby lobby;
 
     /**
      * Constructor: build a ServerLauncher
      */
     public ServerLauncher() {
-        currentGame = null;
-        currentVirtualView = null;
-        addedPlayers = 0;
+        lobby = new Lobby();
     }
 
     public static void main(String[] args) {
@@ -37,19 +32,28 @@ public class ServerLauncher {
     }
 
     /**
-     * ServerLauncher launcher. Starts the server socket and listen for clients requests
+     * ServerLauncher launcher. Starts the server with the configured transport and listen for clients requests
      *
      * @throws IOException When the server can't open the ServerSocket
      */
     public void launch() throws IOException {
         Frmt.clearServerLog();
+        if (Configurator.getServerThreads().equalsIgnoreCase("virtual") && ServerThreads.setVirtual(true))
+            System.out.println("> Status: The server uses virtual threads.");
+        if (Configurator.getServerTransport().equalsIgnoreCase("nio")) {
+            NioServer nioServer = new NioServer(lobby, Configurator.getDefaultPort(), Configurator.getEventLoops());
+            System.out.println(Frmt.color('g', "> Server started successfully."));
+            nioServer.acceptClients();
+            return;
+        }
+
         serverSocket = new ServerSocket(Configurator.getDefaultPort());
         System.out.println(Frmt.color('g', "> Server started successfully."));
 
         while (true) {
             try {
                 initClient();
-            } catch (IOException | InterruptedException e) {
+            } catch (IOException e) {
                 System.out.println(Frmt.color('r', "> Connection Error: Could not accept the connection."));
                 e.printStackTrace();
             }
@@ -57,68 +61,14 @@ public class ServerLauncher {
     }
 
     /**
-     * Add a client to an existing game or create a new game if there are no games available
+     * Accepts a client and hands it to the lobby, which will add it to a game when the user has chosen the number of
+     * players
      *
-     * @throws IOException          When happens a connection error
-     * @throws InterruptedException When the server has been interrupted
+     * @throws IOException When happens a connection error
      */
-    public void initClient() throws IOException, InterruptedException {
-        ClientHandler clientHandler;
-
+    public void initClient() throws IOException {
         Socket socket = serverSocket.accept();
         System.out.println(Frmt.color('g', "> " + socket.getRemoteSocketAddress() + " has connected."));
-
-        // Creates a game if it doesn't exist and add the client to it
-        if (currentGame == null) {
-            initGame();
-            clientHandler = new ClientHandler(currentVirtualView, socket, true);
-        } else {
-            clientHandler = new ClientHandler(currentVirtualView, socket, false);
-        }
-        currentVirtualView.addClientHandler(clientHandler);
-        clientHandler.start();
-        addedPlayers++;
-
-        // Sleep until the number of players of the game has been set
-        synchronized (currentGame) {
-            while (currentGame.getNumPlayers() == -1 && currentGame.isActive()) {
-                currentGame.wait();
-            }
-        }
-        if (addedPlayers == currentGame.getNumPlayers() || !currentGame.isActive()) {
-            clearGameRoom();
-        }
-    }
-
-    /**
-     * Clears the game room preparing it to welcome new users
-     */
-    private void clearGameRoom() {
-        System.out.println("> Status: Game room is full.");
-        currentGame = null;
-        currentVirtualView = null;
-        addedPlayers = 0;
-    }
-
-    /**
-     * Creates and initializes a new game instance
-     */
-    private void initGame() {
-        System.out.println("> Status: New game has been created.");
-
-        // Setup of the server side game management
-        currentGame = new Game();
-        Controller controller = new Controller(currentGame);
-        currentVirtualView = new VirtualView(controller);
-        controller.setVirtualView(currentVirtualView);
-
-        // Starts the game controller
-        (new Thread(() -> {
-            try {
-                controller.gameStarter();
-            } catch (Exception ignored) {
-            }
-            System.out.println(Frmt.color('r', "> Status: Controller has stopped."));
-        })).start();
+        lobby.connect(socket);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package server;
+
+import util.Frmt;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the threads of the server that block for a long time: the read loops and the writers of the blocking connections. They are platform threads, or virtual threads when the mode is enabled and the runtime supports them.
+ * The virtual threads are created through reflection, so the server still builds and runs on the runtimes without them
+ */
+public class ServerThreads {
+
+    private static final Method ofVirtual;
+    private static final Method builderName;
+    private static final Method builderUnstarted;
+    private static volatile boolean useVirtual = false;
+
+    static {
+        Method factoryMethod = null;
+        Method name = null;
+        Method unstarted = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            name = builderClass.getMethod("name", String.class);
+            unstarted = builderClass.getMethod("unstarted", Runnable.class);
+            factoryMethod = Thread.class.getMethod("ofVirtual");
+            // Fails if the virtual threads are a preview feature that isn't enabled
+            factoryMethod.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            factoryMethod = null;
+        }
+        ofVirtual = factoryMethod;
+        builderName = name;
+        builderUnstarted = unstarted;
+    }
+
+    /**
+     * Checks if the runtime supports the virtual threads
+     *
+     * @return True if the virtual threads can be created, otherwise false
+     */
+    public static boolean isVirtualSupported() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Chooses the kind of the new threads of the server. It should be called at startup, before any client connects
+     *
+     * @param virtual True for virtual threads, false for platform threads
+     * @return True if the mode has been set, false if the virtual threads aren't supported
+     */
+    public static boolean setVirtual(boolean virtual) {
+        if (virtual && !isVirtualSupported()) {
+            System.out.println(Frmt.color('y', "> Warning: virtual threads aren't supported by this runtime, " +
+                    "the server uses platform threads"));
+            useVirtual = false;
+            return false;
+        }
+        useVirtual = virtual;
+        return true;
+    }
+
+    /**
+     * Checks the kind of the new threads of the server
+     *
+     * @return True if the new threads are virtual, otherwise false
+     */
+    public static boolean isVirtual() {
+        return useVirtual;
+    }
+
+    /**
+     * Creates a thread of the current kind, without starting it
+     *
+     * @param task     The task of the thread
+     * @param name     The name of the thread
+     * @param isDaemon True if a platform thread must not keep the server alive (virtual threads are always daemon)
+     * @return The unstarted thread
+     */
+    public static Thread newThread(Runnable task, String name, boolean isDaemon) {
+        if (useVirtual) {
+            try {
+                // The builders aren't thread-safe, so each thread has its own
+                Object builder = builderName.invoke(ofVirtual.invoke(null), name);
+                return (Thread) builderUnstarted.invoke(builder, task);
+            } catch (ReflectiveOperationException e) {
+                System.out.println(Frmt.color('r', "> Error: can't create a virtual thread: " + e));
+            }
+        }
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(isDaemon);
+        return thread;
+    }
+
+    /**
+     * Creates and starts a thread of the current kind
+     *
+     * @param task The task of the thread
+     * @param name The name of the thread
+     * @return The started thread
+     */
+    public static Thread start(Runnable task, String name) {
+        Thread thread = newThread(task, name, false);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Gets a factory of daemon threads of the current kind, for the executors of the server
+     *
+     * @param name The name of the threads
+     * @return The thread factory
+     */
+    public static ThreadFactory factory(String name) {
+        return task -> newThread(task, name, true);
+    }
+}
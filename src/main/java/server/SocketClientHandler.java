@@ -0,0 +1,159 @@
+package server;
+
+import network.FrameCodec;
+import network.Message;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Manages communication from and to a client with blocking streams: the messages are read by a dedicated thread
+ * and executed on it. The threads are virtual if the mode of the server is enabled. The messages to be sent are
+ * encoded by the sender and queued, then a writer thread of the connection writes them, so a client that doesn't
+ * read its messages never blocks the threads of the games. The writer exists only while there are queued frames.
+ * The pings never block, so they are sent by the timing wheel of the heartbeats, and a client that stops answering
+ * is closed by its heartbeat, which unblocks the threads
+ */
+class SocketClientHandler extends ClientHandler implements Runnable {
+    private static final int MAX_QUEUED_BYTES = 4 * FrameCodec.MAX_FRAME_SIZE;
+    private static ExecutorService writers;
+    private final Queue<byte[]> writeQueue;
+    private final OutputStream output;
+    private final DataInputStream input;
+    private final Socket socket;
+    private int queuedBytes;
+    private boolean isWriting;
+
+    /**
+     * Constructor: build a SocketClientHandler
+     *
+     * @param lobby  The lobby that assigns the client to a game
+     * @param socket The socket
+     * @throws IOException When it's not possible to open input or output streams
+     */
+    public SocketClientHandler(Lobby lobby, Socket socket) throws IOException {
+        super(lobby, Runnable::run);
+        this.socket = socket;
+        this.writeQueue = new ArrayDeque<>();
+        this.output = socket.getOutputStream();
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.queuedBytes = 0;
+        this.isWriting = false;
+    }
+
+    /**
+     * Gets the executor shared by the writers of all the connections: a thread is created when all the others are
+     * busy, so a stuck client holds only the thread of its own writer
+     *
+     * @return The executor of the writers
+     */
+    private static synchronized ExecutorService getWriters() {
+        if (writers == null)
+            writers = Executors.newCachedThreadPool(ServerThreads.factory("Client writer"));
+        return writers;
+    }
+
+    /**
+     * Starts the thread that reads the messages of the client, a virtual thread if the mode is enabled
+     */
+    public void start() {
+        ServerThreads.start(this, "Client " + socket.getRemoteSocketAddress());
+    }
+
+    /**
+     * As long as the client is connected, waits for a message from the client and execute it
+     */
+    public void run() {
+        connectionSetUp();
+
+        while (isConnected()) {
+            try {
+                receive(FrameCodec.read(input));
+            } catch (IOException | ClassNotFoundException e) {
+                connectionLost("receiving");
+            }
+        }
+    }
+
+    /**
+     * Sends a message: it is encoded on the calling thread and queued for the writer of the connection, so it never
+     * blocks. A client whose queue grows too much doesn't read its messages and is disconnected
+     *
+     * @param message The message to be sent
+     */
+    public void send(Message message) {
+        if (!isConnected())
+            return;
+
+        byte[] frame;
+        try {
+            frame = FrameCodec.encode(message);
+        } catch (IOException e) {
+            connectionLost("sending");
+            return;
+        }
+
+        boolean isFailed = false;
+        boolean needsWriter = false;
+        synchronized (writeQueue) {
+            if (queuedBytes + frame.length > MAX_QUEUED_BYTES) {
+                isFailed = true;
+            } else {
+                writeQueue.add(frame);
+                queuedBytes += frame.length;
+                needsWriter = !isWriting;
+                isWriting = true;
+            }
+        }
+        if (isFailed)
+            connectionLost("sending");
+        else if (needsWriter)
+            getWriters().execute(this::writeQueued);
+    }
+
+    /**
+     * Writes the queued frames in order until the queue is empty. It runs on the writer of the connection
+     */
+    private void writeQueued() {
+        while (true) {
+            byte[] frame;
+            synchronized (writeQueue) {
+                frame = writeQueue.poll();
+                if (frame == null) {
+                    isWriting = false;
+                    return;
+                }
+                queuedBytes -= frame.length;
+            }
+            try {
+                output.write(frame);
+                output.flush();
+            } catch (IOException e) {
+                synchronized (writeQueue) {
+                    writeQueue.clear();
+                    queuedBytes = 0;
+                    isWriting = false;
+                }
+                connectionLost("sending");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the connection to the client
+     */
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -4,30 +4,52 @@ import model.Card;
 import model.Cell;
 import model.Player;
 import network.Message;
-import network.messages.SetUpNewNickname;
 import util.Action;
 import util.Genre;
 import util.exceptions.DisconnectionException;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * The virtual view of the server
  */
 public class VirtualView {
+    // Written by the threads of the lobby and read by the mailbox of the game, which never sees a partial list
     private final List<ClientHandler> clientHandlers;
     private final Controller controller;
+    private final Executor executor;
 
     /**
-     * Constructor: build the VirtualView
+     * Constructor: build the VirtualView whose messages are executed by the threads that receive them
      *
      * @param controller The controller
      */
     public VirtualView(Controller controller) {
-        this.clientHandlers = new ArrayList<>();
+        this(controller, Runnable::run);
+    }
+
+    /**
+     * Constructor: build the VirtualView
+     *
+     * @param controller The controller
+     * @param executor   The executor of the messages of the game
+     */
+    public VirtualView(Controller controller, Executor executor) {
+        this.clientHandlers = new CopyOnWriteArrayList<>();
         this.controller = controller;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the executor of the messages of the game
+     *
+     * @return The executor
+     */
+    public Executor getExecutor() {
+        return executor;
     }
 
     /**
@@ -36,9 +58,7 @@ public class VirtualView {
      * @param clientHandler The ClientHandler to be added
      */
     public void addClientHandler(ClientHandler clientHandler) {
-        synchronized (clientHandlers) {
-            clientHandlers.add(clientHandler);
-        }
+        clientHandlers.add(clientHandler);
     }
 
     /**
@@ -91,17 +111,7 @@ public class VirtualView {
      * @param numPlayers        The number of the players of the game (ignored if the player isn't the first one)
      */
     public void setUpGame(String temporaryNickname, String nickname, Date birthDate, int numPlayers) {
-        if (numPlayers == 2 || numPlayers == 3) {
-            controller.setNumPlayers(numPlayers);
-        }
-        boolean isUniqueUsername = controller.setPlayerInfo(nickname, birthDate);
-        if (!isUniqueUsername) {
-            controller.setTemporaryPlayerInfo(temporaryNickname, birthDate);
-            getClientHandlerByNickname(temporaryNickname).send(new SetUpNewNickname(temporaryNickname));
-        } else {
-            getClientHandlerByNickname(temporaryNickname).setNickname(nickname);
-        }
-        controller.wakeUpController();
+        controller.joinPlayer(temporaryNickname, nickname, birthDate, numPlayers);
     }
 
     /**
@@ -111,13 +121,7 @@ public class VirtualView {
      * @param nickname          The requested nickname
      */
     public void setNewNickname(String temporaryNickname, String nickname) {
-        boolean isUniqueUsername = controller.setNewNickname(temporaryNickname, nickname);
-        if (!isUniqueUsername) {
-            getClientHandlerByNickname(temporaryNickname).send(new SetUpNewNickname(temporaryNickname));
-        } else {
-            getClientHandlerByNickname(temporaryNickname).setNickname(nickname);
-        }
-        controller.wakeUpController();
+        controller.changeNickname(temporaryNickname, nickname);
     }
 
     /**
@@ -179,6 +183,15 @@ public class VirtualView {
         controller.setAction(action, player);
     }
 
+    /**
+     * Notify the controller that a player has asked a hint
+     *
+     * @param nickname The nickname of the player
+     */
+    public void requestHint(String nickname) {
+        controller.requestHint(nickname);
+    }
+
     /**
      * Notify the controller that a player has disconnected
      *
@@ -0,0 +1,76 @@
+package server.bot;
+
+import server.engine.ParallelSearch;
+import server.engine.Position;
+import util.RoundActions;
+
+/**
+ * Strategy that chooses the best action found by a parallel alpha-beta search within a time budget.
+ * The transposition table is kept between the actions, so an instance must be used by only one bot
+ */
+public class AlphaBetaStrategy implements BotStrategy {
+
+    private static final int TABLE_BITS = 18;
+    private final long moveTime;
+    private final ParallelSearch search;
+
+    /**
+     * Constructor: build an AlphaBetaStrategy with a search thread for each available processor
+     *
+     * @param moveTime The time budget of each action in milliseconds
+     */
+    public AlphaBetaStrategy(long moveTime) {
+        this(moveTime, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor: build an AlphaBetaStrategy
+     *
+     * @param moveTime The time budget of each action in milliseconds
+     * @param workers  The number of search threads
+     */
+    public AlphaBetaStrategy(long moveTime, int workers) {
+        this.moveTime = moveTime;
+        this.search = new ParallelSearch(workers, TABLE_BITS);
+    }
+
+    /**
+     * Chooses the next action of the current player of a position
+     *
+     * @param position        A copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @return The chosen encoded action
+     */
+    public int chooseAction(Position position, RoundActions possibleActions) {
+        return search.search(position, moveTime * 1_000_000L);
+    }
+
+    /**
+     * Chooses the next action of the current player of a position within the shorter of the time left and the time
+     * budget of the strategy
+     *
+     * @param position        A copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @param timeBudget      The time left for the choice in nanoseconds
+     * @return The chosen encoded action
+     */
+    public int chooseAction(Position position, RoundActions possibleActions, long timeBudget) {
+        return search.search(position, Math.min(timeBudget, moveTime * 1_000_000L));
+    }
+
+    /**
+     * Stops the running choice, which returns the best action found so far
+     */
+    public void cancel() {
+        search.cancel();
+    }
+
+    /**
+     * Gets the name of the strategy
+     *
+     * @return The name of the strategy
+     */
+    public String toString() {
+        return "alphabeta";
+    }
+}
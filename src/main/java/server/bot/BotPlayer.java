@@ -0,0 +1,171 @@
+package server.bot;
+
+import model.Board;
+import model.Card;
+import model.Game;
+import model.Player;
+import server.engine.OpeningBook;
+import server.engine.Position;
+import util.Action;
+import util.Configurator;
+import util.RoundActions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A player driven by the server: the Controller asks it for its choices instead of sending messages to a client
+ */
+public class BotPlayer extends Player {
+
+    private final transient BotStrategy strategy;
+    private transient Random random;
+    private int chosenActions;
+
+    /**
+     * Constructor: build a BotPlayer that plays the solved endgames and searches the other actions with a
+     * single-threaded alpha-beta, so many bots can share a core
+     *
+     * @param nickname The nickname of the bot
+     * @param moveTime The time budget of each action in milliseconds
+     */
+    public BotPlayer(String nickname, long moveTime) {
+        this(nickname, new EndgameStrategy(new AlphaBetaStrategy(moveTime, 1), moveTime));
+    }
+
+    /**
+     * Constructor: build a BotPlayer
+     *
+     * @param nickname The nickname of the bot
+     * @param strategy The strategy that chooses the actions of the bot
+     */
+    public BotPlayer(String nickname, BotStrategy strategy) {
+        super(nickname, new Date(), false);
+        this.strategy = strategy;
+        this.chosenActions = 0;
+    }
+
+    /**
+     * Gets the strategy of the bot
+     *
+     * @return The strategy of the bot
+     */
+    public BotStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Gets the number of actions chosen by the bot
+     *
+     * @return The number of chosen actions
+     */
+    public int getChosenActions() {
+        return chosenActions;
+    }
+
+    /**
+     * Chooses the cards of the game as challenger
+     *
+     * @param numPlayers The number of players of the game
+     * @return The chosen cards
+     */
+    public List<Card> chooseGameCards(int numPlayers) {
+        List<Card> cards = new ArrayList<>();
+        for (Card card : Configurator.getAllCards()) {
+            if (numPlayers == 2 || card.isThreePlayersCompatible())
+                cards.add(card);
+        }
+        Collections.shuffle(cards, getRandom());
+        return new ArrayList<>(cards.subList(0, numPlayers));
+    }
+
+    /**
+     * Chooses a card among the available ones
+     *
+     * @param possibleChoices The available cards
+     * @return The chosen card
+     */
+    public Card chooseCard(List<Card> possibleChoices) {
+        return possibleChoices.get(getRandom().nextInt(possibleChoices.size()));
+    }
+
+    /**
+     * Chooses the first player as challenger
+     *
+     * @param nicknames The nicknames of the players
+     * @return The nickname of the first player
+     */
+    public String chooseFirstPlayer(List<String> nicknames) {
+        return nicknames.get(getRandom().nextInt(nicknames.size()));
+    }
+
+    /**
+     * Chooses a color among the available ones
+     *
+     * @param availableColors The names of the available colors
+     * @return The name of the chosen color
+     */
+    public String chooseColor(List<String> availableColors) {
+        return availableColors.get(0);
+    }
+
+    /**
+     * Chooses the starting position of a worker: a free cell with the most adjacent free cells
+     *
+     * @param game The game
+     * @return The bit index of the chosen cell
+     */
+    public int choosePosition(Game game) {
+        Board board = game.getBoard();
+        int freeMask = ~game.getOccupiedMask() & ((1 << Board.SIZE) - 1);
+        int bestScore = -1;
+        List<Integer> bestCells = new ArrayList<>();
+        for (int index = 0; index < Board.SIZE; index++) {
+            if ((freeMask & (1 << index)) == 0)
+                continue;
+            int score = Integer.bitCount(board.getAdjacentMask(board.getCell(index)) & freeMask);
+            if (score > bestScore) {
+                bestScore = score;
+                bestCells.clear();
+            }
+            if (score == bestScore)
+                bestCells.add(index);
+        }
+        return bestCells.get(getRandom().nextInt(bestCells.size()));
+    }
+
+    /**
+     * Chooses the next action with the strategy of the bot. It may run on a thread other than the one of the game,
+     * so it only works on the given copy
+     *
+     * @param position        A private copy of the game seen from the bot
+     * @param possibleActions The possible actions of the bot
+     * @return The chosen action
+     */
+    public Action chooseAction(Position position, RoundActions possibleActions) {
+        // The opening book answers the early actions without searching
+        OpeningBook book = OpeningBook.getSharedBook();
+        int code = book != null ? book.lookup(position) : 0;
+        if (!possibleActions.contains(code))
+            code = strategy.chooseAction(position, possibleActions);
+        // The strategy works on the same rules, this is only a safety net
+        if (!possibleActions.contains(code))
+            code = possibleActions.getCode(0);
+        chosenActions++;
+        return Action.decode(code);
+    }
+
+    /**
+     * Gets the random generator of the bot
+     *
+     * @return The random generator
+     */
+    private Random getRandom() {
+        if (random == null)
+            random = new Random();
+        return random;
+    }
+}
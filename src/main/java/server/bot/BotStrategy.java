@@ -0,0 +1,68 @@
+package server.bot;
+
+import server.engine.Position;
+import util.RoundActions;
+
+import java.util.ServiceLoader;
+
+/**
+ * The way a bot chooses its actions during the turns. Other strategies can be plugged in with a BotStrategyProvider
+ */
+public interface BotStrategy {
+
+    /**
+     * Chooses the next action of the current player of a position
+     *
+     * @param position        A private copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @return The chosen encoded action
+     */
+    int chooseAction(Position position, RoundActions possibleActions);
+
+    /**
+     * Chooses the next action of the current player of a position within a time budget, when a part of the time of
+     * the action has already been spent. The strategies without a time budget ignore it
+     *
+     * @param position        A private copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @param timeBudget      The time left for the choice in nanoseconds
+     * @return The chosen encoded action
+     */
+    default int chooseAction(Position position, RoundActions possibleActions, long timeBudget) {
+        return chooseAction(position, possibleActions);
+    }
+
+    /**
+     * Stops the running choice as soon as possible. The strategies that search for a long time should return the
+     * best action found so far
+     */
+    default void cancel() {
+    }
+
+    /**
+     * Builds a strategy from its name: alphabeta, mcts, random or the name of a BotStrategyProvider on the class path.
+     * The searches of alphabeta and mcts play the solved endgames perfectly
+     *
+     * @param name     The name of the strategy
+     * @param moveTime The time budget of each action in milliseconds
+     * @param workers  The number of threads of a search
+     * @return The strategy
+     * @throws IllegalArgumentException If the name isn't a known strategy
+     */
+    static BotStrategy of(String name, long moveTime, int workers) {
+        switch (name.toLowerCase()) {
+            case "alphabeta":
+                return new EndgameStrategy(new AlphaBetaStrategy(moveTime, workers), moveTime);
+            case "mcts":
+                return new EndgameStrategy(new MonteCarloStrategy(moveTime, workers), moveTime);
+            case "random":
+                return new RandomStrategy();
+            default:
+                for (BotStrategyProvider provider : ServiceLoader.load(BotStrategyProvider.class)) {
+                    if (provider.getName().equalsIgnoreCase(name))
+                        return provider.create(moveTime, workers);
+                }
+                throw new IllegalArgumentException("Unknown bot strategy: " + name);
+        }
+    }
+}
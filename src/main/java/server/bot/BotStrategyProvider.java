@@ -0,0 +1,24 @@
+package server.bot;
+
+/**
+ * A factory of strategies loaded with the ServiceLoader, so that the server can host the bots of other developers.
+ * The implementations are listed in META-INF/services/server.bot.BotStrategyProvider of their jar
+ */
+public interface BotStrategyProvider {
+
+    /**
+     * Gets the name of the strategies built by the provider
+     *
+     * @return The name used to choose the strategy
+     */
+    String getName();
+
+    /**
+     * Builds a strategy for a bot
+     *
+     * @param moveTime The time budget of each action in milliseconds
+     * @param workers  The number of threads the strategy may use
+     * @return The strategy
+     */
+    BotStrategy create(long moveTime, int workers);
+}
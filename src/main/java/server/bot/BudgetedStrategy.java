@@ -0,0 +1,359 @@
+package server.bot;
+
+import server.engine.Position;
+import util.Frmt;
+import util.RoundActions;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Strategy that runs another strategy within a budget of CPU time and of allocated memory for each action, so that
+ * an expensive strategy can't starve the other games of the server. The wrapped strategy runs on a dedicated thread
+ * whose resources are measured with the ThreadMXBean: when a budget is exceeded the choice is cancelled and a random
+ * action is played instead. A strategy that exceeds its budgets too many times, or that doesn't stop when it's
+ * cancelled, is suspended and the bot plays random actions until the end of the game.
+ * Only the dedicated thread is measured, so the wrapped strategy should use one worker
+ */
+public class BudgetedStrategy implements BotStrategy {
+
+    private static final long POLL_MILLIS = 2;
+    private static final long GRACE_MILLIS = 200;
+    private static final int WALL_TIME_FACTOR = 10;
+    private static final int MAX_VIOLATIONS = 3;
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final BotStrategy strategy;
+    private final long cpuTimeBudget;
+    private final long allocationBudget;
+    private final BotStrategy fallback;
+    private final ThreadPoolExecutor executor;
+    private int decisions;
+    private int violations;
+    private long totalCpuTime;
+    private long totalAllocatedBytes;
+    private long lastCpuTime;
+    private long lastAllocatedBytes;
+    private boolean isSuspended;
+
+    /**
+     * Constructor: build a BudgetedStrategy
+     *
+     * @param strategy         The strategy to be run within the budgets
+     * @param cpuTimeBudget    The CPU time of each action in milliseconds, not limited if it isn't positive
+     * @param allocationBudget The memory allocated by each action in bytes, not limited if it isn't positive
+     */
+    public BudgetedStrategy(BotStrategy strategy, long cpuTimeBudget, long allocationBudget) {
+        this.strategy = strategy;
+        this.cpuTimeBudget = cpuTimeBudget > 0 ? cpuTimeBudget * 1_000_000L : Long.MAX_VALUE;
+        this.allocationBudget = allocationBudget > 0 ? allocationBudget : Long.MAX_VALUE;
+        this.fallback = new RandomStrategy();
+        // The thread stops when the bot is idle, so the bots of the ended games don't keep it
+        this.executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Bot strategy " + strategy);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Chooses the next action with the wrapped strategy, within the budgets
+     *
+     * @param position        A private copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @return The chosen encoded action
+     */
+    public int chooseAction(Position position, RoundActions possibleActions) {
+        if (isSuspended())
+            return fallback.chooseAction(position, possibleActions);
+
+        Decision decision = new Decision();
+        Future<Integer> future = executor.submit(() -> {
+            decision.start();
+            try {
+                return strategy.chooseAction(position, possibleActions);
+            } finally {
+                decision.stop();
+            }
+        });
+
+        long wallDeadline = cpuTimeBudget == Long.MAX_VALUE ? Long.MAX_VALUE :
+                System.nanoTime() + WALL_TIME_FACTOR * cpuTimeBudget;
+        try {
+            while (true) {
+                try {
+                    int code = future.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (record(decision))
+                        return code;
+                    // The budget has been exceeded between two polls
+                    addViolation(true);
+                    return fallback.chooseAction(position, possibleActions);
+                } catch (TimeoutException e) {
+                    if (decision.getCpuTime() > cpuTimeBudget || decision.getAllocatedBytes() > allocationBudget ||
+                            System.nanoTime() > wallDeadline) {
+                        boolean hasStopped = stop(future, decision);
+                        record(decision);
+                        addViolation(hasStopped);
+                        return fallback.chooseAction(position, possibleActions);
+                    }
+                }
+            }
+        } catch (ExecutionException | CancellationException e) {
+            System.out.println(Frmt.color('y', "> Warning: the bot strategy " + strategy + " has failed: " + e));
+            record(decision);
+            addViolation(true);
+            return fallback.chooseAction(position, possibleActions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            strategy.cancel();
+            future.cancel(true);
+            return fallback.chooseAction(position, possibleActions);
+        }
+    }
+
+    /**
+     * Stops the running choice
+     */
+    public void cancel() {
+        strategy.cancel();
+    }
+
+    /**
+     * Gets the number of actions chosen by the wrapped strategy, within the budgets or not
+     *
+     * @return The number of decisions
+     */
+    public synchronized int getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Gets the number of decisions that exceeded a budget or failed
+     *
+     * @return The number of violations
+     */
+    public synchronized int getViolations() {
+        return violations;
+    }
+
+    /**
+     * Gets the CPU time of all the decisions
+     *
+     * @return The CPU time in nanoseconds
+     */
+    public synchronized long getTotalCpuTime() {
+        return totalCpuTime;
+    }
+
+    /**
+     * Gets the memory allocated by all the decisions
+     *
+     * @return The number of allocated bytes
+     */
+    public synchronized long getTotalAllocatedBytes() {
+        return totalAllocatedBytes;
+    }
+
+    /**
+     * Gets the CPU time of the last decision
+     *
+     * @return The CPU time in nanoseconds
+     */
+    public synchronized long getLastCpuTime() {
+        return lastCpuTime;
+    }
+
+    /**
+     * Gets the memory allocated by the last decision
+     *
+     * @return The number of allocated bytes
+     */
+    public synchronized long getLastAllocatedBytes() {
+        return lastAllocatedBytes;
+    }
+
+    /**
+     * Checks if the wrapped strategy has been suspended
+     *
+     * @return True if the bot plays random actions, otherwise false
+     */
+    public synchronized boolean isSuspended() {
+        return isSuspended;
+    }
+
+    /**
+     * Gets the name of the strategy
+     *
+     * @return The name of the wrapped strategy
+     */
+    public String toString() {
+        return strategy.toString();
+    }
+
+    /**
+     * Cancels a choice that has exceeded its budget. If the thread doesn't stop within a grace period the strategy is
+     * suspended and the thread is abandoned with the lowest priority
+     *
+     * @param future   The running choice
+     * @param decision The resources of the running choice
+     * @return True if the choice has stopped, otherwise false
+     */
+    private boolean stop(Future<Integer> future, Decision decision) {
+        strategy.cancel();
+        future.cancel(true);
+        boolean hasStopped;
+        try {
+            hasStopped = decision.awaitStop(GRACE_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hasStopped = false;
+        }
+        if (!hasStopped) {
+            decision.getThread().setPriority(Thread.MIN_PRIORITY);
+            executor.shutdownNow();
+        }
+        return hasStopped;
+    }
+
+    /**
+     * Counts a decision that exceeded a budget or failed, suspending the strategy if it's the last allowed one or
+     * if the decision can't be stopped
+     *
+     * @param hasStopped True if the decision has ended, false if it's still running
+     */
+    private synchronized void addViolation(boolean hasStopped) {
+        violations++;
+        if (!isSuspended && (!hasStopped || violations >= MAX_VIOLATIONS)) {
+            isSuspended = true;
+            System.out.println(Frmt.color('y', "> Warning: the bot strategy " + strategy + " has been suspended"));
+        }
+    }
+
+    /**
+     * Adds the resources of a decision to the statistics
+     *
+     * @param decision The ended decision
+     * @return True if the decision was within the budgets, otherwise false
+     */
+    private synchronized boolean record(Decision decision) {
+        decisions++;
+        lastCpuTime = decision.getCpuTime();
+        lastAllocatedBytes = decision.getAllocatedBytes();
+        totalCpuTime += lastCpuTime;
+        totalAllocatedBytes += lastAllocatedBytes;
+        return lastCpuTime <= cpuTimeBudget && lastAllocatedBytes <= allocationBudget;
+    }
+
+    /**
+     * Gets the CPU time of a thread
+     *
+     * @param threadId The id of the thread
+     * @return The CPU time in nanoseconds or 0 if it can't be measured
+     */
+    private static long cpuTimeOf(long threadId) {
+        return threadBean.isThreadCpuTimeSupported() ? Math.max(threadBean.getThreadCpuTime(threadId), 0) : 0;
+    }
+
+    /**
+     * Gets the memory allocated by a thread
+     *
+     * @param threadId The id of the thread
+     * @return The number of allocated bytes or 0 if it can't be measured
+     */
+    private static long allocatedBytesOf(long threadId) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+                return Math.max(bean.getThreadAllocatedBytes(threadId), 0);
+        }
+        return 0;
+    }
+
+    /**
+     * The resources used by a choice, measured on the thread that runs it
+     */
+    private static final class Decision {
+        private final CountDownLatch stopLatch = new CountDownLatch(1);
+        private volatile Thread thread;
+        private volatile long threadId = -1;
+        private volatile long startCpuTime;
+        private volatile long startAllocatedBytes;
+        private volatile long cpuTime;
+        private volatile long allocatedBytes;
+        private volatile boolean isStopped;
+
+        /**
+         * Takes the initial measures on the current thread
+         */
+        private void start() {
+            thread = Thread.currentThread();
+            long id = thread.getId();
+            startCpuTime = cpuTimeOf(id);
+            startAllocatedBytes = allocatedBytesOf(id);
+            threadId = id;
+        }
+
+        /**
+         * Takes the final measures on the current thread
+         */
+        private void stop() {
+            long id = threadId;
+            cpuTime = cpuTimeOf(id) - startCpuTime;
+            allocatedBytes = allocatedBytesOf(id) - startAllocatedBytes;
+            isStopped = true;
+            stopLatch.countDown();
+        }
+
+        /**
+         * Waits for the end of a cancelled choice
+         *
+         * @param timeout The maximum time to wait in milliseconds
+         * @return True if the choice has ended or has never started, false if it's still running
+         * @throws InterruptedException When the thread is interrupted
+         */
+        private boolean awaitStop(long timeout) throws InterruptedException {
+            return stopLatch.await(timeout, TimeUnit.MILLISECONDS) || thread == null;
+        }
+
+        /**
+         * Gets the thread that runs the choice
+         *
+         * @return The thread or null value if the choice hasn't started
+         */
+        private Thread getThread() {
+            return thread;
+        }
+
+        /**
+         * Gets the CPU time used so far
+         *
+         * @return The CPU time in nanoseconds
+         */
+        private long getCpuTime() {
+            long id = threadId;
+            if (isStopped || id < 0)
+                return cpuTime;
+            return cpuTimeOf(id) - startCpuTime;
+        }
+
+        /**
+         * Gets the memory allocated so far
+         *
+         * @return The number of allocated bytes
+         */
+        private long getAllocatedBytes() {
+            long id = threadId;
+            if (isStopped || id < 0)
+                return allocatedBytes;
+            return allocatedBytesOf(id) - startAllocatedBytes;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package server.bot;
+
+import server.engine.EndgameSolver;
+import server.engine.EndgameTable;
+import server.engine.Position;
+import util.RoundActions;
+
+/**
+ * Strategy that plays the solved endgames perfectly and leaves the other positions to another strategy. When a
+ * position isn't in the table and few builds are left, the endgame is solved again from the position, at most once
+ * for each number of remaining builds. A solve takes at most half of the time of the action and the other strategy
+ * gets only the time that is left, so the whole choice stays within the time of the action. The solver has one
+ * worker and runs on the thread of the choice, so a budget around this strategy measures the solves too.
+ * The table is kept between the actions, so an instance must be used by only one bot
+ */
+public class EndgameStrategy implements BotStrategy {
+
+    private static final int ENDGAME_BUILDS = 32;
+    private static final int ENDGAME_MAX_NODES = 1 << 18;
+    private static final long ENDGAME_TIME_BUDGET = 100_000_000L;
+    private static final long MIN_SOLVE_BUDGET = 10_000_000L;
+    private final BotStrategy strategy;
+    private final long moveTime;
+    private final EndgameSolver solver;
+    private EndgameTable endgameTable;
+    private int endgameBuilds;
+
+    /**
+     * Constructor: build an EndgameStrategy
+     *
+     * @param strategy The strategy of the positions that haven't been solved
+     * @param moveTime The time budget of each action in milliseconds, shared by the solve and the other strategy
+     */
+    public EndgameStrategy(BotStrategy strategy, long moveTime) {
+        this.strategy = strategy;
+        this.moveTime = moveTime * 1_000_000L;
+        this.solver = new EndgameSolver(ENDGAME_MAX_NODES, 1);
+        this.endgameBuilds = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Chooses the action of the solved endgame or, if the position hasn't been solved, the action of the other
+     * strategy
+     *
+     * @param position        A private copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @return The chosen encoded action
+     */
+    public int chooseAction(Position position, RoundActions possibleActions) {
+        return chooseAction(position, possibleActions, moveTime);
+    }
+
+    /**
+     * Chooses the action of the solved endgame or, if the position hasn't been solved, the action of the other
+     * strategy, all within a time budget
+     *
+     * @param position        A private copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @param timeBudget      The time left for the choice in nanoseconds
+     * @return The chosen encoded action
+     */
+    public int chooseAction(Position position, RoundActions possibleActions, long timeBudget) {
+        long startTime = System.nanoTime();
+        int code = EndgameTable.actionOf(probeEndgame(position, Math.min(timeBudget, moveTime) / 2));
+        if (possibleActions.contains(code))
+            return code;
+        long remainingTime = Math.min(timeBudget, moveTime) - (System.nanoTime() - startTime);
+        return strategy.chooseAction(position, possibleActions, Math.max(remainingTime, 0));
+    }
+
+    /**
+     * Stops the running choice
+     */
+    public void cancel() {
+        strategy.cancel();
+    }
+
+    /**
+     * Gets the name of the strategy
+     *
+     * @return The name of the other strategy
+     */
+    public String toString() {
+        return strategy.toString();
+    }
+
+    /**
+     * Gets the result of a position from the endgame table, solving the endgame again if needed
+     *
+     * @param position    The position
+     * @param solveBudget The time that the solve can take in nanoseconds, it isn't tried if the time is too short
+     * @return The packed value of the endgame table or 0 if the position hasn't been solved
+     */
+    private int probeEndgame(Position position, long solveBudget) {
+        int value = endgameTable != null ? endgameTable.probe(position) : 0;
+        int remainingBuilds = EndgameSolver.remainingBuilds(position.getGame().getBoard());
+        if (value == 0 && remainingBuilds <= ENDGAME_BUILDS && remainingBuilds < endgameBuilds &&
+                solveBudget >= MIN_SOLVE_BUDGET) {
+            endgameBuilds = remainingBuilds;
+            EndgameTable table = solver.solve(position, Math.min(solveBudget, ENDGAME_TIME_BUDGET));
+            if (table != null) {
+                endgameTable = table;
+                value = table.probe(position);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,66 @@
+package server.bot;
+
+import server.engine.MonteCarloSearch;
+import server.engine.Position;
+import util.RoundActions;
+
+/**
+ * Strategy that chooses the most visited action of a Monte Carlo tree search within a time budget
+ */
+public class MonteCarloStrategy implements BotStrategy {
+
+    private static final int TREE_CAPACITY = 1 << 16;
+    private final long moveTime;
+    private final MonteCarloSearch search;
+
+    /**
+     * Constructor: build a MonteCarloStrategy
+     *
+     * @param moveTime The time budget of each action in milliseconds
+     * @param workers  The number of playout threads
+     */
+    public MonteCarloStrategy(long moveTime, int workers) {
+        this.moveTime = moveTime;
+        this.search = new MonteCarloSearch(workers, TREE_CAPACITY);
+    }
+
+    /**
+     * Chooses the next action of the current player of a position
+     *
+     * @param position        A copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @return The chosen encoded action
+     */
+    public int chooseAction(Position position, RoundActions possibleActions) {
+        return search.search(position, moveTime * 1_000_000L);
+    }
+
+    /**
+     * Chooses the next action of the current player of a position within the shorter of the time left and the time
+     * budget of the strategy
+     *
+     * @param position        A copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @param timeBudget      The time left for the choice in nanoseconds
+     * @return The chosen encoded action
+     */
+    public int chooseAction(Position position, RoundActions possibleActions, long timeBudget) {
+        return search.search(position, Math.min(timeBudget, moveTime * 1_000_000L));
+    }
+
+    /**
+     * Stops the running choice, which returns the best action found so far
+     */
+    public void cancel() {
+        search.cancel();
+    }
+
+    /**
+     * Gets the name of the strategy
+     *
+     * @return The name of the strategy
+     */
+    public String toString() {
+        return "mcts";
+    }
+}
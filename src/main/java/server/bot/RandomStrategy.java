@@ -0,0 +1,41 @@
+package server.bot;
+
+import server.engine.Position;
+import util.RoundActions;
+
+import java.util.Random;
+
+/**
+ * Strategy that chooses a random possible action: the fastest opponent, useful to stress the rules
+ */
+public class RandomStrategy implements BotStrategy {
+
+    private final Random random;
+
+    /**
+     * Constructor: build a RandomStrategy
+     */
+    public RandomStrategy() {
+        this.random = new Random();
+    }
+
+    /**
+     * Chooses the next action of the current player of a position
+     *
+     * @param position        A copy of the game seen from the bot, it can be explored freely
+     * @param possibleActions The possible actions of the bot
+     * @return The chosen encoded action
+     */
+    public int chooseAction(Position position, RoundActions possibleActions) {
+        return possibleActions.getCode(random.nextInt(possibleActions.size()));
+    }
+
+    /**
+     * Gets the name of the strategy
+     *
+     * @return The name of the strategy
+     */
+    public String toString() {
+        return "random";
+    }
+}
@@ -0,0 +1,218 @@
+package server.bot;
+
+import model.Game;
+import model.Player;
+import server.Controller;
+import server.VirtualView;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays complete games between bots without clients, from the choice of the cards to the end, with the same
+ * Controller of the server. The games are spread over a thread pool; the statistics measure the speed of the rules
+ * and the balance of the cards
+ */
+public class Tournament {
+
+    private static final int DEFAULT_GAMES = 1000;
+    private static final long DEFAULT_MOVE_TIME = 5;
+    private final int numPlayers;
+    private final List<String> strategies;
+    private final int threads;
+    private final Map<String, int[]> cardResults;
+    private int playedGames;
+    private int failedGames;
+    private long totalPlies;
+    private long elapsedTime;
+
+    /**
+     * Constructor: build a Tournament
+     *
+     * @param numPlayers The number of players of each game
+     * @param strategies The strategies of the seats, as name:moveTime (the list is repeated if it's shorter)
+     * @param threads    The number of games played at the same time
+     */
+    public Tournament(int numPlayers, List<String> strategies, int threads) {
+        this.numPlayers = numPlayers;
+        this.strategies = new ArrayList<>(strategies);
+        this.threads = Math.max(threads, 1);
+        this.cardResults = new TreeMap<>();
+    }
+
+    /**
+     * Plays a certain number of games and waits for their end
+     *
+     * @param games The number of games
+     * @throws InterruptedException When the thread is interrupted
+     */
+    public void play(int games) throws InterruptedException {
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < games; i++) {
+            executor.execute(this::playGame);
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            // Wait for the slow games too
+        }
+        elapsedTime = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Gets the number of games that ended with a winner
+     *
+     * @return The number of played games
+     */
+    public synchronized int getPlayedGames() {
+        return playedGames;
+    }
+
+    /**
+     * Gets the number of games that ended with an error
+     *
+     * @return The number of failed games
+     */
+    public synchronized int getFailedGames() {
+        return failedGames;
+    }
+
+    /**
+     * Gets the speed of the tournament
+     *
+     * @return The number of played games per second
+     */
+    public synchronized double getGamesPerSecond() {
+        return playedGames * 1_000_000_000.0 / Math.max(elapsedTime, 1);
+    }
+
+    /**
+     * Gets the average number of actions of a game
+     *
+     * @return The average number of actions
+     */
+    public synchronized double getAveragePlies() {
+        return playedGames == 0 ? 0 : (double) totalPlies / playedGames;
+    }
+
+    /**
+     * Gets the names of the cards that have been played
+     *
+     * @return The names of the cards
+     */
+    public synchronized List<String> getPlayedCards() {
+        return new ArrayList<>(cardResults.keySet());
+    }
+
+    /**
+     * Gets the number of games played with a card
+     *
+     * @param cardName The name of the card
+     * @return The number of games
+     */
+    public synchronized int getGamesOf(String cardName) {
+        int[] results = cardResults.get(cardName);
+        return results == null ? 0 : results[0];
+    }
+
+    /**
+     * Gets the win rate of a card
+     *
+     * @param cardName The name of the card
+     * @return The ratio between won and played games of the card
+     */
+    public synchronized double getWinRateOf(String cardName) {
+        int[] results = cardResults.get(cardName);
+        return results == null || results[0] == 0 ? 0 : (double) results[1] / results[0];
+    }
+
+    /**
+     * Plays a whole game and records its result
+     */
+    private void playGame() {
+        Game game = new Game();
+        Controller controller = new Controller(game);
+        controller.setVirtualView(new VirtualView(controller));
+        controller.setNumPlayers(numPlayers);
+        try {
+            for (int i = 0; i < numPlayers; i++) {
+                String[] strategy = strategies.get(i % strategies.size()).split(":");
+                long moveTime = strategy.length > 1 ? Long.parseLong(strategy[1]) : DEFAULT_MOVE_TIME;
+                // The games already use all the threads, so each search is sequential
+                controller.addBot(BotStrategy.of(strategy[0], moveTime, 1));
+            }
+            controller.gameStarter();
+        } catch (Exception e) {
+            synchronized (this) {
+                failedGames++;
+            }
+            return;
+        }
+        recordResult(game);
+    }
+
+    /**
+     * Adds the result of an ended game to the statistics
+     *
+     * @param game The ended game
+     */
+    private synchronized void recordResult(Game game) {
+        playedGames++;
+        for (Player player : game.getAllPlayers()) {
+            totalPlies += ((BotPlayer) player).getChosenActions();
+            int[] results = cardResults.computeIfAbsent(player.getCard().getName(), name -> new int[2]);
+            results[0]++;
+            if (player.isWinner())
+                results[1]++;
+        }
+    }
+
+    /**
+     * Plays a tournament and prints its statistics
+     *
+     * @param args The number of games, the number of threads, the number of players and the strategies of the
+     *             seats as name:moveTime, where the name is alphabeta, mcts or random (all optional)
+     * @throws InterruptedException When the thread is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int numPlayers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        List<String> strategies = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            strategies.add(args[i]);
+        }
+        if (strategies.isEmpty())
+            strategies.add("alphabeta:" + DEFAULT_MOVE_TIME);
+
+        // The Controller logs every step of every game
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            public void write(int b) {
+                // Discard the logs of the games
+            }
+        }));
+        Tournament tournament = new Tournament(numPlayers, strategies, threads);
+        try {
+            tournament.play(games);
+        } finally {
+            System.setOut(console);
+        }
+
+        console.println("> Played games: " + tournament.getPlayedGames() + " (" + tournament.getFailedGames() +
+                " failed) with " + threads + " threads");
+        console.println("> Games/s: " + String.format("%.2f", tournament.getGamesPerSecond()));
+        console.println("> Average plies: " + String.format("%.1f", tournament.getAveragePlies()));
+        for (String cardName : tournament.getPlayedCards()) {
+            console.println(cardName + ": " + tournament.getGamesOf(cardName) + " games, win rate " +
+                    String.format("%.1f%%", tournament.getWinRateOf(cardName) * 100));
+        }
+    }
+}
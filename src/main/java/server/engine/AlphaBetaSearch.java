@@ -0,0 +1,342 @@
+package server.engine;
+
+import model.Player;
+import server.rules.UndoRecord;
+import util.IntActionBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Alpha-beta search over the actions of a position with iterative deepening and a time budget.
+ * Every action is a ply; the player that starts the search maximizes and all the other players minimize.
+ * Several searches on copies of the same position can share a transposition table and a stop flag
+ */
+public class AlphaBetaSearch {
+
+    /**
+     * The score of a won position
+     */
+    public static final int WIN_SCORE = 1_000_000;
+
+    /**
+     * The maximum depth of a search
+     */
+    public static final int MAX_DEPTH = 64;
+    private static final int CLOCK_CHECK_MASK = 0x3FF;
+    private final Position position;
+    private final Player rootPlayer;
+    private final List<IntActionBuffer> buffers;
+    private final TranspositionTable table;
+    private final AtomicBoolean stopFlag;
+    private long deadline;
+    private boolean isTimeOver;
+    private long visitedNodes;
+    private int completedDepth;
+    private int bestScore;
+
+    /**
+     * Constructor: build an AlphaBetaSearch without a transposition table
+     *
+     * @param position The position to be searched, the current player is the one who looks for an action
+     */
+    public AlphaBetaSearch(Position position) {
+        this(position, null, new AtomicBoolean());
+    }
+
+    /**
+     * Constructor: build an AlphaBetaSearch
+     *
+     * @param position The position to be searched, the current player is the one who looks for an action
+     * @param table    The transposition table or null value
+     * @param stopFlag The flag that stops the search when it is set
+     */
+    public AlphaBetaSearch(Position position, TranspositionTable table, AtomicBoolean stopFlag) {
+        this.position = position;
+        this.rootPlayer = position.getCurrentPlayer();
+        this.buffers = new ArrayList<>();
+        this.table = table;
+        this.stopFlag = stopFlag;
+    }
+
+    /**
+     * Searches the best action of the current player within a time budget
+     *
+     * @param timeBudget The time budget in nanoseconds
+     * @return The best encoded action found
+     */
+    public int search(long timeBudget) {
+        return search(1, MAX_DEPTH, 0, timeBudget);
+    }
+
+    /**
+     * Searches the best action of the current player with iterative deepening
+     *
+     * @param startDepth The depth of the first iteration
+     * @param maxDepth   The depth of the last iteration
+     * @param rotation   The number of root actions moved to the end of the search order (to diversify parallel searches)
+     * @param timeBudget The time budget in nanoseconds
+     * @return The best encoded action found
+     */
+    public int search(int startDepth, int maxDepth, int rotation, long timeBudget) {
+        deadline = System.nanoTime() + timeBudget;
+        isTimeOver = false;
+        visitedNodes = 0;
+        completedDepth = 0;
+
+        IntActionBuffer rootActions = getBuffer(0);
+        rootActions.clear();
+        position.generate(rootActions);
+        int rootSize = rootActions.size();
+        int bestAction = rootActions.get(rotation % rootSize);
+        bestScore = 0;
+        if (rootSize == 1)
+            return bestAction;
+
+        for (int depth = startDepth; depth <= maxDepth && !isTimeOver && !stopFlag.get(); depth++) {
+            int iterationAction = bestAction;
+            int iterationScore = -Integer.MAX_VALUE;
+            int alpha = -Integer.MAX_VALUE;
+
+            // The best action of the previous iteration is searched first
+            for (int i = -1; i < rootSize; i++) {
+                int code = i < 0 ? bestAction : rootActions.get((i + rotation) % rootSize);
+                if (i >= 0 && code == bestAction)
+                    continue;
+
+                int score = searchAction(code, depth, alpha, Integer.MAX_VALUE, 1);
+                if (isTimeOver)
+                    break;
+                if (score > iterationScore) {
+                    iterationScore = score;
+                    iterationAction = code;
+                    alpha = Math.max(alpha, score);
+                }
+            }
+            if (isTimeOver)
+                break;
+
+            bestAction = iterationAction;
+            bestScore = iterationScore;
+            completedDepth = depth;
+            // A forced result doesn't change with a deeper search
+            if (isWinScore(bestScore))
+                break;
+        }
+        return bestAction;
+    }
+
+    /**
+     * Gets the number of positions visited by the last search
+     *
+     * @return The number of visited positions
+     */
+    public long getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    /**
+     * Gets the depth of the last completed iteration of the last search
+     *
+     * @return The completed depth
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Gets the score of the best action found by the last completed iteration of the last search
+     *
+     * @return The score of the best action
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Performs an action, searches the resulting position and undoes the action
+     *
+     * @param code  The encoded action
+     * @param depth The remaining depth, including the action
+     * @param alpha The lower bound of the score
+     * @param beta  The upper bound of the score
+     * @param level The recursion level of the resulting position
+     * @return The score of the action from the point of view of the root player
+     */
+    private int searchAction(int code, int depth, int alpha, int beta, int level) {
+        boolean isRootPlayer = position.getCurrentPlayer() == rootPlayer;
+        long record = position.play(code);
+        int score;
+        if (UndoRecord.isWinner(record)) {
+            score = isRootPlayer ? WIN_SCORE - level : -WIN_SCORE + level;
+        } else {
+            score = search(depth - 1, alpha, beta, level);
+        }
+        position.undo(record);
+        return score;
+    }
+
+    /**
+     * Searches a position
+     *
+     * @param depth The remaining depth
+     * @param alpha The lower bound of the score
+     * @param beta  The upper bound of the score
+     * @param level The recursion level
+     * @return The score of the position from the point of view of the root player
+     */
+    private int search(int depth, int alpha, int beta, int level) {
+        if ((++visitedNodes & CLOCK_CHECK_MASK) == 0 && (System.nanoTime() > deadline || stopFlag.get()))
+            isTimeOver = true;
+        if (isTimeOver)
+            return 0;
+
+        Player currentPlayer = position.getCurrentPlayer();
+        if (currentPlayer.getRoundActions().hasEnded())
+            return searchNextTurn(depth, alpha, beta, level);
+
+        // Look for a previous search of the same position
+        long key = 0;
+        int tableAction = 0;
+        if (table != null) {
+            key = position.hash();
+            long data = table.probe(key);
+            if (data != 0) {
+                tableAction = TranspositionTable.actionOf(data);
+                if (TranspositionTable.depthOf(data) >= depth) {
+                    int score = fromTableScore(TranspositionTable.scoreOf(data), level);
+                    int bound = TranspositionTable.boundOf(data);
+                    if (bound == TranspositionTable.EXACT ||
+                            (bound == TranspositionTable.LOWER_BOUND && score >= beta) ||
+                            (bound == TranspositionTable.UPPER_BOUND && score <= alpha))
+                        return score;
+                }
+            }
+        }
+
+        IntActionBuffer buffer = getBuffer(level);
+        buffer.clear();
+        position.generate(buffer);
+        if (Position.hasLost(buffer))
+            return currentPlayer == rootPlayer ? -WIN_SCORE + level : WIN_SCORE - level;
+        if (Position.mustEnd(buffer))
+            return searchNextTurn(depth, alpha, beta, level);
+        if (depth == 0)
+            return Evaluator.evaluate(position.getGame(), rootPlayer);
+
+        if (tableAction != 0)
+            moveToFront(buffer, tableAction);
+
+        int originalAlpha = alpha;
+        int originalBeta = beta;
+        boolean isMaximizing = currentPlayer == rootPlayer;
+        int best = isMaximizing ? -Integer.MAX_VALUE : Integer.MAX_VALUE;
+        int bestAction = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            int code = buffer.get(i);
+            int score = searchAction(code, depth, alpha, beta, level + 1);
+            if (isTimeOver)
+                return 0;
+            if (isMaximizing ? score > best : score < best) {
+                best = score;
+                bestAction = code;
+            }
+            if (isMaximizing) {
+                alpha = Math.max(alpha, score);
+            } else {
+                beta = Math.min(beta, score);
+            }
+            if (alpha >= beta)
+                break;
+        }
+
+        if (table != null) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER_BOUND :
+                    best >= originalBeta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+            table.store(key, toTableScore(best, level), depth, bound, bestAction);
+        }
+        return best;
+    }
+
+    /**
+     * Searches a position after passing the turn
+     *
+     * @param depth The remaining depth
+     * @param alpha The lower bound of the score
+     * @param beta  The upper bound of the score
+     * @param level The recursion level
+     * @return The score of the position from the point of view of the root player
+     */
+    private int searchNextTurn(int depth, int alpha, int beta, int level) {
+        position.nextTurn();
+        int score = search(depth, alpha, beta, level + 1);
+        position.previousTurn();
+        return score;
+    }
+
+    /**
+     * Checks if a score is the score of a won or lost position
+     *
+     * @param score The score
+     * @return True if the score is a win or lose score, otherwise false
+     */
+    private static boolean isWinScore(int score) {
+        return Math.abs(score) >= WIN_SCORE - 2 * MAX_DEPTH;
+    }
+
+    /**
+     * Converts a score to the form stored in the transposition table: win scores become relative to the position
+     *
+     * @param score The score
+     * @param level The recursion level of the position
+     * @return The score to be stored
+     */
+    private static int toTableScore(int score, int level) {
+        if (!isWinScore(score))
+            return score;
+        return score > 0 ? score + level : score - level;
+    }
+
+    /**
+     * Converts a score stored in the transposition table to a score at a specified recursion level
+     *
+     * @param score The stored score
+     * @param level The recursion level of the position
+     * @return The score
+     */
+    private static int fromTableScore(int score, int level) {
+        if (!isWinScore(score))
+            return score;
+        return score > 0 ? score - level : score + level;
+    }
+
+    /**
+     * Moves an action to the front of a buffer, if it is contained
+     *
+     * @param buffer The buffer
+     * @param code   The encoded action
+     */
+    private static void moveToFront(IntActionBuffer buffer, int code) {
+        for (int i = 1; i < buffer.size(); i++) {
+            if (buffer.get(i) == code) {
+                buffer.set(i, buffer.get(0));
+                buffer.set(0, code);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the action buffer of a recursion level
+     *
+     * @param level The recursion level
+     * @return The action buffer
+     */
+    private IntActionBuffer getBuffer(int level) {
+        while (buffers.size() <= level) {
+            buffers.add(new IntActionBuffer());
+        }
+        return buffers.get(level);
+    }
+}
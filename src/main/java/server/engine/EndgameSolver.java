@@ -0,0 +1,662 @@
+package server.engine;
+
+import model.Board;
+import model.Card;
+import server.rules.UndoRecord;
+import util.Configurator;
+import util.IntActionBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves the endgames of two players with a retrograde analysis. First it enumerates all the positions reachable from
+ * a late-game position with the real rules, recording for each position the positions that lead to it; then it
+ * propagates the results backwards from the positions with a known result (a winning action or no legal action),
+ * level by level, so that each position gets the shortest win or the longest loss.
+ * The positions are partitioned by hash among the workers: each worker owns the nodes of its shard and the results
+ * flow between the shards as messages, so the propagation doesn't need locks. Every turn builds something, so the
+ * graph has no cycles and there are no draws: the positions that remain unsolved depend on positions cut by the
+ * limits of the enumeration. A solver with a single worker runs on the calling thread. A solver can be reused, but by
+ * one thread at a time
+ */
+public class EndgameSolver {
+
+    private static final int DEFAULT_MAX_NODES = 1 << 20;
+    private static final int DEFAULT_REMAINING_BUILDS = 10;
+    private static final int INITIAL_CAPACITY = 1024;
+    private final int maxNodes;
+    private final int workers;
+    private Shard[] shards;
+    private AtomicInteger nodeCount;
+    private long deadline;
+    private int solvedCount;
+
+    /**
+     * Constructor: build an EndgameSolver with a worker for each available processor
+     */
+    public EndgameSolver() {
+        this(DEFAULT_MAX_NODES, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor: build an EndgameSolver
+     *
+     * @param maxNodes The maximum number of positions of the enumeration
+     * @param workers  The number of workers and of shards
+     */
+    public EndgameSolver(int maxNodes, int workers) {
+        this.maxNodes = maxNodes;
+        this.workers = Math.max(workers, 1);
+    }
+
+    /**
+     * Gets the number of positions enumerated by the last solve
+     *
+     * @return The number of positions
+     */
+    public int getNodeCount() {
+        return nodeCount == null ? 0 : Math.min(nodeCount.get(), maxNodes);
+    }
+
+    /**
+     * Gets the number of positions solved by the last solve
+     *
+     * @return The number of solved positions
+     */
+    public int getSolvedCount() {
+        return solvedCount;
+    }
+
+    /**
+     * Gets the number of floors and domes that can still be built on a board. Every turn builds at least once, so
+     * it bounds the length of the game
+     *
+     * @param board The board
+     * @return The number of remaining builds
+     */
+    public static int remainingBuilds(Board board) {
+        int freeMask = ~board.getDomeMask() & ((1 << Board.SIZE) - 1);
+        int builds = 4 * Integer.bitCount(freeMask);
+        for (int floor = 1; floor <= 3; floor++) {
+            builds -= floor * Integer.bitCount(board.getFloorMask(floor) & freeMask);
+        }
+        return builds;
+    }
+
+    /**
+     * Solves all the positions reachable from a position. The position isn't changed
+     *
+     * @param position   The late-game position
+     * @param timeBudget The time budget of the enumeration in nanoseconds
+     * @return The table of the solved positions or null value if the game hasn't two players
+     */
+    public EndgameTable solve(Position position, long timeBudget) {
+        if (position.getGame().getPlayers().size() != 2)
+            return null;
+        deadline = System.nanoTime() + timeBudget;
+        nodeCount = new AtomicInteger();
+        shards = new Shard[workers];
+        for (int i = 0; i < workers; i++) {
+            shards[i] = new Shard(i, workers);
+        }
+
+        ExecutorService executor = workers == 1 ? null : Executors.newFixedThreadPool(workers);
+        try {
+            enumerate(Position.copyOf(position.getGame(), position.getCurrentPlayer()), executor);
+            propagate(executor);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The endgame can't be solved", e.getCause());
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
+        }
+
+        solvedCount = 0;
+        for (Shard shard : shards) {
+            for (int local = 0; local < shard.size; local++) {
+                if (shard.values[local] != 0)
+                    solvedCount++;
+            }
+        }
+        EndgameTable table = new EndgameTable(solvedCount);
+        for (Shard shard : shards) {
+            for (int local = 0; local < shard.size; local++) {
+                if (shard.values[local] != 0)
+                    table.put(shard.keys[local], shard.values[local]);
+            }
+        }
+        shards = null;
+        return table;
+    }
+
+    /**
+     * Enumerates the positions: the actions of the root are explored in parallel, each one on its own copy of the
+     * game
+     *
+     * @param root     The copy of the starting position
+     * @param executor The executor of the workers or null value to run on the calling thread
+     * @throws InterruptedException When the thread is interrupted
+     * @throws ExecutionException   When a worker fails
+     */
+    private void enumerate(Position root, ExecutorService executor) throws InterruptedException, ExecutionException {
+        IntActionBuffer buffer = new IntActionBuffer();
+        // The turns without choices are skipped, like in the Controller
+        while (true) {
+            buffer.clear();
+            if (!root.getCurrentPlayer().getRoundActions().hasEnded()) {
+                root.generate(buffer);
+                if (!Position.mustEnd(buffer))
+                    break;
+            }
+            root.nextTurn();
+        }
+
+        long key = root.hash();
+        Shard shard = shardOf(key);
+        int local = shard.add(key, moverOf(root));
+        nodeCount.incrementAndGet();
+        if (Position.hasLost(buffer)) {
+            shard.resolve(local, EndgameTable.valueOf(EndgameTable.LOSS, 0, 0));
+            return;
+        }
+
+        int winningAction = findWinningAction(root, buffer);
+        if (winningAction != 0) {
+            shard.resolve(local, EndgameTable.valueOf(EndgameTable.WIN, 1, winningAction));
+            return;
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            int code = buffer.get(i);
+            tasks.add(() -> {
+                Position position = Position.copyOf(root.getGame(), root.getCurrentPlayer());
+                position.play(code);
+                return visit(position, new ArrayList<>(), 0);
+            });
+        }
+        List<Integer> children = invokeAll(tasks, executor);
+        int id = idOf(shard, local);
+        for (int i = 0; i < children.size(); i++) {
+            int child = children.get(i);
+            if (child >= 0)
+                shards[child % workers].addEdge(child / workers, id, buffer.get(i));
+        }
+        shard.setCounter(local, buffer.size());
+    }
+
+    /**
+     * Registers a position and, if it's new, explores all its actions
+     *
+     * @param position The position, restored before returning
+     * @param buffers  The action buffers of the recursion levels
+     * @param level    The recursion level
+     * @return The id of the node of the position or -1 if the position is beyond the limits of the enumeration
+     */
+    private int visit(Position position, List<IntActionBuffer> buffers, int level) {
+        if (position.getCurrentPlayer().getRoundActions().hasEnded())
+            return visitNextTurn(position, buffers, level);
+
+        long key = position.hash();
+        Shard shard = shardOf(key);
+        int local = shard.find(key);
+        if (local >= 0)
+            return idOf(shard, local);
+
+        while (buffers.size() <= level) {
+            buffers.add(new IntActionBuffer());
+        }
+        IntActionBuffer buffer = buffers.get(level);
+        buffer.clear();
+        position.generate(buffer);
+        if (Position.mustEnd(buffer))
+            return visitNextTurn(position, buffers, level);
+        if (nodeCount.incrementAndGet() > maxNodes || System.nanoTime() > deadline)
+            return -1;
+        local = shard.add(key, moverOf(position));
+        // Another worker has registered the position in the meantime
+        if (local < 0)
+            return idOf(shard, -local - 1);
+
+        int id = idOf(shard, local);
+        if (Position.hasLost(buffer)) {
+            shard.resolve(local, EndgameTable.valueOf(EndgameTable.LOSS, 0, 0));
+            return id;
+        }
+        int winningAction = findWinningAction(position, buffer);
+        if (winningAction != 0) {
+            shard.resolve(local, EndgameTable.valueOf(EndgameTable.WIN, 1, winningAction));
+            return id;
+        }
+        for (int i = 0; i < buffer.size(); i++) {
+            int code = buffer.get(i);
+            long record = position.play(code);
+            int child = visit(position, buffers, level + 1);
+            position.undo(record);
+            if (child >= 0)
+                shards[child % workers].addEdge(child / workers, id, code);
+        }
+        // The children beyond the limits are counted too, so their parents can't be proven lost
+        shard.setCounter(local, buffer.size());
+        return id;
+    }
+
+    /**
+     * Looks for an action that wins immediately, so that the other actions aren't explored
+     *
+     * @param position The position, restored before returning
+     * @param buffer   The actions of the position
+     * @return The winning encoded action or 0 if there isn't one
+     */
+    private static int findWinningAction(Position position, IntActionBuffer buffer) {
+        for (int i = 0; i < buffer.size(); i++) {
+            long record = position.play(buffer.get(i));
+            position.undo(record);
+            if (UndoRecord.isWinner(record))
+                return buffer.get(i);
+        }
+        return 0;
+    }
+
+    /**
+     * Registers the position after passing the turn
+     *
+     * @param position The position, restored before returning
+     * @param buffers  The action buffers of the recursion levels
+     * @param level    The recursion level
+     * @return The id of the node of the position or -1 if the position is beyond the limits of the enumeration
+     */
+    private int visitNextTurn(Position position, List<IntActionBuffer> buffers, int level) {
+        position.nextTurn();
+        int id = visit(position, buffers, level + 1);
+        position.previousTurn();
+        return id;
+    }
+
+    /**
+     * Propagates the results backwards, one distance at a time, until the deadline. In the first phase each worker
+     * sends the results of the nodes of its shard to the shards of their parents, in the second phase each worker
+     * updates the parents of its shard
+     *
+     * @param executor The executor of the workers or null value to run on the calling thread
+     * @throws InterruptedException When the thread is interrupted
+     * @throws ExecutionException   When a worker fails
+     */
+    private void propagate(ExecutorService executor) throws InterruptedException, ExecutionException {
+        for (Shard shard : shards) {
+            for (int local = 0; local < shard.size; local++) {
+                int value = shard.values[local];
+                if (value != 0)
+                    shard.getLevel(EndgameTable.distanceOf(value)).add(local);
+            }
+        }
+
+        for (int distance = 0; ; distance++) {
+            int currentDistance = distance;
+            boolean hasNodes = false;
+            for (Shard shard : shards) {
+                hasNodes |= shard.levels.keySet().stream().anyMatch(level -> level >= currentDistance);
+            }
+            // The results found so far are exact, the unsolved positions are left to the search
+            if (!hasNodes || System.nanoTime() > deadline)
+                return;
+
+            List<Callable<Void>> sendTasks = new ArrayList<>();
+            List<Callable<Void>> receiveTasks = new ArrayList<>();
+            for (int s = 0; s < workers; s++) {
+                Shard shard = shards[s];
+                int shardIndex = s;
+                sendTasks.add(() -> {
+                    sendResults(shard, currentDistance);
+                    return null;
+                });
+                receiveTasks.add(() -> {
+                    receiveResults(shard, shardIndex, currentDistance);
+                    return null;
+                });
+            }
+            invokeAll(sendTasks, executor);
+            invokeAll(receiveTasks, executor);
+        }
+    }
+
+    /**
+     * Runs the tasks of the workers and waits for all of them
+     *
+     * @param tasks    The tasks
+     * @param executor The executor of the workers or null value to run the tasks on the calling thread
+     * @param <T>      The type of the results
+     * @return The results, in the order of the tasks
+     * @throws InterruptedException When the thread is interrupted
+     * @throws ExecutionException   When a task fails
+     */
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks, ExecutorService executor)
+            throws InterruptedException, ExecutionException {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (executor == null) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    throw new ExecutionException(e);
+                }
+            }
+            return results;
+        }
+        for (Future<T> future : executor.invokeAll(tasks)) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    /**
+     * Sends the results of the nodes of a shard at a certain distance to the shards of their parents. A result is
+     * good for a parent if it's a win of the same player or a loss of the other one
+     *
+     * @param shard    The shard
+     * @param distance The distance of the nodes
+     */
+    private void sendResults(Shard shard, int distance) {
+        IntActionBuffer level = shard.levels.remove(distance);
+        if (level == null)
+            return;
+        for (int i = 0; i < level.size(); i++) {
+            int local = level.get(i);
+            boolean isWin = EndgameTable.resultOf(shard.values[local]) == EndgameTable.WIN;
+            for (int edge = shard.firstEdges[local]; edge >= 0; edge = shard.edgeNexts[edge]) {
+                int parent = shard.edgeParents[edge];
+                Shard parentShard = shards[parent % workers];
+                boolean isGood = isWin == (parentShard.movers[parent / workers] == shard.movers[local]);
+                shard.send(parent % workers, parent / workers, shard.edgeActions[edge], isGood);
+            }
+        }
+    }
+
+    /**
+     * Updates the parents of a shard with the results sent by all the shards. A parent wins with the first good
+     * result and loses when all its children are bad
+     *
+     * @param shard      The shard
+     * @param shardIndex The index of the shard
+     * @param distance   The distance of the children
+     */
+    private void receiveResults(Shard shard, int shardIndex, int distance) {
+        for (Shard sender : shards) {
+            long[] messages = sender.outbox[shardIndex];
+            for (int i = 0; i < sender.outboxSizes[shardIndex]; i++) {
+                long message = messages[i];
+                int local = (int) (message >>> 32);
+                int action = (int) message >>> 1 & 0xFFFF;
+                if (shard.values[local] != 0)
+                    continue;
+                if ((message & 1) != 0) {
+                    shard.values[local] = EndgameTable.valueOf(EndgameTable.WIN, distance + 1, action);
+                    shard.getLevel(distance + 1).add(local);
+                } else if (--shard.counters[local] == 0) {
+                    // The last bad child is the farthest one
+                    shard.values[local] = EndgameTable.valueOf(EndgameTable.LOSS, distance + 1, action);
+                    shard.getLevel(distance + 1).add(local);
+                }
+            }
+        }
+        for (Shard sender : shards) {
+            sender.outboxSizes[shardIndex] = 0;
+        }
+    }
+
+    /**
+     * Gets the shard that owns a position
+     *
+     * @param key The hash of the position
+     * @return The shard
+     */
+    private Shard shardOf(long key) {
+        return shards[Math.floorMod((int) (key >>> 32), workers)];
+    }
+
+    /**
+     * Gets the id of a node, unique among all the shards
+     *
+     * @param shard The shard of the node
+     * @param local The index of the node in the shard
+     * @return The id of the node
+     */
+    private int idOf(Shard shard, int local) {
+        return local * workers + shard.index;
+    }
+
+    /**
+     * Gets the player that has to move in a position
+     *
+     * @param position The position
+     * @return The ordinal of the color of the player
+     */
+    private static byte moverOf(Position position) {
+        return (byte) position.getCurrentPlayer().getColor().ordinal();
+    }
+
+    /**
+     * The nodes owned by a worker, with the edges that lead to them from their parents
+     */
+    private static final class Shard {
+        private final int index;
+        private final Map<Long, Integer> indexes;
+        private final Map<Integer, IntActionBuffer> levels;
+        private final long[][] outbox;
+        private final int[] outboxSizes;
+        private long[] keys;
+        private byte[] movers;
+        private int[] counters;
+        private int[] values;
+        private int[] firstEdges;
+        private int size;
+        private int[] edgeParents;
+        private int[] edgeActions;
+        private int[] edgeNexts;
+        private int edgeCount;
+
+        /**
+         * Constructor: build an empty Shard
+         *
+         * @param index  The index of the shard
+         * @param shards The number of shards
+         */
+        private Shard(int index, int shards) {
+            this.index = index;
+            this.indexes = new HashMap<>();
+            this.levels = new HashMap<>();
+            this.outbox = new long[shards][INITIAL_CAPACITY];
+            this.outboxSizes = new int[shards];
+            this.keys = new long[INITIAL_CAPACITY];
+            this.movers = new byte[INITIAL_CAPACITY];
+            this.counters = new int[INITIAL_CAPACITY];
+            this.values = new int[INITIAL_CAPACITY];
+            this.firstEdges = new int[INITIAL_CAPACITY];
+            this.edgeParents = new int[INITIAL_CAPACITY];
+            this.edgeActions = new int[INITIAL_CAPACITY];
+            this.edgeNexts = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Looks for a node
+         *
+         * @param key The hash of the position
+         * @return The index of the node or -1 if it isn't in the shard
+         */
+        private synchronized int find(long key) {
+            Integer local = indexes.get(key);
+            return local == null ? -1 : local;
+        }
+
+        /**
+         * Adds a node
+         *
+         * @param key   The hash of the position
+         * @param mover The player that has to move
+         * @return The index of the new node or -(index + 1) if the node was already in the shard
+         */
+        private synchronized int add(long key, byte mover) {
+            Integer existing = indexes.putIfAbsent(key, size);
+            if (existing != null)
+                return -existing - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                movers = Arrays.copyOf(movers, size * 2);
+                counters = Arrays.copyOf(counters, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+                firstEdges = Arrays.copyOf(firstEdges, size * 2);
+            }
+            keys[size] = key;
+            movers[size] = mover;
+            firstEdges[size] = -1;
+            return size++;
+        }
+
+        /**
+         * Sets the known result of a node
+         *
+         * @param local The index of the node
+         * @param value The packed result
+         */
+        private synchronized void resolve(int local, int value) {
+            values[local] = value;
+        }
+
+        /**
+         * Sets the number of children of a node that have to be lost for the node to be lost
+         *
+         * @param local    The index of the node
+         * @param children The number of children
+         */
+        private synchronized void setCounter(int local, int children) {
+            counters[local] = children;
+        }
+
+        /**
+         * Adds an edge that leads to a node from a parent
+         *
+         * @param local  The index of the node
+         * @param parent The id of the parent
+         * @param action The encoded action of the parent that leads to the node
+         */
+        private synchronized void addEdge(int local, int parent, int action) {
+            if (edgeCount == edgeParents.length) {
+                edgeParents = Arrays.copyOf(edgeParents, edgeCount * 2);
+                edgeActions = Arrays.copyOf(edgeActions, edgeCount * 2);
+                edgeNexts = Arrays.copyOf(edgeNexts, edgeCount * 2);
+            }
+            edgeParents[edgeCount] = parent;
+            edgeActions[edgeCount] = action;
+            edgeNexts[edgeCount] = firstEdges[local];
+            firstEdges[local] = edgeCount++;
+        }
+
+        /**
+         * Gets the list of the nodes solved at a certain distance
+         *
+         * @param distance The distance
+         * @return The indexes of the nodes
+         */
+        private IntActionBuffer getLevel(int distance) {
+            return levels.computeIfAbsent(distance, key -> new IntActionBuffer());
+        }
+
+        /**
+         * Sends the result of a child to a parent
+         *
+         * @param shardIndex The shard of the parent
+         * @param local      The index of the parent in its shard
+         * @param action     The encoded action of the parent that leads to the child
+         * @param isGood     True if the child is good for the parent
+         */
+        private void send(int shardIndex, int local, int action, boolean isGood) {
+            int size = outboxSizes[shardIndex];
+            if (size == outbox[shardIndex].length)
+                outbox[shardIndex] = Arrays.copyOf(outbox[shardIndex], size * 2);
+            outbox[shardIndex][size] = (long) local << 32 | (action & 0xFFFF) << 1 | (isGood ? 1 : 0);
+            outboxSizes[shardIndex] = size + 1;
+        }
+    }
+
+    /**
+     * Plays random games from the seed position of the perft until few builds are left, solves them and prints the
+     * size and the speed of the solutions
+     *
+     * @param args The number of remaining builds and the number of workers (optional)
+     */
+    public static void main(String[] args) {
+        int builds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_REMAINING_BUILDS;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        List<Card> cards = Configurator.getAllCards();
+        Random random = new Random(1);
+        for (int i = 0; i < cards.size(); i++) {
+            Position position = createEndgamePosition(cards.get(i), cards.get((i + 1) % cards.size()), builds, random);
+            if (position == null)
+                continue;
+            EndgameSolver solver = new EndgameSolver(DEFAULT_MAX_NODES, workers);
+            long startTime = System.nanoTime();
+            EndgameTable table = solver.solve(position, Long.MAX_VALUE / 2);
+            long elapsedTime = System.nanoTime() - startTime;
+            int value = table.probe(position);
+            System.out.println(cards.get(i).getName() + " vs " + cards.get((i + 1) % cards.size()).getName() + ": " +
+                    solver.getNodeCount() + " positions, " + table.size() + " solved in " + elapsedTime / 1_000_000 +
+                    " ms, " + table.getMemory() / 1024 + " KiB off-heap, root " +
+                    (value == 0 ? "unsolved" : (EndgameTable.resultOf(value) == EndgameTable.WIN ? "win" : "loss") +
+                            " in " + EndgameTable.distanceOf(value)));
+        }
+    }
+
+    /**
+     * Plays a random game from the seed position of the perft until the remaining builds are few, avoiding the
+     * winning actions
+     *
+     * @param firstCard  The card of the first player
+     * @param secondCard The card of the second player
+     * @param builds     The number of remaining builds
+     * @param random     The random generator
+     * @return The late-game position or null value if the game has ended before
+     */
+    public static Position createEndgamePosition(Card firstCard, Card secondCard, int builds, Random random) {
+        Position position = Perft.createSeedPosition(firstCard, secondCard);
+        IntActionBuffer buffer = new IntActionBuffer();
+        while (true) {
+            if (position.getCurrentPlayer().getRoundActions().isEmpty() &&
+                    remainingBuilds(position.getGame().getBoard()) <= builds)
+                return Position.copyOf(position.getGame(), position.getCurrentPlayer());
+            if (position.getCurrentPlayer().getRoundActions().hasEnded()) {
+                position.nextTurn();
+                continue;
+            }
+            buffer.clear();
+            position.generate(buffer);
+            if (Position.hasLost(buffer))
+                return null;
+            if (Position.mustEnd(buffer)) {
+                position.nextTurn();
+                continue;
+            }
+            int first = random.nextInt(buffer.size());
+            int i = 0;
+            long record;
+            while (UndoRecord.isWinner(record = position.play(buffer.get((first + i) % buffer.size())))) {
+                position.undo(record);
+                if (++i == buffer.size())
+                    return null;
+            }
+        }
+    }
+}
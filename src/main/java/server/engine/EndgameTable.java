@@ -0,0 +1,153 @@
+package server.engine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The results of the solved positions of an endgame, stored off-heap in an open addressing hash table so that a big
+ * table doesn't weigh on the garbage collector. Each slot is made of the key (8 bytes) and the value (4 bytes); the
+ * value packs the best encoded action (16 bits), the distance from the end of the game in actions (12 bits) and the
+ * result for the player that has to move (2 bits). A slot with value 0 is empty
+ */
+public class EndgameTable {
+
+    /**
+     * The player that has to move wins
+     */
+    public static final int WIN = 1;
+
+    /**
+     * The player that has to move loses
+     */
+    public static final int LOSS = 2;
+
+    private static final int SLOT_SIZE = 12;
+    private static final int ACTION_MASK = 0xFFFF;
+    private static final int DISTANCE_SHIFT = 16;
+    private static final int DISTANCE_MASK = 0xFFF;
+    private static final int RESULT_SHIFT = 28;
+    private final ByteBuffer slots;
+    private final int indexMask;
+    private int size;
+
+    /**
+     * Constructor: build an EndgameTable with at least twice the slots of the entries
+     *
+     * @param entries The number of entries the table has to hold
+     */
+    public EndgameTable(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(2 * entries - 1, 1)) << 1;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        this.indexMask = capacity - 1;
+        this.size = 0;
+    }
+
+    /**
+     * Packs the result of a position
+     *
+     * @param result   The result for the player that has to move (WIN or LOSS)
+     * @param distance The number of actions until the end of the game
+     * @param action   The best encoded action or 0 if there isn't an action
+     * @return The packed value
+     */
+    public static int valueOf(int result, int distance, int action) {
+        return result << RESULT_SHIFT | Math.min(distance, DISTANCE_MASK) << DISTANCE_SHIFT | action & ACTION_MASK;
+    }
+
+    /**
+     * Gets the result of a packed value
+     *
+     * @param value The packed value
+     * @return The result (WIN or LOSS) or 0 if the value is empty
+     */
+    public static int resultOf(int value) {
+        return value >>> RESULT_SHIFT;
+    }
+
+    /**
+     * Gets the distance of a packed value
+     *
+     * @param value The packed value
+     * @return The number of actions until the end of the game
+     */
+    public static int distanceOf(int value) {
+        return value >>> DISTANCE_SHIFT & DISTANCE_MASK;
+    }
+
+    /**
+     * Gets the best action of a packed value
+     *
+     * @param value The packed value
+     * @return The best encoded action or 0 if there isn't an action
+     */
+    public static int actionOf(int value) {
+        return value & ACTION_MASK;
+    }
+
+    /**
+     * Stores the value of a position. The table isn't thread-safe while it's filled
+     *
+     * @param key   The hash of the position
+     * @param value The packed value
+     * @throws IllegalStateException When the table is full
+     */
+    void put(long key, int value) {
+        if (size > indexMask)
+            throw new IllegalStateException("The endgame table is full");
+        int index = (int) key & indexMask;
+        while (slots.getInt(index * SLOT_SIZE + 8) != 0) {
+            if (slots.getLong(index * SLOT_SIZE) == key) {
+                slots.putInt(index * SLOT_SIZE + 8, value);
+                return;
+            }
+            index = (index + 1) & indexMask;
+        }
+        slots.putLong(index * SLOT_SIZE, key);
+        slots.putInt(index * SLOT_SIZE + 8, value);
+        size++;
+    }
+
+    /**
+     * Gets the value of a position, with absolute gets so that it can be used by many threads
+     *
+     * @param key The hash of the position
+     * @return The packed value or 0 if the position hasn't been solved
+     */
+    public int probe(long key) {
+        int index = (int) key & indexMask;
+        int value;
+        while ((value = slots.getInt(index * SLOT_SIZE + 8)) != 0) {
+            if (slots.getLong(index * SLOT_SIZE) == key)
+                return value;
+            index = (index + 1) & indexMask;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the value of a position
+     *
+     * @param position The position
+     * @return The packed value or 0 if the position hasn't been solved
+     */
+    public int probe(Position position) {
+        return probe(position.hash());
+    }
+
+    /**
+     * Gets the number of solved positions
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the off-heap memory of the table
+     *
+     * @return The number of bytes of the slots
+     */
+    public long getMemory() {
+        return slots.capacity();
+    }
+}
@@ -0,0 +1,68 @@
+package server.engine;
+
+import model.Board;
+import model.Cell;
+import model.Game;
+import model.Player;
+import model.Worker;
+import util.Genre;
+
+/**
+ * Static evaluation of a position from the point of view of a player: the height of the workers and the floors
+ * they can reach, against the same values of the other players
+ */
+public final class Evaluator {
+
+    private static final int HEIGHT_WEIGHT = 100;
+    private static final int REACHABLE_FLOOR_WEIGHT = 12;
+    private static final int MOBILITY_WEIGHT = 3;
+
+    /**
+     * Constructor: Evaluator only contains static methods
+     */
+    private Evaluator() {
+    }
+
+    /**
+     * Evaluates a position from the point of view of a player
+     *
+     * @param game   The game
+     * @param player The player
+     * @return The score of the position (positive if it's good for the player)
+     */
+    public static int evaluate(Game game, Player player) {
+        int score = 0;
+        for (Player aPlayer : game.getPlayers()) {
+            int workersScore = evaluateWorker(game, aPlayer.getWorker(Genre.MALE)) +
+                    evaluateWorker(game, aPlayer.getWorker(Genre.FEMALE));
+            score += aPlayer == player ? workersScore : -workersScore;
+        }
+        return score;
+    }
+
+    /**
+     * Evaluates a single worker
+     *
+     * @param game   The game
+     * @param worker The worker
+     * @return The score of the worker
+     */
+    private static int evaluateWorker(Game game, Worker worker) {
+        Cell position = worker.getPosition();
+        if (position == null)
+            return 0;
+
+        Board board = game.getBoard();
+        int floor = position.getFloor();
+        int reachableMask = board.getAdjacentMask(position) &
+                board.getFloorMaskUpTo(floor + 1) &
+                ~board.getDomeMask() &
+                ~game.getOccupiedMask();
+
+        int score = floor * HEIGHT_WEIGHT + Integer.bitCount(reachableMask) * MOBILITY_WEIGHT;
+        for (int reachableFloor = 1; reachableFloor <= Math.min(floor + 1, 3); reachableFloor++) {
+            score += Integer.bitCount(reachableMask & board.getFloorMask(reachableFloor)) * reachableFloor * REACHABLE_FLOOR_WEIGHT;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,435 @@
+package server.engine;
+
+import model.Card;
+import model.Player;
+import server.rules.UndoRecord;
+import util.Configurator;
+import util.IntActionBuffer;
+import util.PlayerColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Monte Carlo tree search (UCT) with random playouts played by the rules of the cards.
+ * The playouts run in parallel on the fork-join pool, each worker on its own copy of the position, while the tree
+ * is shared: a worker that descends through a node adds a virtual loss to it, so that the other workers prefer
+ * different paths until the playout result is propagated back.
+ * The nodes are stored in parallel arrays: the children of a node are contiguous, the statistics of a node are
+ * the number of visits and the total reward from the point of view of the player that performed its action
+ */
+public class MonteCarloSearch {
+
+    private static final int DEFAULT_CAPACITY = 1 << 18;
+    private static final int DEFAULT_BENCHMARK_MILLIS = 2000;
+    private static final int BYTES_PER_NODE = 4 + 4 + 4 + 4 + 4 + 1;
+    private static final int VIRTUAL_LOSS = 1;
+    private static final int MAX_PLAYOUT_ACTIONS = 200;
+    private static final int NO_CHILDREN = -1;
+    private static final int TURN_PASS = -2;
+    private static final int NO_MOVER = -1;
+    private static final int DRAW = -1;
+    private static final long TURN_CHANGE = -1L;
+    private static final double EXPLORATION = 1.4;
+    private final int workers;
+    private final int capacity;
+    private final int[] actions;
+    private final int[] firstChildren;
+    private final int[] childCounts;
+    private final int[] visits;
+    private final float[] rewards;
+    private final byte[] movers;
+    private int nodeCount;
+    private int numPlayers;
+    private long playouts;
+    private long elapsedTime;
+    private volatile boolean isCancelled;
+
+    /**
+     * Constructor: build a MonteCarloSearch with a worker for each available processor
+     */
+    public MonteCarloSearch() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor: build a MonteCarloSearch
+     *
+     * @param workers  The number of parallel workers
+     * @param capacity The maximum number of nodes of the tree
+     */
+    public MonteCarloSearch(int workers, int capacity) {
+        this.workers = Math.max(workers, 1);
+        this.capacity = capacity;
+        this.actions = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.childCounts = new int[capacity];
+        this.visits = new int[capacity];
+        this.rewards = new float[capacity];
+        this.movers = new byte[capacity];
+    }
+
+    /**
+     * Searches the best action of the current player within a time budget
+     *
+     * @param position   The position to be searched, it's used by the first worker
+     * @param timeBudget The time budget in nanoseconds
+     * @return The most visited encoded action
+     */
+    public int search(Position position, long timeBudget) {
+        return search(position, Long.MAX_VALUE, timeBudget);
+    }
+
+    /**
+     * Searches the best action of the current player with a maximum number of playouts and within a time budget
+     *
+     * @param position    The position to be searched, it's used by the first worker
+     * @param maxPlayouts The maximum number of playouts
+     * @param timeBudget  The time budget in nanoseconds
+     * @return The most visited encoded action
+     */
+    public int search(Position position, long maxPlayouts, long timeBudget) {
+        long startTime = System.nanoTime();
+        long deadline = startTime + timeBudget;
+        resetTree();
+        isCancelled = false;
+        numPlayers = position.getGame().getPlayers().size();
+        playouts = 0;
+
+        IntActionBuffer rootActions = new IntActionBuffer();
+        position.generate(rootActions);
+        expand(0, rootActions, colorOf(position.getCurrentPlayer()));
+        if (rootActions.size() == 1) {
+            elapsedTime = System.nanoTime() - startTime;
+            return rootActions.get(0);
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 1; i < workers; i++) {
+            Position copy = Position.copyOf(position.getGame(), position.getCurrentPlayer());
+            long seed = i;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> runWorker(copy, seed, maxPlayouts, deadline)));
+        }
+        runWorker(position, 0, maxPlayouts, deadline);
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        elapsedTime = System.nanoTime() - startTime;
+
+        int bestChild = firstChildren[0];
+        for (int child = firstChildren[0]; child < firstChildren[0] + childCounts[0]; child++) {
+            if (visits[child] > visits[bestChild])
+                bestChild = child;
+        }
+        return actions[bestChild];
+    }
+
+    /**
+     * Stops the running search, which returns the most visited action found so far
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Gets the number of playouts of the last search
+     *
+     * @return The number of playouts
+     */
+    public synchronized long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * Gets the speed of the last search
+     *
+     * @return The number of playouts per second
+     */
+    public long getPlayoutsPerSecond() {
+        return getPlayouts() * 1_000_000_000L / Math.max(elapsedTime, 1);
+    }
+
+    /**
+     * Gets the number of nodes of the tree of the last search
+     *
+     * @return The number of nodes
+     */
+    public synchronized int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the memory used by the nodes of the tree of the last search
+     *
+     * @return The used memory in bytes
+     */
+    public long getTreeMemory() {
+        return (long) getNodeCount() * BYTES_PER_NODE;
+    }
+
+    /**
+     * Gets the memory allocated for the tree
+     *
+     * @return The allocated memory in bytes
+     */
+    public long getAllocatedMemory() {
+        return (long) capacity * BYTES_PER_NODE;
+    }
+
+    /**
+     * Runs the playouts of a worker until the time budget or the playouts run out
+     *
+     * @param position    The position of the worker, at the root of the tree
+     * @param seed        The seed of the random generator of the worker
+     * @param maxPlayouts The maximum number of playouts of all the workers
+     * @param deadline    The time the search must end
+     */
+    private void runWorker(Position position, long seed, long maxPlayouts, long deadline) {
+        Random random = new Random(seed);
+        IntActionBuffer buffer = new IntActionBuffer();
+        long[] records = new long[MAX_PLAYOUT_ACTIONS * 2];
+        int[] path = new int[MAX_PLAYOUT_ACTIONS];
+        while (!isCancelled && System.nanoTime() < deadline && getPlayouts() < maxPlayouts) {
+            records = runIteration(position, random, buffer, records, path);
+        }
+    }
+
+    /**
+     * Selects a leaf of the tree, expands it, plays a random game from it and propagates the result
+     *
+     * @param position The position of the worker, at the root of the tree
+     * @param random   The random generator of the worker
+     * @param buffer   The action buffer of the worker
+     * @param records  The stack of the undo records of the worker
+     * @param path     The stack of the nodes of the worker
+     * @return The stack of the undo records, which may have been enlarged
+     */
+    private long[] runIteration(Position position, Random random, IntActionBuffer buffer, long[] records,
+                                int[] path) {
+        int recordCount = 0;
+        int pathLength = 1;
+        int node = 0;
+        int result = Integer.MIN_VALUE;
+
+        // Selection: follow the tree while the nodes have children
+        while (result == Integer.MIN_VALUE) {
+            int child = selectChild(node, colorOf(position.getCurrentPlayer()));
+            if (child == NO_CHILDREN)
+                break;
+            if (child == TURN_PASS) {
+                records = push(records, recordCount++, TURN_CHANGE);
+                position.nextTurn();
+                continue;
+            }
+            long record = position.play(actions[child]);
+            records = push(records, recordCount++, record);
+            path[pathLength++] = child;
+            node = child;
+            if (UndoRecord.isWinner(record))
+                result = colorOf(position.getCurrentPlayer());
+            else if (pathLength == path.length)
+                result = DRAW;
+        }
+
+        // Expansion and playout
+        int playoutStart = recordCount;
+        boolean isExpanded = false;
+        while (result == Integer.MIN_VALUE && recordCount - playoutStart < MAX_PLAYOUT_ACTIONS) {
+            if (position.getCurrentPlayer().getRoundActions().hasEnded()) {
+                records = push(records, recordCount++, TURN_CHANGE);
+                position.nextTurn();
+                continue;
+            }
+            buffer.clear();
+            position.generate(buffer);
+            if (Position.hasLost(buffer)) {
+                result = -2 - colorOf(position.getCurrentPlayer());
+                break;
+            }
+            if (Position.mustEnd(buffer)) {
+                records = push(records, recordCount++, TURN_CHANGE);
+                position.nextTurn();
+                continue;
+            }
+            if (!isExpanded) {
+                expand(node, buffer, colorOf(position.getCurrentPlayer()));
+                isExpanded = true;
+            }
+
+            long record = position.play(buffer.get(random.nextInt(buffer.size())));
+            records = push(records, recordCount++, record);
+            if (UndoRecord.isWinner(record))
+                result = colorOf(position.getCurrentPlayer());
+        }
+        if (result == Integer.MIN_VALUE)
+            result = DRAW;
+
+        backPropagate(path, pathLength, result);
+        for (int i = recordCount - 1; i >= 0; i--) {
+            if (records[i] == TURN_CHANGE)
+                position.previousTurn();
+            else
+                position.undo(records[i]);
+        }
+        return records;
+    }
+
+    /**
+     * Selects the child of a node with the best upper confidence bound and adds a virtual loss to it
+     *
+     * @param node  The node
+     * @param mover The color index of the player that has to move
+     * @return The selected child, NO_CHILDREN if the node hasn't been expanded or TURN_PASS if the children are
+     * actions of the next player
+     */
+    private synchronized int selectChild(int node, int mover) {
+        int first = firstChildren[node];
+        if (first == NO_CHILDREN)
+            return NO_CHILDREN;
+        if (movers[first] != mover)
+            return TURN_PASS;
+
+        int bestChild = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double logVisits = Math.log(Math.max(visits[node], 1));
+        for (int child = first; child < first + childCounts[node]; child++) {
+            if (visits[child] == 0) {
+                bestChild = child;
+                break;
+            }
+            double value = rewards[child] / visits[child] + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+            if (value > bestValue) {
+                bestValue = value;
+                bestChild = child;
+            }
+        }
+        visits[bestChild] += VIRTUAL_LOSS;
+        return bestChild;
+    }
+
+    /**
+     * Adds the children of a node, if it hasn't been expanded and there is enough room in the tree
+     *
+     * @param node   The node
+     * @param buffer The encoded actions of the children
+     * @param mover  The color index of the player that performs the actions
+     */
+    private synchronized void expand(int node, IntActionBuffer buffer, int mover) {
+        if (firstChildren[node] != NO_CHILDREN || nodeCount + buffer.size() > capacity)
+            return;
+        int first = nodeCount;
+        for (int i = 0; i < buffer.size(); i++) {
+            initNode(first + i, buffer.get(i), mover);
+        }
+        nodeCount += buffer.size();
+        firstChildren[node] = first;
+        childCounts[node] = buffer.size();
+    }
+
+    /**
+     * Removes the virtual losses of a path and adds the result of a playout to its nodes
+     *
+     * @param path       The nodes of the path, starting from the root
+     * @param pathLength The number of nodes of the path
+     * @param result     The color index of the winner, -2 minus the color index of the loser or DRAW
+     */
+    private synchronized void backPropagate(int[] path, int pathLength, int result) {
+        visits[0]++;
+        for (int i = 1; i < pathLength; i++) {
+            int node = path[i];
+            visits[node] += 1 - VIRTUAL_LOSS;
+            rewards[node] += rewardOf(result, movers[node]);
+        }
+        playouts++;
+    }
+
+    /**
+     * Gets the reward of a playout result for a player
+     *
+     * @param result The color index of the winner, -2 minus the color index of the loser or DRAW
+     * @param mover  The color index of the player
+     * @return The reward between 0 and 1
+     */
+    private float rewardOf(int result, int mover) {
+        if (result == DRAW)
+            return 1f / numPlayers;
+        if (result >= 0)
+            return result == mover ? 1f : 0f;
+        // The other players share the win of a lost game
+        return -2 - result == mover ? 0f : 1f / Math.max(numPlayers - 1, 1);
+    }
+
+    /**
+     * Removes all the nodes but the root
+     */
+    private synchronized void resetTree() {
+        initNode(0, 0, NO_MOVER);
+        nodeCount = 1;
+    }
+
+    /**
+     * Initializes a node without statistics and children
+     *
+     * @param node   The node
+     * @param action The encoded action of the node
+     * @param mover  The color index of the player that performs the action
+     */
+    private void initNode(int node, int action, int mover) {
+        actions[node] = action;
+        firstChildren[node] = NO_CHILDREN;
+        childCounts[node] = 0;
+        visits[node] = 0;
+        rewards[node] = 0;
+        movers[node] = (byte) mover;
+    }
+
+    /**
+     * Gets the color index of a player
+     *
+     * @param player The player
+     * @return The color index
+     */
+    private static int colorOf(Player player) {
+        PlayerColor color = player.getColor();
+        return color.ordinal();
+    }
+
+    /**
+     * Pushes an undo record on a stack, enlarging it if it is full
+     *
+     * @param records The stack
+     * @param size    The number of records of the stack
+     * @param record  The undo record or TURN_CHANGE
+     * @return The stack
+     */
+    private static long[] push(long[] records, int size, long record) {
+        if (size == records.length)
+            records = Arrays.copyOf(records, size * 2);
+        records[size] = record;
+        return records;
+    }
+
+    /**
+     * Prints the speed and the tree size of a search of the seed position of each card
+     *
+     * @param args The time budget of each search in milliseconds (optional)
+     */
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_BENCHMARK_MILLIS;
+        List<Card> cards = Configurator.getAllCards();
+        MonteCarloSearch search = new MonteCarloSearch();
+        for (int i = 0; i < cards.size(); i++) {
+            Card firstCard = cards.get(i);
+            Card secondCard = cards.get((i + 1) % cards.size());
+            search.search(Perft.createSeedPosition(firstCard, secondCard), millis * 1_000_000L);
+            System.out.println(firstCard.getName() + " vs " + secondCard.getName() + ": " + search.getPlayouts() +
+                    " playouts (" + search.getPlayoutsPerSecond() + " playouts/s), " + search.getNodeCount() +
+                    " nodes, " + search.getTreeMemory() / 1024 + " KiB of " + search.getAllocatedMemory() / 1024 +
+                    " KiB");
+        }
+    }
+}
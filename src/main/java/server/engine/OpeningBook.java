@@ -0,0 +1,167 @@
+package server.engine;
+
+import model.Player;
+import model.Zobrist;
+import util.Configurator;
+import util.Frmt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A read-only book of the best actions of opening positions, indexed by the hash of the position and of the cards.
+ * The file is mapped in memory, so all the games of the server share the same copy in the page cache.
+ * The file has a header (magic number, version, number of entries) followed by the entries sorted by key, each made
+ * of the key (8 bytes) and the encoded action (4 bytes)
+ */
+public class OpeningBook {
+
+    private static final int MAGIC = 0x53414E42;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 12;
+    private static OpeningBook sharedBook;
+    private static boolean isSharedBookLoaded;
+    private final ByteBuffer entries;
+    private final int size;
+
+    /**
+     * Constructor: build an OpeningBook on a buffer with the entries of a book file
+     *
+     * @param entries The buffer of the entries
+     * @param size    The number of entries
+     */
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file in memory
+     *
+     * @param path The path of the book file
+     * @return The opening book
+     * @throws IOException When the file can't be read or isn't a book file
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IOException("Not an opening book: " + path);
+            int size = buffer.getInt(8);
+            if ((long) HEADER_SIZE + (long) size * ENTRY_SIZE > buffer.capacity())
+                throw new IOException("Truncated opening book: " + path);
+            return new OpeningBook(buffer, size);
+        }
+    }
+
+    /**
+     * Gets the book shared by all the games of the server, mapped the first time from the path of the configuration
+     *
+     * @return The shared book or null value if there isn't a valid book file
+     */
+    public static synchronized OpeningBook getSharedBook() {
+        if (!isSharedBookLoaded) {
+            isSharedBookLoaded = true;
+            Path path = Paths.get(Configurator.getOpeningBookPath());
+            if (Files.exists(path)) {
+                try {
+                    sharedBook = open(path);
+                    System.out.println("> Status: opening book loaded with " + sharedBook.size() + " positions");
+                } catch (IOException e) {
+                    System.out.println(Frmt.color('y', "> Warning: " + e.getMessage()));
+                }
+            }
+        }
+        return sharedBook;
+    }
+
+    /**
+     * Writes a book file
+     *
+     * @param path    The path of the book file
+     * @param actions The encoded actions indexed by key
+     * @throws IOException When the file can't be written
+     */
+    public static void write(Path path, Map<Long, Integer> actions) throws IOException {
+        Map<Long, Integer> sortedActions = new TreeMap<>(actions);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + sortedActions.size() * ENTRY_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(sortedActions.size());
+        for (Map.Entry<Long, Integer> entry : sortedActions.entrySet()) {
+            buffer.putLong(entry.getKey()).putInt(entry.getValue());
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Gets the key of a position in the book: the hash of the position and of the cards of the players
+     *
+     * @param position The position
+     * @return The key
+     */
+    public static long keyOf(Position position) {
+        long key = position.hash();
+        for (Player player : position.getGame().getPlayers()) {
+            key ^= Zobrist.card(player.getCard().getName(), player.getColor());
+        }
+        return key;
+    }
+
+    /**
+     * Gets the number of positions of the book
+     *
+     * @return The number of positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks for the best action of a position
+     *
+     * @param position The position
+     * @return The encoded action or 0 if the position isn't in the book
+     */
+    public int lookup(Position position) {
+        return lookup(keyOf(position));
+    }
+
+    /**
+     * Looks for the best action of a key with a binary search, without changing the state of the buffer so that it
+     * can be used by many threads
+     *
+     * @param key The key of the position
+     * @return The encoded action or 0 if the key isn't in the book
+     */
+    public int lookup(long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = entries.getLong(HEADER_SIZE + middle * ENTRY_SIZE);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return entries.getInt(HEADER_SIZE + middle * ENTRY_SIZE + 8);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,166 @@
+package server.engine;
+
+import model.Card;
+import model.Game;
+import server.bot.BotPlayer;
+import server.bot.RandomStrategy;
+import server.rules.UndoRecord;
+import util.Configurator;
+import util.Genre;
+import util.IntActionBuffer;
+import util.PlayerColor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the opening book offline: for each pair of cards it places the workers as the bots do, searches the first
+ * decisions of the game deeply and stores the best actions along the principal line
+ */
+public class OpeningBookGenerator {
+
+    private static final int DEFAULT_DEPTH = 6;
+    private static final int DEFAULT_SAMPLES = 20;
+    private static final int DEFAULT_DECISIONS = 4;
+    private static final long SEARCH_TIME_BUDGET = 3_600_000_000_000L;
+    private final int depth;
+    private final int samples;
+    private final int decisions;
+    private final Map<Long, Integer> actions;
+
+    /**
+     * Constructor: build an OpeningBookGenerator
+     *
+     * @param depth     The depth of the searches
+     * @param samples   The number of worker placements of each pair of cards
+     * @param decisions The number of decisions searched after each placement
+     */
+    public OpeningBookGenerator(int depth, int samples, int decisions) {
+        this.depth = depth;
+        this.samples = samples;
+        this.decisions = decisions;
+        this.actions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the best actions found so far
+     *
+     * @return The encoded actions indexed by the key of the position
+     */
+    public Map<Long, Integer> getActions() {
+        return actions;
+    }
+
+    /**
+     * Searches the openings of two cards and adds them to the book
+     *
+     * @param firstCard  The card of the first player
+     * @param secondCard The card of the second player
+     */
+    public void addOpenings(Card firstCard, Card secondCard) {
+        for (int i = 0; i < samples; i++) {
+            Position position = createOpeningPosition(firstCard, secondCard);
+            IntActionBuffer buffer = new IntActionBuffer();
+            int searchedDecisions = 0;
+            while (searchedDecisions < decisions) {
+                if (position.getCurrentPlayer().getRoundActions().hasEnded()) {
+                    position.nextTurn();
+                    continue;
+                }
+                buffer.clear();
+                position.generate(buffer);
+                if (Position.hasLost(buffer))
+                    break;
+                if (Position.mustEnd(buffer)) {
+                    position.nextTurn();
+                    continue;
+                }
+
+                long key = OpeningBook.keyOf(position);
+                Integer code = actions.get(key);
+                if (code == null) {
+                    code = new AlphaBetaSearch(position).search(1, depth, 0, SEARCH_TIME_BUDGET);
+                    actions.putIfAbsent(key, code);
+                }
+                searchedDecisions++;
+                if (UndoRecord.isWinner(position.play(code)))
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Builds the position after the placement of the workers: the players choose the colors and the cells like the
+     * bots and the first player has to move
+     *
+     * @param firstCard  The card of the first player
+     * @param secondCard The card of the second player
+     * @return The opening position
+     */
+    static Position createOpeningPosition(Card firstCard, Card secondCard) {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        BotPlayer firstPlayer = new BotPlayer("First", new RandomStrategy());
+        BotPlayer secondPlayer = new BotPlayer("Second", new RandomStrategy());
+        game.addPlayer(firstPlayer);
+        game.addPlayer(secondPlayer);
+        firstPlayer.setCard(firstCard);
+        secondPlayer.setCard(secondCard);
+
+        List<String> availableColors = PlayerColor.allColorsToString();
+        for (BotPlayer player : new BotPlayer[]{firstPlayer, secondPlayer}) {
+            String color = player.chooseColor(availableColors);
+            availableColors.remove(color);
+            player.chooseColor(PlayerColor.getColorByName(color));
+            for (Genre genre : Genre.values()) {
+                player.getWorker(genre).setPosition(game.getBoard().getCell(player.choosePosition(game)));
+            }
+        }
+        return new Position(game, firstPlayer);
+    }
+
+    /**
+     * Generates the opening book of all the pairs of cards and writes it
+     *
+     * @param args The path of the book file, the depth of the searches, the number of placements of each pair of
+     *             cards and the number of decisions of each placement (all optional)
+     * @throws IOException          When the book file can't be written
+     * @throws InterruptedException When the thread is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path path = Paths.get(args.length > 0 ? args[0] : Configurator.getOpeningBookPath());
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DEPTH;
+        int samples = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SAMPLES;
+        int decisions = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DECISIONS;
+        OpeningBookGenerator generator = new OpeningBookGenerator(depth, samples, decisions);
+
+        long startTime = System.nanoTime();
+        List<Card> cards = Configurator.getAllCards();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        for (Card firstCard : cards) {
+            for (Card secondCard : cards) {
+                if (firstCard.getName().equals(secondCard.getName()))
+                    continue;
+                executor.execute(() -> {
+                    generator.addOpenings(firstCard, secondCard);
+                    System.out.println(firstCard.getName() + " vs " + secondCard.getName() + " done");
+                });
+            }
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            // Wait for the deep searches too
+        }
+
+        OpeningBook.write(path, generator.getActions());
+        System.out.println("> Written " + generator.getActions().size() + " positions to " + path + " in " +
+                (System.nanoTime() - startTime) / 1_000_000 + " ms");
+    }
+}
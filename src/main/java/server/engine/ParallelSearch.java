@@ -0,0 +1,177 @@
+package server.engine;
+
+import model.Card;
+import util.Configurator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parallel alpha-beta search in the Lazy SMP style: a main search and some helper searches explore copies of the
+ * same position at the same time on the fork-join pool, sharing a transposition table. The helpers start from
+ * different depths and root orders so that they fill the table with results the main search can reuse.
+ * The table is kept between searches: its scores are from the point of view of the player that searches, so an
+ * instance must always search for the same player
+ */
+public class ParallelSearch {
+
+    private static final int DEFAULT_TABLE_BITS = 18;
+    private static final int DEFAULT_BENCHMARK_DEPTH = 5;
+    private static final long BENCHMARK_TIME_BUDGET = 3_600_000_000_000L;
+    private static final int[] BENCHMARK_WORKERS = {1, 2, 4, 8};
+    private static final String[] BENCHMARK_CARDS = {"Apollo", "Minotaur", "Prometheus"};
+    private final int workers;
+    private final TranspositionTable table;
+    private volatile AtomicBoolean stopFlag;
+    private long visitedNodes;
+    private int completedDepth;
+    private int bestScore;
+
+    /**
+     * Constructor: build a ParallelSearch with a worker for each available processor
+     */
+    public ParallelSearch() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * Constructor: build a ParallelSearch
+     *
+     * @param workers   The number of searches, including the main one
+     * @param tableBits The base 2 logarithm of the number of entries of the transposition table
+     */
+    public ParallelSearch(int workers, int tableBits) {
+        this.workers = Math.max(workers, 1);
+        this.table = new TranspositionTable(tableBits);
+    }
+
+    /**
+     * Searches the best action of the current player within a time budget
+     *
+     * @param position   The position to be searched, it's used by the main search
+     * @param timeBudget The time budget in nanoseconds
+     * @return The best encoded action found
+     */
+    public int search(Position position, long timeBudget) {
+        return search(position, AlphaBetaSearch.MAX_DEPTH, timeBudget);
+    }
+
+    /**
+     * Searches the best action of the current player up to a maximum depth and within a time budget
+     *
+     * @param position   The position to be searched, it's used by the main search
+     * @param maxDepth   The maximum depth
+     * @param timeBudget The time budget in nanoseconds
+     * @return The best encoded action found
+     */
+    public int search(Position position, int maxDepth, long timeBudget) {
+        AtomicBoolean stopFlag = new AtomicBoolean();
+        this.stopFlag = stopFlag;
+        List<AlphaBetaSearch> helpers = new ArrayList<>();
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>();
+        for (int i = 1; i < workers; i++) {
+            Position copy = Position.copyOf(position.getGame(), position.getCurrentPlayer());
+            AlphaBetaSearch helper = new AlphaBetaSearch(copy, table, stopFlag);
+            int startDepth = 1 + i % 2;
+            int rotation = i;
+            helpers.add(helper);
+            tasks.add(ForkJoinPool.commonPool().submit(() ->
+                    helper.search(startDepth, maxDepth, rotation, timeBudget)));
+        }
+
+        AlphaBetaSearch mainSearch = new AlphaBetaSearch(position, table, stopFlag);
+        int bestAction = mainSearch.search(1, maxDepth, 0, timeBudget);
+        stopFlag.set(true);
+        visitedNodes = mainSearch.getVisitedNodes();
+        completedDepth = mainSearch.getCompletedDepth();
+        bestScore = mainSearch.getBestScore();
+
+        // A helper result replaces the main one only if it comes from a deeper iteration
+        for (int i = 0; i < tasks.size(); i++) {
+            int action = tasks.get(i).join();
+            AlphaBetaSearch helper = helpers.get(i);
+            visitedNodes += helper.getVisitedNodes();
+            if (helper.getCompletedDepth() > completedDepth) {
+                bestAction = action;
+                completedDepth = helper.getCompletedDepth();
+                bestScore = helper.getBestScore();
+            }
+        }
+        return bestAction;
+    }
+
+    /**
+     * Stops the running search, which returns the best action found so far
+     */
+    public void cancel() {
+        AtomicBoolean runningStopFlag = stopFlag;
+        if (runningStopFlag != null)
+            runningStopFlag.set(true);
+    }
+
+    /**
+     * Gets the number of positions visited by all the searches of the last search
+     *
+     * @return The number of visited positions
+     */
+    public long getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    /**
+     * Gets the depth of the best completed iteration of the last search
+     *
+     * @return The completed depth
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Gets the score of the chosen action of the last search
+     *
+     * @return The score of the chosen action
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Prints the time of a fixed depth search of some midgame positions with an increasing number of workers and the
+     * speedup over a single worker
+     *
+     * @param args The depth of the searches (optional)
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BENCHMARK_DEPTH;
+        List<Card> cards = Configurator.getAllCards();
+        System.out.println("> Available processors: " + Runtime.getRuntime().availableProcessors());
+        for (String cardName : BENCHMARK_CARDS) {
+            Card firstCard = null;
+            for (Card card : cards) {
+                if (card.getName().equals(cardName))
+                    firstCard = card;
+            }
+            if (firstCard == null)
+                continue;
+            Card secondCard = cards.get((cards.indexOf(firstCard) + 1) % cards.size());
+
+            long singleTime = 0;
+            for (int workers : BENCHMARK_WORKERS) {
+                ParallelSearch search = new ParallelSearch(workers, DEFAULT_TABLE_BITS);
+                Position position = Perft.createSeedPosition(firstCard, secondCard);
+                long startTime = System.nanoTime();
+                search.search(position, depth, BENCHMARK_TIME_BUDGET);
+                long elapsedTime = Math.max(System.nanoTime() - startTime, 1);
+                if (workers == 1)
+                    singleTime = elapsedTime;
+                System.out.println(firstCard.getName() + " vs " + secondCard.getName() + " depth " + depth + ", " +
+                        workers + " workers: " + elapsedTime / 1_000_000 + " ms, " + search.getVisitedNodes() +
+                        " nodes, speedup " + String.format("%.2f", (double) singleTime / elapsedTime));
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package server.engine;
+
+import model.Board;
+import model.Card;
+import model.Game;
+import model.Player;
+import server.rules.UndoRecord;
+import util.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Counts all the legal action sequences up to a certain depth, like the perft of chess engines.
+ * The counts verify the rules engine against known values and the time measures its speed
+ */
+public class Perft {
+
+    private static final int DEFAULT_DEPTH = 4;
+    private final Position position;
+    private final List<IntActionBuffer> buffers;
+    private long visitedNodes;
+
+    /**
+     * Constructor: build a Perft
+     *
+     * @param position The starting position
+     */
+    public Perft(Position position) {
+        this.position = position;
+        this.buffers = new ArrayList<>();
+        this.visitedNodes = 0;
+    }
+
+    /**
+     * Counts the legal action sequences of a specified length. The turn changes happen as in the Controller: they
+     * aren't counted as actions. A sequence that ends with a win is counted only if it has the specified length,
+     * a sequence that ends with a lose is never counted
+     *
+     * @param depth The number of actions of the sequences
+     * @return The number of sequences
+     */
+    public long count(int depth) {
+        return count(depth, 0);
+    }
+
+    /**
+     * Gets the number of actions performed by all the counts
+     *
+     * @return The number of performed actions
+     */
+    public long getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    /**
+     * Counts the legal action sequences of a specified length
+     *
+     * @param depth The number of actions of the sequences
+     * @param level The recursion level, used to select the action buffer
+     * @return The number of sequences
+     */
+    private long count(int depth, int level) {
+        if (position.getCurrentPlayer().getRoundActions().hasEnded()) {
+            return countNextTurn(depth, level);
+        }
+
+        IntActionBuffer buffer = getBuffer(level);
+        buffer.clear();
+        position.generate(buffer);
+        if (Position.hasLost(buffer))
+            return 0;
+        if (Position.mustEnd(buffer))
+            return countNextTurn(depth, level);
+        if (depth == 0)
+            return 1;
+
+        long sequences = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            long record = position.play(buffer.get(i));
+            visitedNodes++;
+            if (UndoRecord.isWinner(record)) {
+                sequences += depth == 1 ? 1 : 0;
+            } else {
+                sequences += count(depth - 1, level + 1);
+            }
+            position.undo(record);
+        }
+        return sequences;
+    }
+
+    /**
+     * Counts the legal action sequences of a specified length after passing the turn
+     *
+     * @param depth The number of actions of the sequences
+     * @param level The recursion level
+     * @return The number of sequences
+     */
+    private long countNextTurn(int depth, int level) {
+        position.nextTurn();
+        long sequences = count(depth, level + 1);
+        position.previousTurn();
+        return sequences;
+    }
+
+    /**
+     * Gets the action buffer of a recursion level
+     *
+     * @param level The recursion level
+     * @return The action buffer
+     */
+    private IntActionBuffer getBuffer(int level) {
+        while (buffers.size() <= level) {
+            buffers.add(new IntActionBuffer());
+        }
+        return buffers.get(level);
+    }
+
+    /**
+     * Builds the seed position used for the known counts: two players with the specified cards, some floors and a
+     * dome around the workers. The player with the first card has to move
+     *
+     * @param firstCard  The card of the player that moves first
+     * @param secondCard The card of the other player
+     * @return The seed position
+     */
+    public static Position createSeedPosition(Card firstCard, Card secondCard) {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        Player firstPlayer = new Player("First", new Date(1000), false);
+        Player secondPlayer = new Player("Second", new Date(2000), false);
+        game.addPlayer(firstPlayer);
+        game.addPlayer(secondPlayer);
+        firstPlayer.setCard(firstCard);
+        secondPlayer.setCard(secondCard);
+        firstPlayer.chooseColor(PlayerColor.BLUE);
+        secondPlayer.chooseColor(PlayerColor.YELLOW);
+
+        Board board = game.getBoard();
+        firstPlayer.getWorker(Genre.MALE).setPosition(board.getCell(1, 1));
+        firstPlayer.getWorker(Genre.FEMALE).setPosition(board.getCell(3, 3));
+        secondPlayer.getWorker(Genre.MALE).setPosition(board.getCell(1, 2));
+        secondPlayer.getWorker(Genre.FEMALE).setPosition(board.getCell(2, 1));
+        board.getCell(2, 2).addFloor();
+        board.getCell(0, 0).addFloor();
+        board.getCell(0, 0).addFloor();
+        for (int i = 0; i < 3; i++) {
+            board.getCell(4, 4).addFloor();
+        }
+        board.getCell(0, 2).addFloor();
+        board.getCell(3, 2).addFloor();
+        board.getCell(3, 2).addFloor();
+        board.getCell(1, 3).setDome(true);
+        return new Position(game, firstPlayer);
+    }
+
+    /**
+     * Prints the counts and the speed of each card against the next one in the configuration
+     *
+     * @param args The depth of the counts (optional)
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        List<Card> cards = Configurator.getAllCards();
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (int i = 0; i < cards.size(); i++) {
+            Card firstCard = cards.get(i);
+            Card secondCard = cards.get((i + 1) % cards.size());
+            Perft perft = new Perft(createSeedPosition(firstCard, secondCard));
+
+            long startTime = System.nanoTime();
+            long sequences = perft.count(depth);
+            long elapsedTime = Math.max(System.nanoTime() - startTime, 1);
+            totalNodes += perft.getVisitedNodes();
+            totalTime += elapsedTime;
+            System.out.println(firstCard.getName() + " vs " + secondCard.getName() + " depth " + depth + ": " +
+                    sequences + " (" + perft.getVisitedNodes() + " nodes, " +
+                    perft.getVisitedNodes() * 1_000_000_000L / elapsedTime + " nodes/s)");
+        }
+        System.out.println("> Total: " + totalNodes + " nodes in " + totalTime / 1_000_000 + " ms (" +
+                totalNodes * 1_000_000_000L / Math.max(totalTime, 1) + " nodes/s)");
+    }
+}
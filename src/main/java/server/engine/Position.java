@@ -0,0 +1,186 @@
+package server.engine;
+
+import model.Game;
+import model.Player;
+import server.rules.EnemyRules;
+import server.rules.Rules;
+import util.Action;
+import util.ActionType;
+import util.IntActionBuffer;
+import util.RoundActions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A game seen from the player that has to move, with reversible actions and turn changes.
+ * It is used to explore the game without copying it
+ */
+public class Position {
+
+    private final Game game;
+    private Player currentPlayer;
+    private final Deque<Player> previousPlayers;
+    private final Deque<RoundActions> previousRoundActions;
+
+    /**
+     * Constructor: build a Position
+     *
+     * @param game          The game
+     * @param currentPlayer The player that has to move
+     */
+    public Position(Game game, Player currentPlayer) {
+        this.game = game;
+        this.currentPlayer = currentPlayer;
+        this.previousPlayers = new ArrayDeque<>();
+        this.previousRoundActions = new ArrayDeque<>();
+    }
+
+    /**
+     * Gets the game
+     *
+     * @return The game
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Gets the player that has to move
+     *
+     * @return The player that has to move
+     */
+    public Player getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Appends to a buffer all the encoded actions the current player can perform, according to his rules and to the
+     * enemy rules of the other players
+     *
+     * @param buffer The buffer that will contain the actions
+     */
+    public void generate(IntActionBuffer buffer) {
+        int start = buffer.size();
+        currentPlayer.getCard().getRules().generate(currentPlayer, game, buffer);
+        EnemyRules.applyRestrictions(buffer, start, EnemyRules.getRestrictionsOn(game, currentPlayer));
+    }
+
+    /**
+     * Checks if the current player has at least one legal action, without generating the actions
+     *
+     * @return True if the current player has a legal action, false if he has lost
+     */
+    public boolean hasAnyLegalAction() {
+        return currentPlayer.getCard().getRules().hasAnyLegalAction(currentPlayer, game,
+                EnemyRules.getRestrictionsOn(game, currentPlayer));
+    }
+
+    /**
+     * Performs an encoded action of the current player
+     *
+     * @param code The encoded action
+     * @return The undo record of the action
+     */
+    public long play(int code) {
+        return getRules().makeAction(code, currentPlayer, game);
+    }
+
+    /**
+     * Undoes the last action of the current player
+     *
+     * @param record The undo record returned by {@link #play(int)}
+     */
+    public void undo(long record) {
+        getRules().undoAction(record, currentPlayer, game);
+    }
+
+    /**
+     * Passes the turn to the next player, flushing his actions
+     */
+    public void nextTurn() {
+        Player nextPlayer = game.getNextPlayer(currentPlayer);
+        previousPlayers.push(currentPlayer);
+        previousRoundActions.push(nextPlayer.getRoundActions());
+        nextPlayer.setRoundActions(new RoundActions());
+        currentPlayer = nextPlayer;
+    }
+
+    /**
+     * Gives the turn back to the previous player, restoring the actions of the current player
+     */
+    public void previousTurn() {
+        currentPlayer.setRoundActions(previousRoundActions.pop());
+        currentPlayer = previousPlayers.pop();
+    }
+
+    /**
+     * Gets the Zobrist hash of the position
+     *
+     * @return The hash of the position
+     */
+    public long hash() {
+        return game.positionHash(currentPlayer);
+    }
+
+    /**
+     * Checks if a buffer of generated actions contains a lose-action
+     *
+     * @param buffer The buffer
+     * @return True if the buffer contains a lose-action, otherwise false
+     */
+    public static boolean hasLost(IntActionBuffer buffer) {
+        for (int i = 0; i < buffer.size(); i++) {
+            if (Action.typeOf(buffer.get(i)) == ActionType.LOSE)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a buffer of generated actions contains only the end-action
+     *
+     * @param buffer The buffer
+     * @return True if the player can only end his turn, otherwise false
+     */
+    public static boolean mustEnd(IntActionBuffer buffer) {
+        return buffer.size() == 1 && Action.typeOf(buffer.get(0)) == ActionType.END;
+    }
+
+    /**
+     * Builds a position on a deep copy of a game, so that it can be explored without touching the original game
+     *
+     * @param game          The game to be copied
+     * @param currentPlayer The player that has to move in the original game
+     * @return The position on the copy of the game
+     */
+    public static Position copyOf(Game game, Player currentPlayer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                output.writeObject(game);
+            }
+            Game copy;
+            try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                copy = (Game) input.readObject();
+            }
+            return new Position(copy, copy.getPlayerByNickname(currentPlayer.getNickname()));
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("The game can't be copied", e);
+        }
+    }
+
+    /**
+     * Gets the rules of the current player
+     *
+     * @return The rules of the current player
+     */
+    private Rules getRules() {
+        return currentPlayer.getCard().getRules();
+    }
+}
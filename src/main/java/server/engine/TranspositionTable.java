@@ -0,0 +1,127 @@
+package server.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free transposition table shared by the search threads.
+ * Each entry is made of two longs: the key xor the data and the data, so a torn write by two threads is detected as
+ * a missing entry instead of returning the data of another position. The data of an entry packs the score (32 bits),
+ * the depth (8 bits), the bound type (2 bits), the best encoded action (13 bits) and a validity bit
+ */
+public class TranspositionTable {
+
+    /**
+     * The score is exact
+     */
+    public static final int EXACT = 0;
+
+    /**
+     * The score is a lower bound (the search failed high)
+     */
+    public static final int LOWER_BOUND = 1;
+
+    /**
+     * The score is an upper bound (the search failed low)
+     */
+    public static final int UPPER_BOUND = 2;
+
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int ACTION_SHIFT = 42;
+    private static final long VALID_BIT = 1L << 55;
+    private final AtomicLongArray entries;
+    private final int indexMask;
+
+    /**
+     * Constructor: build a TranspositionTable
+     *
+     * @param sizeBits The base 2 logarithm of the number of entries
+     */
+    public TranspositionTable(int sizeBits) {
+        this.entries = new AtomicLongArray(2 << sizeBits);
+        this.indexMask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Gets the data stored for a position
+     *
+     * @param key The hash of the position
+     * @return The data of the entry or 0 if there isn't an entry for the position
+     */
+    public long probe(long key) {
+        int index = ((int) key & indexMask) << 1;
+        long data = entries.get(index + 1);
+        if ((entries.get(index) ^ data) != key)
+            return 0;
+        return data;
+    }
+
+    /**
+     * Stores the result of the search of a position, replacing the previous entry of the same slot
+     *
+     * @param key    The hash of the position
+     * @param score  The score of the position
+     * @param depth  The depth of the search
+     * @param bound  The bound type of the score (EXACT, LOWER_BOUND or UPPER_BOUND)
+     * @param action The best encoded action or 0
+     */
+    public void store(long key, int score, int depth, int bound, int action) {
+        int index = ((int) key & indexMask) << 1;
+        long data = (score & 0xFFFFFFFFL) |
+                ((long) (depth & 0xFF) << DEPTH_SHIFT) |
+                ((long) bound << BOUND_SHIFT) |
+                ((long) (action & 0x1FFF) << ACTION_SHIFT) |
+                VALID_BIT;
+        entries.set(index + 1, data);
+        entries.set(index, key ^ data);
+    }
+
+    /**
+     * Removes all the entries
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0);
+        }
+    }
+
+    /**
+     * Gets the score of an entry
+     *
+     * @param data The data of the entry
+     * @return The score
+     */
+    public static int scoreOf(long data) {
+        return (int) data;
+    }
+
+    /**
+     * Gets the depth of an entry
+     *
+     * @param data The data of the entry
+     * @return The depth
+     */
+    public static int depthOf(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    /**
+     * Gets the bound type of an entry
+     *
+     * @param data The data of the entry
+     * @return The bound type
+     */
+    public static int boundOf(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 0x3);
+    }
+
+    /**
+     * Gets the best encoded action of an entry
+     *
+     * @param data The data of the entry
+     * @return The encoded action or 0
+     */
+    public static int actionOf(long data) {
+        return (int) ((data >>> ACTION_SHIFT) & 0x1FFF);
+    }
+}
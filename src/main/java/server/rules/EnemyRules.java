@@ -1,7 +1,11 @@
 package server.rules;
 
+import model.Cell;
 import model.Game;
 import model.Player;
+import util.Action;
+import util.ActionType;
+import util.IntActionBuffer;
 import util.RoundActions;
 
 import java.io.Serializable;
@@ -11,6 +15,27 @@ import java.io.Serializable;
  */
 public class EnemyRules implements Serializable {
 
+    /**
+     * No restrictions on the enemy actions
+     */
+    public static final int NO_RESTRICTIONS = 0;
+
+    /**
+     * The enemies can't move up
+     */
+    public static final int NO_MOVE_UP = 1;
+
+    /**
+     * Gets the restrictions that the owner of the card imposes on the enemy actions
+     *
+     * @param game   The game
+     * @param player The owner of the card
+     * @return The restrictions flags (like NO_MOVE_UP)
+     */
+    public int getRestrictions(Game game, Player player) {
+        return NO_RESTRICTIONS;
+    }
+
     /**
      * Fixes the enemy actions according to the enemy rules
      *
@@ -20,8 +45,96 @@ public class EnemyRules implements Serializable {
      * @return The fixed enemy actions
      */
     public RoundActions fixEnemyActions(RoundActions enemyPossibleActions, Game game, Player player) {
+        return applyRestrictions(enemyPossibleActions, getRestrictions(game, player));
+    }
+
+    /**
+     * Checks if an encoded action is allowed by the restrictions
+     *
+     * @param code         The encoded action
+     * @param restrictions The restrictions flags
+     * @return True if the action is allowed, otherwise false
+     */
+    public static boolean isAllowed(int code, int restrictions) {
+        return (restrictions & NO_MOVE_UP) == 0 ||
+                Action.typeOf(code) != ActionType.MOVE ||
+                Action.levelDifferenceOf(code) <= 0;
+    }
+
+    /**
+     * Gets the restrictions that all the other players impose on the actions of a player
+     *
+     * @param game   The game
+     * @param player The player whose actions are restricted
+     * @return The combined restrictions flags
+     */
+    public static int getRestrictionsOn(Game game, Player player) {
+        int restrictions = NO_RESTRICTIONS;
+        for (Player enemy : game.getPlayers()) {
+            if (!enemy.equals(player))
+                restrictions |= enemy.getCard().getEnemyRules().getRestrictions(game, enemy);
+        }
+        return restrictions;
+    }
+
+    /**
+     * Removes from a mask of move targets the cells that the restrictions don't allow to reach
+     *
+     * @param mask         The mask of the cells the worker can move to
+     * @param workerCell   The cell of the worker
+     * @param game         The game
+     * @param restrictions The restrictions flags
+     * @return The mask of the allowed cells
+     */
+    public static int restrictMovesMask(int mask, Cell workerCell, Game game, int restrictions) {
+        if ((restrictions & NO_MOVE_UP) != 0)
+            mask &= game.getBoard().getFloorMaskUpTo(workerCell.getFloor());
+        return mask;
+    }
+
+    /**
+     * Removes from a set of enemy actions the ones that aren't allowed by the restrictions. If no action is left the
+     * enemy loses
+     *
+     * @param enemyPossibleActions The enemy actions
+     * @param restrictions         The restrictions flags
+     * @return The allowed enemy actions (the same object if there are no restrictions)
+     */
+    public static RoundActions applyRestrictions(RoundActions enemyPossibleActions, int restrictions) {
+        if (restrictions == NO_RESTRICTIONS)
+            return enemyPossibleActions;
+
         RoundActions fixedActions = new RoundActions();
-        fixedActions.add(enemyPossibleActions);
+        for (int i = 0; i < enemyPossibleActions.size(); i++) {
+            int code = enemyPossibleActions.getCode(i);
+            if (isAllowed(code, restrictions))
+                fixedActions.add(code);
+        }
+        if (fixedActions.isEmpty())
+            fixedActions.add(new Action(ActionType.LOSE));
         return fixedActions;
     }
+
+    /**
+     * Removes from a buffer the enemy actions that aren't allowed by the restrictions. If no action is left the
+     * enemy loses
+     *
+     * @param enemyPossibleActions The buffer that contains the enemy actions
+     * @param start                The position of the first enemy action in the buffer
+     * @param restrictions         The restrictions flags
+     */
+    public static void applyRestrictions(IntActionBuffer enemyPossibleActions, int start, int restrictions) {
+        if (restrictions == NO_RESTRICTIONS)
+            return;
+
+        int end = start;
+        for (int i = start; i < enemyPossibleActions.size(); i++) {
+            int code = enemyPossibleActions.get(i);
+            if (isAllowed(code, restrictions))
+                enemyPossibleActions.set(end++, code);
+        }
+        enemyPossibleActions.truncate(end);
+        if (end == start)
+            enemyPossibleActions.add(ActionType.LOSE);
+    }
 }
@@ -1,5 +1,6 @@
 package server.rules;
 
+import model.Board;
 import model.Cell;
 import model.Game;
 import model.Player;
@@ -7,11 +8,10 @@ import model.Worker;
 import util.Action;
 import util.ActionType;
 import util.Genre;
+import util.IntActionBuffer;
 import util.RoundActions;
 
 import java.io.Serializable;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * The regular rules
@@ -25,153 +25,230 @@ public class Rules implements Serializable {
      * @return A RoundActions object containing all the possible actions
      */
     public RoundActions nextPossibleActions(Player player, Game game) {
+        IntActionBuffer buffer = new IntActionBuffer();
+        generate(player, game, buffer);
+        return buffer.toRoundActions();
+    }
+
+    /**
+     * Appends all the possible actions of the specified player according to the Rules to a buffer of encoded actions
+     *
+     * @param player The player whose possible actions are to be analyzed
+     * @param game   The game to which the player belongs
+     * @param buffer The buffer that receives the encoded actions
+     */
+    public void generate(Player player, Game game, IntActionBuffer buffer) {
         RoundActions roundActions = player.getRoundActions();
-        RoundActions nextPossibleActions = new RoundActions();
+        int start = buffer.size();
 
         // Has already moved?
         if (roundActions.hasMoved() == 0) {
-            nextPossibleActions.add(getPossibleMoves(player.getWorker(Genre.MALE), game));
-            nextPossibleActions.add(getPossibleMoves(player.getWorker(Genre.FEMALE), game));
+            generateMoves(player.getWorker(Genre.MALE), game, buffer);
+            generateMoves(player.getWorker(Genre.FEMALE), game, buffer);
             //Can't move?
-            if (nextPossibleActions.isEmpty())
-                nextPossibleActions.add(new Action(ActionType.LOSE));
+            if (buffer.size() == start)
+                buffer.add(ActionType.LOSE);
         } else {
             // Has already build?
             if (roundActions.hasBuildAnything() == 0) {
-                Genre movedWorkerGenre = roundActions.
-                        getActionList().
-                        stream().
-                        filter(x -> x.getActionType() == ActionType.MOVE).
-                        collect(Collectors.toList()).
-                        get(0).
-                        getGenre();
-                nextPossibleActions.add(getPossibleBuilds(player.getWorker(movedWorkerGenre), game));
-                nextPossibleActions.add(getPossibleDomes(player.getWorker(movedWorkerGenre), game));
+                Worker movedWorker = player.getWorker(roundActions.getWorkerGenre());
+                generateBuilds(movedWorker, game, buffer);
+                generateDomes(movedWorker, game, buffer);
                 //Can't build anything?
-                if (nextPossibleActions.isEmpty())
-                    nextPossibleActions.add(new Action(ActionType.LOSE));
+                if (buffer.size() == start)
+                    buffer.add(ActionType.LOSE);
             } else {
-                nextPossibleActions.add(new Action(ActionType.END));
+                buffer.add(ActionType.END);
             }
         }
-        return nextPossibleActions;
     }
 
     /**
-     * Gets a RoundActions object containing all the move-actions of the specified worker according to the Rules
+     * Checks if the specified player has at least one legal action, without generating the actions: it follows the
+     * same steps of generate but it stops at the first non-empty mask. The end-action is a legal action
      *
-     * @param worker The worker whose possible moves are to be analyzed
+     * @param player       The player whose possible actions are to be analyzed
+     * @param game         The game to which the player belongs
+     * @param restrictions The restrictions flags imposed by the other players (like EnemyRules.NO_MOVE_UP)
+     * @return True if the player has a legal action, false if he has lost
+     */
+    public boolean hasAnyLegalAction(Player player, Game game, int restrictions) {
+        RoundActions roundActions = player.getRoundActions();
+
+        if (roundActions.hasMoved() == 0)
+            return canMove(player.getWorker(Genre.MALE), game, restrictions) ||
+                    canMove(player.getWorker(Genre.FEMALE), game, restrictions);
+        if (roundActions.hasBuildAnything() == 0)
+            return canBuild(player.getWorker(roundActions.getWorkerGenre()), game);
+        return true;
+    }
+
+    /**
+     * Checks if the specified worker has at least one move-action allowed by the restrictions
+     *
+     * @param worker       The worker whose possible moves are to be analyzed
+     * @param game         The game to which the player belongs
+     * @param restrictions The restrictions flags imposed by the other players
+     * @return True if the worker can move, otherwise false
+     */
+    protected boolean canMove(Worker worker, Game game, int restrictions) {
+        return EnemyRules.restrictMovesMask(calculateMovesMask(worker, game), worker.getPosition(), game, restrictions) != 0;
+    }
+
+    /**
+     * Checks if the specified worker has at least one build-floor-action or build-dome-action
+     *
+     * @param worker The worker whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible move-actions
+     * @return True if the worker can build, otherwise false
      */
-    protected RoundActions getPossibleMoves(Worker worker, Game game) {
-        RoundActions roundMoves = new RoundActions();
-        Cell workerCell = worker.getPosition();
-        List<Cell> cells = calculateStandardMoves(workerCell, game);
+    protected boolean canBuild(Worker worker, Game game) {
+        return calculateBuildsMask(worker, game) != 0 || calculateDomesMask(worker, game) != 0;
+    }
 
-        roundMoves.addMoves(cells, workerCell, worker.getGenre());
-        return roundMoves;
+    /**
+     * Appends all the move-actions of the specified worker according to the Rules to a buffer of encoded actions
+     *
+     * @param worker The worker whose possible moves are to be analyzed
+     * @param game   The game to which the player belongs
+     * @param buffer The buffer that receives the encoded actions
+     */
+    protected void generateMoves(Worker worker, Game game, IntActionBuffer buffer) {
+        addActions(ActionType.MOVE, calculateMovesMask(worker, game), worker, game, buffer);
     }
 
     /**
-     * Gets a list of the cells you can move to
+     * Appends all the build-floor-actions of the specified worker according to the Rules to a buffer of encoded actions
      *
-     * @param workerCell The cell of the worker
-     * @param game       The game
-     * @return The list of the cells you can move to
+     * @param worker The worker whose possible actions are to be analyzed
+     * @param game   The game to which the player belongs
+     * @param buffer The buffer that receives the encoded actions
      */
-    protected List<Cell> calculateStandardMoves(Cell workerCell, Game game) {
-        // Add all the adjacent cells that don't have a dome and are reachable from the current positions of the worker
-        List<Cell> cells = game.
-                getBoard().
-                getAdjacents(workerCell).
-                stream().
-                filter(x -> !x.getDome() && workerCell.getFloorDifference(x) <= 1).
-                collect(Collectors.toList());
-
-        // Remove all the cells that are already occupied
-        for (Player gamePlayer : game.getPlayers()) {
-            cells.removeAll(gamePlayer.getOccupiedCells());
-        }
-        return cells;
+    protected void generateBuilds(Worker worker, Game game, IntActionBuffer buffer) {
+        addActions(ActionType.FLOOR, calculateBuildsMask(worker, game), worker, game, buffer);
     }
 
     /**
-     * Gets a RoundActions object containing all the build-floor-actions of the specified worker according to the Rules
+     * Appends all the build-dome-actions of the specified worker according to the Rules to a buffer of encoded actions
      *
      * @param worker The worker whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible build-floor-actions
+     * @param buffer The buffer that receives the encoded actions
      */
-    protected RoundActions getPossibleBuilds(Worker worker, Game game) {
-        RoundActions roundBuilds = new RoundActions();
+    protected void generateDomes(Worker worker, Game game, IntActionBuffer buffer) {
+        addActions(ActionType.DOME, calculateDomesMask(worker, game), worker, game, buffer);
+    }
+
+    /**
+     * Appends an action of a specified type for each cell of a mask
+     *
+     * @param actionType The action type
+     * @param mask       The mask of the target cells
+     * @param worker     The worker that does the actions
+     * @param game       The game to which the player belongs
+     * @param buffer     The buffer that receives the encoded actions
+     */
+    protected void addActions(ActionType actionType, int mask, Worker worker, Game game, IntActionBuffer buffer) {
+        Board board = game.getBoard();
         Cell workerCell = worker.getPosition();
-        List<Cell> cells = calculateStandardBuilds(workerCell, game);
+        int workerIndex = Board.indexOf(workerCell.getRow(), workerCell.getColumn());
+        while (mask != 0) {
+            int index = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            int levelDifference = board.getCell(index).getFloor() - workerCell.getFloor();
+            buffer.add(Action.encode(actionType, worker.getGenre(), Board.getDirection(workerIndex, index), levelDifference));
+        }
+    }
 
-        roundBuilds.addBuilds(cells, workerCell, worker.getGenre());
-        return roundBuilds;
+    /**
+     * Gets the mask of the cells the specified worker can move to according to the Rules
+     *
+     * @param worker The worker whose possible moves are to be analyzed
+     * @param game   The game to which the player belongs
+     * @return The mask of the cells the worker can move to
+     */
+    protected int calculateMovesMask(Worker worker, Game game) {
+        return calculateStandardMovesMask(worker.getPosition(), game);
     }
 
     /**
-     * Gets a list of the cells you can build a floor on
+     * Gets the mask of the cells the specified worker can build a floor on according to the Rules
      *
-     * @param workerCell The cell of the worker
-     * @param game       The game
-     * @return The list of the cells you can build a floor on
+     * @param worker The worker whose possible actions are to be analyzed
+     * @param game   The game to which the player belongs
+     * @return The mask of the cells the worker can build a floor on
      */
-    protected List<Cell> calculateStandardBuilds(Cell workerCell, Game game) {
-        // Add all the adjacent cells that don't have a dome and don't have 3 floors: here you can build a floor
-        List<Cell> cells = game.
-                getBoard().
-                getAdjacents(workerCell).
-                stream().
-                filter(x -> !x.getDome() && x.getFloor() <= 2).
-                collect(Collectors.toList());
-
-        // Remove all the cells that are already occupied
-        for (Player gamePlayer : game.getPlayers()) {
-            cells.removeAll(gamePlayer.getOccupiedCells());
-        }
-        return cells;
+    protected int calculateBuildsMask(Worker worker, Game game) {
+        return calculateStandardBuildsMask(worker.getPosition(), game);
     }
 
     /**
-     * Gets a RoundActions object containing all the build-dome-actions of the specified worker according to the Rules
+     * Gets the mask of the cells the specified worker can build a dome on according to the Rules
      *
      * @param worker The worker whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible build-dome-actions
+     * @return The mask of the cells the worker can build a dome on
      */
-    protected RoundActions getPossibleDomes(Worker worker, Game game) {
-        RoundActions roundDomes = new RoundActions();
-        Cell workerCell = worker.getPosition();
-        List<Cell> cells = calculateStandardDomes(workerCell, game);
+    protected int calculateDomesMask(Worker worker, Game game) {
+        return calculateStandardDomesMask(worker.getPosition(), game);
+    }
+
+    /**
+     * Gets the mask of the cells you can move to
+     *
+     * @param workerCell The cell of the worker
+     * @param game       The game
+     * @return The mask of the cells you can move to
+     */
+    protected int calculateStandardMovesMask(Cell workerCell, Game game) {
+        // All the adjacent cells that don't have a dome, are reachable from the current positions of the worker and are free
+        Board board = game.getBoard();
+        return board.getAdjacentMask(workerCell) &
+                board.getFloorMaskUpTo(workerCell.getFloor() + 1) &
+                ~board.getDomeMask() &
+                ~calculateOccupiedMask(game);
+    }
 
-        roundDomes.addDomes(cells, workerCell, worker.getGenre());
-        return roundDomes;
+    /**
+     * Gets the mask of the cells you can build a floor on
+     *
+     * @param workerCell The cell of the worker
+     * @param game       The game
+     * @return The mask of the cells you can build a floor on
+     */
+    protected int calculateStandardBuildsMask(Cell workerCell, Game game) {
+        // All the adjacent cells that don't have a dome, don't have 3 floors and are free: here you can build a floor
+        Board board = game.getBoard();
+        return board.getAdjacentMask(workerCell) &
+                board.getFloorMaskUpTo(2) &
+                ~board.getDomeMask() &
+                ~calculateOccupiedMask(game);
     }
 
     /**
-     * Gets a list of the cells you can build a dome on
+     * Gets the mask of the cells you can build a dome on
      *
      * @param workerCell The cell of the worker
      * @param game       The game
-     * @return The list of the cells you can build a dome on
+     * @return The mask of the cells you can build a dome on
      */
-    protected List<Cell> calculateStandardDomes(Cell workerCell, Game game) {
-        // Add all the adjacent cells that don't have a dome and have 3 floors: here you can build a dome
-        List<Cell> cells = game.
-                getBoard().
-                getAdjacents(workerCell).
-                stream().
-                filter(x -> !x.getDome() && x.getFloor() == 3).
-                collect(Collectors.toList());
-
-        // Remove all the cells that are already occupied
-        for (Player gamePlayer : game.getPlayers()) {
-            cells.removeAll(gamePlayer.getOccupiedCells());
-        }
-        return cells;
+    protected int calculateStandardDomesMask(Cell workerCell, Game game) {
+        // All the adjacent cells that don't have a dome, have 3 floors and are free: here you can build a dome
+        Board board = game.getBoard();
+        return board.getAdjacentMask(workerCell) &
+                board.getFloorMask(3) &
+                ~board.getDomeMask() &
+                ~calculateOccupiedMask(game);
+    }
+
+    /**
+     * Gets the mask of the cells occupied by the workers of the connected and non-loser players
+     *
+     * @param game The game
+     * @return The mask of the occupied cells
+     */
+    protected int calculateOccupiedMask(Game game) {
+        return game.getOccupiedMask();
     }
 
     /**
@@ -183,76 +260,152 @@ public class Rules implements Serializable {
      * @return True if the action is a winning action, otherwise false
      */
     public boolean doAction(Action action, Player player, Game game) {
-        switch (action.getActionType()) {
+        return UndoRecord.isWinner(makeAction(action.encode(), player, game));
+    }
+
+    /**
+     * Performs a certain allowed encoded action
+     *
+     * @param code   The encoded action to be performed
+     * @param player The player who performs the action
+     * @param game   The game to which the player belongs
+     * @return The undo record of the action (see {@link UndoRecord})
+     */
+    public long makeAction(int code, Player player, Game game) {
+        switch (Action.typeOf(code)) {
             case MOVE:
-                return doMove(action, player, game);
+                return doMove(code, player, game);
             case FLOOR:
-                return doBuild(action, player, game);
+                return doBuild(code, player, game);
             case DOME:
-                return doDome(action, player, game);
+                return doDome(code, player, game);
             case END:
-                player.registerAction(action);
-                return false;
+                player.registerAction(code);
+                return UndoRecord.of(code);
             default:
-                return false;
+                return UndoRecord.of(code);
+        }
+    }
+
+    /**
+     * Restores the game and the actions of the player as they were before a certain action
+     *
+     * @param record The undo record returned when the action has been performed
+     * @param player The player who has performed the action
+     * @param game   The game to which the player belongs
+     */
+    public void undoAction(long record, Player player, Game game) {
+        switch (Action.typeOf(UndoRecord.codeOf(record))) {
+            case MOVE:
+                undoMove(record, player, game);
+                break;
+            case FLOOR:
+            case DOME:
+                undoBuild(record, game);
+                break;
+            case END:
+                break;
+            default:
+                return;
+        }
+        player.getRoundActions().removeLast();
+    }
+
+    /**
+     * Moves back the worker (and the displaced enemy worker) of a move-action
+     *
+     * @param record The undo record of the move-action
+     * @param player The player who has performed the move-action
+     * @param game   The game to which the player belongs
+     */
+    private void undoMove(long record, Player player, Game game) {
+        Board board = game.getBoard();
+        Worker worker = player.getWorker(Action.genreOf(UndoRecord.codeOf(record)));
+        Worker displacedWorker = null;
+        if (UndoRecord.hasDisplacement(record)) {
+            displacedWorker = game.getOccupant(board.getCell(UndoRecord.displacedIndexOf(record)));
+        }
+
+        worker.setPosition(board.getCell(UndoRecord.fromIndexOf(record)));
+        if (displacedWorker != null) {
+            displacedWorker.setPosition(board.getCell(UndoRecord.targetIndexOf(record)));
+        }
+    }
+
+    /**
+     * Restores the floors and the dome of the cell of a build-action
+     *
+     * @param record The undo record of the build-action
+     * @param game   The game to which the player belongs
+     */
+    private void undoBuild(long record, Game game) {
+        Cell cell = game.getBoard().getCell(UndoRecord.targetIndexOf(record));
+        if (cell.getDome() != UndoRecord.domeOf(record)) {
+            cell.setDome(UndoRecord.domeOf(record));
+        }
+        while (cell.getFloor() > UndoRecord.floorOf(record)) {
+            cell.removeFloor();
         }
     }
 
     /**
      * Performs a certain build-dome-action
      *
-     * @param action The build-dome-action to be performed
+     * @param code   The encoded build-dome-action to be performed
      * @param player The player who performs the build-dome-action
      * @param game   The game to which the player belongs
-     * @return True if the build-dome-action is a winning action, otherwise false
+     * @return The undo record of the build-dome-action
      */
-    protected boolean doDome(Action action, Player player, Game game) {
-        Worker worker = player.getWorker(action.getGenre());
+    protected long doDome(int code, Player player, Game game) {
+        Worker worker = player.getWorker(Action.genreOf(code));
         Cell currentCell = worker.getPosition();
-        Cell position = game.getBoard().getNextCell(currentCell, action.getDirection());
+        Cell position = game.getBoard().getNextCell(currentCell, Action.directionOf(code));
+        long record = UndoRecord.ofBuild(code, Board.indexOf(position), position.getFloor(), position.getDome());
         position.setDome(true);
 
         // Update the actions of the player
-        player.registerAction(action);
-        return false;
+        player.registerAction(code);
+        return record;
     }
 
     /**
      * Performs a certain build-floor-action
      *
-     * @param action The build-floor-action to be performed
+     * @param code   The encoded build-floor-action to be performed
      * @param player The player who performs the build-floor-action
      * @param game   The game to which the player belongs
-     * @return True if the build-floor-action is a winning action, otherwise false
+     * @return The undo record of the build-floor-action
      */
-    protected boolean doBuild(Action action, Player player, Game game) {
-        Worker worker = player.getWorker(action.getGenre());
+    protected long doBuild(int code, Player player, Game game) {
+        Worker worker = player.getWorker(Action.genreOf(code));
         Cell currentCell = worker.getPosition();
-        Cell position = game.getBoard().getNextCell(currentCell, action.getDirection());
+        Cell position = game.getBoard().getNextCell(currentCell, Action.directionOf(code));
+        long record = UndoRecord.ofBuild(code, Board.indexOf(position), position.getFloor(), position.getDome());
         position.addFloor();
 
         // Update the actions of the player
-        player.registerAction(action);
-        return false;
+        player.registerAction(code);
+        return record;
     }
 
     /**
      * Performs a certain move-action
      *
-     * @param action The move-action to be performed
+     * @param code   The encoded move-action to be performed
      * @param player The player who performs the move-action
      * @param game   The game to which the player belongs
-     * @return True if the build-floor-action is a winning action, otherwise false
+     * @return The undo record of the move-action, with the winning flag if it is a winning action
      */
-    protected boolean doMove(Action action, Player player, Game game) {
-        Worker worker = player.getWorker(action.getGenre());
+    protected long doMove(int code, Player player, Game game) {
+        Worker worker = player.getWorker(Action.genreOf(code));
         Cell currentCell = worker.getPosition();
-        Cell nexCell = game.getBoard().getNextCell(currentCell, action.getDirection());
+        Cell nexCell = game.getBoard().getNextCell(currentCell, Action.directionOf(code));
         worker.setPosition(nexCell);
 
         // Update the actions of the player
-        player.registerAction(action);
-        return currentCell.getFloor() == 2 && nexCell.getFloor() == 3;
+        player.registerAction(code);
+        boolean isWinner = currentCell.getFloor() == 2 && nexCell.getFloor() == 3;
+        return UndoRecord.ofMove(code, Board.indexOf(currentCell), Board.indexOf(nexCell), isWinner);
     }
 
-}
\ No newline at end of file
+}
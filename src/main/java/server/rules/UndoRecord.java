@@ -0,0 +1,172 @@
+package server.rules;
+
+import util.Action;
+
+/**
+ * Packs into a long all the information needed to undo an action performed by the Rules.
+ * The layout of an undo record is:
+ * <ul>
+ * <li>bits 0-12: the encoded action (see {@link Action#encode()})</li>
+ * <li>bit 13: the winning flag</li>
+ * <li>bits 14-18: the index of the starting cell of the worker</li>
+ * <li>bits 19-23: the index of the target cell of the action</li>
+ * <li>bits 24-25: the number of floors of the target cell before the action</li>
+ * <li>bit 26: the dome of the target cell before the action</li>
+ * <li>bit 27: the flag of a displaced enemy worker</li>
+ * <li>bits 28-32: the index of the cell where the enemy worker has been displaced</li>
+ * </ul>
+ * The enemy worker of a displacement always starts from the target cell of the action
+ */
+public final class UndoRecord {
+
+    private static final int CODE_BITS = 13;
+    private static final long CODE_MASK = (1L << CODE_BITS) - 1;
+    private static final int WINNER_SHIFT = 13;
+    private static final int FROM_SHIFT = 14;
+    private static final int TARGET_SHIFT = 19;
+    private static final int FLOOR_SHIFT = 24;
+    private static final int DOME_SHIFT = 26;
+    private static final int DISPLACED_SHIFT = 27;
+    private static final int DISPLACED_TO_SHIFT = 28;
+    private static final long INDEX_MASK = 0x1F;
+    private static final long FLOOR_MASK = 0x3;
+
+    /**
+     * Constructor: UndoRecord only contains static methods
+     */
+    private UndoRecord() {
+    }
+
+    /**
+     * Builds the undo record of an action that doesn't change the board (like an end-action)
+     *
+     * @param code The encoded action
+     * @return The undo record
+     */
+    public static long of(int code) {
+        return code & CODE_MASK;
+    }
+
+    /**
+     * Builds the undo record of a move-action
+     *
+     * @param code        The encoded action
+     * @param fromIndex   The index of the starting cell of the worker
+     * @param targetIndex The index of the target cell of the worker
+     * @param isWinner    True if the move is a winning move, otherwise false
+     * @return The undo record
+     */
+    public static long ofMove(int code, int fromIndex, int targetIndex, boolean isWinner) {
+        return of(code) |
+                (isWinner ? 1L << WINNER_SHIFT : 0) |
+                ((long) fromIndex << FROM_SHIFT) |
+                ((long) targetIndex << TARGET_SHIFT);
+    }
+
+    /**
+     * Adds to the undo record of a move-action the displacement of an enemy worker from the target cell
+     *
+     * @param record         The undo record of the move-action
+     * @param displacedIndex The index of the cell where the enemy worker has been displaced
+     * @return The undo record
+     */
+    public static long withDisplacement(long record, int displacedIndex) {
+        return record | (1L << DISPLACED_SHIFT) | ((long) displacedIndex << DISPLACED_TO_SHIFT);
+    }
+
+    /**
+     * Builds the undo record of a build-action (floor or dome)
+     *
+     * @param code        The encoded action
+     * @param targetIndex The index of the cell where the worker has built
+     * @param floor       The number of floors of the cell before the action
+     * @param dome        The dome of the cell before the action
+     * @return The undo record
+     */
+    public static long ofBuild(int code, int targetIndex, int floor, boolean dome) {
+        return of(code) |
+                ((long) targetIndex << TARGET_SHIFT) |
+                ((long) floor << FLOOR_SHIFT) |
+                (dome ? 1L << DOME_SHIFT : 0);
+    }
+
+    /**
+     * Gets the encoded action of an undo record
+     *
+     * @param record The undo record
+     * @return The encoded action
+     */
+    public static int codeOf(long record) {
+        return (int) (record & CODE_MASK);
+    }
+
+    /**
+     * Tests if the action of an undo record is a winning action
+     *
+     * @param record The undo record
+     * @return True if the action is a winning action, otherwise false
+     */
+    public static boolean isWinner(long record) {
+        return (record & (1L << WINNER_SHIFT)) != 0;
+    }
+
+    /**
+     * Gets the index of the starting cell of the worker
+     *
+     * @param record The undo record
+     * @return The index of the starting cell
+     */
+    public static int fromIndexOf(long record) {
+        return (int) ((record >>> FROM_SHIFT) & INDEX_MASK);
+    }
+
+    /**
+     * Gets the index of the target cell of the action
+     *
+     * @param record The undo record
+     * @return The index of the target cell
+     */
+    public static int targetIndexOf(long record) {
+        return (int) ((record >>> TARGET_SHIFT) & INDEX_MASK);
+    }
+
+    /**
+     * Gets the number of floors of the target cell before the action
+     *
+     * @param record The undo record
+     * @return The number of floors
+     */
+    public static int floorOf(long record) {
+        return (int) ((record >>> FLOOR_SHIFT) & FLOOR_MASK);
+    }
+
+    /**
+     * Gets the dome of the target cell before the action
+     *
+     * @param record The undo record
+     * @return True if the cell had a dome, otherwise false
+     */
+    public static boolean domeOf(long record) {
+        return (record & (1L << DOME_SHIFT)) != 0;
+    }
+
+    /**
+     * Tests if the action has displaced an enemy worker
+     *
+     * @param record The undo record
+     * @return True if an enemy worker has been displaced, otherwise false
+     */
+    public static boolean hasDisplacement(long record) {
+        return (record & (1L << DISPLACED_SHIFT)) != 0;
+    }
+
+    /**
+     * Gets the index of the cell where the enemy worker has been displaced
+     *
+     * @param record The undo record
+     * @return The index of the cell
+     */
+    public static int displacedIndexOf(long record) {
+        return (int) ((record >>> DISPLACED_TO_SHIFT) & INDEX_MASK);
+    }
+}
@@ -1,15 +1,14 @@
 package server.rules.simpleGods;
 
+import model.Board;
 import model.Cell;
 import model.Game;
 import model.Player;
 import model.Worker;
 import server.rules.Rules;
+import server.rules.UndoRecord;
 import util.Action;
-import util.RoundActions;
 
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Apollo Card
@@ -17,62 +16,48 @@ import java.util.stream.Collectors;
 public class ApolloRules extends Rules {
 
     /**
-     * Gets a RoundActions object containing all the move-actions of the specified worker according to the Rules
+     * Gets the mask of the cells the specified worker can move to according to the Rules
      *
      * @param worker The worker whose possible moves are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible move-actions
+     * @return The mask of the cells the worker can move to
      */
-    protected RoundActions getPossibleMoves(Worker worker, Game game) {
-        RoundActions roundMoves = new RoundActions();
+    protected int calculateMovesMask(Worker worker, Game game) {
         Cell workerCell = worker.getPosition();
-
-        // Add all the adjacent cells that don't have a dome and are reachable from the current positions of the worker
-        List<Cell> cells = game.
-                getBoard().
-                getAdjacents(workerCell).
-                stream().
-                filter(x -> !x.getDome() && workerCell.getFloorDifference(x) <= 1).
-                collect(Collectors.toList());
-
-        // Remove all the cells that are already occupied by player's workers
-        cells.removeAll(game.getPlayerByColor(worker.getPlayerColor()).getOccupiedCells());
-
-        roundMoves.addMoves(cells, workerCell, worker.getGenre());
-        return roundMoves;
+        Board board = game.getBoard();
+
+        // All the adjacent cells that don't have a dome, are reachable from the current positions of the worker
+        // and are not occupied by player's workers
+        return board.getAdjacentMask(workerCell) &
+                board.getFloorMaskUpTo(workerCell.getFloor() + 1) &
+                ~board.getDomeMask() &
+                ~game.getPlayerByColor(worker.getPlayerColor()).getOccupiedMask();
     }
 
     /**
      * Performs a certain move-action
      *
-     * @param action The move-action to be performed
+     * @param code   The encoded move-action to be performed
      * @param player The player who performs the move-action
      * @param game   The game to which the player belongs
-     * @return True if the build-floor-action is a winning action, otherwise false
+     * @return The undo record of the move-action, with the winning flag if it is a winning action
      */
-    protected boolean doMove(Action action, Player player, Game game) {
-        Worker worker = player.getWorker(action.getGenre());
+    protected long doMove(int code, Player player, Game game) {
+        Worker worker = player.getWorker(Action.genreOf(code));
         Cell currentCell = worker.getPosition();
-        Cell nexCell = game.getBoard().getNextCell(currentCell, action.getDirection());
-        boolean isApolloMove = false;
-        Player theEnemy = null;
-
-        for (Player aPlayer : game.getPlayers()) {
-            if (aPlayer.getOccupiedCells().contains(nexCell)) {
-                isApolloMove = true;
-                theEnemy = aPlayer;
-                break;
-            }
-        }
+        Cell nexCell = game.getBoard().getNextCell(currentCell, Action.directionOf(code));
+        Worker enemyWorker = game.getOccupant(nexCell);
 
-        if (isApolloMove) {
-            theEnemy.getWorkerByPosition(nexCell).setPosition(currentCell);
+        if (enemyWorker != null) {
+            enemyWorker.setPosition(currentCell);
         }
         worker.setPosition(nexCell);
 
         // Update the actions of the player
-        player.registerAction(action);
-        return currentCell.getFloor() == 2 && nexCell.getFloor() == 3;
+        player.registerAction(code);
+        boolean isWinner = currentCell.getFloor() == 2 && nexCell.getFloor() == 3;
+        long record = UndoRecord.ofMove(code, Board.indexOf(currentCell), Board.indexOf(nexCell), isWinner);
+        return enemyWorker != null ? UndoRecord.withDisplacement(record, Board.indexOf(currentCell)) : record;
     }
 
 }
@@ -1,5 +1,6 @@
 package server.rules.simpleGods;
 
+import model.Board;
 import model.Cell;
 import model.Game;
 import model.Player;
@@ -7,80 +8,89 @@ import model.Worker;
 import server.rules.Rules;
 import util.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Artemis Card
  */
 public class ArtemisRules extends Rules {
 
     /**
-     * Gets a RoundActions object containing all the possible actions of the specified player according to the Rules
+     * Appends all the possible actions of the specified player according to the Rules to a buffer of encoded actions
      *
      * @param player The player whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible actions
+     * @param buffer The buffer that receives the encoded actions
      */
-    public RoundActions nextPossibleActions(Player player, Game game) {
+    public void generate(Player player, Game game, IntActionBuffer buffer) {
         RoundActions roundActions = player.getRoundActions();
-        RoundActions possibleActions = new RoundActions();
+        int start = buffer.size();
 
         // Has not moved?
         if (roundActions.hasMoved() == 0) {
-            possibleActions.add(getPossibleMoves(player.getWorker(Genre.MALE), game));
-            possibleActions.add(getPossibleMoves(player.getWorker(Genre.FEMALE), game));
+            generateMoves(player.getWorker(Genre.MALE), game, buffer);
+            generateMoves(player.getWorker(Genre.FEMALE), game, buffer);
             //Can't move?
-            if (possibleActions.isEmpty())
-                possibleActions.add(new Action(ActionType.LOSE));
+            if (buffer.size() == start)
+                buffer.add(ActionType.LOSE);
         } else {
-            Genre movedWorkerGenre = roundActions.
-                    getActionList().
-                    stream().
-                    filter(x -> x.getActionType() == ActionType.MOVE).
-                    collect(Collectors.toList()).
-                    get(0).
-                    getGenre();
+            Worker movedWorker = player.getWorker(roundActions.getWorkerGenre());
 
             // Has not build?
             if (roundActions.hasBuildAnything() == 0) {
                 // Has moved once?
                 if (roundActions.hasMoved() == 1) {
-                    possibleActions.add(getPossibleMoves(player.getWorker(movedWorkerGenre), game));
+                    generateMoves(movedWorker, game, buffer);
                 }
-                possibleActions.add(getPossibleBuilds(player.getWorker(movedWorkerGenre), game));
-                possibleActions.add(getPossibleDomes(player.getWorker(movedWorkerGenre), game));
+                generateBuilds(movedWorker, game, buffer);
+                generateDomes(movedWorker, game, buffer);
                 //Can't do anything?
-                if (possibleActions.isEmpty())
-                    possibleActions.add(new Action(ActionType.LOSE));
+                if (buffer.size() == start)
+                    buffer.add(ActionType.LOSE);
             } else {
-                possibleActions.add(new Action(ActionType.END));
+                buffer.add(ActionType.END);
             }
         }
-        return possibleActions;
     }
 
     /**
-     * Gets a RoundActions object containing all the move-actions of the specified worker according to the Rules
+     * Checks if the specified player has at least one legal action, without generating the actions
+     *
+     * @param player       The player whose possible actions are to be analyzed
+     * @param game         The game to which the player belongs
+     * @param restrictions The restrictions flags imposed by the other players
+     * @return True if the player has a legal action, false if he has lost
+     */
+    public boolean hasAnyLegalAction(Player player, Game game, int restrictions) {
+        RoundActions roundActions = player.getRoundActions();
+
+        if (roundActions.hasMoved() == 0)
+            return canMove(player.getWorker(Genre.MALE), game, restrictions) ||
+                    canMove(player.getWorker(Genre.FEMALE), game, restrictions);
+        if (roundActions.hasBuildAnything() == 0) {
+            Worker movedWorker = player.getWorker(roundActions.getWorkerGenre());
+            return canBuild(movedWorker, game) ||
+                    roundActions.hasMoved() == 1 && canMove(movedWorker, game, restrictions);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the mask of the cells the specified worker can move to according to the Rules
      *
      * @param worker The worker whose possible moves are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible move-actions
+     * @return The mask of the cells the worker can move to
      */
-    protected RoundActions getPossibleMoves(Worker worker, Game game) {
-        RoundActions roundMoves = new RoundActions();
+    protected int calculateMovesMask(Worker worker, Game game) {
         Cell workerCell = worker.getPosition();
-        List<Cell> cells = calculateStandardMoves(workerCell, game);
+        int mask = calculateStandardMovesMask(workerCell, game);
 
         // Remove the cell occupied by the previous move, if any
         Player player = game.getPlayerByColor(worker.getPlayerColor());
         RoundActions roundActions = player.getRoundActions();
         if (!roundActions.isEmpty()) {
-            Direction prevMoveDirection = roundActions.getActionList().get(0).getDirection();
-            cells.remove(game.getBoard().getPrevCell(workerCell, prevMoveDirection));
+            Direction prevMoveDirection = roundActions.get(0).getDirection();
+            mask &= ~Board.maskOf(game.getBoard().getPrevCell(workerCell, prevMoveDirection));
         }
-
-        roundMoves.addMoves(cells, workerCell, worker.getGenre());
-        return roundMoves;
+        return mask;
     }
 }
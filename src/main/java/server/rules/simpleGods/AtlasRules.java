@@ -1,14 +1,10 @@
 package server.rules.simpleGods;
 
-import model.Cell;
+import model.Board;
 import model.Game;
-import model.Player;
 import model.Worker;
 import server.rules.Rules;
-import util.RoundActions;
 
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Atlas Card
@@ -16,29 +12,16 @@ import java.util.stream.Collectors;
 public class AtlasRules extends Rules {
 
     /**
-     * Gets a RoundActions object containing all the build-dome-actions of the specified worker according to the Rules
+     * Gets the mask of the cells the specified worker can build a dome on according to the Rules
      *
      * @param worker The worker whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible build-dome-actions
+     * @return The mask of the cells the worker can build a dome on
      */
-    protected RoundActions getPossibleDomes(Worker worker, Game game) {
-        RoundActions roundDomes = new RoundActions();
-        Cell workerCell = worker.getPosition();
+    protected int calculateDomesMask(Worker worker, Game game) {
+        Board board = game.getBoard();
 
-        // Add all the adjacent cells that don't have a dome: here you can build a dome
-        List<Cell> cells = game.
-                getBoard().
-                getAdjacents(workerCell).
-                stream().
-                filter(x -> !x.getDome()).
-                collect(Collectors.toList());
-
-        // Remove all the cells that are already occupied
-        for (Player gamePlayer : game.getPlayers()) {
-            cells.removeAll(gamePlayer.getOccupiedCells());
-        }
-        roundDomes.addDomes(cells, workerCell, worker.getGenre());
-        return roundDomes;
+        // All the adjacent cells that don't have a dome and are free: here you can build a dome
+        return board.getAdjacentMask(worker.getPosition()) & ~board.getDomeMask() & ~calculateOccupiedMask(game);
     }
 }
@@ -1,112 +1,93 @@
 package server.rules.simpleGods;
 
-import model.Cell;
+import model.Board;
 import model.Game;
 import model.Player;
 import model.Worker;
 import server.rules.Rules;
 import util.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Demeter Card
  */
 public class DemeterRules extends Rules {
 
     /**
-     * Gets a RoundActions object containing all the possible actions of the specified player according to the Rules
+     * Appends all the possible actions of the specified player according to the Rules to a buffer of encoded actions
      *
      * @param player The player whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible actions
+     * @param buffer The buffer that receives the encoded actions
      */
-    public RoundActions nextPossibleActions(Player player, Game game) {
+    public void generate(Player player, Game game, IntActionBuffer buffer) {
         RoundActions roundActions = player.getRoundActions();
-        RoundActions nextPossibleActions = new RoundActions();
+        int start = buffer.size();
 
         // Has not moved?
         if (roundActions.hasMoved() == 0) {
-            nextPossibleActions.add(getPossibleMoves(player.getWorker(Genre.MALE), game));
-            nextPossibleActions.add(getPossibleMoves(player.getWorker(Genre.FEMALE), game));
+            generateMoves(player.getWorker(Genre.MALE), game, buffer);
+            generateMoves(player.getWorker(Genre.FEMALE), game, buffer);
             //Can't move?
-            if (nextPossibleActions.isEmpty())
-                nextPossibleActions.add(new Action(ActionType.LOSE));
+            if (buffer.size() == start)
+                buffer.add(ActionType.LOSE);
         } else {
-            Genre movedWorkerGenre = roundActions.
-                    getActionList().
-                    stream().
-                    filter(x -> x.getActionType() == ActionType.MOVE).
-                    collect(Collectors.toList()).
-                    get(0).
-                    getGenre();
+            Worker movedWorker = player.getWorker(roundActions.getWorkerGenre());
 
             // Has not build?
             if (roundActions.hasBuildAnything() == 0) {
-                nextPossibleActions.add(getPossibleBuilds(player.getWorker(movedWorkerGenre), game));
-                nextPossibleActions.add(getPossibleDomes(player.getWorker(movedWorkerGenre), game));
+                generateBuilds(movedWorker, game, buffer);
+                generateDomes(movedWorker, game, buffer);
                 //Can't build anything?
-                if (nextPossibleActions.isEmpty())
-                    nextPossibleActions.add(new Action(ActionType.LOSE));
+                if (buffer.size() == start)
+                    buffer.add(ActionType.LOSE);
             } else {
 
-                nextPossibleActions.add(new Action(ActionType.END));
+                buffer.add(ActionType.END);
                 // Has build once?
                 if (roundActions.hasBuildAnything() == 1) {
-                    nextPossibleActions.add(getPossibleBuilds(player.getWorker(movedWorkerGenre), game));
-                    nextPossibleActions.add(getPossibleDomes(player.getWorker(movedWorkerGenre), game));
+                    generateBuilds(movedWorker, game, buffer);
+                    generateDomes(movedWorker, game, buffer);
                 }
             }
         }
-        return nextPossibleActions;
     }
 
     /**
-     * Gets a RoundActions object containing all the build-floor-actions of the specified worker according to the Rules
+     * Gets the mask of the cells the specified worker can build a floor on according to the Rules
      *
      * @param worker The worker whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible build-floor-actions
+     * @return The mask of the cells the worker can build a floor on
      */
-    protected RoundActions getPossibleBuilds(Worker worker, Game game) {
-        RoundActions roundBuilds = new RoundActions();
-        Cell workerCell = worker.getPosition();
-        List<Cell> cells = calculateStandardBuilds(workerCell, game);
-
-        // Remove the cell occupied by the previous build/dome, if any
-        Player player = game.getPlayerByColor(worker.getPlayerColor());
-        RoundActions roundActions = player.getRoundActions();
-        if (roundActions.hasBuildAnything() > 0) {
-            Direction prevBuildDirection = roundActions.getActionList().get(1).getDirection();
-            cells.remove(game.getBoard().getNextCell(workerCell, prevBuildDirection));
-        }
-
-        roundBuilds.addBuilds(cells, workerCell, worker.getGenre());
-        return roundBuilds;
+    protected int calculateBuildsMask(Worker worker, Game game) {
+        return calculateStandardBuildsMask(worker.getPosition(), game) & ~calculatePrevBuildMask(worker, game);
     }
 
     /**
-     * Gets a RoundActions object containing all the build-dome-actions of the specified worker according to the Rules
+     * Gets the mask of the cells the specified worker can build a dome on according to the Rules
      *
      * @param worker The worker whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible build-dome-actions
+     * @return The mask of the cells the worker can build a dome on
      */
-    protected RoundActions getPossibleDomes(Worker worker, Game game) {
-        RoundActions roundDomes = new RoundActions();
-        Cell workerCell = worker.getPosition();
-        List<Cell> cells = calculateStandardDomes(workerCell, game);
+    protected int calculateDomesMask(Worker worker, Game game) {
+        return calculateStandardDomesMask(worker.getPosition(), game) & ~calculatePrevBuildMask(worker, game);
+    }
 
-        // Remove the cell occupied by the previous build/dome, if any
+    /**
+     * Gets the mask of the cell occupied by the previous build/dome, if any
+     *
+     * @param worker The worker
+     * @param game   The game
+     * @return The mask of the cell of the previous build or 0 if the player hasn't built yet
+     */
+    private int calculatePrevBuildMask(Worker worker, Game game) {
         Player player = game.getPlayerByColor(worker.getPlayerColor());
         RoundActions roundActions = player.getRoundActions();
         if (roundActions.hasBuildAnything() > 0) {
-            Direction prevBuildDirection = roundActions.getActionList().get(1).getDirection();
-            cells.remove(game.getBoard().getNextCell(workerCell, prevBuildDirection));
+            Direction prevBuildDirection = roundActions.get(1).getDirection();
+            return Board.maskOf(game.getBoard().getNextCell(worker.getPosition(), prevBuildDirection));
         }
-
-        roundDomes.addDomes(cells, workerCell, worker.getGenre());
-        return roundDomes;
+        return 0;
     }
-}
\ No newline at end of file
+}
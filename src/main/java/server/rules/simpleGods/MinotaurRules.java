@@ -2,12 +2,9 @@ package server.rules.simpleGods;
 
 import model.*;
 import server.rules.Rules;
+import server.rules.UndoRecord;
 import util.Action;
-import util.RoundActions;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Minotaur Card
@@ -15,99 +12,83 @@ import java.util.stream.Collectors;
 public class MinotaurRules extends Rules {
 
     /**
-     * Gets a RoundActions object containing all the move-actions of the specified worker according to the Rules
+     * Gets the mask of the cells the specified worker can move to according to the Rules
      *
      * @param worker The worker whose possible moves are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible move-actions
+     * @return The mask of the cells the worker can move to
      */
-    protected RoundActions getPossibleMoves(Worker worker, Game game) {
-        RoundActions roundMoves = new RoundActions();
+    protected int calculateMovesMask(Worker worker, Game game) {
         Cell workerCell = worker.getPosition();
         Board board = game.getBoard();
 
-        // Add all the adjacent cells that don't have a dome and are reachable from the current positions of the worker
-        List<Cell> cells = board.
-                getAdjacents(workerCell).
-                stream().
-                filter(x -> !x.getDome() && workerCell.getFloorDifference(x) <= 1).
-                collect(Collectors.toList());
-
-        // Remove all the cells that are already occupied by player's workers
+        // All the adjacent cells that don't have a dome, are reachable from the current positions of the worker
+        // and are not occupied by player's workers
         Player myPlayer = game.getPlayerByColor(worker.getPlayerColor());
-        cells.removeAll(myPlayer.getOccupiedCells());
-
-        cells = removeMinotaurEnemy(cells, game, worker);
+        int mask = board.getAdjacentMask(workerCell) &
+                board.getFloorMaskUpTo(workerCell.getFloor() + 1) &
+                ~board.getDomeMask() &
+                ~myPlayer.getOccupiedMask();
 
-        roundMoves.addMoves(cells, workerCell, worker.getGenre());
-        return roundMoves;
+        return removeMinotaurEnemy(mask, game, worker);
     }
 
     /**
      * Removes the enemy cells that can't be occupied during a Minotaur move-action
      *
-     * @param cells  The cells that can be occupied
+     * @param mask   The mask of the cells that can be occupied
      * @param game   The game
      * @param worker The worker
-     * @return The corrected cell set
+     * @return The corrected mask
      */
-    private List<Cell> removeMinotaurEnemy(List<Cell> cells, Game game, Worker worker) {
+    private int removeMinotaurEnemy(int mask, Game game, Worker worker) {
         Player myPlayer = worker.getPlayer();
         Cell workerCell = worker.getPosition();
         Board board = game.getBoard();
 
         // Remove all the cells that are already occupied by other enemy workers if the next cell in the same direction is full
-        List<Cell> enemyAdjacentCells = new ArrayList<>();
-        List<Cell> allOccupiedCells = new ArrayList<>();
-        for (Player gamePlayer : game.getPlayers()) {
-            if (!gamePlayer.equals(myPlayer)) {
-                enemyAdjacentCells.addAll(gamePlayer.getOccupiedCells().stream().filter(x -> x.isAdjacent(workerCell)).collect(Collectors.toList()));
-            }
-            allOccupiedCells.addAll(gamePlayer.getOccupiedCells());
-        }
-        if (enemyAdjacentCells.size() != 0) {
-            for (Cell enemyAdjacentCell : enemyAdjacentCells) {
-                Cell enemyNextCell = board.getNextCell(enemyAdjacentCell, workerCell.calculateDirection(enemyAdjacentCell));
-                if (enemyNextCell == null || allOccupiedCells.contains(enemyNextCell) || enemyNextCell.getDome()) {
-                    cells.remove(enemyAdjacentCell);
-                }
+        int workerIndex = Board.indexOf(workerCell.getRow(), workerCell.getColumn());
+        int allOccupiedMask = calculateOccupiedMask(game);
+        int fullMask = allOccupiedMask | board.getDomeMask();
+        int enemyAdjacentMask = mask & allOccupiedMask & ~myPlayer.getOccupiedMask();
+        while (enemyAdjacentMask != 0) {
+            int enemyIndex = Integer.numberOfTrailingZeros(enemyAdjacentMask);
+            enemyAdjacentMask &= enemyAdjacentMask - 1;
+
+            int enemyNextIndex = Board.getNextIndex(enemyIndex, Board.getDirection(workerIndex, enemyIndex));
+            if (enemyNextIndex < 0 || (fullMask & (1 << enemyNextIndex)) != 0) {
+                mask &= ~(1 << enemyIndex);
             }
         }
-        return new ArrayList<>(cells);
+        return mask;
     }
 
     /**
      * Performs a certain move-action
      *
-     * @param action The move-action to be performed
+     * @param code   The encoded move-action to be performed
      * @param player The player who performs the move-action
      * @param game   The game to which the player belongs
-     * @return True if the build-floor-action is a winning action, otherwise false
+     * @return The undo record of the move-action, with the winning flag if it is a winning action
      */
-    protected boolean doMove(Action action, Player player, Game game) {
-        Worker worker = player.getWorker(action.getGenre());
+    protected long doMove(int code, Player player, Game game) {
+        Worker worker = player.getWorker(Action.genreOf(code));
         Board board = game.getBoard();
         Cell currentCell = worker.getPosition();
-        Cell nexCell = board.getNextCell(currentCell, action.getDirection());
-        boolean isMinotaurMove = false;
-        Player theEnemy = null;
-
-        for (Player aPlayer : game.getPlayers()) {
-            if (aPlayer.getOccupiedCells().contains(nexCell)) {
-                isMinotaurMove = true;
-                theEnemy = aPlayer;
-                break;
-            }
-        }
+        Cell nexCell = board.getNextCell(currentCell, Action.directionOf(code));
+        Worker enemyWorker = game.getOccupant(nexCell);
+        Cell enemyNextCell = null;
 
-        if (isMinotaurMove) {
-            Cell enemyNextCell = board.getNextCell(nexCell, action.getDirection());
-            theEnemy.getWorkerByPosition(nexCell).setPosition(enemyNextCell);
+        if (enemyWorker != null) {
+            enemyNextCell = board.getNextCell(nexCell, Action.directionOf(code));
+            enemyWorker.setPosition(enemyNextCell);
         }
         worker.setPosition(nexCell);
 
         // Update the actions of the player
-        player.registerAction(action);
-        return currentCell.getFloor() == 2 && nexCell.getFloor() == 3;
+        player.registerAction(code);
+        boolean isWinner = currentCell.getFloor() == 2 && nexCell.getFloor() == 3;
+        long record = UndoRecord.ofMove(code, Board.indexOf(currentCell), Board.indexOf(nexCell), isWinner);
+        return enemyNextCell != null ? UndoRecord.withDisplacement(record, Board.indexOf(enemyNextCell)) : record;
     }
 }
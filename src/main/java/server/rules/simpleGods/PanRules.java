@@ -1,10 +1,12 @@
 package server.rules.simpleGods;
 
+import model.Board;
 import model.Cell;
 import model.Game;
 import model.Player;
 import model.Worker;
 import server.rules.Rules;
+import server.rules.UndoRecord;
 import util.Action;
 
 /**
@@ -15,20 +17,21 @@ public class PanRules extends Rules {
     /**
      * Performs a certain move-action
      *
-     * @param action The move-action to be performed
+     * @param code   The encoded move-action to be performed
      * @param player The player who performs the move-action
      * @param game   The game to which the player belongs
-     * @return True if the build-floor-action is a winning action, otherwise false
+     * @return The undo record of the move-action, with the winning flag if it is a winning action
      */
-    protected boolean doMove(Action action, Player player, Game game) {
-        Worker worker = player.getWorker(action.getGenre());
+    protected long doMove(int code, Player player, Game game) {
+        Worker worker = player.getWorker(Action.genreOf(code));
         Cell currentCell = worker.getPosition();
-        Cell nexCell = game.getBoard().getNextCell(currentCell, action.getDirection());
+        Cell nexCell = game.getBoard().getNextCell(currentCell, Action.directionOf(code));
         worker.setPosition(nexCell);
 
         // Update the actions of the player
-        player.registerAction(action);
-        return (currentCell.getFloor() == 2 && nexCell.getFloor() == 3 || (currentCell.getFloorDifference(nexCell) < -1));
+        player.registerAction(code);
+        boolean isWinner = currentCell.getFloor() == 2 && nexCell.getFloor() == 3 || (currentCell.getFloorDifference(nexCell) < -1);
+        return UndoRecord.ofMove(code, Board.indexOf(currentCell), Board.indexOf(nexCell), isWinner);
     }
 
 }
@@ -1,119 +1,145 @@
 package server.rules.simpleGods;
 
+import model.Board;
 import model.Cell;
 import model.Game;
 import model.Player;
 import model.Worker;
 import server.rules.Rules;
-import util.Action;
 import util.ActionType;
 import util.Genre;
+import util.IntActionBuffer;
 import util.RoundActions;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Prometheus Card
  */
 public class PrometheusRules extends Rules {
 
     /**
-     * Gets a RoundActions object containing all the possible actions of the specified player according to the Rules
+     * Appends all the possible actions of the specified player according to the Rules to a buffer of encoded actions
      *
      * @param player The player whose possible actions are to be analyzed
      * @param game   The game to which the player belongs
-     * @return A RoundActions object containing all the possible actions
+     * @param buffer The buffer that receives the encoded actions
      */
-    public RoundActions nextPossibleActions(Player player, Game game) {
+    public void generate(Player player, Game game, IntActionBuffer buffer) {
         RoundActions roundActions = player.getRoundActions();
-        RoundActions nextPossibleActions = new RoundActions();
+        int start = buffer.size();
 
         // Has not moved and is not Prometheus build?
         if (roundActions.isEmpty()) {
-            nextPossibleActions.add(getPossibleMoves(player.getWorker(Genre.MALE), game));
-            nextPossibleActions.add(getPossibleBuilds(player.getWorker(Genre.MALE), game));
-            nextPossibleActions.add(getPossibleDomes(player.getWorker(Genre.MALE), game));
-            nextPossibleActions.add(getPossibleMoves(player.getWorker(Genre.FEMALE), game));
-            nextPossibleActions.add(getPossibleBuilds(player.getWorker(Genre.FEMALE), game));
-            nextPossibleActions.add(getPossibleDomes(player.getWorker(Genre.FEMALE), game));
+            generateMoves(player.getWorker(Genre.MALE), game, buffer);
+            generateBuilds(player.getWorker(Genre.MALE), game, buffer);
+            generateDomes(player.getWorker(Genre.MALE), game, buffer);
+            generateMoves(player.getWorker(Genre.FEMALE), game, buffer);
+            generateBuilds(player.getWorker(Genre.FEMALE), game, buffer);
+            generateDomes(player.getWorker(Genre.FEMALE), game, buffer);
 
             //Can't do anything?
-            if (nextPossibleActions.isEmpty()) {
-                nextPossibleActions.add(new Action(ActionType.LOSE));
+            if (buffer.size() == start) {
+                buffer.add(ActionType.LOSE);
             }
         } else {
-            Genre workerGenre = roundActions.
-                    getActionList().
-                    stream().
-                    filter(x -> (x.getActionType() == ActionType.MOVE) || (x.getActionType() == ActionType.DOME)
-                            || (x.getActionType() == ActionType.FLOOR)).
-                    collect(Collectors.toList()).
-                    get(0).
-                    getGenre();
+            Worker worker = player.getWorker(roundActions.getWorkerGenre());
 
             if (roundActions.hasMoved() == 1 && roundActions.hasBuildAnything() == 0) {
-                nextPossibleActions.add(getPossibleBuilds(player.getWorker(workerGenre), game));
-                nextPossibleActions.add(getPossibleDomes(player.getWorker(workerGenre), game));
+                generateBuilds(worker, game, buffer);
+                generateDomes(worker, game, buffer);
 
                 //Can't do anything?
-                if (nextPossibleActions.isEmpty()) {
-                    nextPossibleActions.add(new Action(ActionType.LOSE));
+                if (buffer.size() == start) {
+                    buffer.add(ActionType.LOSE);
                 }
             } else {
-                ActionType firstAction = player.getRoundActions().getActionList().get(0).getActionType();
+                ActionType firstAction = roundActions.get(0).getActionType();
 
                 //Prometheus power
                 if ((firstAction == ActionType.FLOOR || firstAction == ActionType.DOME) && roundActions.hasMoved() == 1 && roundActions.hasBuildAnything() == 1) {
-                    nextPossibleActions.add(getPossibleBuilds(player.getWorker(workerGenre), game));
-                    nextPossibleActions.add(getPossibleDomes(player.getWorker(workerGenre), game));
+                    generateBuilds(worker, game, buffer);
+                    generateDomes(worker, game, buffer);
 
                     //Can't do anything?
-                    if (nextPossibleActions.isEmpty()) {
-                        nextPossibleActions.add(new Action(ActionType.LOSE));
+                    if (buffer.size() == start) {
+                        buffer.add(ActionType.LOSE);
                     }
                 } else {
                     if (roundActions.hasBuildAnything() == 2 || (firstAction == ActionType.MOVE && roundActions.hasBuildAnything() == 1)) {
-                        nextPossibleActions.add(new Action(ActionType.END));
+                        buffer.add(ActionType.END);
                     } else {
-                        nextPossibleActions.add(getPrometheusMoves(player.getWorker(workerGenre), game)); //Moves on the same floor
+                        generatePrometheusMoves(worker, game, buffer); //Moves on the same floor
 
                         //Can't do anything?
-                        if (nextPossibleActions.isEmpty()) {
-                            nextPossibleActions.add(new Action(ActionType.LOSE));
+                        if (buffer.size() == start) {
+                            buffer.add(ActionType.LOSE);
                         }
                     }
                 }
             }
 
         }
-        return nextPossibleActions;
     }
 
     /**
-     * Gets the special moves of Prometheus
+     * Checks if the specified player has at least one legal action, without generating the actions
+     *
+     * @param player       The player whose possible actions are to be analyzed
+     * @param game         The game to which the player belongs
+     * @param restrictions The restrictions flags imposed by the other players
+     * @return True if the player has a legal action, false if he has lost
+     */
+    public boolean hasAnyLegalAction(Player player, Game game, int restrictions) {
+        RoundActions roundActions = player.getRoundActions();
+
+        // Has not moved and is not Prometheus build?
+        if (roundActions.isEmpty()) {
+            Worker male = player.getWorker(Genre.MALE);
+            Worker female = player.getWorker(Genre.FEMALE);
+            return canMove(male, game, restrictions) || canBuild(male, game) ||
+                    canMove(female, game, restrictions) || canBuild(female, game);
+        }
+
+        Worker worker = player.getWorker(roundActions.getWorkerGenre());
+        if (roundActions.hasMoved() == 1 && roundActions.hasBuildAnything() == 0)
+            return canBuild(worker, game);
+
+        ActionType firstAction = roundActions.get(0).getActionType();
+        //Prometheus power
+        if ((firstAction == ActionType.FLOOR || firstAction == ActionType.DOME) && roundActions.hasMoved() == 1 && roundActions.hasBuildAnything() == 1)
+            return canBuild(worker, game);
+        if (roundActions.hasBuildAnything() == 2 || (firstAction == ActionType.MOVE && roundActions.hasBuildAnything() == 1))
+            return true;
+        // The moves on the same floor are never restricted
+        return calculatePrometheusMovesMask(worker, game) != 0;
+    }
+
+    /**
+     * Appends the special moves of Prometheus to a buffer of encoded actions
+     *
+     * @param worker The worker
+     * @param game   The game
+     * @param buffer The buffer that receives the encoded actions
+     */
+    protected void generatePrometheusMoves(Worker worker, Game game, IntActionBuffer buffer) {
+        addActions(ActionType.MOVE, calculatePrometheusMovesMask(worker, game), worker, game, buffer);
+    }
+
+    /**
+     * Gets the mask of the cells the specified worker can move to after the Prometheus build
      *
      * @param worker The worker
      * @param game   The game
-     * @return The special actions
+     * @return The mask of the cells the worker can move to
      */
-    protected RoundActions getPrometheusMoves(Worker worker, Game game) {
-        RoundActions roundMoves = new RoundActions();
+    protected int calculatePrometheusMovesMask(Worker worker, Game game) {
         Cell workerCell = worker.getPosition();
-        List<Cell> cells = game.
-                getBoard().
-                getAdjacents(workerCell).
-                stream().
-                filter(x -> !x.getDome() && workerCell.getFloorDifference(x) <= 0).
-                collect(Collectors.toList());
-
-        // Remove all the cells that are already occupied
-        for (Player gamePlayer : game.getPlayers()) {
-            cells.removeAll(gamePlayer.getOccupiedCells());
-        }
+        Board board = game.getBoard();
 
-        roundMoves.addMoves(cells, workerCell, worker.getGenre());
-        return roundMoves;
+        // All the adjacent cells that don't have a dome, are not higher than the current one and are free
+        return board.getAdjacentMask(workerCell) &
+                board.getFloorMaskUpTo(workerCell.getFloor()) &
+                ~board.getDomeMask() &
+                ~calculateOccupiedMask(game);
     }
 
 }
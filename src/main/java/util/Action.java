@@ -3,10 +3,23 @@ package util;
 import java.io.Serializable;
 
 /**
- * Stores information about a user's actions
+ * Stores information about a user's actions.
+ * An action can also be encoded as a single int (see {@link #encode()}) to be stored in primitive buffers
  */
 public class Action implements Serializable {
 
+    private static final ActionType[] ACTION_TYPES = ActionType.values();
+    private static final Genre[] GENRES = Genre.values();
+    private static final int GENRE_SHIFT = 3;
+    private static final int DIRECTION_SHIFT = 5;
+    private static final int LEVEL_SHIFT = 9;
+    private static final int LEVEL_OFFSET = 8;
+    private static final int KEY_MASK = (1 << LEVEL_SHIFT) - 1;
+
+    /**
+     * The number of possible keys of the encoded actions (see {@link #keyOf(int)})
+     */
+    public static final int KEY_COUNT = KEY_MASK + 1;
     private ActionType actionType;
     private Genre genre;
     private Direction direction;
@@ -123,4 +136,92 @@ public class Action implements Serializable {
                 genre == action.genre &&
                 direction == action.direction;
     }
-}
\ No newline at end of file
+
+    /**
+     * Encodes an action as an int: 3 bits for the action type, 2 bits for the genre, 4 bits for the direction and
+     * 4 bits for the level difference
+     *
+     * @param actionType      The action type
+     * @param genre           The genre of the worker that does the action or null value
+     * @param direction       The direction of the action or null value
+     * @param levelDifference The level difference (between -8 and 7) from the current position of the worker
+     * @return The encoded action
+     */
+    public static int encode(ActionType actionType, Genre genre, Direction direction, int levelDifference) {
+        return actionType.ordinal() |
+                (genre == null ? 0 : genre.ordinal() + 1) << GENRE_SHIFT |
+                (direction == null ? 0 : direction.ordinal() + 1) << DIRECTION_SHIFT |
+                (levelDifference + LEVEL_OFFSET) << LEVEL_SHIFT;
+    }
+
+    /**
+     * Encodes the action as an int
+     *
+     * @return The encoded action
+     */
+    public int encode() {
+        return encode(actionType, genre, direction, levelDifference);
+    }
+
+    /**
+     * Builds the Action described by an encoded action
+     *
+     * @param code The encoded action
+     * @return The decoded action
+     */
+    public static Action decode(int code) {
+        return new Action(typeOf(code), genreOf(code), directionOf(code), levelDifferenceOf(code));
+    }
+
+    /**
+     * Gets the action type of an encoded action
+     *
+     * @param code The encoded action
+     * @return The action type
+     */
+    public static ActionType typeOf(int code) {
+        return ACTION_TYPES[code & 0x7];
+    }
+
+    /**
+     * Gets the genre of an encoded action
+     *
+     * @param code The encoded action
+     * @return The genre or null value
+     */
+    public static Genre genreOf(int code) {
+        int genre = (code >> GENRE_SHIFT) & 0x3;
+        return genre == 0 ? null : GENRES[genre - 1];
+    }
+
+    /**
+     * Gets the direction of an encoded action
+     *
+     * @param code The encoded action
+     * @return The direction or null value
+     */
+    public static Direction directionOf(int code) {
+        int direction = (code >> DIRECTION_SHIFT) & 0xF;
+        return direction == 0 ? null : Direction.fromOrdinal(direction - 1);
+    }
+
+    /**
+     * Gets the key of an encoded action: the action type, the genre and the direction without the level difference
+     *
+     * @param code The encoded action
+     * @return The key of the action (between 0 and KEY_COUNT - 1)
+     */
+    public static int keyOf(int code) {
+        return code & KEY_MASK;
+    }
+
+    /**
+     * Gets the level difference of an encoded action
+     *
+     * @param code The encoded action
+     * @return The level difference (positive or negative)
+     */
+    public static int levelDifferenceOf(int code) {
+        return ((code >> LEVEL_SHIFT) & 0xF) - LEVEL_OFFSET;
+    }
+}
@@ -12,7 +12,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Menage the configuration of the application
@@ -20,8 +23,8 @@ import java.util.List;
 public class Configurator {
 
     private static final SAXBuilder builder = new SAXBuilder();
-    private static final Object connectionConfigLock = new Object();
-    private static final Object cardsConfigLock = new Object();
+    // The builder isn't thread-safe, so every configuration file is parsed under the same lock
+    private static final Object builderLock = new Object();
     private static final boolean showErrorDetailsFlag = true;
     private static final boolean showPingFlag = false;
 
@@ -31,20 +34,7 @@ public class Configurator {
      * @return The default IP of the server
      */
     public static String getDefaultIp() {
-        String ip = null;
-
-        try {
-            Document document;
-            synchronized (connectionConfigLock) {
-                document = builder.build(Configurator.class.getResourceAsStream("/ConnectionConfig.xml"));
-            }
-            Element rootElement = document.getRootElement();
-
-            ip = rootElement.getChildText("server-ip-default");
-        } catch (JDOMException | IOException e) {
-            e.printStackTrace();
-        }
-        return ip;
+        return ConnectionConfig.parameters.get("server-ip-default");
     }
 
     /**
@@ -53,19 +43,157 @@ public class Configurator {
      * @return The default port of the server
      */
     public static int getDefaultPort() {
-        int port = 0;
-        try {
-            Document document;
-            synchronized (connectionConfigLock) {
-                document = builder.build(Configurator.class.getResourceAsStream("/ConnectionConfig.xml"));
-            }
-            Element rootElement = document.getRootElement();
+        return getConnectionParameter("server-port-default", 0);
+    }
+
+    /**
+     * Gets the number of seconds after which the empty seats of a game are filled with bots
+     *
+     * @return The number of seconds, a negative value if the bots are disabled
+     */
+    public static int getBotWaitSeconds() {
+        return getConnectionParameter("bot-wait-seconds", 30);
+    }
+
+    /**
+     * Gets the time budget of each action of the bots
+     *
+     * @return The time budget in milliseconds
+     */
+    public static int getBotMoveMillis() {
+        return getConnectionParameter("bot-move-millis", 50);
+    }
+
+    /**
+     * Gets the CPU time each action of a bot can use before it's cancelled
+     *
+     * @return The CPU time budget in milliseconds
+     */
+    public static int getBotCpuMillis() {
+        return getConnectionParameter("bot-cpu-millis", 200);
+    }
+
+    /**
+     * Gets the memory each action of a bot can allocate before it's cancelled
+     *
+     * @return The allocation budget in megabytes
+     */
+    public static int getBotAllocationMegabytes() {
+        return getConnectionParameter("bot-allocation-mb", 256);
+    }
+
+    /**
+     * Gets the transport used by the server for the connections of the clients
+     *
+     * @return "nio" for the event loops with non-blocking channels, "socket" for a thread for each connection
+     */
+    public static String getServerTransport() {
+        return getConnectionText("server-transport", "nio");
+    }
 
-            port = Integer.parseInt(rootElement.getChildText("server-port-default"));
-        } catch (JDOMException | IOException e) {
+    /**
+     * Gets the kind of the threads that block for a long time on the server: the set up of the connections and, with
+     * the socket transport, the read loops and the writers of the clients
+     *
+     * @return "virtual" for virtual threads, if the runtime supports them, "platform" for platform threads
+     */
+    public static String getServerThreads() {
+        return getConnectionText("server-threads", "platform");
+    }
+
+    /**
+     * Gets the number of event loops that serve the connections of the clients
+     *
+     * @return The number of threads
+     */
+    public static int getEventLoops() {
+        return getConnectionParameter("event-loops", Math.max(Runtime.getRuntime().availableProcessors() / 2, 1));
+    }
+
+    /**
+     * Gets the time budget of the analysis of a hint
+     *
+     * @return The time budget in milliseconds
+     */
+    public static int getHintMillis() {
+        return getConnectionParameter("hint-millis", 500);
+    }
+
+    /**
+     * Gets the number of threads that analyse the hints of all the games
+     *
+     * @return The number of threads
+     */
+    public static int getHintThreads() {
+        return getConnectionParameter("hint-threads", Math.max(Runtime.getRuntime().availableProcessors() / 2, 1));
+    }
+
+    /**
+     * Gets the path of the opening book file of the bots
+     *
+     * @return The path of the opening book file
+     */
+    public static String getOpeningBookPath() {
+        return getConnectionText("opening-book", "openingbook.bin");
+    }
+
+    /**
+     * Gets a text parameter of the connection configuration
+     *
+     * @param name         The name of the parameter
+     * @param defaultValue The value used if the parameter is missing
+     * @return The value of the parameter
+     */
+    private static String getConnectionText(String name, String defaultValue) {
+        String text = ConnectionConfig.parameters.get(name);
+        return text != null ? text.trim() : defaultValue;
+    }
+
+    /**
+     * Gets an integer parameter of the connection configuration
+     *
+     * @param name         The name of the parameter
+     * @param defaultValue The value used if the parameter is missing
+     * @return The value of the parameter
+     */
+    private static int getConnectionParameter(String name, int defaultValue) {
+        String text = ConnectionConfig.parameters.get(name);
+        if (text == null)
+            return defaultValue;
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
             e.printStackTrace();
+            return defaultValue;
+        }
+    }
+
+    /**
+     * The parameters of the connection configuration, parsed once when they are first used
+     */
+    private static final class ConnectionConfig {
+        private static final Map<String, String> parameters = load();
+
+        /**
+         * Parses the connection configuration
+         *
+         * @return The text of each parameter by its name, empty if the file can't be read
+         */
+        private static Map<String, String> load() {
+            Map<String, String> parameters = new HashMap<>();
+            try {
+                Document document;
+                synchronized (builderLock) {
+                    document = builder.build(Configurator.class.getResourceAsStream("/ConnectionConfig.xml"));
+                }
+                for (Element element : document.getRootElement().getChildren()) {
+                    parameters.put(element.getName(), element.getText());
+                }
+            } catch (JDOMException | IOException e) {
+                e.printStackTrace();
+            }
+            return Collections.unmodifiableMap(parameters);
         }
-        return port;
     }
 
     /**
@@ -77,7 +205,7 @@ public class Configurator {
         List<Card> cards = new ArrayList<>();
         try {
             Document document;
-            synchronized (cardsConfigLock) {
+            synchronized (builderLock) {
                 document = builder.build(Configurator.class.getResourceAsStream("/SimpleGodsConfig.xml"));
             }
             Element rootElement = document.getRootElement();
@@ -4,7 +4,23 @@ package util;
  * All possible directions of the actions
  */
 public enum Direction {
-    N, NE, E, SE, S, SW, W, NW;
+    N(-1, 0), NE(-1, 1), E(0, 1), SE(1, 1), S(1, 0), SW(1, -1), W(0, -1), NW(-1, -1);
+
+    private static final Direction[] DIRECTIONS = values();
+    private static final Direction[][] DIRECTIONS_BY_DIFF = {{NW, N, NE}, {W, null, E}, {SW, S, SE}};
+    private final int rowDifference;
+    private final int columnDifference;
+
+    /**
+     * Constructor: build a Direction
+     *
+     * @param rowDifference    The row difference (next-current) of a step in this direction
+     * @param columnDifference The column difference (next-current) of a step in this direction
+     */
+    Direction(int rowDifference, int columnDifference) {
+        this.rowDifference = rowDifference;
+        this.columnDifference = columnDifference;
+    }
 
     /**
      * Calculates the direction from row and column differences
@@ -14,7 +30,43 @@ public enum Direction {
      * @return The direction in which you need to move
      */
     public static Direction fromDiff(int rowDifference, int columnDifference) {
-        Direction[][] possibleDirections = {{NW, N, NE}, {W, null, E}, {SW, S, SE}};
-        return possibleDirections[rowDifference + 1][columnDifference + 1];
+        return DIRECTIONS_BY_DIFF[rowDifference + 1][columnDifference + 1];
+    }
+
+    /**
+     * Gets a direction by its ordinal without copying the values array
+     *
+     * @param ordinal The ordinal of the direction
+     * @return The direction
+     */
+    public static Direction fromOrdinal(int ordinal) {
+        return DIRECTIONS[ordinal];
+    }
+
+    /**
+     * Gets the row difference (next-current) of a step in this direction
+     *
+     * @return The row difference
+     */
+    public int getRowDifference() {
+        return rowDifference;
+    }
+
+    /**
+     * Gets the column difference (next-current) of a step in this direction
+     *
+     * @return The column difference
+     */
+    public int getColumnDifference() {
+        return columnDifference;
+    }
+
+    /**
+     * Gets the opposite direction
+     *
+     * @return The opposite direction
+     */
+    public Direction opposite() {
+        return DIRECTIONS[(ordinal() + DIRECTIONS.length / 2) % DIRECTIONS.length];
     }
 }
@@ -0,0 +1,122 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable buffer of encoded actions (see {@link Action#encode()})
+ */
+public class IntActionBuffer {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private int[] actions;
+    private int size;
+
+    /**
+     * Constructor: build an empty IntActionBuffer
+     */
+    public IntActionBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor: build an empty IntActionBuffer with a specified initial capacity
+     *
+     * @param capacity The initial capacity
+     */
+    public IntActionBuffer(int capacity) {
+        this.actions = new int[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    /**
+     * Adds an encoded action
+     *
+     * @param action The encoded action
+     */
+    public void add(int action) {
+        if (size == actions.length) {
+            actions = Arrays.copyOf(actions, size * 2);
+        }
+        actions[size++] = action;
+    }
+
+    /**
+     * Adds an action that has only an action type (like END and LOSE)
+     *
+     * @param actionType The action type
+     */
+    public void add(ActionType actionType) {
+        add(Action.encode(actionType, null, null, 0));
+    }
+
+    /**
+     * Gets the encoded action stored in a specified position
+     *
+     * @param index The position of the action
+     * @return The encoded action
+     */
+    public int get(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return actions[index];
+    }
+
+    /**
+     * Replaces the encoded action stored in a specified position
+     *
+     * @param index  The position of the action
+     * @param action The new encoded action
+     */
+    public void set(int index, int action) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        actions[index] = action;
+    }
+
+    /**
+     * Gets the number of stored actions
+     *
+     * @return The number of stored actions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the buffer is empty
+     *
+     * @return True if the buffer doesn't contain any action, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the actions keeping the allocated memory
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Removes all the actions stored after a specified position
+     *
+     * @param size The number of actions to be kept
+     */
+    public void truncate(int size) {
+        this.size = Math.min(this.size, size);
+    }
+
+    /**
+     * Builds a RoundActions object containing the stored actions
+     *
+     * @return The RoundActions object
+     */
+    public RoundActions toRoundActions() {
+        RoundActions roundActions = new RoundActions();
+        for (int i = 0; i < size; i++) {
+            roundActions.add(actions[i]);
+        }
+        return roundActions;
+    }
+}
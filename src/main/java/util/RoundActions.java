@@ -1,23 +1,41 @@
 package util;
 
 import model.Cell;
+import model.Zobrist;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Stores a set of player actions
+ * Stores a set of player actions.
+ * The actions are stored as encoded ints (see {@link Action#encode()}) together with a bitset of their keys and a
+ * counter for each action type, so the lookups don't need to scan the actions. Action objects are built on demand
  */
 public class RoundActions implements Serializable {
 
-    private final List<Action> actionList;
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final ActionType[] ACTION_TYPES = ActionType.values();
+    private static final Genre[] GENRES = Genre.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private int[] actions;
+    private int size;
+    private final long[] keys;
+    private final int[] typeCounters;
+    private int movesUpCounter;
+    private long hash;
+    private transient short[] positions;
 
     /**
      * Constructor: build an empty RoundActions
      */
     public RoundActions() {
-        actionList = new ArrayList<>();
+        actions = new int[DEFAULT_CAPACITY];
+        size = 0;
+        keys = new long[Action.KEY_COUNT / Long.SIZE];
+        typeCounters = new int[ACTION_TYPES.length];
+        movesUpCounter = 0;
     }
 
     /**
@@ -26,7 +44,65 @@ public class RoundActions implements Serializable {
      * @return The actions list of the current round
      */
     public List<Action> getActionList() {
-        return new ArrayList<>(actionList);
+        List<Action> actionList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            actionList.add(Action.decode(actions[i]));
+        }
+        return actionList;
+    }
+
+    /**
+     * Gets the action stored in a specified position
+     *
+     * @param index The position of the action
+     * @return The action
+     */
+    public Action get(int index) {
+        return Action.decode(getCode(index));
+    }
+
+    /**
+     * Gets the encoded action stored in a specified position
+     *
+     * @param index The position of the action
+     * @return The encoded action
+     */
+    public int getCode(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return actions[index];
+    }
+
+    /**
+     * Gets the number of stored actions
+     *
+     * @return The number of stored actions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the Zobrist hash of the sequence of the stored actions
+     *
+     * @return The hash of the actions
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Gets the genre of the worker that has been used during the current round
+     *
+     * @return The genre of the first action that involves a worker or null value
+     */
+    public Genre getWorkerGenre() {
+        for (int i = 0; i < size; i++) {
+            Genre genre = Action.genreOf(actions[i]);
+            if (genre != null)
+                return genre;
+        }
+        return null;
     }
 
     /**
@@ -35,12 +111,7 @@ public class RoundActions implements Serializable {
      * @return The number of times that the worker has moved
      */
     public int hasMoved() {
-        int counter = 0;
-        for (Action action : actionList) {
-            if (action.getActionType() == ActionType.MOVE)
-                counter++;
-        }
-        return counter;
+        return typeCounters[ActionType.MOVE.ordinal()];
     }
 
     /**
@@ -49,12 +120,7 @@ public class RoundActions implements Serializable {
      * @return The number of times that player has build
      */
     public int hasBuildAnything() {
-        int counter = 0;
-        for (Action action : actionList) {
-            if (action.getActionType() == ActionType.DOME || action.getActionType() == ActionType.FLOOR)
-                counter++;
-        }
-        return counter;
+        return typeCounters[ActionType.FLOOR.ordinal()] + typeCounters[ActionType.DOME.ordinal()];
     }
 
     /**
@@ -63,7 +129,7 @@ public class RoundActions implements Serializable {
      * @return True if it contains at least one move, otherwise false
      */
     public boolean isEmpty() {
-        return actionList.size() == 0;
+        return size == 0;
     }
 
     /**
@@ -75,7 +141,7 @@ public class RoundActions implements Serializable {
      */
     public void addMoves(List<Cell> cells, Cell origin, Genre genre) {
         for (Cell cell : cells) {
-            actionList.add(new Action(ActionType.MOVE, genre, origin.calculateDirection(cell), origin.getFloorDifference(cell)));
+            add(Action.encode(ActionType.MOVE, genre, origin.calculateDirection(cell), origin.getFloorDifference(cell)));
         }
     }
 
@@ -88,7 +154,7 @@ public class RoundActions implements Serializable {
      */
     public void addBuilds(List<Cell> cells, Cell origin, Genre genre) {
         for (Cell cell : cells) {
-            actionList.add(new Action(ActionType.FLOOR, genre, origin.calculateDirection(cell), origin.getFloorDifference(cell)));
+            add(Action.encode(ActionType.FLOOR, genre, origin.calculateDirection(cell), origin.getFloorDifference(cell)));
         }
     }
 
@@ -101,7 +167,7 @@ public class RoundActions implements Serializable {
      */
     public void addDomes(List<Cell> cells, Cell origin, Genre genre) {
         for (Cell cell : cells) {
-            actionList.add(new Action(ActionType.DOME, genre, origin.calculateDirection(cell), origin.getFloorDifference(cell)));
+            add(Action.encode(ActionType.DOME, genre, origin.calculateDirection(cell), origin.getFloorDifference(cell)));
         }
     }
 
@@ -111,12 +177,7 @@ public class RoundActions implements Serializable {
      * @return The number of times that player has build a floor
      */
     public int hasBuildFloor() {
-        int counter = 0;
-        for (Action action : actionList) {
-            if (action.getActionType() == ActionType.FLOOR)
-                counter++;
-        }
-        return counter;
+        return typeCounters[ActionType.FLOOR.ordinal()];
     }
 
     /**
@@ -125,7 +186,9 @@ public class RoundActions implements Serializable {
      * @param actions The Round Action object that contains the actions to be added
      */
     public void add(RoundActions actions) {
-        actionList.addAll(actions.getActionList());
+        for (int i = 0; i < actions.size; i++) {
+            add(actions.actions[i]);
+        }
     }
 
     /**
@@ -134,7 +197,9 @@ public class RoundActions implements Serializable {
      * @param actions The list of actions to be added
      */
     public void add(List<Action> actions) {
-        actionList.addAll(actions);
+        for (Action action : actions) {
+            add(action);
+        }
     }
 
     /**
@@ -143,7 +208,54 @@ public class RoundActions implements Serializable {
      * @param action The action to be added
      */
     public void add(Action action) {
-        actionList.add(action);
+        add(action.encode());
+    }
+
+    /**
+     * Adds a single encoded action
+     *
+     * @param code The encoded action to be added
+     */
+    public void add(int code) {
+        if (size == actions.length) {
+            actions = Arrays.copyOf(actions, size * 2);
+        }
+        actions[size++] = code;
+        hash ^= Zobrist.action(size - 1, code);
+
+        int key = Action.keyOf(code);
+        keys[key / Long.SIZE] |= 1L << key;
+        ActionType actionType = Action.typeOf(code);
+        typeCounters[actionType.ordinal()]++;
+        if (actionType == ActionType.MOVE && Action.levelDifferenceOf(code) > 0)
+            movesUpCounter++;
+        positions = null;
+    }
+
+    /**
+     * Removes the last added action
+     *
+     * @return The removed encoded action
+     */
+    public int removeLast() {
+        if (size == 0)
+            throw new IndexOutOfBoundsException("Index: -1, Size: 0");
+        int code = actions[--size];
+        hash ^= Zobrist.action(size, code);
+
+        ActionType actionType = Action.typeOf(code);
+        typeCounters[actionType.ordinal()]--;
+        if (actionType == ActionType.MOVE && Action.levelDifferenceOf(code) > 0)
+            movesUpCounter--;
+        int key = Action.keyOf(code);
+        boolean isKeyUsed = false;
+        for (int i = 0; i < size && !isKeyUsed; i++) {
+            isKeyUsed = Action.keyOf(actions[i]) == key;
+        }
+        if (!isKeyUsed)
+            keys[key / Long.SIZE] &= ~(1L << key);
+        positions = null;
+        return code;
     }
 
     /**
@@ -156,7 +268,21 @@ public class RoundActions implements Serializable {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         RoundActions anotherObj = (RoundActions) obj;
-        return actionList.containsAll(anotherObj.getActionList()) && anotherObj.getActionList().containsAll(actionList);
+        return containsAll(anotherObj) && anotherObj.containsAll(this);
+    }
+
+    /**
+     * Checks if all the actions stored in another RoundActions object are contained in this object
+     *
+     * @param anotherObj The other RoundActions object
+     * @return True if all the actions of the other object are contained in this object
+     */
+    private boolean containsAll(RoundActions anotherObj) {
+        for (int i = 0; i < anotherObj.size; i++) {
+            if (!contains(anotherObj.actions[i]))
+                return false;
+        }
+        return true;
     }
 
     /**
@@ -165,11 +291,7 @@ public class RoundActions implements Serializable {
      * @return True if it contains at least one move up, otherwise false
      */
     public boolean hasMovedUp() {
-        for (Action action : actionList) {
-            if (action.getActionType() == ActionType.MOVE && action.getLevelDifference() > 0)
-                return true;
-        }
-        return false;
+        return movesUpCounter > 0;
     }
 
     /**
@@ -190,13 +312,21 @@ public class RoundActions implements Serializable {
                 return null;
             }
         }
+        return find(findByName(ACTION_TYPES, action), findByName(GENRES, genre), findByName(DIRECTIONS, direction));
+    }
 
-        for (Action a : getActionList()) {
-            if (a.getActionType().name().equalsIgnoreCase(action) &&
-                    a.getGenre().name().equalsIgnoreCase(genre) &&
-                    a.getDirection().name().equalsIgnoreCase(direction)) {
-                return a;
-            }
+    /**
+     * Finds the enum constant with the specified name, ignoring case
+     *
+     * @param values The enum constants
+     * @param name   The name of the constant
+     * @param <E>    The enum type
+     * @return The constant or null value
+     */
+    private static <E extends Enum<E>> E findByName(E[] values, String name) {
+        for (E value : values) {
+            if (value.name().equalsIgnoreCase(name))
+                return value;
         }
         return null;
     }
@@ -212,8 +342,46 @@ public class RoundActions implements Serializable {
     public Action find(ActionType action, Genre genre, Direction direction) {
         if (direction == null || genre == null || action == null)
             return null;
-        else
-            return find(action.toString(), genre.toString().substring(0, 1), direction.toString());
+        int position = findPosition(Action.keyOf(Action.encode(action, genre, direction, 0)));
+        return position < 0 ? null : Action.decode(actions[position]);
+    }
+
+    /**
+     * Finds the position of the first action with a specified key
+     *
+     * @param key The key of the action (see {@link Action#keyOf(int)})
+     * @return The position of the action or -1 if there isn't such an action
+     */
+    private int findPosition(int key) {
+        if ((keys[key / Long.SIZE] & (1L << key)) == 0)
+            return -1;
+        if (positions == null) {
+            positions = new short[Action.KEY_COUNT];
+            for (int i = size - 1; i >= 0; i--) {
+                positions[Action.keyOf(actions[i])] = (short) (i + 1);
+            }
+        }
+        return positions[key] - 1;
+    }
+
+    /**
+     * Checks if the RoundActions contain a specified encoded action
+     *
+     * @param code The encoded action
+     * @return True if the action is contained, otherwise false
+     */
+    public boolean contains(int code) {
+        int position = findPosition(Action.keyOf(code));
+        if (position < 0)
+            return false;
+        if (actions[position] == code)
+            return true;
+        // Several actions with the same key (like the double build of Hephaestus in the round history)
+        for (int i = position + 1; i < size; i++) {
+            if (actions[i] == code)
+                return true;
+        }
+        return false;
     }
 
     /**
@@ -222,9 +390,10 @@ public class RoundActions implements Serializable {
      * @return The end action or the null value
      */
     public Action findEnd() {
-        for (Action a : getActionList()) {
-            if (a.getActionType().equals(ActionType.END)) {
-                return a;
+        if (contains(ActionType.END)) {
+            for (int i = 0; i < size; i++) {
+                if (Action.typeOf(actions[i]) == ActionType.END)
+                    return Action.decode(actions[i]);
             }
         }
         return null;
@@ -255,12 +424,7 @@ public class RoundActions implements Serializable {
      * @return True if the RoundActions contain at least one action of the specified type, otherwise false
      */
     public boolean contains(ActionType actionType) {
-        for (Action a : getActionList()) {
-            if (a.getActionType().equals(actionType)) {
-                return true;
-            }
-        }
-        return false;
+        return typeCounters[actionType.ordinal()] > 0;
     }
 
     /**
@@ -269,7 +433,7 @@ public class RoundActions implements Serializable {
      * @return True if the player can only end, otherwise false
      */
     public boolean mustEnd() {
-        return getActionList().size() == 1 && getActionList().get(0).getActionType().equals(ActionType.END);
+        return size == 1 && Action.typeOf(actions[0]) == ActionType.END;
     }
 
     /**
@@ -280,10 +444,10 @@ public class RoundActions implements Serializable {
      * @return True if the round action contains an action with the specified genre and type
      */
     public boolean findGenre(ActionType actionType, Genre genre) {
-        for (Action a : getActionList()) {
-            if (a.getActionType().equals(actionType) && a.getGenre().equals(genre)) {
+        for (Direction direction : DIRECTIONS) {
+            int key = Action.keyOf(Action.encode(actionType, genre, direction, 0));
+            if ((keys[key / Long.SIZE] & (1L << key)) != 0)
                 return true;
-            }
         }
         return false;
     }
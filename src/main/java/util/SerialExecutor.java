@@ -0,0 +1,64 @@
+package util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that runs its tasks one at a time and in order on a shared executor, so that many serial queues (like the
+ * messages of the games) can share a small pool of threads. An empty queue doesn't hold any thread
+ */
+public class SerialExecutor implements Executor {
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks;
+    private boolean isScheduled;
+
+    /**
+     * Constructor: build a SerialExecutor
+     *
+     * @param executor The shared executor that runs the tasks
+     */
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+        this.tasks = new ArrayDeque<>();
+        this.isScheduled = false;
+    }
+
+    /**
+     * Adds a task to the queue, it will run after all the previous tasks
+     *
+     * @param task The task
+     */
+    public void execute(Runnable task) {
+        synchronized (tasks) {
+            tasks.add(task);
+            if (isScheduled)
+                return;
+            isScheduled = true;
+        }
+        executor.execute(this::drain);
+    }
+
+    /**
+     * Runs the queued tasks until the queue is empty
+     */
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+                if (task == null) {
+                    isScheduled = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.out.println(Frmt.color('r', "> Error: a task has failed: " + e));
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel: a single thread runs the timeouts of many clients. The timeouts are kept in a circle of
+ * buckets, one for each tick, so scheduling and cancelling a timeout take constant time and each tick visits only
+ * the bucket of the current time. A timeout runs at most one tick after its delay. The tasks run on the thread of the
+ * wheel, so they must be short and must never block
+ */
+public class TimingWheel implements Runnable {
+
+    private final long tickNanos;
+    private final Timeout[] buckets;
+    private final int mask;
+    private final Thread thread;
+    private final long startTime;
+    private long currentTick;
+    private int pendingTimeouts;
+    private volatile boolean isRunning;
+
+    /**
+     * Constructor: build a TimingWheel and start its thread
+     *
+     * @param name       The name of the thread
+     * @param tickMillis The duration of a tick in milliseconds
+     * @param wheelSize  The number of buckets, rounded up to a power of two
+     */
+    public TimingWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0)
+            throw new IllegalArgumentException("The tick and the size of the wheel must be positive");
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+        this.currentTick = 0;
+        this.pendingTimeouts = 0;
+        this.isRunning = true;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Schedules a task
+     *
+     * @param task        The task, it runs on the thread of the wheel
+     * @param delayMillis The delay in milliseconds
+     * @return The timeout of the task, which can be cancelled
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        long ticks = Math.max(1, (delayNanos + tickNanos - 1) / tickNanos);
+        Timeout timeout = new Timeout(task);
+        synchronized (buckets) {
+            timeout.deadlineTick = currentTick + ticks;
+            link(timeout);
+        }
+        return timeout;
+    }
+
+    /**
+     * Gets the number of scheduled timeouts that haven't run yet
+     *
+     * @return The number of pending timeouts
+     */
+    public int getPendingTimeouts() {
+        synchronized (buckets) {
+            return pendingTimeouts;
+        }
+    }
+
+    /**
+     * Stops the thread of the wheel, the pending timeouts never run
+     */
+    public void stop() {
+        isRunning = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Advances the wheel one tick at a time and runs the expired timeouts until the wheel is stopped
+     */
+    public void run() {
+        List<Timeout> expired = new ArrayList<>();
+        while (isRunning) {
+            long waitNanos = startTime + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+
+            synchronized (buckets) {
+                Timeout timeout = buckets[(int) (currentTick & mask)];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    // The timeouts of the next rounds share the bucket and wait for their turn
+                    if (timeout.deadlineTick <= currentTick) {
+                        unlink(timeout);
+                        expired.add(timeout);
+                    }
+                    timeout = next;
+                }
+                currentTick++;
+            }
+
+            for (Timeout timeout : expired) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    System.out.println(Frmt.color('r', "> Error: a timeout of " + thread.getName() + " has failed: " + e));
+                    e.printStackTrace();
+                }
+            }
+            expired.clear();
+        }
+    }
+
+    /**
+     * Adds a timeout to the head of its bucket
+     *
+     * @param timeout The timeout
+     */
+    private void link(Timeout timeout) {
+        int index = (int) (timeout.deadlineTick & mask);
+        timeout.next = buckets[index];
+        if (timeout.next != null)
+            timeout.next.previous = timeout;
+        buckets[index] = timeout;
+        timeout.isLinked = true;
+        pendingTimeouts++;
+    }
+
+    /**
+     * Removes a timeout from its bucket
+     *
+     * @param timeout The timeout
+     */
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null)
+            timeout.previous.next = timeout.next;
+        else
+            buckets[(int) (timeout.deadlineTick & mask)] = timeout.next;
+        if (timeout.next != null)
+            timeout.next.previous = timeout.previous;
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.isLinked = false;
+        pendingTimeouts--;
+    }
+
+    /**
+     * A task scheduled on the wheel
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private long deadlineTick;
+        private Timeout previous;
+        private Timeout next;
+        private boolean isLinked;
+
+        /**
+         * Constructor: build a Timeout
+         *
+         * @param task The task
+         */
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * Cancels the timeout if it hasn't run yet
+         *
+         * @return True if the timeout has been cancelled, false if it has already run or has been cancelled
+         */
+        public boolean cancel() {
+            synchronized (buckets) {
+                if (!isLinked)
+                    return false;
+                unlink(this);
+                return true;
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class BoardTest {
 
@@ -52,4 +53,32 @@ public class BoardTest {
         assertNull(board.getNextCell(cell, Direction.SE));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void masks_addFloorAndDome_keptInSync() {
+        board = new Board();
+        Cell cell = board.getCell(2, 3);
+        cell.addFloor();
+        assertEquals(Board.maskOf(2, 3), board.getFloorMask(1));
+        assertEquals(0, board.getFloorMask(0) & Board.maskOf(2, 3));
+        cell.addFloor();
+        cell.addFloor();
+        cell.addFloor();
+        assertEquals(Board.maskOf(2, 3), board.getFloorMask(3));
+        assertEquals(Board.maskOf(2, 3), board.getDomeMask());
+        List<Cell> adjacents = board.getCells(board.getAdjacentMask(board.getCell(3, 3)));
+        assertEquals(8, adjacents.size());
+        assertTrue(adjacents.containsAll(board.getAdjacents(board.getCell(3, 3))));
+    }
+
+    @Test
+    public void getPrevCellAndDirection_board_getCorrectCells() {
+        board = new Board();
+        Cell cell = board.getCell(3, 3);
+        assertEquals(board.getCell(4, 2), board.getPrevCell(cell, Direction.NE));
+        assertEquals(board.getCell(2, 3), board.getPrevCell(cell, Direction.S));
+        assertNull(board.getPrevCell(board.getCell(0, 0), Direction.SE));
+        assertEquals(Direction.SW, Board.getDirection(cell, board.getCell(4, 2)));
+        assertNull(Board.getDirection(cell, board.getCell(1, 1)));
+        assertEquals(board.getAdjacents(cell), board.getAdjacents(board.getCell(3, 3)));
+    }
+}
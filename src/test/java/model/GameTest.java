@@ -5,6 +5,10 @@ import org.junit.Before;
 import org.junit.Test;
 import server.rules.EnemyRules;
 import server.rules.Rules;
+import util.Action;
+import util.ActionType;
+import util.Direction;
+import util.Genre;
 import util.PlayerColor;
 
 import java.text.DateFormat;
@@ -258,4 +262,80 @@ public class GameTest {
         assertFalse(game.isActive());
     }
 
+
+    @Test
+    public void setPosition_workers_occupancyUpdated() throws ParseException {
+        Player player1 = new Player("Kate", dateFormat.parse("02/01/1998"), false);
+        game.addPlayer(player1);
+        Board board = game.getBoard();
+        Worker worker = player.getWorker(Genre.MALE);
+        Worker enemyWorker = player1.getWorker(Genre.FEMALE);
+        worker.setPosition(board.getCell(1, 1));
+        enemyWorker.setPosition(board.getCell(1, 2));
+        assertEquals(Board.maskOf(1, 1) | Board.maskOf(1, 2), game.getOccupiedMask());
+        assertSame(enemyWorker, game.getOccupant(board.getCell(1, 2)));
+
+        // Swap the workers
+        enemyWorker.setPosition(board.getCell(1, 1));
+        worker.setPosition(board.getCell(1, 2));
+        assertSame(enemyWorker, game.getOccupant(board.getCell(1, 1)));
+        assertSame(worker, game.getOccupant(board.getCell(1, 2)));
+
+        worker.setPosition(board.getCell(2, 2));
+        assertEquals(Board.maskOf(1, 1) | Board.maskOf(2, 2), game.getOccupiedMask());
+        assertNull(game.getOccupant(board.getCell(1, 2)));
+        assertFalse(game.isOccupied(board.getCell(1, 2)));
+
+        player1.setLoser(true);
+        assertEquals(Board.maskOf(2, 2), game.getOccupiedMask());
+        assertNull(game.getOccupant(board.getCell(1, 1)));
+    }
+
+    @Test
+    public void setPosition_inactivePlayerWorker_notActiveOccupant() throws ParseException {
+        Player player1 = new Player("Kate", dateFormat.parse("02/01/1998"), false);
+        game.addPlayer(player1);
+        Board board = game.getBoard();
+        Worker enemyWorker = player1.getWorker(Genre.FEMALE);
+        player1.setConnected(false);
+
+        enemyWorker.setPosition(board.getCell(3, 3));
+        assertEquals(0, game.getOccupiedMask());
+
+        player1.setConnected(true);
+        assertEquals(Board.maskOf(3, 3), game.getOccupiedMask());
+        enemyWorker.setPosition(board.getCell(3, 4));
+        assertEquals(Board.maskOf(3, 4), game.getOccupiedMask());
+    }
+
+    @Test
+    public void positionHash_samePositionDifferentOrder_sameHash() throws ParseException {
+        Player player1 = new Player("Kate", dateFormat.parse("02/01/1998"), false);
+        game.addPlayer(player1);
+        player.chooseColor(PlayerColor.BLUE);
+        player1.chooseColor(PlayerColor.YELLOW);
+        Board board = game.getBoard();
+        player.getWorker(Genre.MALE).setPosition(board.getCell(0, 0));
+        player1.getWorker(Genre.MALE).setPosition(board.getCell(4, 4));
+        long initialHash = game.positionHash(player);
+        assertNotEquals(initialHash, game.positionHash(player1));
+
+        player.getWorker(Genre.MALE).setPosition(board.getCell(1, 1));
+        board.getCell(2, 2).addFloor();
+        board.getCell(3, 3).setDome(true);
+        long firstHash = game.positionHash(player);
+
+        board.getCell(3, 3).setDome(false);
+        board.getCell(2, 2).removeFloor();
+        player.getWorker(Genre.MALE).setPosition(board.getCell(0, 0));
+        assertEquals(initialHash, game.positionHash(player));
+
+        board.getCell(3, 3).setDome(true);
+        player.getWorker(Genre.MALE).setPosition(board.getCell(1, 1));
+        board.getCell(2, 2).addFloor();
+        assertEquals(firstHash, game.positionHash(player));
+
+        player1.getRoundActions().add(new Action(ActionType.MOVE, Genre.MALE, Direction.N, 1));
+        assertNotEquals(firstHash, game.positionHash(player));
+    }
 }
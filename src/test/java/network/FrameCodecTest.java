@@ -0,0 +1,44 @@
+package network;
+
+import network.messages.SetUpGame;
+import network.ping.PingMessage;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class FrameCodecTest {
+
+    @Test
+    public void encode_message_lengthInHeader() throws Exception {
+        byte[] frame = FrameCodec.encode(new SetUpGame("Joe", new Date(), 3));
+        int length = new DataInputStream(new ByteArrayInputStream(frame)).readInt();
+
+        assertEquals(frame.length - FrameCodec.HEADER_SIZE, length);
+        SetUpGame decoded = (SetUpGame) FrameCodec.decode(frame, FrameCodec.HEADER_SIZE, length);
+        assertEquals(3, decoded.getNumPlayers());
+    }
+
+    @Test
+    public void read_consecutiveFrames_messagesInOrder() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FrameCodec.write(bytes, new SetUpGame("Joe", new Date(), 2));
+        FrameCodec.write(bytes, new PingMessage(false));
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertTrue(FrameCodec.read(input) instanceof SetUpGame);
+        assertTrue(FrameCodec.read(input) instanceof PingMessage);
+        assertEquals(0, input.available());
+    }
+
+    @Test(expected = IOException.class)
+    public void read_invalidLength_exceptionThrown() throws Exception {
+        byte[] frame = {(byte) 0x7F, 0, 0, 0, 1, 2, 3};
+        FrameCodec.read(new DataInputStream(new ByteArrayInputStream(frame)));
+    }
+}
@@ -0,0 +1,19 @@
+package network.messages;
+
+import org.junit.Test;
+import util.*;
+
+import static org.junit.Assert.assertEquals;
+import static util.MessageType.CV;
+import static util.MessageType.VC;
+
+public class HintTest {
+
+    @Test
+    public void setType_getCorrectType() {
+        Hint request = new Hint("Nick");
+        Hint response = new Hint(new Action(ActionType.MOVE, Genre.FEMALE, Direction.S, 1));
+        assertEquals(VC, request.getType());
+        assertEquals(CV, response.getType());
+    }
+}
@@ -0,0 +1,15 @@
+package network.messages;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static util.MessageType.CV;
+
+public class ShowErrorMessageTest {
+
+    @Test
+    public void setType_getCorrectType() {
+        ShowErrorMessage showErrorMessage = new ShowErrorMessage("Invalid action");
+        assertEquals(CV, showErrorMessage.getType());
+    }
+}
@@ -0,0 +1,70 @@
+package network.ping;
+
+import network.Message;
+import org.junit.Test;
+import util.TimingWheel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HeartbeatTest {
+
+    @Test
+    public void start_silentConnection_pingsThenTimesOut() throws Exception {
+        TimingWheel wheel = new TimingWheel("Test wheel", 10, 64);
+        AtomicInteger pings = new AtomicInteger();
+        CountDownLatch timedOut = new CountDownLatch(1);
+        NetworkHandler handler = new NetworkHandler() {
+            public boolean isConnected() {
+                return timedOut.getCount() > 0;
+            }
+
+            public void send(Message message) {
+                if (message instanceof PingMessage)
+                    pings.incrementAndGet();
+            }
+        };
+        try {
+            Heartbeat heartbeat = new Heartbeat(handler, true, Runnable::run, timedOut::countDown, wheel, 50, 300);
+            heartbeat.start();
+
+            assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+            assertTrue(pings.get() >= 3);
+            heartbeat.stop();
+            assertEquals(0, wheel.getPendingTimeouts());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void received_activeConnection_noTimeout() throws Exception {
+        TimingWheel wheel = new TimingWheel("Test wheel", 10, 64);
+        AtomicInteger timeouts = new AtomicInteger();
+        NetworkHandler handler = new NetworkHandler() {
+            public boolean isConnected() {
+                return true;
+            }
+
+            public void send(Message message) {
+            }
+        };
+        try {
+            Heartbeat heartbeat = new Heartbeat(handler, true, Runnable::run, timeouts::incrementAndGet, wheel, 50, 200);
+            heartbeat.start();
+            for (int i = 0; i < 8; i++) {
+                Thread.sleep(50);
+                heartbeat.received();
+            }
+            heartbeat.stop();
+
+            assertEquals(0, timeouts.get());
+            assertEquals(0, wheel.getPendingTimeouts());
+        } finally {
+            wheel.stop();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package server;
+
+import model.Card;
+import model.Game;
+import model.Player;
+import network.Message;
+import network.messages.ShowErrorMessage;
+import network.messages.Turn;
+import org.junit.Test;
+import server.bot.BotStrategy;
+import server.engine.Perft;
+import server.engine.Position;
+import server.rules.EnemyRules;
+import util.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ControllerTest {
+
+    @Test
+    public void setAction_noTurnSent_actionRejected() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+        Game game = position.getGame();
+        Player player = position.getCurrentPlayer();
+        IntActionBuffer legalActions = new IntActionBuffer();
+        position.generate(legalActions);
+        Controller controller = new Controller(game);
+        controller.setVirtualView(new VirtualView(controller));
+        long hash = game.positionHash(player);
+
+        controller.setAction(legalActions.toRoundActions().get(0), player.getNickname());
+        controller.setAction(null, player.getNickname());
+        controller.setAction(legalActions.toRoundActions().get(0), "Unknown");
+
+        assertEquals(0, player.getRoundActions().size());
+        assertEquals(hash, game.positionHash(player));
+    }
+
+    @Test
+    public void start_waitingForPlayer_holdsNoThread() throws Exception {
+        ExecutorService sharedThread = Executors.newSingleThreadExecutor();
+        Game game = new Game();
+        Controller controller = new Controller(game, new SerialExecutor(sharedThread));
+        controller.setVirtualView(new VirtualView(controller));
+        controller.setNumPlayers(2);
+        controller.addBot(5);
+        controller.start();
+
+        // The only shared thread is free while the game waits for the second player
+        assertTrue(sharedThread.submit(() -> true).get(5, TimeUnit.SECONDS));
+        assertFalse(controller.hasEnded());
+
+        controller.addBot(5);
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!controller.hasEnded() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        sharedThread.shutdownNow();
+
+        assertTrue(controller.hasEnded());
+        assertTrue(game.hasWinner());
+    }
+
+    @Test
+    public void play_slowBot_otherGamesProcessed() throws Exception {
+        ExecutorService sharedThread = Executors.newSingleThreadExecutor();
+        ExecutorService botThread = Executors.newSingleThreadExecutor();
+        SlowStrategy slowStrategy = new SlowStrategy();
+        Game slowGame = new Game();
+        Controller slowController = new Controller(slowGame, new SerialExecutor(sharedThread), botThread);
+        slowController.setVirtualView(new VirtualView(slowController));
+        slowController.setNumPlayers(2);
+        slowController.addBot(slowStrategy);
+        slowController.addBot(slowStrategy);
+        slowController.start();
+        assertTrue(slowStrategy.searching.await(30, TimeUnit.SECONDS));
+
+        // While the bot of the first game is searching, a whole game runs on the only shared thread
+        Game game = new Game();
+        Controller controller = new Controller(game, new SerialExecutor(sharedThread));
+        controller.setVirtualView(new VirtualView(controller));
+        controller.setNumPlayers(2);
+        controller.addBot(5);
+        controller.addBot(5);
+        controller.start();
+        awaitEnd(controller);
+        boolean otherGameEnded = controller.hasEnded();
+        boolean slowGameEnded = slowController.hasEnded();
+
+        slowStrategy.release.countDown();
+        awaitEnd(slowController);
+        sharedThread.shutdownNow();
+        botThread.shutdownNow();
+
+        assertTrue(otherGameEnded);
+        assertTrue(game.hasWinner());
+        assertFalse(slowGameEnded);
+        assertTrue(slowController.hasEnded());
+        assertTrue(slowGame.hasWinner());
+    }
+
+    @Test
+    public void play_failingBot_firstPossibleActionPlayed() {
+        Game game = new Game();
+        Controller controller = new Controller(game);
+        controller.setVirtualView(new VirtualView(controller));
+        controller.setNumPlayers(2);
+        BotStrategy failingStrategy = (position, possibleActions) -> {
+            throw new IllegalStateException("The search has failed");
+        };
+        controller.addBot(failingStrategy);
+        controller.addBot(failingStrategy);
+
+        controller.start();
+
+        assertTrue(controller.hasEnded());
+        assertTrue(game.hasWinner());
+    }
+
+    private static void awaitEnd(Controller controller) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!controller.hasEnded() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void calculatePossibleActions_positionOrPlayerChanged_freshActions() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+        Game game = position.getGame();
+        Player player = position.getCurrentPlayer();
+        Controller controller = new Controller(game);
+
+        RoundActions initial = controller.calculatePossibleActions(player);
+        assertSame(initial, controller.calculatePossibleActions(player));
+
+        // A move changes the hash of the position
+        long record = position.play(initial.getCode(0));
+        RoundActions afterMove = controller.calculatePossibleActions(player);
+        assertNotSame(initial, afterMove);
+        assertNotEquals(initial, afterMove);
+        assertEquals(freshActions(game, player), afterMove);
+
+        // The undo restores the hash, the actions of the cached move aren't reused
+        position.undo(record);
+        RoundActions afterUndo = controller.calculatePossibleActions(player);
+        assertNotSame(afterMove, afterUndo);
+        assertEquals(initial, afterUndo);
+
+        // Same position, but another player to move
+        Player other = game.getNextPlayer(player);
+        RoundActions otherActions = controller.calculatePossibleActions(other);
+        assertNotSame(afterUndo, otherActions);
+        assertEquals(freshActions(game, other), otherActions);
+    }
+
+    private static RoundActions freshActions(Game game, Player player) {
+        return EnemyRules.applyRestrictions(player.getCard().getRules().nextPossibleActions(player, game),
+                EnemyRules.getRestrictionsOn(game, player));
+    }
+
+    @Test
+    public void setAction_legalAction_performedAndTurnConsumed() {
+        TurnFixture fixture = new TurnFixture();
+        int legalCode = fixture.possibleActions.getCode(0);
+        int otherCode = fixture.possibleActions.getCode(fixture.possibleActions.size() - 1);
+        // An object that changes its encoding after the validation performs the validated action anyway
+        Action changingAction = new Action(Action.typeOf(legalCode), Action.genreOf(legalCode),
+                Action.directionOf(legalCode), Action.levelDifferenceOf(legalCode)) {
+            private int encodings = 0;
+
+            public int encode() {
+                return encodings++ == 0 ? legalCode : otherCode;
+            }
+        };
+
+        fixture.controller.setAction(changingAction, fixture.player.getNickname());
+
+        assertEquals(1, fixture.player.getRoundActions().size());
+        assertEquals(legalCode, fixture.player.getRoundActions().getCode(0));
+        assertTrue(fixture.client.sent.isEmpty());
+
+        // The turn has been consumed: another legal action of the same turn is refused without resending it
+        fixture.controller.setAction(Action.decode(otherCode), fixture.player.getNickname());
+        assertEquals(1, fixture.player.getRoundActions().size());
+        assertEquals(1, fixture.client.sent.size());
+        assertTrue(fixture.client.sent.get(0) instanceof ShowErrorMessage);
+    }
+
+    @Test
+    public void setAction_illegalActionDuringTurn_errorAndSameTurnResent() {
+        TurnFixture fixture = new TurnFixture();
+        long hash = fixture.game.positionHash(fixture.player);
+        Action illegal = new Action(ActionType.MOVE, Genre.MALE, Direction.N, 7);
+        assertFalse(fixture.possibleActions.contains(illegal.encode()));
+
+        fixture.controller.setAction(illegal, fixture.player.getNickname());
+
+        assertEquals(0, fixture.player.getRoundActions().size());
+        assertEquals(hash, fixture.game.positionHash(fixture.player));
+        assertEquals(2, fixture.client.sent.size());
+        assertTrue(fixture.client.sent.get(0) instanceof ShowErrorMessage);
+        assertSame(fixture.turn, fixture.client.sent.get(1));
+
+        // The turn is still open
+        fixture.controller.setAction(fixture.possibleActions.get(0), fixture.player.getNickname());
+        assertEquals(1, fixture.player.getRoundActions().size());
+    }
+
+    @Test
+    public void setAction_replayedAction_rejected() {
+        TurnFixture fixture = new TurnFixture();
+        Action action = fixture.possibleActions.get(0);
+
+        fixture.controller.setAction(action, fixture.player.getNickname());
+        long hash = fixture.game.positionHash(fixture.player);
+        fixture.controller.setAction(action, fixture.player.getNickname());
+
+        assertEquals(1, fixture.player.getRoundActions().size());
+        assertEquals(hash, fixture.game.positionHash(fixture.player));
+        assertEquals(1, fixture.client.sent.size());
+        assertTrue(fixture.client.sent.get(0) instanceof ShowErrorMessage);
+    }
+
+    /**
+     * A controller that has sent a turn to the client of the player to move
+     */
+    private static class TurnFixture {
+        private final Game game;
+        private final Player player;
+        private final Controller controller;
+        private final RoundActions possibleActions;
+        private final Turn turn;
+        private final RecordingClientHandler client;
+
+        private TurnFixture() {
+            List<Card> cards = Configurator.getAllCards();
+            Position position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+            game = position.getGame();
+            player = position.getCurrentPlayer();
+            controller = new Controller(game);
+            VirtualView virtualView = new VirtualView(controller);
+            controller.setVirtualView(virtualView);
+            client = new RecordingClientHandler(player.getNickname());
+            virtualView.addClientHandler(client);
+
+            possibleActions = controller.calculatePossibleActions(player);
+            turn = new Turn(possibleActions, new MapInfo(game, player.getColor()), null);
+            controller.expectAction(player, possibleActions, turn);
+        }
+    }
+
+    /**
+     * A strategy that blocks its first search until it is released, then plays the first possible action
+     */
+    private static class SlowStrategy implements BotStrategy {
+        private final CountDownLatch searching = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        public int chooseAction(Position position, RoundActions possibleActions) {
+            searching.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return possibleActions.getCode(0);
+        }
+    }
+
+    /**
+     * A client handler that keeps the messages sent to the client
+     */
+    private static class RecordingClientHandler extends ClientHandler {
+        private final List<Message> sent = new ArrayList<>();
+
+        private RecordingClientHandler(String nickname) {
+            super(null, Runnable::run);
+            setNickname(nickname);
+        }
+
+        public void send(Message message) {
+            sent.add(message);
+        }
+
+        public void close() {
+        }
+    }
+}
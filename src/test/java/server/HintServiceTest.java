@@ -0,0 +1,60 @@
+package server;
+
+import model.Card;
+import org.junit.Test;
+import server.engine.Perft;
+import server.engine.Position;
+import util.Configurator;
+import util.IntActionBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HintServiceTest {
+
+    @Test
+    public void submit_position_legalActionDelivered() throws Exception {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+        IntActionBuffer legalActions = new IntActionBuffer();
+        position.generate(legalActions);
+        HintService service = new HintService(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger result = new AtomicInteger();
+
+        HintRequest request = service.submit(position, 20, code -> {
+            result.set(code);
+            latch.countDown();
+        });
+
+        assertNotNull(request);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(legalActions.toRoundActions().contains(result.get()));
+    }
+
+    @Test
+    public void submit_overloadedService_refusedAndCancelledWithoutResult() {
+        List<Card> cards = Configurator.getAllCards();
+        HintService service = new HintService(1);
+        AtomicInteger results = new AtomicInteger();
+        List<HintRequest> requests = new ArrayList<>();
+
+        HintRequest request;
+        while ((request = service.submit(Perft.createSeedPosition(cards.get(0), cards.get(1)), 60_000,
+                code -> results.incrementAndGet())) != null) {
+            requests.add(request);
+        }
+        for (HintRequest pendingRequest : requests) {
+            pendingRequest.cancel();
+        }
+
+        assertTrue(requests.size() <= 1 + 4);
+        assertTrue(requests.get(0).isCancelled());
+        assertEquals(0, results.get());
+    }
+}
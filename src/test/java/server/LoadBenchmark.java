@@ -0,0 +1,404 @@
+package server;
+
+import network.FrameCodec;
+import network.Message;
+import network.messages.SetUpGame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the memory and the throughput of the transports and thread modes of the server under many connections.
+ * The clients are driven by a single selector of the benchmark, and each round trip is a set up request with an
+ * invalid number of players that the lobby answers with a new request, so only the connections are measured and no
+ * game is created. Each configuration runs in its own JVM, so the threads and the memory of a run don't weigh on the
+ * next one. The benchmark lives with the tests, so it must be launched with the class path of the tests.
+ * Usage: LoadBenchmark [clients...] or LoadBenchmark --run mode clients rounds, where mode is socket-platform,
+ * socket-virtual or nio
+ */
+public class LoadBenchmark {
+
+    private static final String[] MODES = {"socket-platform", "socket-virtual", "nio"};
+    private static final int DEFAULT_ROUNDS = 20;
+    private static final long TIMEOUT_MILLIS = 120000;
+    private static final String NICKNAME = "LoadClient";
+
+    /**
+     * Launches the benchmark
+     *
+     * @param args The numbers of clients (1000 and 10000 by default), or the configuration of a single run
+     * @throws Exception When a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 4 && args[0].equals("--run")) {
+            Result result = run(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            System.out.println("RESULT " + result.format());
+            System.exit(0);
+        }
+
+        List<Integer> clientCounts = new ArrayList<>();
+        for (String arg : args) {
+            clientCounts.add(Integer.parseInt(arg));
+        }
+        if (clientCounts.isEmpty()) {
+            clientCounts.add(1000);
+            clientCounts.add(10000);
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-16s %8s %8s %10s %10s %12s %12s %14s",
+                "mode", "clients", "threads", "heap MB", "rss MB", "heap KB/cl", "rss KB/cl", "round trips/s"));
+        for (int clients : clientCounts) {
+            for (String mode : MODES) {
+                if (mode.equals("socket-virtual") && !ServerThreads.isVirtualSupported()) {
+                    System.out.println(String.format(Locale.ROOT, "%-16s %8d   virtual threads not supported by this runtime",
+                            mode, clients));
+                    continue;
+                }
+                System.out.println(fork(mode, clients, DEFAULT_ROUNDS));
+            }
+        }
+    }
+
+    /**
+     * Runs a configuration in a new JVM with the same class path
+     *
+     * @param mode    The transport and thread mode
+     * @param clients The number of clients
+     * @param rounds  The number of round trips of each client
+     * @return The formatted result or the error of the run
+     * @throws IOException          When the JVM can't be started
+     * @throws InterruptedException When the thread is interrupted
+     */
+    private static String fork(String mode, int clients, int rounds) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                LoadBenchmark.class.getName(), "--run", mode, String.valueOf(clients), String.valueOf(rounds));
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        String result = null;
+        String lastLine = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // The log of the server is discarded
+                if (line.startsWith("RESULT "))
+                    result = line.substring("RESULT ".length());
+                else if (line.contains("Exception") || line.contains("Error"))
+                    lastLine = line;
+            }
+        }
+        process.waitFor();
+        if (result != null)
+            return result;
+        return String.format(Locale.ROOT, "%-16s %8d   failed: %s", mode, clients, lastLine);
+    }
+
+    /**
+     * Starts a server in a certain mode, connects the clients and measures the round trips
+     *
+     * @param mode    The transport and thread mode
+     * @param clients The number of clients
+     * @param rounds  The number of round trips of each client
+     * @return The result of the run
+     * @throws Exception When the server can't be started or the clients don't receive the answers in time
+     */
+    static Result run(String mode, int clients, int rounds) throws Exception {
+        boolean wasVirtual = ServerThreads.isVirtual();
+        Lobby lobby = new Lobby();
+        int port;
+        NioServer nioServer = null;
+        ServerSocket serverSocket = null;
+        if (mode.equals("nio")) {
+            nioServer = new NioServer(lobby, 0, Math.max(Runtime.getRuntime().availableProcessors() / 2, 1));
+            port = nioServer.getPort();
+            Thread acceptThread = new Thread(nioServer::acceptClients, "Benchmark accept");
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+        } else {
+            if (!ServerThreads.setVirtual(mode.equals("socket-virtual")))
+                throw new IllegalStateException("Virtual threads aren't supported by this runtime");
+            serverSocket = new ServerSocket(0, clients);
+            port = serverSocket.getLocalPort();
+            ServerSocket acceptSocket = serverSocket;
+            Thread acceptThread = new Thread(() -> {
+                while (!acceptSocket.isClosed()) {
+                    try {
+                        lobby.connect(acceptSocket.accept());
+                    } catch (IOException ignored) {
+                    }
+                }
+            }, "Benchmark accept");
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+        }
+
+        Snapshot before = Snapshot.take();
+        byte[] request = FrameCodec.encode(new SetUpGame(NICKNAME, new Date(), 0));
+        List<LoadClient> loadClients = new ArrayList<>();
+        try (Selector selector = Selector.open()) {
+            InetSocketAddress address = new InetSocketAddress("localhost", port);
+            for (int i = 0; i < clients; i++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.configureBlocking(false);
+                LoadClient loadClient = new LoadClient(channel);
+                channel.register(selector, SelectionKey.OP_READ, loadClient);
+                loadClients.add(loadClient);
+            }
+            // Every client receives the set up request when it connects
+            awaitReplies(selector, loadClients, 1);
+            Snapshot connected = Snapshot.take();
+
+            long startTime = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (LoadClient loadClient : loadClients) {
+                    loadClient.send(request);
+                }
+                awaitReplies(selector, loadClients, round + 2);
+            }
+            long elapsedTime = System.nanoTime() - startTime;
+
+            int roundTrips = 0;
+            for (LoadClient loadClient : loadClients) {
+                // The first set up request isn't an answer
+                roundTrips += loadClient.replies - 1;
+            }
+            return new Result(mode, clients, connected.threads - before.threads,
+                    connected.heapBytes - before.heapBytes, connected.rssBytes - before.rssBytes, roundTrips,
+                    (long) clients * rounds * 1_000_000_000L / Math.max(elapsedTime, 1));
+        } finally {
+            for (LoadClient loadClient : loadClients) {
+                loadClient.channel.close();
+            }
+            if (nioServer != null)
+                nioServer.close();
+            if (serverSocket != null)
+                serverSocket.close();
+            ServerThreads.setVirtual(wasVirtual);
+        }
+    }
+
+    /**
+     * Reads the answers of the server until every client has received a certain number of set up requests
+     *
+     * @param selector    The selector of the clients
+     * @param loadClients The clients
+     * @param replies     The number of set up requests each client has to receive
+     * @throws IOException When a client is disconnected or the answers don't arrive in time
+     */
+    private static void awaitReplies(Selector selector, List<LoadClient> loadClients, int replies) throws IOException {
+        int waiting = 0;
+        for (LoadClient loadClient : loadClients) {
+            if (loadClient.replies < replies)
+                waiting++;
+        }
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (waiting > 0) {
+            if (System.currentTimeMillis() > deadline)
+                throw new IOException(waiting + " clients haven't received the answer in time");
+            selector.select(1000);
+            for (SelectionKey key : selector.selectedKeys()) {
+                LoadClient loadClient = (LoadClient) key.attachment();
+                boolean wasWaiting = loadClient.replies < replies;
+                loadClient.read();
+                if (wasWaiting && loadClient.replies >= replies)
+                    waiting--;
+            }
+            selector.selectedKeys().clear();
+        }
+    }
+
+    /**
+     * A client of the benchmark, served by the selector of the benchmark
+     */
+    private static final class LoadClient {
+        private final SocketChannel channel;
+        private ByteBuffer input;
+        private int replies;
+
+        /**
+         * Constructor: build a LoadClient
+         *
+         * @param channel The non-blocking channel of the client
+         */
+        private LoadClient(SocketChannel channel) {
+            this.channel = channel;
+            this.input = ByteBuffer.allocate(1024);
+            this.replies = 0;
+        }
+
+        /**
+         * Writes a frame, the frames of the benchmark are small enough to be written at once
+         *
+         * @param frame The frame
+         * @throws IOException When the client is disconnected
+         */
+        private void send(byte[] frame) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        /**
+         * Reads the available frames and counts the set up requests, the pings are skipped
+         *
+         * @throws IOException When the client is disconnected or a frame is corrupted
+         */
+        private void read() throws IOException {
+            if (channel.read(input) < 0)
+                throw new IOException("The server has closed the connection");
+            input.flip();
+            while (input.remaining() >= FrameCodec.HEADER_SIZE) {
+                int length = input.getInt(input.position());
+                if (input.remaining() < FrameCodec.HEADER_SIZE + length)
+                    break;
+                try {
+                    Message message = FrameCodec.decode(input.array(), input.position() + FrameCodec.HEADER_SIZE, length);
+                    if (message instanceof SetUpGame)
+                        replies++;
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+                input.position(input.position() + FrameCodec.HEADER_SIZE + length);
+            }
+            int required = input.remaining() < FrameCodec.HEADER_SIZE ? FrameCodec.HEADER_SIZE :
+                    FrameCodec.HEADER_SIZE + input.getInt(input.position());
+            if (required > input.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(required);
+                bigger.put(input);
+                input = bigger;
+            } else {
+                input.compact();
+            }
+        }
+    }
+
+    /**
+     * The resources used by the process at a certain time
+     */
+    private static final class Snapshot {
+        private final int threads;
+        private final long heapBytes;
+        private final long rssBytes;
+
+        /**
+         * Constructor: build a Snapshot
+         *
+         * @param threads   The number of live platform threads
+         * @param heapBytes The used heap after a garbage collection
+         * @param rssBytes  The resident memory of the process, 0 if it can't be read
+         */
+        private Snapshot(int threads, long heapBytes, long rssBytes) {
+            this.threads = threads;
+            this.heapBytes = heapBytes;
+            this.rssBytes = rssBytes;
+        }
+
+        /**
+         * Measures the process
+         *
+         * @return The snapshot
+         * @throws InterruptedException When the thread is interrupted
+         */
+        private static Snapshot take() throws InterruptedException {
+            System.gc();
+            Thread.sleep(200);
+            return new Snapshot(ManagementFactory.getThreadMXBean().getThreadCount(),
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), readRss());
+        }
+
+        /**
+         * Reads the resident memory of the process on Linux
+         *
+         * @return The resident memory in bytes, 0 if it can't be read
+         */
+        private static long readRss() {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                    if (line.startsWith("VmRSS:"))
+                        return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024L;
+                }
+            } catch (IOException | NumberFormatException ignored) {
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * The result of a run: the resources added by the connections and the throughput of the round trips
+     */
+    static final class Result {
+        private final String mode;
+        private final int clients;
+        private final int threads;
+        private final long heapBytes;
+        private final long rssBytes;
+        private final int roundTrips;
+        private final long roundTripsPerSecond;
+
+        /**
+         * Constructor: build a Result
+         *
+         * @param mode                The transport and thread mode
+         * @param clients             The number of clients
+         * @param threads             The platform threads added by the connections
+         * @param heapBytes           The heap added by the connections
+         * @param rssBytes            The resident memory added by the connections
+         * @param roundTrips          The round trips completed by all the clients
+         * @param roundTripsPerSecond The round trips completed per second
+         */
+        private Result(String mode, int clients, int threads, long heapBytes, long rssBytes, int roundTrips,
+                       long roundTripsPerSecond) {
+            this.mode = mode;
+            this.clients = clients;
+            this.threads = threads;
+            this.heapBytes = heapBytes;
+            this.rssBytes = rssBytes;
+            this.roundTrips = roundTrips;
+            this.roundTripsPerSecond = roundTripsPerSecond;
+        }
+
+        /**
+         * Gets the round trips completed by all the clients
+         *
+         * @return The number of round trips
+         */
+        int getRoundTrips() {
+            return roundTrips;
+        }
+
+        /**
+         * Gets the round trips completed per second
+         *
+         * @return The throughput
+         */
+        long getRoundTripsPerSecond() {
+            return roundTripsPerSecond;
+        }
+
+        /**
+         * Formats the result as a line of the table
+         *
+         * @return The formatted result
+         */
+        String format() {
+            return String.format(Locale.ROOT, "%-16s %8d %8d %10.1f %10.1f %12.2f %12.2f %14d",
+                    mode, clients, threads, heapBytes / 1048576.0, rssBytes / 1048576.0,
+                    heapBytes / 1024.0 / clients, rssBytes / 1024.0 / clients, roundTripsPerSecond);
+        }
+    }
+}
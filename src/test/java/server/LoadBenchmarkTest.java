@@ -0,0 +1,32 @@
+package server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class LoadBenchmarkTest {
+
+    @Test
+    public void run_socketPlatformAndNio_allRoundTripsCompleted() throws Exception {
+        boolean wasVirtual = ServerThreads.isVirtual();
+
+        LoadBenchmark.Result socketResult = LoadBenchmark.run("socket-platform", 20, 3);
+        LoadBenchmark.Result nioResult = LoadBenchmark.run("nio", 20, 3);
+
+        assertEquals(60, socketResult.getRoundTrips());
+        assertEquals(60, nioResult.getRoundTrips());
+        assertEquals(wasVirtual, ServerThreads.isVirtual());
+    }
+
+    @Test
+    public void run_socketVirtual_allRoundTripsCompleted() throws Exception {
+        assumeTrue(ServerThreads.isVirtualSupported());
+        boolean wasVirtual = ServerThreads.isVirtual();
+
+        LoadBenchmark.Result virtualResult = LoadBenchmark.run("socket-virtual", 20, 3);
+
+        assertEquals(60, virtualResult.getRoundTrips());
+        assertEquals(wasVirtual, ServerThreads.isVirtual());
+    }
+}
@@ -0,0 +1,91 @@
+package server;
+
+import network.FrameCodec;
+import network.Message;
+import network.messages.SetUpGame;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LobbyTest {
+
+    @Test
+    public void join_burstOfClientsWithSilentClient_roomsFormed() throws Exception {
+        Lobby lobby = new Lobby();
+        List<Socket> sockets = new ArrayList<>();
+        ExecutorService clients = Executors.newCachedThreadPool();
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Thread acceptThread = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        lobby.connect(serverSocket.accept());
+                    } catch (IOException ignored) {
+                    }
+                }
+            });
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+
+            // A client that never sends anything must not delay the others
+            Socket silentSocket = new Socket("localhost", serverSocket.getLocalPort());
+            sockets.add(silentSocket);
+
+            List<Future<Socket>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                int numPlayers = i % 2 == 0 ? 2 : 3;
+                String nickname = "Player" + i;
+                futures.add(clients.submit(() -> joinGame(serverSocket.getLocalPort(), nickname, numPlayers)));
+            }
+            for (Future<Socket> future : futures) {
+                sockets.add(future.get(10, TimeUnit.SECONDS));
+            }
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while ((lobby.getCreatedRooms() < 5 || lobby.getWaitingPlayers(2) + lobby.getWaitingPlayers(3) > 0) &&
+                    System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(5, lobby.getCreatedRooms());
+            assertEquals(0, lobby.getWaitingPlayers(2));
+            assertEquals(0, lobby.getWaitingPlayers(3));
+        } finally {
+            clients.shutdownNow();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Connects a client and answers the set up request of the server
+     *
+     * @param port       The port of the server
+     * @param nickname   The nickname of the user
+     * @param numPlayers The number of players chosen by the user
+     * @return The connected socket
+     * @throws Exception When the connection fails
+     */
+    private static Socket joinGame(int port, String nickname, int numPlayers) throws Exception {
+        Socket socket = new Socket("localhost", port);
+        DataInputStream input = new DataInputStream(socket.getInputStream());
+        Message message;
+        do {
+            // Skips the pings
+            message = FrameCodec.read(input);
+        } while (!(message instanceof SetUpGame));
+        FrameCodec.write(socket.getOutputStream(), new SetUpGame(nickname, new Date(), numPlayers));
+        return socket;
+    }
+}
@@ -0,0 +1,170 @@
+package server;
+
+import network.FrameCodec;
+import network.Message;
+import network.messages.SetUpGame;
+import network.messages.ShowDisconnection;
+import network.ping.PingMessage;
+import org.junit.Test;
+import util.MessageType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NioServerTest {
+
+    @Test
+    public void acceptClients_manyIdleClients_fixedThreads() throws Exception {
+        Lobby lobby = new Lobby();
+        NioServer server = new NioServer(lobby, 0, 2);
+        Thread acceptThread = new Thread(server::acceptClients);
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        int threads = Thread.activeCount();
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                Socket socket = new Socket("localhost", server.getPort());
+                sockets.add(socket);
+                assertTrue(readSetUpGame(socket) instanceof SetUpGame);
+            }
+
+            assertEquals(200, server.getConnections());
+            assertTrue(Thread.activeCount() - threads < 20);
+        } finally {
+            server.close();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    public void onReadable_fragmentedAndCoalescedFrames_roomFormed() throws Exception {
+        Lobby lobby = new Lobby();
+        NioServer server = new NioServer(lobby, 0, 1);
+        Thread acceptThread = new Thread(server::acceptClients);
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        try (Socket first = new Socket("localhost", server.getPort());
+             Socket second = new Socket("localhost", server.getPort())) {
+            readSetUpGame(first);
+            readSetUpGame(second);
+
+            // The first client sends its frame one byte at a time
+            byte[] frame = FrameCodec.encode(new SetUpGame("Joe", new Date(), 2));
+            OutputStream firstOutput = first.getOutputStream();
+            for (byte b : frame) {
+                firstOutput.write(b);
+                firstOutput.flush();
+                Thread.sleep(1);
+            }
+
+            // The second client sends its frame and a ping with a single write
+            ByteArrayOutputStream frames = new ByteArrayOutputStream();
+            FrameCodec.write(frames, new SetUpGame("Ann", new Date(), 2));
+            FrameCodec.write(frames, new PingMessage(false));
+            second.getOutputStream().write(frames.toByteArray());
+            second.getOutputStream().flush();
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while ((lobby.getCreatedRooms() < 1 || lobby.getWaitingPlayers(2) > 0) &&
+                    System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, lobby.getCreatedRooms());
+            assertEquals(0, lobby.getWaitingPlayers(2));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void onReadable_frameThrowsDuringGame_otherPlayerNotified() throws Exception {
+        Lobby lobby = new Lobby();
+        NioServer server = new NioServer(lobby, 0, 1);
+        Thread acceptThread = new Thread(server::acceptClients);
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        try (Socket first = new Socket("localhost", server.getPort());
+             Socket second = new Socket("localhost", server.getPort())) {
+            first.setSoTimeout(10000);
+            second.setSoTimeout(10000);
+            readSetUpGame(first);
+            readSetUpGame(second);
+            FrameCodec.write(first.getOutputStream(), new SetUpGame("Joe", new Date(), 2));
+            FrameCodec.write(second.getOutputStream(), new SetUpGame("Ann", new Date(), 2));
+            long deadline = System.currentTimeMillis() + 10000;
+            while ((lobby.getCreatedRooms() < 1 || lobby.getWaitingPlayers(2) > 0) &&
+                    System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // Decoding the frame throws on the event loop
+            FrameCodec.write(first.getOutputStream(), new ThrowingMessage());
+
+            DataInputStream secondInput = new DataInputStream(second.getInputStream());
+            Message message;
+            do {
+                message = FrameCodec.read(secondInput);
+            } while (!(message instanceof ShowDisconnection));
+            assertTrue(isClosedByServer(first));
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Reads a socket until the server closes it
+     *
+     * @param socket The socket of the client
+     * @return True if the server has closed the connection
+     * @throws Exception When the connection fails or the read times out
+     */
+    private static boolean isClosedByServer(Socket socket) throws Exception {
+        byte[] buffer = new byte[1 << 16];
+        while (socket.getInputStream().read(buffer) >= 0) {
+            // Skips the messages sent before the disconnection
+        }
+        return true;
+    }
+
+    /**
+     * A message that fails with a runtime exception when the server decodes it
+     */
+    private static class ThrowingMessage implements Message, Serializable {
+
+        public MessageType getType() {
+            return MessageType.SYS;
+        }
+
+        private void readObject(ObjectInputStream input) {
+            throw new IllegalStateException("Broken message");
+        }
+    }
+
+    /**
+     * Reads the messages of the server until the set up request
+     *
+     * @param socket The socket of the client
+     * @return The set up request
+     * @throws Exception When the connection fails
+     */
+    private static Message readSetUpGame(Socket socket) throws Exception {
+        DataInputStream input = new DataInputStream(socket.getInputStream());
+        Message message;
+        do {
+            message = FrameCodec.read(input);
+        } while (!(message instanceof SetUpGame));
+        return message;
+    }
+}
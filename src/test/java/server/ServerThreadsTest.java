@@ -0,0 +1,42 @@
+package server;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ServerThreadsTest {
+
+    @After
+    public void tearDown() {
+        ServerThreads.setVirtual(false);
+    }
+
+    @Test
+    public void setVirtual_anyRuntime_modeMatchesSupport() throws Exception {
+        assertEquals(ServerThreads.isVirtualSupported(), ServerThreads.setVirtual(true));
+        assertEquals(ServerThreads.isVirtualSupported(), ServerThreads.isVirtual());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = ServerThreads.start(latch::countDown, "Test");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(ServerThreads.isVirtualSupported(), thread.isDaemon());
+    }
+
+    @Test
+    public void newThread_platformMode_daemonAsRequested() {
+        ServerThreads.setVirtual(false);
+
+        Thread daemon = ServerThreads.newThread(() -> {
+        }, "Daemon", true);
+        Thread user = ServerThreads.newThread(() -> {
+        }, "User", false);
+
+        assertTrue(daemon.isDaemon());
+        assertFalse(user.isDaemon());
+        assertEquals("User", user.getName());
+    }
+}
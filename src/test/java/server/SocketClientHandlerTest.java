@@ -0,0 +1,86 @@
+package server;
+
+import network.FrameCodec;
+import network.Message;
+import org.junit.Test;
+import util.MessageType;
+
+import java.io.DataInputStream;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SocketClientHandlerTest {
+
+    private static final int PAYLOAD_SIZE = 128 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Test
+    public void send_clientNotReading_sendsDontBlockAndFramesDelivered() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0); Socket client = connect(serverSocket);
+             Socket accepted = serverSocket.accept()) {
+            accepted.setSendBufferSize(BUFFER_SIZE);
+            SocketClientHandler handler = new SocketClientHandler(null, accepted);
+            ExecutorService gameThread = Executors.newSingleThreadExecutor();
+
+            // Much more than the buffers of the sockets can hold while the client doesn't read
+            gameThread.submit(() -> {
+                for (int i = 0; i < 16; i++) {
+                    handler.send(new PayloadMessage(i));
+                }
+            }).get(5, TimeUnit.SECONDS);
+            gameThread.shutdown();
+
+            DataInputStream input = new DataInputStream(client.getInputStream());
+            for (int i = 0; i < 16; i++) {
+                assertEquals(i, ((PayloadMessage) FrameCodec.read(input)).index);
+            }
+            assertTrue(handler.isConnected());
+        }
+    }
+
+    @Test
+    public void send_queueTooLong_disconnected() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0); Socket client = connect(serverSocket);
+             Socket accepted = serverSocket.accept()) {
+            accepted.setSendBufferSize(BUFFER_SIZE);
+            SocketClientHandler handler = new SocketClientHandler(null, accepted);
+
+            for (int i = 0; i < 64 && handler.isConnected(); i++) {
+                handler.send(new PayloadMessage(i));
+            }
+
+            assertFalse(handler.isConnected());
+        }
+    }
+
+    private static Socket connect(ServerSocket serverSocket) throws Exception {
+        Socket client = new Socket();
+        client.setReceiveBufferSize(BUFFER_SIZE);
+        client.connect(new InetSocketAddress("localhost", serverSocket.getLocalPort()));
+        return client;
+    }
+
+    /**
+     * A large message with its position in the sequence of the sent messages
+     */
+    private static class PayloadMessage implements Message, Serializable {
+        private final int index;
+        private final byte[] payload;
+
+        private PayloadMessage(int index) {
+            this.index = index;
+            this.payload = new byte[PAYLOAD_SIZE];
+        }
+
+        public MessageType getType() {
+            return MessageType.SYS;
+        }
+    }
+}
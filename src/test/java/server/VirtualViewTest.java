@@ -0,0 +1,51 @@
+package server;
+
+import model.Game;
+import network.Message;
+import network.ping.PingMessage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VirtualViewTest {
+
+    @Test
+    public void sendToEveryone_clientJoinsDuringBroadcast_broadcastCompleted() {
+        Controller controller = new Controller(new Game());
+        VirtualView virtualView = new VirtualView(controller);
+        List<Message> received = new ArrayList<>();
+        ClientHandler joiningClient = new ClientHandler(null, Runnable::run) {
+            public void send(Message message) {
+            }
+
+            public void close() {
+            }
+        };
+        // The first client is being sent the message while the lobby seats another client
+        virtualView.addClientHandler(new ClientHandler(null, Runnable::run) {
+            public void send(Message message) {
+                received.add(message);
+                virtualView.addClientHandler(joiningClient);
+            }
+
+            public void close() {
+            }
+        });
+        virtualView.addClientHandler(new ClientHandler(null, Runnable::run) {
+            public void send(Message message) {
+                received.add(message);
+            }
+
+            public void close() {
+            }
+        });
+
+        virtualView.sendToEveryone(new PingMessage(true));
+
+        assertEquals(2, received.size());
+        assertSame(joiningClient, virtualView.getClientHandlerByNickname(joiningClient.getNickname()));
+    }
+}
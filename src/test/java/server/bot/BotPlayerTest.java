@@ -0,0 +1,33 @@
+package server.bot;
+
+import model.Game;
+import model.Player;
+import org.junit.Test;
+import server.Controller;
+import server.VirtualView;
+
+import static org.junit.Assert.*;
+
+public class BotPlayerTest {
+
+    @Test
+    public void gameStarter_onlyBots_gameEndsWithWinner() throws Exception {
+        Game game = new Game();
+        Controller controller = new Controller(game);
+        controller.setVirtualView(new VirtualView(controller));
+        controller.setNumPlayers(2);
+        controller.addBot(5);
+        controller.addBot(5);
+
+        controller.gameStarter();
+
+        int winners = 0;
+        for (Player player : game.getAllPlayers()) {
+            assertTrue(player instanceof BotPlayer);
+            assertNotNull(player.getCard());
+            if (player.isWinner())
+                winners++;
+        }
+        assertEquals(1, winners);
+    }
+}
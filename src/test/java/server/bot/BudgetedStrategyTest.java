@@ -0,0 +1,126 @@
+package server.bot;
+
+import model.Card;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import server.engine.Perft;
+import server.engine.Position;
+import util.Configurator;
+import util.IntActionBuffer;
+import util.RoundActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BudgetedStrategyTest {
+    private static Position position;
+    private static RoundActions possibleActions;
+    private static volatile boolean isReleased;
+
+    @Before
+    public void setUp() {
+        List<Card> cards = Configurator.getAllCards();
+        position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+        IntActionBuffer buffer = new IntActionBuffer();
+        position.generate(buffer);
+        possibleActions = buffer.toRoundActions();
+        isReleased = false;
+    }
+
+    @After
+    public void tearDown() {
+        isReleased = true;
+        position = null;
+        possibleActions = null;
+    }
+
+    @Test
+    public void chooseAction_cheapStrategy_actionOfStrategy() {
+        int lastAction = possibleActions.getCode(possibleActions.size() - 1);
+        BudgetedStrategy strategy = new BudgetedStrategy((position, actions) -> actions.getCode(actions.size() - 1), 1000, 0);
+
+        assertEquals(lastAction, strategy.chooseAction(position, possibleActions));
+        assertEquals(1, strategy.getDecisions());
+        assertEquals(0, strategy.getViolations());
+        assertFalse(strategy.isSuspended());
+    }
+
+    @Test
+    public void chooseAction_spinningStrategy_cancelledWithPossibleAction() {
+        BotStrategy spinningStrategy = new BotStrategy() {
+            private volatile boolean isCancelled;
+
+            public int chooseAction(Position position, RoundActions actions) {
+                isCancelled = false;
+                while (!isCancelled) {
+                    // Burn CPU until the budget is exceeded
+                }
+                return actions.getCode(0);
+            }
+
+            public void cancel() {
+                isCancelled = true;
+            }
+        };
+        BudgetedStrategy strategy = new BudgetedStrategy(spinningStrategy, 20, 0);
+
+        assertTrue(possibleActions.contains(strategy.chooseAction(position, possibleActions)));
+        assertEquals(1, strategy.getViolations());
+        assertTrue(strategy.getLastCpuTime() >= 20_000_000L);
+        assertFalse(strategy.isSuspended());
+
+        strategy.chooseAction(position, possibleActions);
+        strategy.chooseAction(position, possibleActions);
+        assertTrue(strategy.isSuspended());
+        assertEquals(3, strategy.getDecisions());
+    }
+
+    @Test
+    public void chooseAction_allocatingStrategy_cancelled() {
+        BotStrategy allocatingStrategy = (position, actions) -> {
+            List<byte[]> blocks = new ArrayList<>();
+            while (!Thread.currentThread().isInterrupted()) {
+                blocks.add(new byte[64 * 1024]);
+                if (blocks.size() > 64)
+                    blocks.clear();
+            }
+            return actions.getCode(0);
+        };
+        BudgetedStrategy strategy = new BudgetedStrategy(allocatingStrategy, 0, 4 * 1024 * 1024);
+
+        assertTrue(possibleActions.contains(strategy.chooseAction(position, possibleActions)));
+        assertEquals(1, strategy.getViolations());
+        assertTrue(strategy.getLastAllocatedBytes() > 4 * 1024 * 1024);
+        assertFalse(strategy.isSuspended());
+    }
+
+    @Test
+    public void chooseAction_strategyIgnoringCancel_suspended() {
+        BudgetedStrategy strategy = new BudgetedStrategy((position, actions) -> {
+            while (!isReleased) {
+                // Ignore the cancellation and the interruption
+            }
+            return actions.getCode(0);
+        }, 20, 0);
+
+        assertTrue(possibleActions.contains(strategy.chooseAction(position, possibleActions)));
+        assertTrue(strategy.isSuspended());
+        assertTrue(possibleActions.contains(strategy.chooseAction(position, possibleActions)));
+        assertEquals(1, strategy.getDecisions());
+    }
+
+    @Test
+    public void of_pluggedStrategy_strategyOfProvider() {
+        BotStrategy strategy = BotStrategy.of("first", 10, 1);
+
+        assertEquals(possibleActions.getCode(0), strategy.chooseAction(position, possibleActions));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_unknownStrategy_exception() {
+        BotStrategy.of("unknown", 10, 1);
+    }
+}
@@ -0,0 +1,83 @@
+package server.bot;
+
+import model.Card;
+import org.junit.Test;
+import server.engine.EndgameSolver;
+import server.engine.Perft;
+import server.engine.Position;
+import util.Configurator;
+import util.IntActionBuffer;
+import util.RoundActions;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EndgameStrategyTest {
+
+    private static final long MOVE_TIME = 50;
+
+    @Test
+    public void chooseAction_lateGame_searchGetsOnlyRemainingTime() {
+        List<Card> cards = Configurator.getAllCards();
+        Random random = new Random(1);
+        int checkedPositions = 0;
+        for (int i = 0; i < 4 * cards.size(); i++) {
+            Position position = EndgameSolver.createEndgamePosition(cards.get(i % cards.size()),
+                    cards.get((i + 1) % cards.size()), 32, random);
+            if (position == null)
+                continue;
+            checkedPositions++;
+            RecordingStrategy search = new RecordingStrategy();
+            EndgameStrategy strategy = new EndgameStrategy(search, MOVE_TIME);
+            RoundActions possibleActions = possibleActionsOf(position);
+
+            long startTime = System.nanoTime();
+            int code = strategy.chooseAction(position, possibleActions);
+
+            assertTrue(possibleActions.contains(code));
+            // The solve and the search share the time of the action, up to the calls between the measures
+            if (search.timeBudget >= 0)
+                assertTrue(search.startTime - startTime + search.timeBudget <= (MOVE_TIME + 1) * 1_000_000L);
+        }
+        assertTrue(checkedPositions > 0);
+    }
+
+    @Test
+    public void chooseAction_shortBudget_searchGetsTheBudget() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+        RecordingStrategy search = new RecordingStrategy();
+        EndgameStrategy strategy = new EndgameStrategy(search, MOVE_TIME);
+
+        strategy.chooseAction(position, possibleActionsOf(position), 5_000_000L);
+
+        assertTrue(search.timeBudget >= 0);
+        assertTrue(search.timeBudget <= 5_000_000L);
+    }
+
+    private static RoundActions possibleActionsOf(Position position) {
+        IntActionBuffer buffer = new IntActionBuffer();
+        position.generate(buffer);
+        return buffer.toRoundActions();
+    }
+
+    /**
+     * A strategy that plays the first possible action and records the time it has been given
+     */
+    private static class RecordingStrategy implements BotStrategy {
+        private long timeBudget = -1;
+        private long startTime;
+
+        public int chooseAction(Position position, RoundActions possibleActions) {
+            return chooseAction(position, possibleActions, Long.MAX_VALUE);
+        }
+
+        public int chooseAction(Position position, RoundActions possibleActions, long timeBudget) {
+            this.startTime = System.nanoTime();
+            this.timeBudget = timeBudget;
+            return possibleActions.getCode(0);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package server.bot;
+
+/**
+ * Provider of a plugged-in strategy that always chooses the first possible action
+ */
+public class FirstActionStrategyProvider implements BotStrategyProvider {
+
+    public String getName() {
+        return "first";
+    }
+
+    public BotStrategy create(long moveTime, int workers) {
+        return (position, possibleActions) -> possibleActions.getCode(0);
+    }
+}
@@ -0,0 +1,39 @@
+package server.bot;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TournamentTest {
+
+    @Test
+    public void play_randomBots_everyGameRecorded() throws Exception {
+        Tournament tournament = new Tournament(2, Arrays.asList("random", "alphabeta:1"), 2);
+
+        tournament.play(4);
+
+        assertEquals(4, tournament.getPlayedGames());
+        assertEquals(0, tournament.getFailedGames());
+        assertTrue(tournament.getAveragePlies() > 0);
+        int cardGames = 0;
+        double winRates = 0;
+        for (String cardName : tournament.getPlayedCards()) {
+            cardGames += tournament.getGamesOf(cardName);
+            winRates += tournament.getWinRateOf(cardName) * tournament.getGamesOf(cardName);
+        }
+        assertEquals(8, cardGames);
+        assertEquals(4, winRates, 0.001);
+    }
+
+    @Test
+    public void play_unknownStrategy_failedGames() throws Exception {
+        Tournament tournament = new Tournament(2, Arrays.asList("unknown"), 1);
+
+        tournament.play(2);
+
+        assertEquals(0, tournament.getPlayedGames());
+        assertEquals(2, tournament.getFailedGames());
+    }
+}
@@ -0,0 +1,50 @@
+package server.engine;
+
+import model.Board;
+import model.Card;
+import org.junit.Test;
+import util.*;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AlphaBetaSearchTest {
+
+    @Test
+    public void search_winningMoveAvailable_winningMove() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(3), cards.get(4));
+        Board board = position.getGame().getBoard();
+        // The male worker is on the second floor next to a third floor
+        board.getCell(1, 1).addFloor();
+        board.getCell(1, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        long hash = position.hash();
+
+        AlphaBetaSearch search = new AlphaBetaSearch(position);
+        int code = search.search(200_000_000L);
+
+        assertEquals(new Action(ActionType.MOVE, Genre.MALE, Direction.N, 1).encode(), code);
+        assertTrue(search.getBestScore() >= AlphaBetaSearch.WIN_SCORE - 64);
+        assertEquals(hash, position.hash());
+    }
+
+    @Test
+    public void search_timeBudget_completesIterationsAndRestoresPosition() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+        long hash = position.hash();
+        IntActionBuffer legalActions = new IntActionBuffer();
+        position.generate(legalActions);
+
+        AlphaBetaSearch search = new AlphaBetaSearch(position);
+        int code = search.search(50_000_000L);
+
+        assertTrue(search.getCompletedDepth() >= 1);
+        assertTrue(legalActions.toRoundActions().contains(code));
+        assertEquals(hash, position.hash());
+    }
+}
@@ -0,0 +1,135 @@
+package server.engine;
+
+import model.Card;
+import model.Player;
+import org.junit.Test;
+import server.rules.UndoRecord;
+import util.Configurator;
+import util.IntActionBuffer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EndgameSolverTest {
+
+    private static final int MAX_NODES = 50_000;
+
+    /**
+     * Solves a position with a plain recursion: {mover, result, distance} like the values of the table
+     */
+    private static int[] solveByRecursion(Position position, Map<Long, int[]> results) {
+        IntActionBuffer buffer = new IntActionBuffer();
+        if (!position.getCurrentPlayer().getRoundActions().hasEnded())
+            position.generate(buffer);
+        if (buffer.size() == 0 || Position.mustEnd(buffer)) {
+            position.nextTurn();
+            int[] result = solveByRecursion(position, results);
+            position.previousTurn();
+            return result;
+        }
+
+        long key = position.hash();
+        if (results.containsKey(key))
+            return results.get(key);
+        int mover = position.getCurrentPlayer().getColor().ordinal();
+        int[] result = null;
+        if (Position.hasLost(buffer))
+            result = new int[]{mover, EndgameTable.LOSS, 0};
+        for (int i = 0; i < buffer.size() && result == null; i++) {
+            long record = position.play(buffer.get(i));
+            position.undo(record);
+            if (UndoRecord.isWinner(record))
+                result = new int[]{mover, EndgameTable.WIN, 1};
+        }
+        if (result == null) {
+            int shortestWin = Integer.MAX_VALUE;
+            int longestLoss = 0;
+            for (int i = 0; i < buffer.size(); i++) {
+                long record = position.play(buffer.get(i));
+                int[] child = solveByRecursion(position, results);
+                position.undo(record);
+                if ((child[1] == EndgameTable.WIN) == (child[0] == mover))
+                    shortestWin = Math.min(shortestWin, child[2] + 1);
+                else
+                    longestLoss = Math.max(longestLoss, child[2] + 1);
+            }
+            result = shortestWin != Integer.MAX_VALUE ? new int[]{mover, EndgameTable.WIN, shortestWin} :
+                    new int[]{mover, EndgameTable.LOSS, longestLoss};
+        }
+        results.put(key, result);
+        return result;
+    }
+
+    @Test
+    public void solve_smallEndgames_sameAsRecursion() {
+        List<Card> cards = Configurator.getAllCards();
+        int checkedPositions = 0;
+        for (int builds : new int[]{32, 36}) {
+            Random random = new Random(1);
+            for (int i = 0; i < cards.size(); i++) {
+                checkedPositions += checkEndgame(EndgameSolver.createEndgamePosition(cards.get(i),
+                        cards.get((i + 1) % cards.size()), builds, random));
+            }
+        }
+        assertTrue(checkedPositions > 1000);
+    }
+
+    private static int checkEndgame(Position position) {
+        if (position == null)
+            return 0;
+        long hash = position.hash();
+        EndgameSolver solver = new EndgameSolver(MAX_NODES, 3);
+        EndgameTable table = solver.solve(position, Long.MAX_VALUE / 2);
+        assertEquals(hash, position.hash());
+        if (solver.getNodeCount() >= MAX_NODES)
+            return 0;
+
+        Map<Long, int[]> results = new HashMap<>();
+        solveByRecursion(position, results);
+        assertEquals(results.size(), table.size());
+        for (Map.Entry<Long, int[]> entry : results.entrySet()) {
+            int value = table.probe(entry.getKey());
+            assertEquals(entry.getValue()[1], EndgameTable.resultOf(value));
+            assertEquals(entry.getValue()[2], EndgameTable.distanceOf(value));
+        }
+        return results.size();
+    }
+
+    @Test
+    public void solve_threePlayers_null() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+        position.getGame().setNumPlayers(3);
+        position.getGame().addPlayer(new Player("Third", new Date(3000), false));
+
+        assertNull(new EndgameSolver(MAX_NODES, 1).solve(position, Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void solve_singleWorkerReused_sameTableOnCallingThread() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = null;
+        Random random = new Random(1);
+        for (int i = 0; position == null; i++) {
+            position = EndgameSolver.createEndgamePosition(cards.get(i), cards.get(i + 1), 32, random);
+        }
+        EndgameTable expected = new EndgameSolver(MAX_NODES, 3).solve(position, Long.MAX_VALUE / 2);
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        EndgameSolver solver = new EndgameSolver(MAX_NODES, 1);
+        long startedThreads = threadBean.getTotalStartedThreadCount();
+
+        for (int i = 0; i < 2; i++) {
+            EndgameTable table = solver.solve(position, Long.MAX_VALUE / 2);
+            assertEquals(expected.size(), table.size());
+            assertEquals(expected.probe(position), table.probe(position));
+        }
+        assertEquals(startedThreads, threadBean.getTotalStartedThreadCount());
+    }
+}
@@ -0,0 +1,40 @@
+package server.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EndgameTableTest {
+
+    @Test
+    public void probe_storedEntry_sameFields() {
+        EndgameTable table = new EndgameTable(4);
+        table.put(0x1234_5678_9ABCL, EndgameTable.valueOf(EndgameTable.LOSS, 17, 0x1ABC));
+
+        int value = table.probe(0x1234_5678_9ABCL);
+
+        assertEquals(EndgameTable.LOSS, EndgameTable.resultOf(value));
+        assertEquals(17, EndgameTable.distanceOf(value));
+        assertEquals(0x1ABC, EndgameTable.actionOf(value));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void probe_keysOfSameSlot_bothFound() {
+        EndgameTable table = new EndgameTable(2);
+        table.put(0x100L, EndgameTable.valueOf(EndgameTable.WIN, 1, 5));
+        table.put(0x200L, EndgameTable.valueOf(EndgameTable.WIN, 3, 7));
+
+        assertEquals(5, EndgameTable.actionOf(table.probe(0x100L)));
+        assertEquals(7, EndgameTable.actionOf(table.probe(0x200L)));
+        assertEquals(0, table.probe(0x300L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void put_fullTable_exception() {
+        EndgameTable table = new EndgameTable(1);
+        for (long key = 1; key <= 3; key++) {
+            table.put(key, EndgameTable.valueOf(EndgameTable.WIN, 1, 1));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package server.engine;
+
+import model.Board;
+import model.Card;
+import org.junit.Test;
+import util.*;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MonteCarloSearchTest {
+
+    @Test
+    public void search_winningMoveAvailable_winningMove() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(3), cards.get(4));
+        Board board = position.getGame().getBoard();
+        // The male worker is on the second floor next to a third floor
+        board.getCell(1, 1).addFloor();
+        board.getCell(1, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        long hash = position.hash();
+
+        MonteCarloSearch search = new MonteCarloSearch(2, 1 << 14);
+        int code = search.search(position, 3000, 5_000_000_000L);
+
+        assertEquals(new Action(ActionType.MOVE, Genre.MALE, Direction.N, 1).encode(), code);
+        assertEquals(hash, position.hash());
+    }
+
+    @Test
+    public void search_limitedPlayouts_statisticsAndLegalAction() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(8), cards.get(0));
+        long hash = position.hash();
+        IntActionBuffer legalActions = new IntActionBuffer();
+        position.generate(legalActions);
+
+        MonteCarloSearch search = new MonteCarloSearch(1, 1 << 12);
+        int code = search.search(position, 500, 5_000_000_000L);
+
+        assertEquals(500, search.getPlayouts());
+        assertTrue(search.getNodeCount() > legalActions.size());
+        assertTrue(search.getTreeMemory() <= search.getAllocatedMemory());
+        assertTrue(legalActions.toRoundActions().contains(code));
+        assertEquals(hash, position.hash());
+    }
+}
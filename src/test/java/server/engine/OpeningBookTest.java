@@ -0,0 +1,63 @@
+package server.engine;
+
+import model.Card;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import util.Configurator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class OpeningBookTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void lookup_writtenBook_storedActionsOnly() throws IOException {
+        Map<Long, Integer> actions = new HashMap<>();
+        actions.put(-5L, 11);
+        actions.put(42L, 22);
+        actions.put(Long.MAX_VALUE, 33);
+        Path path = folder.newFile("book.bin").toPath();
+
+        OpeningBook.write(path, actions);
+        OpeningBook book = OpeningBook.open(path);
+
+        assertEquals(3, book.size());
+        assertEquals(11, book.lookup(-5L));
+        assertEquals(22, book.lookup(42L));
+        assertEquals(33, book.lookup(Long.MAX_VALUE));
+        assertEquals(0, book.lookup(7L));
+    }
+
+    @Test(expected = IOException.class)
+    public void open_otherFile_exception() throws IOException {
+        Path path = folder.newFile("other.bin").toPath();
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+
+        OpeningBook.open(path);
+    }
+
+    @Test
+    public void addOpenings_writtenBook_sameActions() throws IOException {
+        List<Card> cards = Configurator.getAllCards();
+        OpeningBookGenerator generator = new OpeningBookGenerator(2, 1, 2);
+        generator.addOpenings(cards.get(0), cards.get(1));
+        Path path = folder.newFile("generated.bin").toPath();
+        OpeningBook.write(path, generator.getActions());
+        OpeningBook book = OpeningBook.open(path);
+
+        assertEquals(2, book.size());
+        for (Map.Entry<Long, Integer> entry : generator.getActions().entrySet()) {
+            assertEquals((int) entry.getValue(), book.lookup(entry.getKey()));
+        }
+    }
+}
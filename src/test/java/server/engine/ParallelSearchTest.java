@@ -0,0 +1,52 @@
+package server.engine;
+
+import model.Board;
+import model.Card;
+import org.junit.Test;
+import util.*;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelSearchTest {
+
+    @Test
+    public void search_winningMoveAvailable_winningMove() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(3), cards.get(4));
+        Board board = position.getGame().getBoard();
+        // The male worker is on the second floor next to a third floor
+        board.getCell(1, 1).addFloor();
+        board.getCell(1, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        board.getCell(0, 1).addFloor();
+        long hash = position.hash();
+
+        ParallelSearch search = new ParallelSearch(3, 12);
+        int code = search.search(position, 200_000_000L);
+
+        assertEquals(new Action(ActionType.MOVE, Genre.MALE, Direction.N, 1).encode(), code);
+        assertTrue(search.getBestScore() >= AlphaBetaSearch.WIN_SCORE - 64);
+        assertEquals(hash, position.hash());
+    }
+
+    @Test
+    public void search_fixedDepth_sameScoreAsSingleSearch() {
+        List<Card> cards = Configurator.getAllCards();
+        Position position = Perft.createSeedPosition(cards.get(0), cards.get(1));
+        AlphaBetaSearch singleSearch = new AlphaBetaSearch(Position.copyOf(position.getGame(),
+                position.getCurrentPlayer()));
+        singleSearch.search(1, 3, 0, 10_000_000_000L);
+
+        ParallelSearch search = new ParallelSearch(2, 16);
+        int code = search.search(position, 3, 10_000_000_000L);
+        IntActionBuffer legalActions = new IntActionBuffer();
+        position.generate(legalActions);
+
+        assertEquals(3, search.getCompletedDepth());
+        assertEquals(singleSearch.getBestScore(), search.getBestScore());
+        assertTrue(legalActions.toRoundActions().contains(code));
+    }
+}
@@ -0,0 +1,82 @@
+package server.engine;
+
+import model.Card;
+import org.junit.Test;
+import server.rules.UndoRecord;
+import util.Configurator;
+import util.IntActionBuffer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PerftTest {
+
+    private static Card getCard(List<Card> cards, String name) {
+        for (Card card : cards) {
+            if (card.getName().equals(name))
+                return card;
+        }
+        fail("Unknown card " + name);
+        return null;
+    }
+
+    @Test
+    public void count_seedPositions_knownCounts() throws IOException {
+        List<Card> cards = Configurator.getAllCards();
+        int checkedCounts = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(PerftTest.class.getResourceAsStream("/perft.txt")))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] fields = line.split(",");
+                Position position = Perft.createSeedPosition(getCard(cards, fields[0]), getCard(cards, fields[1]));
+                long hash = position.hash();
+
+                long sequences = new Perft(position).count(Integer.parseInt(fields[2]));
+                assertEquals(line, Long.parseLong(fields[3]), sequences);
+                assertEquals(hash, position.hash());
+                checkedCounts++;
+            }
+        }
+        assertEquals(2 * cards.size(), checkedCounts);
+    }
+
+    private static int checkLegalActions(Position position, int depth) {
+        IntActionBuffer buffer = new IntActionBuffer();
+        position.generate(buffer);
+        assertEquals(!Position.hasLost(buffer), position.hasAnyLegalAction());
+        if (Position.hasLost(buffer) || depth == 0)
+            return 1;
+
+        int checkedPositions = 1;
+        if (position.getCurrentPlayer().getRoundActions().hasEnded() || Position.mustEnd(buffer)) {
+            position.nextTurn();
+            checkedPositions += checkLegalActions(position, depth - 1);
+            position.previousTurn();
+            return checkedPositions;
+        }
+        for (int i = 0; i < buffer.size(); i++) {
+            long record = position.play(buffer.get(i));
+            if (!UndoRecord.isWinner(record))
+                checkedPositions += checkLegalActions(position, depth - 1);
+            position.undo(record);
+        }
+        return checkedPositions;
+    }
+
+    @Test
+    public void hasAnyLegalAction_seedPositionsTrees_sameAsGeneration() {
+        List<Card> cards = Configurator.getAllCards();
+        for (Card firstCard : cards) {
+            for (Card secondCard : cards) {
+                if (!firstCard.getName().equals(secondCard.getName()))
+                    assertTrue(checkLegalActions(Perft.createSeedPosition(firstCard, secondCard), 4) > 1);
+            }
+        }
+    }
+}
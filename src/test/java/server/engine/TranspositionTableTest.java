@@ -0,0 +1,32 @@
+package server.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void probe_storedEntry_sameFields() {
+        TranspositionTable table = new TranspositionTable(8);
+        table.store(0x1234_5678_9ABCL, -250, 7, TranspositionTable.UPPER_BOUND, 0x1ABC);
+
+        long data = table.probe(0x1234_5678_9ABCL);
+
+        assertNotEquals(0, data);
+        assertEquals(-250, TranspositionTable.scoreOf(data));
+        assertEquals(7, TranspositionTable.depthOf(data));
+        assertEquals(TranspositionTable.UPPER_BOUND, TranspositionTable.boundOf(data));
+        assertEquals(0x1ABC, TranspositionTable.actionOf(data));
+    }
+
+    @Test
+    public void probe_otherKeyOfSameSlot_missing() {
+        TranspositionTable table = new TranspositionTable(8);
+        table.store(0x100L, 10, 1, TranspositionTable.EXACT, 0);
+
+        assertEquals(0, table.probe(0x200L));
+        table.clear();
+        assertEquals(0, table.probe(0x100L));
+    }
+}
@@ -341,4 +341,92 @@ public class RulesTest {
         assertFalse(hasWin);
         assertEquals(player2.getWorker(Genre.FEMALE).getPosition(), board.getCell(0, 3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void generate_reusedBuffer_sameActionsAsRoundActions() {
+        player1.getWorker(Genre.MALE).setPosition(board.getCell(1, 2));
+        player1.getWorker(Genre.FEMALE).setPosition(board.getCell(3, 4));
+
+        player2.getWorker(Genre.MALE).setPosition(board.getCell(0, 2));
+        player2.getWorker(Genre.FEMALE).setPosition(board.getCell(0, 3));
+
+        board.getCell(1, 3).addFloor();
+
+        IntActionBuffer buffer = new IntActionBuffer(1);
+        rules.generate(player1, game, buffer);
+        assertEquals(rules.nextPossibleActions(player1, game), buffer.toRoundActions());
+
+        buffer.clear();
+        rules.generate(player2, game, buffer);
+        assertEquals(rules.nextPossibleActions(player2, game), buffer.toRoundActions());
+        assertEquals(6, buffer.size());
+    }
+
+    @Test
+    public void undoAction_moveAndBuilds_gameRestored() {
+        player1.getWorker(Genre.MALE).setPosition(board.getCell(1, 2));
+        player1.getWorker(Genre.FEMALE).setPosition(board.getCell(3, 4));
+        player2.getWorker(Genre.MALE).setPosition(board.getCell(0, 2));
+        player2.getWorker(Genre.FEMALE).setPosition(board.getCell(0, 3));
+        board.getCell(2, 2).addFloor();
+        board.getCell(2, 3).addFloor();
+        board.getCell(2, 3).addFloor();
+        board.getCell(2, 3).addFloor();
+        int domeMask = board.getDomeMask();
+        int firstFloorMask = board.getFloorMask(1);
+        int thirdFloorMask = board.getFloorMask(3);
+        long hash = game.positionHash(player1);
+
+        long move = rules.makeAction(new Action(ActionType.MOVE, Genre.MALE, Direction.S, 1).encode(), player1, game);
+        long floor = rules.makeAction(new Action(ActionType.FLOOR, Genre.MALE, Direction.E, 2).encode(), player1, game);
+        assertTrue(board.getCell(2, 3).isCompleteTower());
+        assertEquals(2, player1.getRoundActions().size());
+        assertFalse(UndoRecord.isWinner(move));
+
+        rules.undoAction(floor, player1, game);
+        assertFalse(board.getCell(2, 3).getDome());
+        assertEquals(3, board.getCell(2, 3).getFloor());
+        rules.undoAction(move, player1, game);
+        assertEquals(board.getCell(1, 2), player1.getWorker(Genre.MALE).getPosition());
+        assertEquals(domeMask, board.getDomeMask());
+        assertEquals(firstFloorMask, board.getFloorMask(1));
+        assertEquals(thirdFloorMask, board.getFloorMask(3));
+        assertTrue(player1.getRoundActions().isEmpty());
+        assertFalse(player1.getRoundActions().hasMovedUp());
+        assertEquals(player1.getOccupiedMask() | player2.getOccupiedMask(), game.getOccupiedMask());
+        assertEquals(hash, game.positionHash(player1));
+
+        long dome = rules.makeAction(new Action(ActionType.DOME, Genre.MALE, Direction.S, 1).encode(), player1, game);
+        rules.undoAction(dome, player1, game);
+        assertEquals(domeMask, board.getDomeMask());
+        assertEquals(1, board.getCell(2, 2).getFloor());
+    }
+
+    @Test
+    public void hasAnyLegalAction_onlyMovesUpWithRestriction_lose() {
+        player1.getWorker(Genre.MALE).setPosition(board.getCell(0, 0));
+        player1.getWorker(Genre.FEMALE).setPosition(board.getCell(0, 1));
+        player2.getWorker(Genre.MALE).setPosition(board.getCell(1, 0));
+        player2.getWorker(Genre.FEMALE).setPosition(board.getCell(4, 4));
+        board.getCell(0, 2).addFloor();
+        board.getCell(1, 1).addFloor();
+        board.getCell(1, 2).addFloor();
+
+        assertTrue(rules.hasAnyLegalAction(player1, game, EnemyRules.NO_RESTRICTIONS));
+        assertFalse(rules.hasAnyLegalAction(player1, game, EnemyRules.NO_MOVE_UP));
+        assertTrue(EnemyRules.applyRestrictions(rules.nextPossibleActions(player1, game), EnemyRules.NO_MOVE_UP).hasLost());
+    }
+
+    @Test
+    public void hasAnyLegalAction_afterBuild_canEnd() {
+        player1.getWorker(Genre.MALE).setPosition(board.getCell(1, 2));
+        player1.getWorker(Genre.FEMALE).setPosition(board.getCell(3, 4));
+        player2.getWorker(Genre.MALE).setPosition(board.getCell(0, 2));
+        player2.getWorker(Genre.FEMALE).setPosition(board.getCell(0, 3));
+
+        player1.registerAction(new Action(ActionType.MOVE, Genre.MALE, Direction.S, 0));
+        assertTrue(rules.hasAnyLegalAction(player1, game, EnemyRules.NO_MOVE_UP));
+        player1.registerAction(new Action(ActionType.FLOOR, Genre.MALE, Direction.S, 0));
+        assertTrue(rules.hasAnyLegalAction(player1, game, EnemyRules.NO_MOVE_UP));
+    }
+}
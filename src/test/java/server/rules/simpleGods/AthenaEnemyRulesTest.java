@@ -147,4 +147,27 @@ public class AthenaEnemyRulesTest {
         expectedFixedActions.add(new Action(ActionType.END));
         assertEquals(expectedFixedActions, fixedActions);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void applyRestrictions_athenaMovedUp_movesUpRemovedFromBuffer() {
+        IntActionBuffer buffer = new IntActionBuffer();
+        buffer.add(ActionType.END);
+        buffer.add(new Action(ActionType.MOVE, Genre.FEMALE, Direction.SW, 1).encode());
+        buffer.add(new Action(ActionType.MOVE, Genre.FEMALE, Direction.S, 0).encode());
+        buffer.add(new Action(ActionType.MOVE, Genre.MALE, Direction.W, 2).encode());
+
+        assertEquals(EnemyRules.NO_RESTRICTIONS, enemyRules.getRestrictions(game, player1));
+        player1.registerAction(new Action(ActionType.MOVE, Genre.FEMALE, Direction.SW, 1));
+        int restrictions = enemyRules.getRestrictions(game, player1);
+        assertEquals(EnemyRules.NO_MOVE_UP, restrictions);
+
+        EnemyRules.applyRestrictions(buffer, 1, restrictions);
+        assertEquals(2, buffer.size());
+        assertEquals(new Action(ActionType.MOVE, Genre.FEMALE, Direction.S, 0).encode(), buffer.get(1));
+
+        buffer.truncate(1);
+        buffer.add(new Action(ActionType.MOVE, Genre.MALE, Direction.W, 2).encode());
+        EnemyRules.applyRestrictions(buffer, 1, restrictions);
+        assertEquals(ActionType.LOSE, Action.typeOf(buffer.get(1)));
+    }
+}
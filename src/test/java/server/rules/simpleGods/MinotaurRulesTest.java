@@ -464,4 +464,24 @@ public class MinotaurRulesTest {
         assertEquals(player2.getWorker(Genre.FEMALE).getPosition(), board.getCell(1, 3));
         assertEquals(player1.getWorker(Genre.MALE).getPosition(), board.getCell(2, 3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void undoAction_minotaurMove_enemyRestored() {
+        player1.getWorker(Genre.MALE).setPosition(board.getCell(1, 2));
+        player1.getWorker(Genre.FEMALE).setPosition(board.getCell(3, 4));
+        player2.getWorker(Genre.MALE).setPosition(board.getCell(2, 2));
+        player2.getWorker(Genre.FEMALE).setPosition(board.getCell(0, 3));
+        int occupiedMask = game.getOccupiedMask();
+
+        long record = rules.makeAction(new Action(ActionType.MOVE, Genre.MALE, Direction.S, 0).encode(), player1, game);
+        assertEquals(board.getCell(2, 2), player1.getWorker(Genre.MALE).getPosition());
+        assertEquals(board.getCell(3, 2), player2.getWorker(Genre.MALE).getPosition());
+
+        rules.undoAction(record, player1, game);
+        assertEquals(board.getCell(1, 2), player1.getWorker(Genre.MALE).getPosition());
+        assertEquals(board.getCell(2, 2), player2.getWorker(Genre.MALE).getPosition());
+        assertSame(player2.getWorker(Genre.MALE), game.getOccupant(board.getCell(2, 2)));
+        assertEquals(occupiedMask, game.getOccupiedMask());
+        assertTrue(player1.getRoundActions().isEmpty());
+    }
+}
@@ -60,4 +60,16 @@ public class ActionTest {
         action.setLevelDifference(level);
         assertEquals(level, action.getLevelDifference());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void encode_decode_sameAction() {
+        Action buildAction = new Action(ActionType.FLOOR, Genre.FEMALE, Direction.SW, -3);
+        Action endAction = new Action(ActionType.END);
+
+        assertEquals(action, Action.decode(action.encode()));
+        assertEquals(buildAction, Action.decode(buildAction.encode()));
+        assertEquals(endAction, Action.decode(endAction.encode()));
+        assertEquals(Direction.SW, Action.directionOf(buildAction.encode()));
+        assertEquals(-3, Action.levelDifferenceOf(buildAction.encode()));
+    }
+}
@@ -0,0 +1,54 @@
+package util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntActionBufferTest {
+    private IntActionBuffer buffer;
+
+    @Before
+    public void setUp() {
+        buffer = new IntActionBuffer(2);
+    }
+
+    @Test
+    public void add_overCapacity_keepsAllActions() {
+        Action move = new Action(ActionType.MOVE, Genre.MALE, Direction.N, 1);
+        Action build = new Action(ActionType.FLOOR, Genre.MALE, Direction.S, 0);
+        buffer.add(move.encode());
+        buffer.add(build.encode());
+        buffer.add(ActionType.END);
+
+        assertEquals(3, buffer.size());
+        assertEquals(move, Action.decode(buffer.get(0)));
+        assertEquals(new Action(ActionType.END), Action.decode(buffer.get(2)));
+    }
+
+    @Test
+    public void clearAndTruncate_removeActions() {
+        buffer.add(ActionType.END);
+        buffer.add(ActionType.LOSE);
+        buffer.truncate(1);
+        assertEquals(1, buffer.size());
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void toRoundActions_getEquivalentRoundActions() {
+        buffer.add(new Action(ActionType.DOME, Genre.FEMALE, Direction.E, 3).encode());
+        buffer.add(ActionType.END);
+
+        RoundActions expected = new RoundActions();
+        expected.add(new Action(ActionType.DOME, Genre.FEMALE, Direction.E, 3));
+        expected.add(new Action(ActionType.END));
+        assertEquals(expected, buffer.toRoundActions());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outOfBounds_exception() {
+        buffer.get(0);
+    }
+}
@@ -140,4 +140,39 @@ public class RoundActionsTest {
         roundActions.add(endAction);
         assertTrue(roundActions.mustEnd());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void addCode_sameActions_containsAndGetCode() {
+        RoundActions roundActions = new RoundActions();
+        Action moveUp = new Action(ActionType.MOVE, Genre.MALE, Direction.N, 1);
+        Action build = new Action(ActionType.FLOOR, Genre.MALE, Direction.S, -1);
+        roundActions.add(moveUp.encode());
+        roundActions.add(build);
+
+        assertEquals(2, roundActions.size());
+        assertEquals(moveUp.encode(), roundActions.getCode(0));
+        assertEquals(build, roundActions.get(1));
+        assertTrue(roundActions.contains(moveUp.encode()));
+        assertFalse(roundActions.contains(new Action(ActionType.MOVE, Genre.MALE, Direction.N, 0).encode()));
+        assertEquals(moveUp, roundActions.find(ActionType.MOVE, Genre.MALE, Direction.N));
+        assertNull(roundActions.find(ActionType.MOVE, Genre.FEMALE, Direction.N));
+        assertTrue(roundActions.findGenre(ActionType.FLOOR, Genre.MALE));
+        assertFalse(roundActions.findGenre(ActionType.FLOOR, Genre.FEMALE));
+        assertTrue(roundActions.hasMovedUp());
+    }
+
+    @Test
+    public void equals_differentOrder_sameRoundActions() {
+        RoundActions roundActions = new RoundActions();
+        RoundActions otherRoundActions = new RoundActions();
+        Action move = new Action(ActionType.MOVE, Genre.FEMALE, Direction.E, 0);
+        Action dome = new Action(ActionType.DOME, Genre.FEMALE, Direction.W, 2);
+        roundActions.add(move);
+        roundActions.add(dome);
+        otherRoundActions.add(dome);
+        assertNotEquals(roundActions, otherRoundActions);
+
+        otherRoundActions.add(move);
+        assertEquals(roundActions, otherRoundActions);
+    }
+}
@@ -0,0 +1,57 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    @Test
+    public void schedule_delaysLongerThanWheel_runInOrderAfterDelay() throws Exception {
+        TimingWheel wheel = new TimingWheel("Test wheel", 10, 4);
+        try {
+            CountDownLatch done = new CountDownLatch(2);
+            AtomicInteger order = new AtomicInteger();
+            int[] runs = new int[2];
+            long start = System.nanoTime();
+            wheel.schedule(() -> {
+                runs[1] = order.incrementAndGet();
+                done.countDown();
+            }, 150);
+            wheel.schedule(() -> {
+                runs[0] = order.incrementAndGet();
+                done.countDown();
+            }, 30);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+            assertEquals(1, runs[0]);
+            assertEquals(2, runs[1]);
+            assertEquals(0, wheel.getPendingTimeouts());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void cancel_pendingTimeout_neverRuns() throws Exception {
+        TimingWheel wheel = new TimingWheel("Test wheel", 10, 8);
+        try {
+            AtomicInteger runs = new AtomicInteger();
+            TimingWheel.Timeout cancelled = wheel.schedule(runs::incrementAndGet, 50);
+            CountDownLatch done = new CountDownLatch(1);
+            wheel.schedule(done::countDown, 100);
+
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, runs.get());
+        } finally {
+            wheel.stop();
+        }
+    }
+}